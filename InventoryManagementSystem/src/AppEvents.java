@@ -0,0 +1,148 @@
+// AppEvents.java
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+import java.io.File;
+
+/**
+ * Custom Java Flight Recorder events for the business operations, so a recording shows sales,
+ * receiving, returns, file I/O and reports next to GC pauses, I/O and thread events.
+ * All events are duration events (begin/end are taken from the surrounding call) and are grouped
+ * under "Inventory Management System" in JDK Mission Control.
+ *
+ * When no recording is running, begin()/end()/shouldCommit() are close to free and the extra fields
+ * (file sizes, row counts) are only computed if the event is actually going to be written.
+ * Start a recording with e.g. -XX:StartFlightRecording=filename=ims.jfr or "jcmd &lt;pid&gt; JFR.start".
+ */
+public final class AppEvents {
+
+    private static final String CATEGORY = "Inventory Management System";
+
+    private AppEvents() {}
+
+    @Name("ims.SaleFinalized")
+    @Label("Sale Finalized")
+    @Category(CATEGORY)
+    @StackTrace(false)
+    public static final class SaleFinalizedEvent extends Event {
+        @Label("Sale ID")
+        public String saleId;
+
+        @Label("Line Count")
+        public int lineCount;
+
+        @Label("Success")
+        public boolean success;
+    }
+
+    @Name("ims.OrderItemReceived")
+    @Label("PO Item Received")
+    @Category(CATEGORY)
+    @StackTrace(false)
+    public static final class OrderItemReceivedEvent extends Event {
+        @Label("Order ID")
+        public String orderId;
+
+        @Label("SKU")
+        public String sku;
+
+        @Label("Quantity")
+        public int quantity;
+
+        @Label("Success")
+        public boolean success;
+    }
+
+    @Name("ims.ReceiptProcessed")
+    @Label("Receiving Document Processed")
+    @Description("One receiving document applied in a single pass; it may span several POs")
+    @Category(CATEGORY)
+    @StackTrace(false)
+    public static final class ReceiptProcessedEvent extends Event {
+        @Label("Line Count")
+        public int lineCount;
+
+        @Label("PO Count")
+        public int orderCount;
+
+        @Label("Success")
+        public boolean success;
+    }
+
+    @Name("ims.ReturnProcessed")
+    @Label("Sales Return Processed")
+    @Category(CATEGORY)
+    @StackTrace(false)
+    public static final class ReturnProcessedEvent extends Event {
+        @Label("Return ID")
+        public String returnId;
+
+        @Label("Line Count")
+        public int lineCount;
+
+        @Label("Success")
+        public boolean success;
+    }
+
+    @Name("ims.FileIO")
+    @Label("Data File Load/Save")
+    @Description("Loading or saving one of the CSV data sets")
+    @Category(CATEGORY)
+    @StackTrace(false)
+    public static final class FileIoEvent extends Event {
+        @Label("Operation")
+        public String operation;
+
+        @Label("Data Set")
+        public String dataSet;
+
+        @Label("Path")
+        public String path;
+
+        @Label("Bytes")
+        @DataAmount
+        public long bytes;
+
+        @Label("Rows")
+        public long rows;
+
+        public FileIoEvent(String operation, String dataSet) {
+            this.operation = operation;
+            this.dataSet = dataSet;
+        }
+
+        /**
+         * Ends the event and writes it if a recording wants it. Bytes are the total size of the given
+         * files after the operation; nothing is stat'ed when the event is not recorded.
+         */
+        public void finish(long rows, String... paths) {
+            end();
+            if (!shouldCommit()) return;
+            this.rows = rows;
+            this.path = String.join(";", paths);
+            long total = 0;
+            for (String p : paths) {
+                total += new File(p).length(); // 0 if missing
+            }
+            this.bytes = total;
+            commit();
+        }
+    }
+
+    @Name("ims.ReportGenerated")
+    @Label("Report Generated")
+    @Category(CATEGORY)
+    @StackTrace(false)
+    public static final class ReportGeneratedEvent extends Event {
+        @Label("Report")
+        public String report;
+
+        @Label("Rows")
+        public int rows;
+    }
+}
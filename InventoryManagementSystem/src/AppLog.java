@@ -0,0 +1,165 @@
+// AppLog.java
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Leveled, asynchronous logger for the managers and domain classes.
+ * Callers put the message into a ring buffer (one CAS, no lock, no console I/O) and a single daemon
+ * thread writes it out: DEBUG/INFO to System.out, WARN/ERROR to System.err, in the order logged.
+ * Messages below the level set with -Dapplog.level=DEBUG|INFO|WARN|ERROR (default INFO) are dropped
+ * before anything is queued; guard expensive messages with {@link #isDebugEnabled()} so the string
+ * is not even built.
+ *
+ * If the buffer is full, DEBUG and INFO messages are dropped (and counted); WARN and ERROR wait for space.
+ */
+public final class AppLog {
+
+    public enum Level { DEBUG, INFO, WARN, ERROR }
+
+    public static final String LEVEL_PROPERTY = "applog.level";
+    private static final int CAPACITY = 8192; // must be a power of two
+
+    private static final class Slot {
+        Level level;
+        String message;
+        Throwable error;
+    }
+
+    private static volatile Level threshold = parseLevel(System.getProperty(LEVEL_PROPERTY), Level.INFO);
+
+    private static final Slot[] ring = new Slot[CAPACITY];
+    private static final int mask = CAPACITY - 1;
+    private static final AtomicLong claimSequence = new AtomicLong(-1);     // last sequence handed to a producer
+    private static final AtomicLongArray publishedSequence = new AtomicLongArray(CAPACITY);
+    private static volatile long consumedSequence = -1;                      // last sequence written out
+    private static final AtomicLong dropped = new AtomicLong();
+    private static final PrintStream out = System.out;
+    private static final PrintStream err = System.err;
+    private static final Thread writerThread;
+
+    static {
+        for (int i = 0; i < CAPACITY; i++) {
+            ring[i] = new Slot();
+            publishedSequence.set(i, -1);
+        }
+        writerThread = new Thread(AppLog::runWriter, "app-log-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(AppLog::flush, "app-log-flush"));
+    }
+
+    private AppLog() {}
+
+    public static void setLevel(Level level) {
+        threshold = level;
+    }
+
+    public static Level getLevel() {
+        return threshold;
+    }
+
+    public static boolean isEnabled(Level level) {
+        return level.ordinal() >= threshold.ordinal();
+    }
+
+    public static boolean isDebugEnabled() {
+        return isEnabled(Level.DEBUG);
+    }
+
+    public static void debug(String message) { log(Level.DEBUG, message, null); }
+    public static void info(String message) { log(Level.INFO, message, null); }
+    public static void warn(String message) { log(Level.WARN, message, null); }
+    public static void error(String message) { log(Level.ERROR, message, null); }
+    public static void error(String message, Throwable error) { log(Level.ERROR, message, error); }
+
+    /** Number of DEBUG/INFO messages dropped because the buffer was full. */
+    public static long getDroppedCount() {
+        return dropped.get();
+    }
+
+    public static void log(Level level, String message, Throwable error) {
+        if (!isEnabled(level)) return;
+        boolean mayDrop = level.ordinal() < Level.WARN.ordinal();
+        long sequence;
+        while (true) {
+            long current = claimSequence.get();
+            long next = current + 1;
+            if (next - CAPACITY > consumedSequence) {
+                if (mayDrop) {
+                    dropped.incrementAndGet();
+                    return;
+                }
+                LockSupport.parkNanos(10_000L); // Buffer full: wait for the writer to free a slot
+                continue;
+            }
+            if (claimSequence.compareAndSet(current, next)) {
+                sequence = next;
+                break;
+            }
+        }
+        int index = (int) (sequence & mask);
+        Slot slot = ring[index];
+        slot.level = level;
+        slot.message = message;
+        slot.error = error;
+        publishedSequence.set(index, sequence); // Volatile write publishes the slot fields
+        LockSupport.unpark(writerThread);
+    }
+
+    /** Waits (up to 5 s) until everything logged so far has been written. */
+    public static void flush() {
+        long target = claimSequence.get();
+        long deadline = System.nanoTime() + 5_000_000_000L;
+        while (consumedSequence < target && System.nanoTime() < deadline) {
+            LockSupport.unpark(writerThread);
+            LockSupport.parkNanos(100_000L);
+        }
+    }
+
+    private static void runWriter() {
+        long next = 0;
+        boolean wroteOut = false, wroteErr = false;
+        while (true) {
+            int index = (int) (next & mask);
+            if (publishedSequence.get(index) != next) {
+                // End of batch
+                if (wroteOut) out.flush();
+                if (wroteErr) err.flush();
+                wroteOut = wroteErr = false;
+                LockSupport.park(); // log() unparks after publishing; spurious wake-ups just loop
+                continue;
+            }
+            Slot slot = ring[index];
+            Level level = slot.level;
+            String message = slot.message;
+            Throwable error = slot.error;
+            slot.message = null;
+            slot.error = null;
+
+            PrintStream target = (level.ordinal() >= Level.WARN.ordinal()) ? err : out;
+            target.println(message);
+            if (error != null) {
+                StringWriter trace = new StringWriter();
+                error.printStackTrace(new PrintWriter(trace));
+                target.print(trace);
+            }
+            if (target == out) wroteOut = true; else wroteErr = true;
+            consumedSequence = next; // Written: frees the slot and lets flush() return
+            next++;
+        }
+    }
+
+    private static Level parseLevel(String value, Level defaultLevel) {
+        if (value == null) return defaultLevel;
+        try {
+            return Level.valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            System.err.println("AppLog: unknown level '" + value + "', using " + defaultLevel);
+            return defaultLevel;
+        }
+    }
+}
@@ -208,7 +208,7 @@ public class CreateSalesReturnWindow extends JDialog {
         originalSaleItemsTableModel.setRowCount(0); // Clear existing rows
         if (originalSale == null) return;
 
-        for (Sale.SaleItem si : originalSale.getItemsSold()) {
+        for (Sale.SaleItem si : originalSale.getItemsSoldView()) {
             originalSaleItemsTableModel.addRow(new Object[]{
                     si.getSku(),
                     si.getItemName(),
@@ -232,12 +232,12 @@ public class CreateSalesReturnWindow extends JDialog {
                 String name = (String) originalSaleItemsTableModel.getValueAt(i, 1);
                 int soldQty = (Integer) originalSaleItemsTableModel.getValueAt(i, 2);
 
-                Sale.SaleItem originalSaleItem = originalSale.getItemsSold().stream()
+                Sale.SaleItem originalSaleItem = originalSale.getItemsSoldView().stream()
                         .filter(si -> si.getSku().equals(sku) && si.getQuantitySold() == soldQty) // More precise match if SKU could repeat in a sale (unlikely here)
                         .findFirst().orElse(null);
 
                 if (originalSaleItem == null) { // Fallback if exact quantity match fails but SKU exists
-                    originalSaleItem = originalSale.getItemsSold().stream()
+                    originalSaleItem = originalSale.getItemsSoldView().stream()
                             .filter(si -> si.getSku().equals(sku))
                             .findFirst().orElse(null);
                 }
@@ -0,0 +1,192 @@
+// DiagnosticsWindow.java
+import javax.swing.*;
+import javax.swing.table.DefaultTableModel;
+import java.awt.*;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Shows the values in {@link MetricsRegistry}: latency histograms (count, mean, p50/p99/p99.9, max),
+ * counters and gauges. Refreshes every second while open. The same values are available over JMX.
+ * The Memory tab shows a {@link MemoryReport} (heap per manager and per entity type, duplicated Strings),
+ * computed in the background when asked for, since it walks every object the managers hold.
+ */
+public class DiagnosticsWindow extends JDialog {
+    private static final int REFRESH_INTERVAL_MS = 1000;
+
+    private DefaultTableModel latencyTableModel;
+    private DefaultTableModel valuesTableModel;
+    private DefaultTableModel memoryManagersTableModel;
+    private DefaultTableModel memoryTypesTableModel;
+    private DefaultTableModel duplicateStringsTableModel;
+    private JLabel memorySummaryLabel;
+    private JButton resetButton, closeButton, computeMemoryButton;
+    private Timer refreshTimer;
+
+    public DiagnosticsWindow(Frame owner) {
+        super(owner, "Diagnostics", false); // Not modal: can stay open while working
+        initComponents();
+        layoutComponents();
+        attachEventHandlers();
+        refresh();
+        refreshTimer.start();
+
+        setSize(900, 550);
+        setLocationRelativeTo(owner);
+    }
+
+    private void initComponents() {
+        String[] latencyColumns = {"Operation", "Count", "Mean (ms)", "p50 (ms)", "p99 (ms)", "p99.9 (ms)", "Max (ms)"};
+        latencyTableModel = new DefaultTableModel(latencyColumns, 0) {
+            @Override public boolean isCellEditable(int row, int col) { return false; }
+        };
+        String[] valueColumns = {"Counter / Gauge", "Value"};
+        valuesTableModel = new DefaultTableModel(valueColumns, 0) {
+            @Override public boolean isCellEditable(int row, int col) { return false; }
+        };
+        memoryManagersTableModel = readOnlyModel("Manager", "Estimated Size", "Objects");
+        memoryTypesTableModel = readOnlyModel("Type", "Estimated Size", "Objects");
+        duplicateStringsTableModel = readOnlyModel("Duplicated String", "Copies", "Wasted");
+        memorySummaryLabel = new JLabel("Not computed yet.");
+        computeMemoryButton = new JButton("Compute Memory Report");
+        resetButton = new JButton("Reset Latencies");
+        closeButton = new JButton("Close");
+        refreshTimer = new Timer(REFRESH_INTERVAL_MS, e -> refresh());
+    }
+
+    private void layoutComponents() {
+        setLayout(new BorderLayout(5, 5));
+        JScrollPane latencyScrollPane = new JScrollPane(new JTable(latencyTableModel));
+        latencyScrollPane.setBorder(BorderFactory.createTitledBorder("Latencies"));
+        JScrollPane valuesScrollPane = titledScrollPane(new JTable(valuesTableModel), "Counters and Gauges");
+        JSplitPane splitPane = new JSplitPane(JSplitPane.VERTICAL_SPLIT, latencyScrollPane, valuesScrollPane);
+        splitPane.setResizeWeight(0.65);
+
+        JPanel memoryPanel = new JPanel(new BorderLayout(5, 5));
+        JPanel memoryTopPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        memoryTopPanel.add(computeMemoryButton);
+        memoryTopPanel.add(memorySummaryLabel);
+        memoryPanel.add(memoryTopPanel, BorderLayout.NORTH);
+        JSplitPane sizesPane = new JSplitPane(JSplitPane.HORIZONTAL_SPLIT,
+                titledScrollPane(new JTable(memoryManagersTableModel), "By Manager"),
+                titledScrollPane(new JTable(memoryTypesTableModel), "By Type"));
+        sizesPane.setResizeWeight(0.4);
+        JSplitPane memorySplitPane = new JSplitPane(JSplitPane.VERTICAL_SPLIT, sizesPane,
+                titledScrollPane(new JTable(duplicateStringsTableModel), "Most Duplicated Strings"));
+        memorySplitPane.setResizeWeight(0.6);
+        memoryPanel.add(memorySplitPane, BorderLayout.CENTER);
+
+        JTabbedPane tabs = new JTabbedPane();
+        tabs.addTab("Metrics", splitPane);
+        tabs.addTab("Memory", memoryPanel);
+        add(tabs, BorderLayout.CENTER);
+
+        JPanel bottomPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT));
+        bottomPanel.add(new JLabel("JMX domain: " + MetricsRegistry.JMX_DOMAIN + "   "));
+        bottomPanel.add(resetButton);
+        bottomPanel.add(closeButton);
+        add(bottomPanel, BorderLayout.SOUTH);
+    }
+
+    private void attachEventHandlers() {
+        resetButton.addActionListener(e -> {
+            for (MetricsRegistry.LatencyHistogram histogram : MetricsRegistry.getHistograms()) {
+                histogram.reset();
+            }
+            refresh();
+        });
+        computeMemoryButton.addActionListener(e -> computeMemoryReport());
+        closeButton.addActionListener(e -> dispose());
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosed(WindowEvent e) {
+                refreshTimer.stop();
+            }
+        });
+    }
+
+    private void refresh() {
+        List<MetricsRegistry.LatencyHistogram> histograms = MetricsRegistry.getHistograms();
+        histograms.sort(Comparator.comparing(MetricsRegistry.LatencyHistogram::getName));
+        latencyTableModel.setRowCount(0);
+        for (MetricsRegistry.LatencyHistogram h : histograms) {
+            latencyTableModel.addRow(new Object[]{
+                    h.getName(), h.getCount(), millis(h.getMeanMillis()), millis(h.getP50Millis()),
+                    millis(h.getP99Millis()), millis(h.getP999Millis()), millis(h.getMaxMillis())
+            });
+        }
+
+        valuesTableModel.setRowCount(0);
+        List<MetricsRegistry.Counter> counters = MetricsRegistry.getCounters();
+        counters.sort(Comparator.comparing(MetricsRegistry.Counter::getName));
+        for (MetricsRegistry.Counter c : counters) {
+            valuesTableModel.addRow(new Object[]{c.getName(), c.getCount()});
+        }
+        List<MetricsRegistry.Gauge> gauges = MetricsRegistry.getGauges();
+        gauges.sort(Comparator.comparing(MetricsRegistry.Gauge::getName));
+        for (MetricsRegistry.Gauge g : gauges) {
+            valuesTableModel.addRow(new Object[]{g.getName(), g.getValue()});
+        }
+    }
+
+    private void computeMemoryReport() {
+        computeMemoryButton.setEnabled(false);
+        memorySummaryLabel.setText("Walking the managers' objects...");
+        new SwingWorker<MemoryReport, Void>() {
+            @Override
+            protected MemoryReport doInBackground() {
+                return MemoryReport.refreshInstalled();
+            }
+
+            @Override
+            protected void done() {
+                computeMemoryButton.setEnabled(true);
+                try {
+                    showMemoryReport(get());
+                } catch (InterruptedException | ExecutionException ex) {
+                    memorySummaryLabel.setText("Memory report failed: " + ex.getMessage());
+                }
+            }
+        }.execute();
+    }
+
+    private void showMemoryReport(MemoryReport report) {
+        memorySummaryLabel.setText(String.format(Locale.US, "Total %s; Strings %s (%d objects, %d distinct), %s duplicated. Computed in %d ms.",
+                MemoryReport.formatBytes(report.getTotalBytes()), MemoryReport.formatBytes(report.getStringBytes()),
+                report.getStringCount(), report.getDistinctStrings(),
+                MemoryReport.formatBytes(report.getDuplicateStringBytes()), report.getComputeMillis()));
+        memoryManagersTableModel.setRowCount(0);
+        for (MemoryReport.Usage usage : report.getManagers()) {
+            memoryManagersTableModel.addRow(new Object[]{usage.getName(), MemoryReport.formatBytes(usage.getBytes()), usage.getObjects()});
+        }
+        memoryTypesTableModel.setRowCount(0);
+        for (MemoryReport.Usage usage : report.getTypes()) {
+            memoryTypesTableModel.addRow(new Object[]{usage.getName(), MemoryReport.formatBytes(usage.getBytes()), usage.getObjects()});
+        }
+        duplicateStringsTableModel.setRowCount(0);
+        for (MemoryReport.DuplicateString duplicate : report.getTopDuplicates()) {
+            duplicateStringsTableModel.addRow(new Object[]{MemoryReport.abbreviate(duplicate.getValue(), 60),
+                    duplicate.getCopies(), MemoryReport.formatBytes(duplicate.getWastedBytes())});
+        }
+    }
+
+    private static DefaultTableModel readOnlyModel(String... columns) {
+        return new DefaultTableModel(columns, 0) {
+            @Override public boolean isCellEditable(int row, int col) { return false; }
+        };
+    }
+
+    private static JScrollPane titledScrollPane(JTable table, String title) {
+        JScrollPane scrollPane = new JScrollPane(table);
+        scrollPane.setBorder(BorderFactory.createTitledBorder(title));
+        return scrollPane;
+    }
+
+    private static String millis(double value) {
+        return String.format(Locale.US, "%.3f", value);
+    }
+}
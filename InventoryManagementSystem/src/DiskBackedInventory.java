@@ -0,0 +1,488 @@
+// DiskBackedInventory.java
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Inventory for catalogs with too many SKUs to keep in memory; chosen with -Dinventory.store=disk
+ * (see {@link Inventory#open()}). Items live in an {@link ItemDiskStore} (data/items.db) and a bounded
+ * {@link SegmentedLruCache} (-Dinventory.cacheSize, default 10000) keeps the hot SKUs as Item objects.
+ *
+ * getItem and every change go through the cache; changes are written through to the store before the
+ * call returns. Changes are made one at a time under a single lock, so the all-or-nothing rules of
+ * adjustQuantities hold as in the in-memory Inventory. Search, reports and getAllItems read the store
+ * sequentially and do not pull the SKUs they pass into the cache.
+ *
+ * Differences from the in-memory Inventory: itemMap() holds only the cached items (isItemMapComplete() is
+ * false, so the main window shows getFirstItems and searches with searchItems), the stock mutation
+ * sequencer is not used (writes are already serialized here), and items.csv is only imported while the
+ * store is empty - after that data/items.db is the master copy and saveItemsToFile exports to the CSV.
+ */
+public class DiskBackedInventory extends Inventory {
+    public static final String DEFAULT_STORE_PATH = DATA_DIRECTORY + "items.db";
+    public static final String CACHE_SIZE_PROPERTY = "inventory.cacheSize";
+    private static final int DEFAULT_CACHE_SIZE = 10_000;
+
+    private final ItemDiskStore store;
+    private final SegmentedLruCache<String, Item> cache;
+    private final Object writeLock = new Object();
+    // Seqlock for snapshot(): odd while a change is being written to the store, so a scan made without
+    // writeLock can tell whether it overlapped one. Only written under writeLock.
+    private volatile long writeSequence = 0;
+    private int changeDepth = 0; // Guarded by writeLock; nested changes bump writeSequence once
+    private static final int OPTIMISTIC_SNAPSHOT_ATTEMPTS = 4;
+    private final Object snapshotLock = new Object(); // Between snapshot() callers only
+    private InventorySnapshot lastSnapshot;
+    private long lastSnapshotSequence = -1;
+
+    public DiskBackedInventory() {
+        this(DEFAULT_STORE_PATH, Integer.getInteger(CACHE_SIZE_PROPERTY, DEFAULT_CACHE_SIZE));
+    }
+
+    public DiskBackedInventory(String storePath, int cacheSize) {
+        super(false);
+        try {
+            this.store = new ItemDiskStore(storePath);
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot open item store " + storePath + ": " + e.getMessage(), e);
+        }
+        this.cache = new SegmentedLruCache<>(Math.max(2, cacheSize));
+        loadItemsFromFile(DEFAULT_ITEMS_FILE_PATH);
+        MetricsRegistry.gauge("inventory.items", store::size);
+        MetricsRegistry.gauge("inventory.cache.size", cache::size);
+        MetricsRegistry.gauge("inventory.cache.hits", cache::getHits);
+        MetricsRegistry.gauge("inventory.cache.misses", cache::getMisses);
+        MetricsRegistry.gauge("inventory.cache.evictions", cache::getEvictions);
+        MetricsRegistry.gauge("inventory.cache.hitRatePermille", () -> Math.round(cache.getHitRate() * 1000));
+        if (Boolean.getBoolean(StockMutationSequencer.ENABLE_PROPERTY)) {
+            enableSequencer();
+        }
+        AppLog.info("Disk-backed inventory: " + store.size() + " items in " + store.getPath() + ", cache of " + cache.capacity() + " items.");
+    }
+
+    public SegmentedLruCache<String, Item> getCache() {
+        return cache;
+    }
+
+    @Override
+    public void enableSequencer() {
+        AppLog.info("Disk-backed inventory: stock changes are already serialized; the stock mutation sequencer is not used.");
+    }
+
+    /** Imports the CSV into the store, but only while the store is still empty. */
+    @Override
+    public void loadItemsFromFile(String filePath) {
+        if (store.size() > 0) {
+            return;
+        }
+        StartupProfiler.Phase startupPhase = StartupProfiler.begin("items import");
+        long startNanos = System.nanoTime();
+        AppEvents.FileIoEvent event = new AppEvents.FileIoEvent("load", "items");
+        event.begin();
+        try {
+            importCsv(filePath);
+        } finally {
+            MetricsRegistry.histogram("file.load.items").recordSince(startNanos);
+            event.finish(store.size(), filePath, store.getPath());
+            startupPhase.end(store.size());
+        }
+    }
+
+    // Streams the CSV into the store line by line, so the import does not need the whole catalog in memory
+    private void importCsv(String filePath) {
+        File file = new File(filePath);
+        if (!file.exists()) {
+            AppLog.info("Items file not found: " + filePath + ". Starting with an empty item store.");
+            return;
+        }
+        int imported = 0;
+        try (BufferedReader br = new BufferedReader(new FileReader(file))) {
+            String header = br.readLine();
+            if (header != null && !header.trim().equalsIgnoreCase(CSV_HEADER)) {
+                AppLog.warn("Warning: Items CSV file header mismatch. Got: '" + header.trim() + "'. Attempting to parse anyway.");
+            }
+            String line;
+            synchronized (writeLock) {
+                beginChange();
+                try {
+                    while (header != null && (line = br.readLine()) != null) {
+                        if (line.trim().isEmpty()) continue;
+                        Item item = Item.fromCsvString(line);
+                        if (item != null && store.put(item)) {
+                            imported++;
+                        }
+                    }
+                    store.force();
+                } finally {
+                    endChange();
+                }
+            }
+        } catch (IOException e) {
+            AppLog.error("Error importing items from file " + filePath + ": " + e.getMessage(), e);
+        }
+        AppLog.info(imported + " items imported from " + filePath + " into " + store.getPath());
+    }
+
+    /** Syncs the store (compacting it once old versions outweigh live data) and exports it to the CSV. */
+    @Override
+    public void saveItemsToFile(String filePath) {
+        long startNanos = System.nanoTime();
+        AppEvents.FileIoEvent event = new AppEvents.FileIoEvent("save", "items");
+        event.begin();
+        int[] written = {0};
+        try {
+            synchronized (writeLock) {
+                store.force();
+                if (store.fileBytes() > 2 * store.liveBytes()) {
+                    store.compact();
+                }
+            }
+            File file = new File(filePath);
+            File parentDir = file.getParentFile();
+            if (parentDir != null && !parentDir.exists() && !parentDir.mkdirs()) {
+                AppLog.warn("Could not create directory: " + parentDir.getPath());
+                return;
+            }
+            try (PrintWriter out = new PrintWriter(new BufferedWriter(new FileWriter(file)))) {
+                out.println(CSV_HEADER);
+                store.forEach(item -> {
+                    out.println(item.toCsvString());
+                    written[0]++;
+                });
+                AppLog.info(written[0] + " items saved successfully to " + filePath);
+            } catch (IOException e) {
+                AppLog.error("Error saving items to file " + filePath + ": " + e.getMessage(), e);
+            }
+        } finally {
+            MetricsRegistry.histogram("file.save.items").recordSince(startNanos);
+            event.finish(written[0], filePath, store.getPath());
+        }
+    }
+
+    @Override
+    public void addItem(Item item) {
+        if (item == null || item.getSku() == null || item.getSku().isEmpty()) {
+            AppLog.warn("Error: Item or SKU cannot be null or empty. Item not added.");
+            return;
+        }
+        boolean added;
+        synchronized (writeLock) {
+            beginChange();
+            try {
+                added = !store.contains(item.getSku()) && store.put(item);
+                if (added) {
+                    cache.put(item.getSku(), item);
+                }
+            } finally {
+                endChange();
+            }
+        }
+        if (!added) {
+            AppLog.warn("Error: Item with SKU " + item.getSku() + " already exists or could not be stored. Use updateItemDetails() and adjustQuantity() to modify.");
+        } else {
+            if (AppLog.isDebugEnabled()) AppLog.debug("Item " + item.getName() + " (SKU: " + item.getSku() + ") added to inventory.");
+            fireItemChanged(item.getSku(), ChangeType.ADDED);
+        }
+    }
+
+    @Override
+    public boolean removeItem(String sku) {
+        if (sku == null || sku.isEmpty()) {
+            AppLog.warn("Error: SKU cannot be null or empty.");
+            return false;
+        }
+        boolean removed;
+        synchronized (writeLock) {
+            beginChange();
+            try {
+                removed = store.remove(sku);
+                if (removed) {
+                    cache.invalidate(sku);
+                }
+            } finally {
+                endChange();
+            }
+        }
+        if (removed) {
+            AppLog.info("Item (SKU: " + sku + ") removed from inventory.");
+            fireItemChanged(sku, ChangeType.REMOVED);
+            return true;
+        } else {
+            AppLog.warn("Error: Item with SKU " + sku + " not found. Nothing removed.");
+            return false;
+        }
+    }
+
+    @Override
+    public boolean updateItemDetails(String sku, long expectedVersion, String name, String category, double price, String supplier, String status) {
+        long currentVersion;
+        synchronized (writeLock) {
+            Item existing = (sku == null) ? null : loadForWrite(sku);
+            if (existing == null) {
+                AppLog.warn("Error: Item with SKU " + sku + " not found. Cannot update.");
+                return false;
+            }
+            if (!existing.compareAndSetDetails(expectedVersion, name, category, price, supplier, status)) {
+                AppLog.warn("Error: Item (SKU: " + sku + ") was changed by someone else (expected version " + expectedVersion +
+                        ", current " + existing.getVersion() + "). Not updated.");
+                return false;
+            }
+            writeThrough(existing);
+            currentVersion = existing.getVersion();
+        }
+        AppLog.info("Item (SKU: " + sku + ") details updated to version " + currentVersion + ".");
+        fireItemChanged(sku, ChangeType.UPDATED);
+        return true;
+    }
+
+    @Override
+    public boolean adjustQuantities(Map<String, Integer> deltas, String source) {
+        if (deltas == null || deltas.isEmpty()) {
+            return true;
+        }
+        boolean applied;
+        synchronized (writeLock) {
+            beginChange(); // One change for snapshot(), however many SKUs it writes
+            try {
+                applied = tryApplyQuantityChanges(deltas);
+            } finally {
+                endChange();
+            }
+        }
+        if (!applied) {
+            AppLog.warn("Error: Stock adjustment rejected (" + source + "): " + deltas + ". Unknown SKU or not enough stock. Nothing changed.");
+            return false;
+        }
+        for (String sku : deltas.keySet()) {
+            fireItemChanged(sku, ChangeType.UPDATED);
+        }
+        return true;
+    }
+
+    // 全有或全无：先检查所有 SKU 都存在且库存足够，再修改并写入磁盘 (持有 writeLock)
+    private boolean tryApplyQuantityChanges(Map<String, Integer> deltas) {
+        List<Item> resolved = new ArrayList<>(deltas.size());
+        for (String sku : deltas.keySet()) {
+            Item item = loadForWrite(sku);
+            if (item == null) {
+                return false;
+            }
+            resolved.add(item);
+        }
+        int i = 0;
+        for (Integer delta : deltas.values()) {
+            Item item = resolved.get(i++);
+            long result = (long) item.getQuantity() + delta;
+            if (result < 0 || result > Integer.MAX_VALUE) {
+                return false;
+            }
+        }
+        i = 0;
+        for (Integer delta : deltas.values()) {
+            Item item = resolved.get(i++);
+            if (delta >= 0) item.increment(delta); else item.tryDecrement(-delta);
+            writeThrough(item);
+        }
+        return true;
+    }
+
+    // Caller holds writeLock. The cached Item if there is one, so readers holding it see the change.
+    private Item loadForWrite(String sku) {
+        return cache.getOrLoad(sku, store::get);
+    }
+
+    // Caller holds writeLock. A reader may have loaded the old record into the cache while the item was
+    // being changed (if it was evicted meanwhile); putting our object back replaces that stale copy.
+    private void writeThrough(Item item) {
+        beginChange();
+        try {
+            store.put(item);
+            cache.replaceIfPresent(item.getSku(), item);
+        } finally {
+            endChange();
+        }
+    }
+
+    // Caller holds writeLock
+    private void beginChange() {
+        if (changeDepth++ == 0) writeSequence++; // Now odd
+    }
+
+    // Caller holds writeLock
+    private void endChange() {
+        if (--changeDepth == 0) writeSequence++; // Even again
+    }
+
+    @Override
+    public Item getItem(String sku) {
+        if (sku == null || sku.isEmpty()) {
+            return null;
+        }
+        return cache.getOrLoad(sku, store::get);
+    }
+
+    /** Only the cached (recently used) items; use {@link #getAllItems()} or {@link #snapshot()} for the whole catalog. */
+    @Override
+    public PersistentHashMap<String, Item> itemMap() {
+        PersistentHashMap<String, Item> map = PersistentHashMap.empty();
+        for (Item item : cache.values()) {
+            map = map.assoc(item.getSku(), item);
+        }
+        return map;
+    }
+
+    @Override
+    public boolean isItemMapComplete() {
+        return false;
+    }
+
+    /** The first limit items in store order; the scan stops there. */
+    @Override
+    public List<Item> getFirstItems(int limit) {
+        List<Item> result = new ArrayList<>();
+        if (limit > 0) {
+            store.forEachWhile(item -> {
+                result.add(item);
+                return result.size() < limit;
+            });
+        }
+        return preferCached(result);
+    }
+
+    /**
+     * Reads the whole store; builds a new snapshot only if something changed since the last one.
+     * The scan runs without writeLock and is kept only if no change was written meanwhile (writeSequence);
+     * if writers keep interfering, the last attempt holds writeLock.
+     */
+    @Override
+    public InventorySnapshot snapshot() {
+        synchronized (snapshotLock) {
+            for (int attempt = 0; attempt < OPTIMISTIC_SNAPSHOT_ATTEMPTS; attempt++) {
+                long sequence = writeSequence;
+                if ((sequence & 1) != 0) { // A change is being written
+                    Thread.yield();
+                    continue;
+                }
+                if (lastSnapshot != null && lastSnapshotSequence == sequence) {
+                    return lastSnapshot;
+                }
+                List<InventorySnapshot.ItemSnapshot> copies = scanStore();
+                if (writeSequence == sequence) {
+                    return publishSnapshot(copies, sequence);
+                }
+            }
+            synchronized (writeLock) {
+                long sequence = writeSequence;
+                if (lastSnapshot != null && lastSnapshotSequence == sequence) {
+                    return lastSnapshot;
+                }
+                return publishSnapshot(scanStore(), sequence);
+            }
+        }
+    }
+
+    private List<InventorySnapshot.ItemSnapshot> scanStore() {
+        List<InventorySnapshot.ItemSnapshot> copies = new ArrayList<>(store.size());
+        store.forEach(item -> copies.add(new InventorySnapshot.ItemSnapshot(item)));
+        return copies;
+    }
+
+    // Caller holds snapshotLock
+    private InventorySnapshot publishSnapshot(List<InventorySnapshot.ItemSnapshot> copies, long sequence) {
+        PersistentHashMap<String, InventorySnapshot.ItemSnapshot> entries = PersistentHashMap.empty();
+        for (InventorySnapshot.ItemSnapshot copy : copies) {
+            entries = entries.assoc(copy.getSku(), copy);
+        }
+        lastSnapshot = new InventorySnapshot(lastSnapshot == null ? 1 : lastSnapshot.getVersion() + 1, entries);
+        lastSnapshotSequence = sequence;
+        return lastSnapshot;
+    }
+
+    @Override
+    public List<Item> getAllItems() {
+        List<Item> all = new ArrayList<>(store.size());
+        store.forEach(all::add);
+        return preferCached(all);
+    }
+
+    @Override
+    public List<Item> searchItems(String criteria) {
+        long startNanos = System.nanoTime();
+        try {
+            if (criteria == null || criteria.trim().isEmpty()) {
+                return getAllItems();
+            }
+            String lowerCaseCriteria = criteria.toLowerCase();
+            List<Item> matches = new ArrayList<>();
+            store.forEach(item -> {
+                if (matchesSearch(item, lowerCaseCriteria)) matches.add(item);
+            });
+            return preferCached(matches);
+        } finally {
+            MetricsRegistry.histogram("inventory.searchItems").recordSince(startNanos);
+        }
+    }
+
+    @Override
+    public List<Item> generateLowStockReport(int threshold) {
+        if (threshold < 0) {
+            AppLog.warn("Warning: Low stock threshold cannot be negative. Using 0.");
+            threshold = 0;
+        }
+        final int finalThreshold = threshold;
+        List<Item> lowStock = new ArrayList<>();
+        store.forEach(item -> {
+            if (item.getQuantity() <= finalThreshold) lowStock.add(item);
+        });
+        return preferCached(lowStock);
+    }
+
+    @Override
+    public double calculateTotalValue() {
+        double[] totalValue = {0.0};
+        store.forEach(item -> totalValue[0] += item.getPrice() * item.getQuantity());
+        return totalValue[0];
+    }
+
+    // Scanned items are detached copies; hand out the cached object where there is one, so callers see
+    // later stock changes on it. Uses peek, so a scan does not count as use and cannot evict hot SKUs.
+    private List<Item> preferCached(List<Item> scanned) {
+        for (int i = 0; i < scanned.size(); i++) {
+            Item cached = cache.peek(scanned.get(i).getSku());
+            if (cached != null) {
+                scanned.set(i, cached);
+            }
+        }
+        return scanned;
+    }
+
+    public void close() {
+        synchronized (writeLock) {
+            store.close();
+        }
+    }
+
+    public static void main(String[] args) {
+        AppLog.info("--- Testing DiskBackedInventory (store in " + DEFAULT_STORE_PATH + ") ---");
+        DiskBackedInventory inventory = new DiskBackedInventory();
+        if (inventory.getItem("DSKU001") == null) {
+            inventory.addItem(new Item("DSKU001", "Disk Apple", "Fruit", 100, 0.55, "TSUP001", Item.STATUS_ACTIVE));
+            inventory.addItem(new Item("DSKU002", "Disk Banana", "Fruit", 150, 0.33, "TSUP001", Item.STATUS_ACTIVE));
+        }
+        inventory.adjustQuantity("DSKU001", -5, "TEST");
+        AppLog.info(inventory.getItem("DSKU001").getDetails());
+        AppLog.info("Search 'disk': " + inventory.searchItems("disk").size() + " items; total value "
+                + inventory.calculateTotalValue());
+        SegmentedLruCache<String, Item> cache = inventory.getCache();
+        AppLog.info("Cache: " + cache.size() + " items, hits " + cache.getHits() + ", misses " + cache.getMisses()
+                + ", hit rate " + Math.round(cache.getHitRate() * 100) + "%");
+        inventory.close();
+    }
+}
@@ -15,12 +15,16 @@ public class EditProductWindow extends JDialog {
     private Inventory inventory;
     private MainInventoryWindow ownerWindow;
     private Item itemToEdit; // 要编辑的原始 Item 对象
+    private Item.Details originalDetails; // 打开窗口时的描述字段及其版本号，保存时用于乐观并发检查
+    private int originalQuantity;         // 打开窗口时的库存，保存时只提交差值
 
     public EditProductWindow(MainInventoryWindow owner, Inventory inventory, Item itemToEdit) {
         super(owner, "Edit Product - " + itemToEdit.getName(), true); // 模态对话框，标题包含商品名
         this.ownerWindow = owner;
         this.inventory = inventory;
         this.itemToEdit = itemToEdit;
+        this.originalDetails = itemToEdit.getDetailsSnapshot();
+        this.originalQuantity = itemToEdit.getQuantity();
 
         initComponents();
         populateFields(); // 填充当前商品数据
@@ -49,12 +53,12 @@ public class EditProductWindow extends JDialog {
     private void populateFields() {
         if (itemToEdit != null) {
             skuField.setText(itemToEdit.getSku());
-            nameField.setText(itemToEdit.getName());
-            categoryField.setText(itemToEdit.getCategory());
-            quantityField.setText(String.valueOf(itemToEdit.getQuantity()));
-            priceField.setText(String.format("%.2f", itemToEdit.getPrice()).replace(',', '.')); // Ensure dot for decimal
-            supplierField.setText(itemToEdit.getSupplier());
-            statusField.setText(itemToEdit.getStatus());
+            nameField.setText(originalDetails.getName());
+            categoryField.setText(originalDetails.getCategory());
+            quantityField.setText(String.valueOf(originalQuantity));
+            priceField.setText(String.format("%.2f", originalDetails.getPrice()).replace(',', '.')); // Ensure dot for decimal
+            supplierField.setText(originalDetails.getSupplier());
+            statusField.setText(originalDetails.getStatus());
         }
     }
 
@@ -172,24 +176,29 @@ public class EditProductWindow extends JDialog {
             return;
         }
 
-        // 3. 创建更新后的 Item 对象
-        // 注意：这里我们创建一个新的 Item 对象来代表更新后的状态。
-        // Inventory.updateItem() 方法将用这个新对象替换旧对象。
-        Item updatedItem = new Item(originalSku, name, category, quantity, price, supplier, status);
+        // 3. 描述字段 (名称/类别/价格/供应商/状态) 有修改时，按打开窗口时的版本号做乐观更新；
+        //    期间别人改过这些字段则版本号不符，更新失败，不会覆盖别人的修改
+        boolean detailsChanged = !name.equals(originalDetails.getName()) || !category.equals(originalDetails.getCategory())
+                || Math.abs(price - originalDetails.getPrice()) >= 0.005 || !supplier.equals(originalDetails.getSupplier())
+                || !status.equals(originalDetails.getStatus());
+        if (detailsChanged && !inventory.updateItemDetails(originalSku, originalDetails.getVersion(), name, category, price, supplier, status)) {
+            JOptionPane.showMessageDialog(this, "This product was changed by someone else after this window was opened.\nNothing was saved. Please reopen the product and try again.", "Update Conflict", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
 
-        // 4. 更新 Inventory
-        boolean success = inventory.updateItem(originalSku, updatedItem);
+        // 4. 数量修改作为增量提交 (与销售/收货走同一条库存变动通道)，期间发生的销售/收货不会被覆盖
+        int quantityDelta = quantity - originalQuantity;
+        if (quantityDelta != 0 && !inventory.adjustQuantity(originalSku, quantityDelta, "EDIT")) {
+            JOptionPane.showMessageDialog(this, (detailsChanged ? "Product details were saved, but the quantity could not be adjusted by " : "Failed to adjust the quantity by ") +
+                    quantityDelta + ".\nThe stock may have changed since this window was opened.", "Update Error", JOptionPane.ERROR_MESSAGE);
+            ownerWindow.loadInventoryData();
+            return;
+        }
 
         // 5. 提示结果并刷新主窗口表格
-        if (success) {
-            JOptionPane.showMessageDialog(this, "Product updated successfully!", "Success", JOptionPane.INFORMATION_MESSAGE);
-            ownerWindow.loadInventoryData(); // 调用主窗口的方法刷新表格
-            dispose(); // 关闭对话框
-        } else {
-            // 这种情况理论上不应该发生，如果 getItem(sku) 能找到旧项目
-            // 但 updateItem 内部如果还有其他校验失败则可能
-            JOptionPane.showMessageDialog(this, "Failed to update product. SKU might not exist or an error occurred.", "Update Error", JOptionPane.ERROR_MESSAGE);
-        }
+        JOptionPane.showMessageDialog(this, "Product updated successfully!", "Success", JOptionPane.INFORMATION_MESSAGE);
+        ownerWindow.loadInventoryData(); // 调用主窗口的方法刷新表格
+        dispose(); // 关闭对话框
     }
     // No main method needed, will be called from MainInventoryWindow
 }
\ No newline at end of file
@@ -0,0 +1,226 @@
+// IdGenerator.java
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Unique, time-ordered IDs for sales, purchase orders and returns, e.g. "SALE-20250314093015-01002A":
+ * prefix, local time to the second (same layout as before, so IDs still sort by time and the
+ * timestamp can be used for routing), then a 2-hex-digit node ID and a 4-hex-digit sequence.
+ *
+ * The (second, sequence) pair lives in one AtomicLong and is advanced with a CAS, so there is no lock
+ * and no SecureRandom. Up to 65536 IDs per second per node; when a second is used up the generator
+ * borrows the next one, and if the clock steps back it keeps counting from where it was, so IDs
+ * from one generator never repeat and never go backwards. Different terminals or servers writing to
+ * the same data must each get their own node ID (0-255) with -Dids.node=N.
+ *
+ * The second is counted in local wall-clock time (the time the ID shows), not in UTC. When clocks go
+ * back an hour for daylight saving time, the local time steps back like any other clock step, so the
+ * generator keeps counting from the last second it used instead of issuing those timestamps again.
+ *
+ * The managers pass every ID they load to {@link #observe}, so after a restart the generator continues
+ * after the highest persisted ID instead of starting from the clock alone (which may have gone back, or
+ * be behind seconds borrowed before the restart).
+ */
+public final class IdGenerator {
+
+    public static final String NODE_PROPERTY = "ids.node";
+    private static final int SEQUENCE_BITS = 16;
+    private static final long MAX_SEQUENCE = (1L << SEQUENCE_BITS) - 1;
+    private static final char[] HEX = "0123456789ABCDEF".toCharArray();
+
+    public static final IdGenerator SALES = new IdGenerator("SALE", nodeIdFromProperty());
+    public static final IdGenerator PURCHASE_ORDERS = new IdGenerator("PO", nodeIdFromProperty());
+    public static final IdGenerator SALES_RETURNS = new IdGenerator("RTN", nodeIdFromProperty());
+
+    private final String prefix;
+    private final int nodeId;
+    private final AtomicLong state = new AtomicLong(); // (local second << 16) | sequence of the last ID
+    private volatile SecondText lastSecond = new SecondText(Long.MIN_VALUE, null);
+    private volatile LocalSecond lastClockSecond = new LocalSecond(Long.MIN_VALUE, 0);
+
+    // Formatted timestamp of one local second, reused for every ID issued in that second
+    private static final class SecondText {
+        final long localSecond;
+        final char[] digits;
+
+        SecondText(long localSecond, char[] digits) {
+            this.localSecond = localSecond;
+            this.digits = digits;
+        }
+    }
+
+    // Local wall-clock second (seconds since 1970-01-01T00:00 local time) of one UTC second
+    private static final class LocalSecond {
+        final long epochSecond;
+        final long localSecond;
+
+        LocalSecond(long epochSecond, long localSecond) {
+            this.epochSecond = epochSecond;
+            this.localSecond = localSecond;
+        }
+    }
+
+    public IdGenerator(String prefix, int nodeId) {
+        if (nodeId < 0 || nodeId > 255) {
+            throw new IllegalArgumentException("Node ID must be between 0 and 255: " + nodeId);
+        }
+        this.prefix = prefix;
+        this.nodeId = nodeId;
+    }
+
+    public String nextId() {
+        long nowSecond = localSecond(Math.floorDiv(System.currentTimeMillis(), 1000L));
+        long previous, next;
+        do {
+            previous = state.get();
+            long second = previous >>> SEQUENCE_BITS;
+            if (nowSecond > second) {
+                next = nowSecond << SEQUENCE_BITS;
+            } else if ((previous & MAX_SEQUENCE) < MAX_SEQUENCE) {
+                next = previous + 1;
+            } else {
+                next = (second + 1) << SEQUENCE_BITS; // This second is used up: borrow the next one
+            }
+        } while (!state.compareAndSet(previous, next));
+        return format(next >>> SEQUENCE_BITS, (int) (next & MAX_SEQUENCE));
+    }
+
+    /**
+     * Raises the generator's high-water mark to a persisted ID, so later IDs sort after it.
+     * IDs with another prefix or an unrecognized layout are ignored. Safe to call from any thread.
+     */
+    public void observe(String id) {
+        long observed = parseState(id);
+        if (observed >= 0) {
+            state.accumulateAndGet(observed, Math::max);
+        }
+    }
+
+    // (local second << 16) | sequence of an ID of this prefix, or -1. Older IDs with a random suffix count as sequence 0.
+    private long parseState(String id) {
+        int timestampStart = prefix.length() + 1;
+        if (id == null || id.length() < timestampStart + 14 || !id.startsWith(prefix) || id.charAt(prefix.length()) != '-') {
+            return -1;
+        }
+        long localSecond;
+        try {
+            LocalDateTime time = LocalDateTime.of(
+                    Integer.parseInt(id.substring(timestampStart, timestampStart + 4)),
+                    Integer.parseInt(id.substring(timestampStart + 4, timestampStart + 6)),
+                    Integer.parseInt(id.substring(timestampStart + 6, timestampStart + 8)),
+                    Integer.parseInt(id.substring(timestampStart + 8, timestampStart + 10)),
+                    Integer.parseInt(id.substring(timestampStart + 10, timestampStart + 12)),
+                    Integer.parseInt(id.substring(timestampStart + 12, timestampStart + 14)));
+            localSecond = time.toEpochSecond(ZoneOffset.UTC); // The digits are local time already; no zone lookup
+        } catch (NumberFormatException | DateTimeException e) {
+            return -1;
+        }
+        if (localSecond < 0) {
+            return -1;
+        }
+        int sequence = 0;
+        String suffix = id.substring(timestampStart + 14);
+        if (suffix.length() == 7 && suffix.charAt(0) == '-') {
+            try {
+                sequence = Integer.parseInt(suffix.substring(3), 16);
+            } catch (NumberFormatException e) {
+                sequence = 0;
+            }
+        }
+        return (localSecond << SEQUENCE_BITS) | sequence;
+    }
+
+    private long localSecond(long epochSecond) {
+        LocalSecond cached = lastClockSecond;
+        if (cached.epochSecond == epochSecond) {
+            return cached.localSecond;
+        }
+        ZoneOffset offset = ZoneId.systemDefault().getRules().getOffset(Instant.ofEpochSecond(epochSecond));
+        long localSecond = epochSecond + offset.getTotalSeconds();
+        lastClockSecond = new LocalSecond(epochSecond, localSecond);
+        return localSecond;
+    }
+
+    private String format(long localSecond, int sequence) {
+        char[] digits = timestampDigits(localSecond);
+        int length = prefix.length() + 1 + digits.length + 1 + 6;
+        char[] id = new char[length];
+        prefix.getChars(0, prefix.length(), id, 0);
+        int pos = prefix.length();
+        id[pos++] = '-';
+        System.arraycopy(digits, 0, id, pos, digits.length);
+        pos += digits.length;
+        id[pos++] = '-';
+        id[pos++] = HEX[(nodeId >>> 4) & 0xF];
+        id[pos++] = HEX[nodeId & 0xF];
+        id[pos++] = HEX[(sequence >>> 12) & 0xF];
+        id[pos++] = HEX[(sequence >>> 8) & 0xF];
+        id[pos++] = HEX[(sequence >>> 4) & 0xF];
+        id[pos] = HEX[sequence & 0xF];
+        return new String(id);
+    }
+
+    // yyyyMMddHHmmss in the default time zone, as the old SimpleDateFormat produced
+    private char[] timestampDigits(long localSecond) {
+        SecondText cached = lastSecond;
+        if (cached.localSecond == localSecond) {
+            return cached.digits;
+        }
+        LocalDateTime time = LocalDateTime.ofEpochSecond(localSecond, 0, ZoneOffset.UTC);
+        char[] digits = new char[14];
+        putDigits(digits, 0, time.getYear(), 4);
+        putDigits(digits, 4, time.getMonthValue(), 2);
+        putDigits(digits, 6, time.getDayOfMonth(), 2);
+        putDigits(digits, 8, time.getHour(), 2);
+        putDigits(digits, 10, time.getMinute(), 2);
+        putDigits(digits, 12, time.getSecond(), 2);
+        lastSecond = new SecondText(localSecond, digits);
+        return digits;
+    }
+
+    private static void putDigits(char[] target, int offset, int value, int width) {
+        for (int i = offset + width - 1; i >= offset; i--) {
+            target[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+    }
+
+    private static int nodeIdFromProperty() {
+        String value = System.getProperty(NODE_PROPERTY);
+        if (value == null || value.trim().isEmpty()) return 0;
+        try {
+            int node = Integer.parseInt(value.trim());
+            if (node >= 0 && node <= 255) return node;
+        } catch (NumberFormatException e) {
+            // Fall through to the warning
+        }
+        AppLog.warn("IdGenerator: invalid -D" + NODE_PROPERTY + "=" + value + " (must be 0-255), using 0");
+        return 0;
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        System.out.println("Sample IDs: " + SALES.nextId() + ", " + PURCHASE_ORDERS.nextId() + ", " + SALES_RETURNS.nextId());
+        IdGenerator generator = new IdGenerator("TEST", 7);
+        int threads = 8, perThread = 200_000;
+        java.util.Set<String> ids = java.util.concurrent.ConcurrentHashMap.newKeySet();
+        Thread[] workers = new Thread[threads];
+        long start = System.nanoTime();
+        for (int t = 0; t < threads; t++) {
+            workers[t] = new Thread(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    ids.add(generator.nextId());
+                }
+            });
+            workers[t].start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%d IDs from %d threads in %.2f s, %d unique%n", threads * perThread, threads, seconds, ids.size());
+    }
+}
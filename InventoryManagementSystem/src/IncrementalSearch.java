@@ -0,0 +1,153 @@
+// IncrementalSearch.java
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiPredicate;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Search-as-you-type helper for the Swing windows.
+ * Keystrokes are debounced with a Swing Timer, the matching runs on a background thread, and a query
+ * that has been superseded stops early and never reaches the UI. When the new query contains the
+ * previous one (the user kept typing), only the previous results are filtered again instead of the
+ * whole data set.
+ *
+ * All public methods must be called on the EDT; results are delivered on the EDT.
+ */
+public class IncrementalSearch<T> {
+
+    public interface ResultListener<T> {
+        /** @param query the query as typed (trimmed); results are in source order */
+        void searchCompleted(String query, List<T> results);
+    }
+
+    private static final int CANCEL_CHECK_INTERVAL = 512; // Items scanned between staleness checks
+
+    private final Timer debounceTimer;
+    private final ExecutorService executor;
+    private final ResultListener<T> listener;
+    private BiPredicate<? super T, String> matcher; // Gets the lower-cased query
+    private Supplier<? extends Iterable<T>> source;  // Called on the EDT; what it returns is read on the worker thread
+    private Function<String, ? extends Iterable<T>> queryFunction; // If set, runs new queries on the worker thread instead of scanning source
+
+    private final AtomicInteger generation = new AtomicInteger(); // Bumped by every new query, cancel or invalidate
+    private Future<?> running;
+    private String pendingQuery = "";
+
+    // Last delivered result, used for refinement
+    private String lastQuery;
+    private List<T> lastResults;
+
+    /**
+     * @param name used for the worker thread's name
+     * @param source returns the items to search; must be safe to iterate on another thread (e.g. an immutable map's values or a copy)
+     * @param matcher true if the item matches the (lower-cased) query; must be "contains"-like so that refining is valid
+     */
+    public IncrementalSearch(String name, int debounceMillis, Supplier<? extends Iterable<T>> source,
+                             BiPredicate<? super T, String> matcher, ResultListener<T> listener) {
+        this.source = source;
+        this.matcher = matcher;
+        this.listener = listener;
+        this.debounceTimer = new Timer(debounceMillis, e -> submit(pendingQuery));
+        this.debounceTimer.setRepeats(false);
+        this.executor = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "search-" + name);
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /** Call on every keystroke; the search starts once typing pauses for the debounce time. */
+    public void queryChanged(String query) {
+        pendingQuery = (query == null) ? "" : query.trim();
+        generation.incrementAndGet(); // A result for an older query is stale from now on
+        debounceTimer.restart();
+    }
+
+    /** Runs the query right away (Enter or the Search button). */
+    public void searchNow(String query) {
+        debounceTimer.stop();
+        submit((query == null) ? "" : query.trim());
+    }
+
+    /** Drops a pending or running query without delivering anything. */
+    public void cancel() {
+        debounceTimer.stop();
+        generation.incrementAndGet();
+        if (running != null) running.cancel(false);
+    }
+
+    /** The searched data changed; the next query scans the whole source again. */
+    public void invalidate() {
+        lastQuery = null;
+        lastResults = null;
+    }
+
+    public void setSource(Supplier<? extends Iterable<T>> source) {
+        this.source = source;
+        invalidate();
+    }
+
+    /**
+     * Answers a new (not refining) query with queryFunction, called on the worker thread with the query as
+     * typed, instead of scanning the source - for data that is not all in memory. Null goes back to the source.
+     */
+    public void setQueryFunction(Function<String, ? extends Iterable<T>> queryFunction) {
+        this.queryFunction = queryFunction;
+        invalidate();
+    }
+
+    public void setMatcher(BiPredicate<? super T, String> matcher) {
+        this.matcher = matcher;
+        invalidate();
+    }
+
+    public void dispose() {
+        cancel();
+        executor.shutdownNow();
+    }
+
+    private void submit(String query) {
+        final int myGeneration = generation.incrementAndGet();
+        if (running != null) running.cancel(false); // Drops it if it has not started; a started one sees the new generation
+        final String lowerCaseQuery = query.toLowerCase();
+        final BiPredicate<? super T, String> currentMatcher = matcher;
+        final Function<String, ? extends Iterable<T>> currentQueryFunction = queryFunction;
+        final Iterable<T> knownBase;
+        if (lastQuery != null && lowerCaseQuery.contains(lastQuery.toLowerCase())) {
+            knownBase = lastResults; // Anything matching the longer query matched the shorter one
+        } else {
+            knownBase = (currentQueryFunction != null) ? null : source.get();
+        }
+        running = executor.submit(() -> {
+            Iterable<T> base = (knownBase != null) ? knownBase : currentQueryFunction.apply(query);
+            if (generation.get() != myGeneration) {
+                return; // Superseded while the query function ran
+            }
+            List<T> results = new ArrayList<>();
+            int scanned = 0;
+            for (T item : base) {
+                if (++scanned % CANCEL_CHECK_INTERVAL == 0 && generation.get() != myGeneration) {
+                    return; // Superseded by a newer query
+                }
+                if (currentMatcher.test(item, lowerCaseQuery)) {
+                    results.add(item);
+                }
+            }
+            List<T> frozen = Collections.unmodifiableList(results);
+            SwingUtilities.invokeLater(() -> {
+                if (generation.get() != myGeneration) return;
+                lastQuery = query;
+                lastResults = frozen;
+                listener.searchCompleted(query, frozen);
+            });
+        });
+    }
+}
@@ -0,0 +1,446 @@
+// IndexedRowSorter.java
+import javax.swing.RowSorter;
+import javax.swing.SortOrder;
+import javax.swing.table.TableModel;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * RowSorter for large tables. For every column that has been sorted on, it keeps the model rows in
+ * sorted order (a permutation) together with the column's keys in primitive arrays. Clicking a header
+ * again, or switching back to a column sorted before, only walks the cached permutation. Appends and
+ * removals at the end patch the permutations; updated rows are re-placed in one merge pass on the next
+ * sort instead of re-sorting everything.
+ * Filtering is done with a BitSet of model rows (e.g. built from an inventory search).
+ *
+ * Differences from TableRowSorter: only the primary sort key is used; Number and Date columns compare
+ * numerically and everything else compares as case-insensitive text; like TableRowSorter's default
+ * (sortsOnUpdates = false) an updated row keeps its view position until the next sort or filter.
+ */
+public class IndexedRowSorter<M extends TableModel> extends RowSorter<M> {
+    // Inserts/deletes of more rows than this drop the cached permutations instead of patching them
+    private static final int MAX_INCREMENTAL_ROWS = 256;
+
+    private final M model;
+    private List<SortKey> sortKeys = Collections.emptyList();
+    private BitSet rowFilter;          // null = show every model row
+    private int modelRowCount;
+    private ColumnIndex[] columns;     // Built on first sort by that column
+    private int[] viewToModel;         // null = identity (no sort, no filter)
+    private int[] modelToView;
+
+    public IndexedRowSorter(M model) {
+        this.model = model;
+        this.modelRowCount = model.getRowCount();
+        this.columns = new ColumnIndex[model.getColumnCount()];
+    }
+
+    @Override
+    public M getModel() {
+        return model;
+    }
+
+    // ---- Sorting ----
+
+    @Override
+    public void toggleSortOrder(int column) {
+        checkColumn(column);
+        SortOrder order = SortOrder.ASCENDING;
+        if (!sortKeys.isEmpty() && sortKeys.get(0).getColumn() == column
+                && sortKeys.get(0).getSortOrder() == SortOrder.ASCENDING) {
+            order = SortOrder.DESCENDING;
+        }
+        List<SortKey> keys = new ArrayList<>();
+        keys.add(new SortKey(column, order));
+        setSortKeys(keys);
+    }
+
+    @Override
+    public void setSortKeys(List<? extends SortKey> keys) {
+        List<SortKey> newKeys = new ArrayList<>();
+        if (keys != null) {
+            for (SortKey key : keys) {
+                checkColumn(key.getColumn());
+                newKeys.add(key);
+            }
+        }
+        if (newKeys.equals(sortKeys)) {
+            return;
+        }
+        sortKeys = Collections.unmodifiableList(newKeys);
+        fireSortOrderChanged();
+        rebuildView();
+    }
+
+    @Override
+    public List<? extends SortKey> getSortKeys() {
+        return sortKeys;
+    }
+
+    // ---- Filtering ----
+
+    /**
+     * Shows only the model rows whose bits are set; null shows all rows. The BitSet is copied.
+     */
+    public void setRowFilter(BitSet includedModelRows) {
+        this.rowFilter = (includedModelRows == null) ? null : (BitSet) includedModelRows.clone();
+        rebuildView();
+    }
+
+    public boolean isFiltered() {
+        return rowFilter != null;
+    }
+
+    /**
+     * Tells the sorter that the item in model row fromRow now also sits in toRow (a model that fills a
+     * deleted slot with its last row calls this before firing the delete of fromRow). The filter bit
+     * moves with the item and toRow is re-placed in the cached orders on the next sort.
+     */
+    public void rowMoved(int fromRow, int toRow) {
+        if (rowFilter != null) {
+            rowFilter.set(toRow, rowFilter.get(fromRow));
+        }
+        for (ColumnIndex index : columns) {
+            if (index != null) index.markStale(toRow, toRow);
+        }
+    }
+
+    // ---- Index conversion ----
+
+    @Override
+    public int convertRowIndexToModel(int index) {
+        if (viewToModel == null) {
+            if (index < 0 || index >= modelRowCount) throw new IndexOutOfBoundsException("Invalid view index: " + index);
+            return index;
+        }
+        if (index < 0 || index >= viewToModel.length) throw new IndexOutOfBoundsException("Invalid view index: " + index);
+        return viewToModel[index];
+    }
+
+    @Override
+    public int convertRowIndexToView(int index) {
+        if (index < 0 || index >= modelRowCount) throw new IndexOutOfBoundsException("Invalid model index: " + index);
+        return (modelToView == null) ? index : modelToView[index];
+    }
+
+    @Override
+    public int getViewRowCount() {
+        return (viewToModel == null) ? modelRowCount : viewToModel.length;
+    }
+
+    @Override
+    public int getModelRowCount() {
+        return modelRowCount;
+    }
+
+    // ---- Model change notifications (forwarded by JTable) ----
+
+    @Override
+    public void modelStructureChanged() {
+        columns = new ColumnIndex[model.getColumnCount()];
+        sortKeys = Collections.emptyList();
+        rowFilter = null;
+        modelRowCount = model.getRowCount();
+        rebuildView();
+    }
+
+    @Override
+    public void allRowsChanged() {
+        invalidateColumns();
+        rowFilter = null; // Row numbers no longer mean the same rows
+        modelRowCount = model.getRowCount();
+        rebuildView();
+    }
+
+    @Override
+    public void rowsInserted(int firstRow, int endRow) {
+        int oldCount = modelRowCount;
+        modelRowCount = model.getRowCount();
+        if (firstRow == oldCount && endRow - firstRow < MAX_INCREMENTAL_ROWS) {
+            // Appended rows: add them to each cached permutation
+            for (ColumnIndex index : columns) {
+                if (index == null) continue;
+                index.ensureCapacity(modelRowCount);
+                for (int row = firstRow; row <= endRow; row++) {
+                    index.readKey(row);
+                    index.insert(row);
+                }
+            }
+        } else {
+            invalidateColumns();
+        }
+        if (rowFilter != null && firstRow < oldCount) {
+            rowFilter = shiftFilter(firstRow, endRow - firstRow + 1);
+        }
+        rebuildView();
+    }
+
+    @Override
+    public void rowsDeleted(int firstRow, int endRow) {
+        int oldCount = modelRowCount;
+        modelRowCount = model.getRowCount();
+        if (endRow == oldCount - 1 && endRow - firstRow < MAX_INCREMENTAL_ROWS) {
+            // Rows removed from the end: no other model row changes its number
+            for (ColumnIndex index : columns) {
+                if (index == null) continue;
+                for (int row = endRow; row >= firstRow; row--) {
+                    index.remove(row);
+                }
+            }
+        } else {
+            invalidateColumns();
+        }
+        if (rowFilter != null) {
+            rowFilter = shiftFilter(firstRow, -(endRow - firstRow + 1));
+        }
+        rebuildView();
+    }
+
+    @Override
+    public void rowsUpdated(int firstRow, int endRow) {
+        // The view keeps its order; changed rows are re-placed in the cached orders on the next sort
+        for (ColumnIndex index : columns) {
+            if (index != null) index.markStale(firstRow, Math.min(endRow, modelRowCount - 1));
+        }
+    }
+
+    @Override
+    public void rowsUpdated(int firstRow, int endRow, int column) {
+        checkColumn(column);
+        ColumnIndex index = columns[column];
+        if (index != null) index.markStale(firstRow, Math.min(endRow, modelRowCount - 1));
+    }
+
+    // ---- Internals ----
+
+    private void checkColumn(int column) {
+        if (column < 0 || column >= model.getColumnCount()) {
+            throw new IndexOutOfBoundsException("Column " + column + " out of range.");
+        }
+    }
+
+    private void invalidateColumns() {
+        for (int i = 0; i < columns.length; i++) {
+            columns[i] = null;
+        }
+    }
+
+    // Model rows at or after fromRow moved by delta (inserted rows are not included by the filter)
+    private BitSet shiftFilter(int fromRow, int delta) {
+        BitSet shifted = new BitSet(modelRowCount);
+        for (int row = rowFilter.nextSetBit(0); row >= 0; row = rowFilter.nextSetBit(row + 1)) {
+            if (row < fromRow) {
+                shifted.set(row);
+            } else if (delta > 0) {
+                shifted.set(row + delta);
+            } else if (row >= fromRow - delta) {
+                shifted.set(row + delta);
+            }
+        }
+        return shifted;
+    }
+
+    private void rebuildView() {
+        int[] oldViewToModel = currentViewToModel();
+        SortKey primary = null;
+        for (SortKey key : sortKeys) {
+            if (key.getSortOrder() != SortOrder.UNSORTED) {
+                primary = key;
+                break;
+            }
+        }
+        if (primary == null && rowFilter == null) {
+            viewToModel = null;
+            modelToView = null;
+        } else {
+            int[] order = null;
+            if (primary != null) {
+                int column = primary.getColumn();
+                if (columns[column] == null) {
+                    columns[column] = new ColumnIndex(model, column, modelRowCount);
+                }
+                columns[column].repair();
+                order = columns[column].order;
+            }
+            boolean descending = primary != null && primary.getSortOrder() == SortOrder.DESCENDING;
+            int visible = (rowFilter == null) ? modelRowCount : rowFilter.get(0, modelRowCount).cardinality();
+            int[] newViewToModel = new int[visible];
+            int[] newModelToView = new int[modelRowCount];
+            java.util.Arrays.fill(newModelToView, -1);
+            int v = 0;
+            for (int i = 0; i < modelRowCount; i++) {
+                int row = (order == null) ? i : order[descending ? modelRowCount - 1 - i : i];
+                if (rowFilter == null || rowFilter.get(row)) {
+                    newViewToModel[v] = row;
+                    newModelToView[row] = v;
+                    v++;
+                }
+            }
+            viewToModel = newViewToModel;
+            modelToView = newModelToView;
+        }
+        fireRowSorterChanged(oldViewToModel);
+    }
+
+    private int[] currentViewToModel() {
+        if (viewToModel != null) {
+            return viewToModel.clone();
+        }
+        int[] identity = new int[modelRowCount];
+        for (int i = 0; i < identity.length; i++) identity[i] = i;
+        return identity;
+    }
+
+    /**
+     * One column's keys (primitive doubles for Number and Date columns, lower-cased text otherwise) and the
+     * model rows in ascending key order. Ties are broken by model row, so the order is total and a
+     * row's position can be found with a binary search.
+     */
+    private static final class ColumnIndex {
+        final TableModel model;
+        final int column;
+        final boolean numeric;
+        double[] numKeys;
+        String[] textKeys;
+        int[] order;     // Sorted model rows; valid up to size
+        int[] rankOf;    // Model row -> position in order
+        int size;
+        final BitSet stale = new BitSet(); // Rows whose keys changed since they were placed
+
+        ColumnIndex(TableModel model, int column, int rowCount) {
+            this.model = model;
+            this.column = column;
+            Class<?> columnClass = model.getColumnClass(column);
+            this.numeric = Number.class.isAssignableFrom(columnClass) || java.util.Date.class.isAssignableFrom(columnClass);
+            ensureCapacity(rowCount);
+            for (int row = 0; row < rowCount; row++) {
+                readKey(row);
+            }
+            int[] rows = new int[rowCount];
+            for (int i = 0; i < rows.length; i++) rows[i] = i;
+            mergeSort(rows, new int[rows.length], 0, rows.length);
+            System.arraycopy(rows, 0, order, 0, rows.length);
+            size = rows.length;
+            for (int i = 0; i < size; i++) rankOf[order[i]] = i;
+        }
+
+        void ensureCapacity(int capacity) {
+            int current = (order == null) ? 0 : order.length;
+            if (capacity <= current) return;
+            int newCapacity = Math.max(capacity, current + (current >> 1) + 16);
+            order = (order == null) ? new int[newCapacity] : java.util.Arrays.copyOf(order, newCapacity);
+            rankOf = (rankOf == null) ? new int[newCapacity] : java.util.Arrays.copyOf(rankOf, newCapacity);
+            if (numeric) {
+                numKeys = (numKeys == null) ? new double[newCapacity] : java.util.Arrays.copyOf(numKeys, newCapacity);
+            } else {
+                textKeys = (textKeys == null) ? new String[newCapacity] : java.util.Arrays.copyOf(textKeys, newCapacity);
+            }
+        }
+
+        void readKey(int row) {
+            Object value = model.getValueAt(row, column);
+            if (numeric) {
+                if (value instanceof Number) {
+                    numKeys[row] = ((Number) value).doubleValue();
+                } else if (value instanceof java.util.Date) {
+                    numKeys[row] = ((java.util.Date) value).getTime(); // Exact: epoch millis fit in a double's 53 bits
+                } else {
+                    numKeys[row] = Double.NEGATIVE_INFINITY;
+                }
+            } else {
+                textKeys[row] = (value == null) ? "" : value.toString().toLowerCase();
+            }
+        }
+
+        int compareRows(int a, int b) {
+            int c = numeric ? Double.compare(numKeys[a], numKeys[b]) : textKeys[a].compareTo(textKeys[b]);
+            return (c != 0) ? c : Integer.compare(a, b);
+        }
+
+        void markStale(int firstRow, int lastRow) {
+            if (lastRow >= firstRow) stale.set(firstRow, lastRow + 1);
+        }
+
+        /**
+         * Re-places the rows whose values changed: takes them out of the order in one pass, sorts just
+         * those rows by their new keys and merges them back. O(n + k log k) for k changed rows,
+         * instead of shifting half the array once per row.
+         */
+        void repair() {
+            int k = stale.cardinality();
+            if (k == 0) return;
+            BitSet changedRows = (BitSet) stale.clone();
+            int[] changed = new int[k];
+            int c = 0;
+            for (int row = stale.nextSetBit(0); row >= 0; row = stale.nextSetBit(row + 1)) {
+                readKey(row);
+                changed[c++] = row;
+            }
+            stale.clear();
+            mergeSort(changed, new int[k], 0, k);
+            int[] kept = new int[size - k];
+            int m = 0;
+            for (int i = 0; i < size; i++) {
+                int row = order[i];
+                if (!changedRows.get(row)) kept[m++] = row;
+            }
+            int i = 0, j = 0, out = 0;
+            while (i < m && j < k) {
+                order[out++] = (compareRows(changed[j], kept[i]) < 0) ? changed[j++] : kept[i++];
+            }
+            while (i < m) order[out++] = kept[i++];
+            while (j < k) order[out++] = changed[j++];
+            for (int p = 0; p < size; p++) rankOf[order[p]] = p;
+        }
+
+        // Takes row out of the order; its key must still be the one it was inserted with
+        void remove(int row) {
+            stale.clear(row);
+            int pos = rankOf[row];
+            System.arraycopy(order, pos + 1, order, pos, size - pos - 1);
+            size--;
+            for (int i = pos; i < size; i++) rankOf[order[i]] = i;
+        }
+
+        void insert(int row) {
+            int low = 0, high = size;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (compareRows(order[mid], row) < 0) low = mid + 1; else high = mid;
+            }
+            System.arraycopy(order, low, order, low + 1, size - low);
+            order[low] = row;
+            size++;
+            for (int i = low; i < size; i++) rankOf[order[i]] = i;
+        }
+
+        // Stable merge sort on row numbers; no boxing, no Comparator objects
+        private void mergeSort(int[] a, int[] tmp, int from, int to) {
+            if (to - from < 24) {
+                for (int i = from + 1; i < to; i++) {
+                    int x = a[i];
+                    int j = i - 1;
+                    while (j >= from && compareRows(a[j], x) > 0) {
+                        a[j + 1] = a[j];
+                        j--;
+                    }
+                    a[j + 1] = x;
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            mergeSort(a, tmp, from, mid);
+            mergeSort(a, tmp, mid, to);
+            if (compareRows(a[mid - 1], a[mid]) <= 0) return; // Already in order
+            System.arraycopy(a, from, tmp, from, to - from);
+            int i = from, j = mid, k = from;
+            while (i < mid && j < to) {
+                a[k++] = (compareRows(tmp[j], tmp[i]) < 0) ? tmp[j++] : tmp[i++];
+            }
+            while (i < mid) a[k++] = tmp[i++];
+            while (j < to) a[k++] = tmp[j++];
+        }
+    }
+}
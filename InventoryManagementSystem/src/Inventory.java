@@ -6,27 +6,134 @@ import java.io.FileWriter;
 import java.io.IOException;
 import java.io.PrintWriter;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.stream.Collectors;
 
 public class Inventory {
-    private Map<String, Item> items;
+    // 不可变的哈希前缀树 (HAMT)：每次增删 SKU 都换成新版本，读取/遍历无需加锁也无需复制
+    private final AtomicReference<PersistentHashMap<String, Item>> items = new AtomicReference<>(PersistentHashMap.empty());
     // 统一数据目录路径 (可以考虑从一个中心配置类获取)
     public static final String DATA_DIRECTORY = "data/";
     public static final String DEFAULT_ITEMS_FILE_PATH = DATA_DIRECTORY + "items.csv";
-    private static final String CSV_HEADER = "SKU,Name,Category,Quantity,Price,SupplierID,Status";
+    protected static final String CSV_HEADER = "SKU,Name,Category,Quantity,Price,SupplierID,Status";
+    // 可选：启用后 adjustQuantity/adjustQuantities 的库存增减由单一写线程按顺序执行并写入日志。
+    // 例外：addItem/removeItem 增删整个商品、updateItemDetails 只改描述字段，这些不经过写线程，也不在日志中
+    private volatile StockMutationSequencer sequencer;
+
+    // 快照 (MVCC)：报表读取 snapshot()，不直接读取正在变化的 items
+    // 修改不加锁，只在开始/结束时各加一次计数 (beginWrite/endWrite)。生成快照时类似 seqlock：
+    // 等到没有进行中的修改后复制，复制完再检查期间没有新的修改开始，否则重试，
+    // 所以快照里不会出现只执行了一半的多 SKU 修改。快照只重新复制上次以来修改过的 SKU。
+    // 连续重试失败时设置 snapshotExclusive，让新的修改稍等，快照不会一直拿不到。
+    private static final int OPTIMISTIC_SNAPSHOT_ATTEMPTS = 8;
+    private final AtomicLong writesStarted = new AtomicLong();
+    private final AtomicLong writesFinished = new AtomicLong();
+    private volatile boolean snapshotExclusive;
+    private final AtomicReference<Set<String>> dirtySkus = new AtomicReference<>(ConcurrentHashMap.newKeySet());
+    private final ReentrantLock snapshotLock = new ReentrantLock(); // Between snapshot() callers only
+    private volatile InventorySnapshot lastSnapshot;
+
+    /** -Dinventory.store=disk keeps items on disk instead of in memory (see {@link DiskBackedInventory}). */
+    public static final String STORE_PROPERTY = "inventory.store";
+
+    public enum ChangeType { ADDED, UPDATED, REMOVED }
+
+    /**
+     * Notified after an item is added, changed (details or quantity) or removed.
+     * Called on the thread that made the change, after the change is complete.
+     */
+    public interface ItemChangeListener {
+        void itemChanged(String sku, ChangeType type);
+    }
+
+    private final List<ItemChangeListener> changeListeners = new CopyOnWriteArrayList<>();
 
     public Inventory() {
-        this.items = new HashMap<>();
-        loadItemsFromFile(DEFAULT_ITEMS_FILE_PATH);
+        this(true);
+    }
+
+    /** The inventory selected by -Dinventory.store: the in-memory one unless it is "disk". */
+    public static Inventory open() {
+        if ("disk".equalsIgnoreCase(System.getProperty(STORE_PROPERTY))) {
+            return new DiskBackedInventory();
+        }
+        return new Inventory();
+    }
+
+    // 供 RemoteInventory (客户端模式) 使用：数据在服务器上，不读取本地文件
+    protected Inventory(boolean loadFromFile) {
+        if (loadFromFile) {
+            loadItemsFromFile(DEFAULT_ITEMS_FILE_PATH);
+            MetricsRegistry.gauge("inventory.items", () -> items.get().size());
+            if (Boolean.getBoolean(StockMutationSequencer.ENABLE_PROPERTY)) {
+                enableSequencer();
+            }
+        }
+    }
+
+    /**
+     * Routes all later stock adjustments through a single-writer {@link StockMutationSequencer}.
+     */
+    public synchronized void enableSequencer() {
+        if (sequencer == null) {
+            sequencer = new StockMutationSequencer(this::applyQuantityChanges);
+            AppLog.info("Stock mutation sequencer enabled. Journal: " + StockMutationSequencer.DEFAULT_JOURNAL_PATH);
+        }
+    }
+
+    public synchronized void shutdownSequencer() {
+        if (sequencer != null) {
+            sequencer.shutdown();
+            sequencer = null;
+        }
+    }
+
+    public void addItemChangeListener(ItemChangeListener listener) {
+        if (listener != null) {
+            changeListeners.add(listener);
+        }
+    }
+
+    public void removeItemChangeListener(ItemChangeListener listener) {
+        changeListeners.remove(listener);
+    }
+
+    protected void fireItemChanged(String sku, ChangeType type) {
+        for (ItemChangeListener listener : changeListeners) {
+            try {
+                listener.itemChanged(sku, type);
+            } catch (RuntimeException e) {
+                AppLog.warn("Inventory: change listener failed for SKU " + sku + ": " + e.getMessage());
+            }
+        }
     }
 
     public void loadItemsFromFile(String filePath) {
+        StartupProfiler.Phase startupPhase = StartupProfiler.begin("items");
+        long startNanos = System.nanoTime();
+        AppEvents.FileIoEvent event = new AppEvents.FileIoEvent("load", "items");
+        event.begin();
+        try {
+            doLoadItemsFromFile(filePath);
+        } finally {
+            MetricsRegistry.histogram("file.load.items").recordSince(startNanos);
+            event.finish(items.get().size(), filePath);
+            startupPhase.end(items.get().size());
+        }
+    }
+
+    private void doLoadItemsFromFile(String filePath) {
         File file = new File(filePath);
         if (!file.exists()) {
-            System.out.println("Items file not found: " + filePath + ". Starting with an empty inventory for items.");
+            AppLog.info("Items file not found: " + filePath + ". Starting with an empty inventory for items.");
             // Ensure data directory exists for potential save operations later if needed by other logic
             File parentDir = file.getParentFile();
             if (parentDir != null && !parentDir.exists()) {
@@ -40,183 +147,456 @@ public class Inventory {
             String actualHeader = br.readLine();
 
             if (actualHeader == null) {
-                System.err.println("Items file is empty: " + filePath);
+                AppLog.warn("Items file is empty: " + filePath);
                 return;
             }
             if (!actualHeader.trim().equalsIgnoreCase(CSV_HEADER)) {
-                System.err.println("Warning: Items CSV file header mismatch.");
-                System.err.println("Expected: '" + CSV_HEADER + "'");
-                System.err.println("Got:      '" + actualHeader.trim() + "'");
-                System.err.println("Attempting to parse anyway, but data integrity may be compromised.");
+                AppLog.warn("Warning: Items CSV file header mismatch.");
+                AppLog.warn("Expected: '" + CSV_HEADER + "'");
+                AppLog.warn("Got:      '" + actualHeader.trim() + "'");
+                AppLog.warn("Attempting to parse anyway, but data integrity may be compromised.");
             }
 
+            PersistentHashMap<String, Item> loaded = this.items.get();
             while ((line = br.readLine()) != null) {
                 if (line.trim().isEmpty()) continue;
                 Item item = Item.fromCsvString(line);
                 if (item != null) {
-                    this.items.put(item.getSku(), item);
+                    loaded = loaded.assoc(item.getSku(), item);
+                    dirtySkus.get().add(item.getSku());
                 }
             }
-            System.out.println(this.items.size() + " items loaded successfully from " + filePath);
+            this.items.set(loaded);
+            AppLog.info(loaded.size() + " items loaded successfully from " + filePath);
         } catch (IOException e) {
-            System.err.println("Error loading items from file " + filePath + ": " + e.getMessage());
-            e.printStackTrace();
+            AppLog.error("Error loading items from file " + filePath + ": " + e.getMessage(), e);
         }
     }
 
     public void saveItemsToFile(String filePath) {
+        long startNanos = System.nanoTime();
+        AppEvents.FileIoEvent event = new AppEvents.FileIoEvent("save", "items");
+        event.begin();
+        try {
+            doSaveItemsToFile(filePath);
+        } finally {
+            MetricsRegistry.histogram("file.save.items").recordSince(startNanos);
+            event.finish(items.get().size(), filePath);
+        }
+    }
+
+    private void doSaveItemsToFile(String filePath) {
         File file = new File(filePath);
         File parentDir = file.getParentFile(); // Should be "data" directory
         if (parentDir != null && !parentDir.exists()) {
             if (!parentDir.mkdirs()) {
-                System.err.println("Could not create directory: " + parentDir.getPath());
+                AppLog.warn("Could not create directory: " + parentDir.getPath());
                 return; // Stop if directory creation fails
             }
         }
 
         try (PrintWriter out = new PrintWriter(new BufferedWriter(new FileWriter(file)))) {
             out.println(CSV_HEADER);
-            for (Item item : this.items.values()) {
+            PersistentHashMap<String, Item> current = this.items.get(); // Fixed version: adds/removes during the save are not half-written
+            for (Item item : current.values()) {
                 out.println(item.toCsvString());
             }
-            System.out.println(this.items.size() + " items saved successfully to " + filePath);
+            AppLog.info(current.size() + " items saved successfully to " + filePath);
         } catch (IOException e) {
-            System.err.println("Error saving items to file " + filePath + ": " + e.getMessage());
-            e.printStackTrace();
+            AppLog.error("Error saving items to file " + filePath + ": " + e.getMessage(), e);
         }
     }
 
     // --- 现有方法 ---
     public void addItem(Item item) {
         if (item == null || item.getSku() == null || item.getSku().isEmpty()) {
-            System.out.println("Error: Item or SKU cannot be null or empty. Item not added.");
+            AppLog.warn("Error: Item or SKU cannot be null or empty. Item not added.");
             return;
         }
-        if (this.items.containsKey(item.getSku())) {
-            System.out.println("Error: Item with SKU " + item.getSku() + " already exists. Use updateItem() to modify.");
+        boolean added;
+        beginWrite();
+        try {
+            PersistentHashMap<String, Item> current;
+            do {
+                current = this.items.get();
+                added = !current.containsKey(item.getSku());
+            } while (added && !this.items.compareAndSet(current, current.assoc(item.getSku(), item)));
+            if (added) {
+                dirtySkus.get().add(item.getSku());
+            }
+        } finally {
+            endWrite();
+        }
+        if (!added) {
+            AppLog.warn("Error: Item with SKU " + item.getSku() + " already exists. Use updateItemDetails() and adjustQuantity() to modify.");
         } else {
-            this.items.put(item.getSku(), item);
-            System.out.println("Item " + item.getName() + " (SKU: " + item.getSku() + ") added to inventory.");
+            if (AppLog.isDebugEnabled()) AppLog.debug("Item " + item.getName() + " (SKU: " + item.getSku() + ") added to inventory.");
+            fireItemChanged(item.getSku(), ChangeType.ADDED);
         }
     }
 
     public boolean removeItem(String sku) {
         if (sku == null || sku.isEmpty()) {
-            System.out.println("Error: SKU cannot be null or empty.");
+            AppLog.warn("Error: SKU cannot be null or empty.");
             return false;
         }
-        if (this.items.containsKey(sku)) {
-            Item removedItem = this.items.remove(sku);
-            System.out.println("Item " + removedItem.getName() + " (SKU: " + sku + ") removed from inventory.");
+        Item removedItem;
+        beginWrite();
+        try {
+            PersistentHashMap<String, Item> current;
+            do {
+                current = this.items.get();
+                removedItem = current.get(sku);
+            } while (removedItem != null && !this.items.compareAndSet(current, current.without(sku)));
+            dirtySkus.get().add(sku);
+        } finally {
+            endWrite();
+        }
+        if (removedItem != null) {
+            AppLog.info("Item " + removedItem.getName() + " (SKU: " + sku + ") removed from inventory.");
+            fireItemChanged(sku, ChangeType.REMOVED);
             return true;
         } else {
-            System.out.println("Error: Item with SKU " + sku + " not found. Nothing removed.");
+            AppLog.warn("Error: Item with SKU " + sku + " not found. Nothing removed.");
             return false;
         }
     }
 
-    public boolean updateItem(String sku, Item newItem) {
-        if (sku == null || sku.isEmpty() || newItem == null) {
-            System.out.println("Error: SKU or newItem cannot be null or empty.");
+    /**
+     * Optimistic update of the descriptive fields (name, category, price, supplier, status) of an item.
+     * Succeeds only if the item's version is still expectedVersion, i.e. nobody else changed these
+     * fields since the caller read them. The quantity is left alone.
+     * @return false if the SKU is unknown or the version is stale; the caller should reload and retry.
+     */
+    public boolean updateItemDetails(String sku, long expectedVersion, String name, String category, double price, String supplier, String status) {
+        Item existing = (sku == null) ? null : this.items.get().get(sku);
+        if (existing == null) {
+            AppLog.warn("Error: Item with SKU " + sku + " not found. Cannot update.");
             return false;
         }
-        if (!sku.equals(newItem.getSku())) {
-            System.out.println("Error: SKU parameter (" + sku + ") does not match newItem's SKU (" + newItem.getSku() + "). Update failed.");
+        boolean updated;
+        beginWrite();
+        try {
+            updated = existing.compareAndSetDetails(expectedVersion, name, category, price, supplier, status);
+            if (updated) {
+                dirtySkus.get().add(sku);
+            }
+        } finally {
+            endWrite();
+        }
+        if (!updated) {
+            AppLog.warn("Error: Item (SKU: " + sku + ") was changed by someone else (expected version " + expectedVersion +
+                    ", current " + existing.getVersion() + "). Not updated.");
             return false;
         }
-        if (this.items.containsKey(sku)) {
-            this.items.put(sku, newItem);
-            System.out.println("Item (SKU: " + sku + ") updated.");
+        AppLog.info("Item (SKU: " + sku + ") details updated to version " + existing.getVersion() + ".");
+        fireItemChanged(sku, ChangeType.UPDATED);
+        return true;
+    }
+
+    // --- 库存数量变动 (销售、收货、退货、编辑都应通过这里) ---
+
+    /**
+     * Changes the stock of one SKU by delta (negative to take stock out).
+     * @param source short description for the log/journal, e.g. "SALE SALE-2025..."
+     * @return false if the SKU is unknown or stock would go negative; nothing changes in that case.
+     */
+    public boolean adjustQuantity(String sku, int delta, String source) {
+        return adjustQuantities(Collections.singletonMap(sku, delta), source);
+    }
+
+    /**
+     * Changes the stock of several SKUs at once, all-or-nothing.
+     * When the sequencer is enabled the change is queued and this call waits for it to be applied.
+     */
+    public boolean adjustQuantities(Map<String, Integer> deltas, String source) {
+        if (deltas == null || deltas.isEmpty()) {
             return true;
+        }
+        StockMutationSequencer current = sequencer;
+        boolean applied = current != null
+                ? current.submit(deltas, source).join()
+                : applyQuantityChanges(deltas);
+        if (!applied) {
+            AppLog.warn("Error: Stock adjustment rejected (" + source + "): " + deltas + ". Unknown SKU or not enough stock. Nothing changed.");
+        }
+        return applied;
+    }
+
+    private boolean applyQuantityChanges(Map<String, Integer> deltas) {
+        boolean applied;
+        beginWrite();
+        try {
+            applied = tryApplyQuantityChanges(deltas);
+            if (applied) {
+                dirtySkus.get().addAll(deltas.keySet());
+            }
+        } finally {
+            endWrite();
+        }
+        if (applied) {
+            for (String sku : deltas.keySet()) {
+                fireItemChanged(sku, ChangeType.UPDATED);
+            }
+        }
+        return applied;
+    }
+
+    // 全有或全无：有任何一项 SKU 不存在或会导致库存为负，则不做任何修改
+    // 每个 SKU 用 Item 的 CAS 计数器修改，修改之间不互相加锁。先做所有减少 (可能因库存不足失败)，
+    // 失败时只需用 increment 把已减的加回去；全部减成功后再做增加，增加不会失败 (溢出已提前排除)
+    private boolean tryApplyQuantityChanges(Map<String, Integer> deltas) {
+        List<Item> decremented = new ArrayList<>(deltas.size());
+        List<Integer> decrements = new ArrayList<>(deltas.size());
+        List<Item> incremented = new ArrayList<>(deltas.size());
+        List<Integer> increments = new ArrayList<>(deltas.size());
+        for (Map.Entry<String, Integer> entry : deltas.entrySet()) {
+            Item item = this.items.get().get(entry.getKey());
+            if (item == null) {
+                return false;
+            }
+            int delta = entry.getValue();
+            if (delta < 0) {
+                decremented.add(item);
+                decrements.add(-delta);
+            } else if (delta > 0) {
+                if (item.getQuantity() > Integer.MAX_VALUE - delta) {
+                    return false; // Would overflow
+                }
+                incremented.add(item);
+                increments.add(delta);
+            }
+        }
+        for (int i = 0; i < decremented.size(); i++) {
+            if (!decremented.get(i).tryDecrement(decrements.get(i))) {
+                for (int j = 0; j < i; j++) {
+                    decremented.get(j).increment(decrements.get(j)); // Puts back units we just took
+                }
+                return false;
+            }
+        }
+        for (int i = 0; i < incremented.size(); i++) {
+            if (!incremented.get(i).increment(increments.get(i))) {
+                // Only possible if another writer pushed this SKU near Integer.MAX_VALUE since the check above
+                AppLog.error("Inventory: stock increment of " + increments.get(i) + " for " + incremented.get(i).getSku() + " overflowed and was dropped.");
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns a consistent, read-only view of the whole inventory for reports and exports.
+     * The same snapshot is returned again as long as nothing has changed since it was taken.
+     */
+    public InventorySnapshot snapshot() {
+        InventorySnapshot previous = lastSnapshot;
+        if (previous != null && dirtySkus.get().isEmpty()) {
+            return previous;
+        }
+        snapshotLock.lock();
+        try {
+            for (int attempt = 0; attempt < OPTIMISTIC_SNAPSHOT_ATTEMPTS; attempt++) {
+                long started = awaitNoWritesInFlight();
+                InventorySnapshot snapshot = tryBuildSnapshot(started, true);
+                if (snapshot != null) {
+                    return snapshot;
+                }
+            }
+            // Writers kept interfering: hold new writes back until this snapshot is taken. Writers that
+            // back off still bump writesStarted, but none can be changing anything, so no re-check is needed
+            snapshotExclusive = true;
+            try {
+                return tryBuildSnapshot(awaitNoWritesInFlight(), false);
+            } finally {
+                snapshotExclusive = false;
+            }
+        } finally {
+            snapshotLock.unlock();
+        }
+    }
+
+    // Writers call beginWrite() before and endWrite() after every change; they never block each other
+    private void beginWrite() {
+        while (true) {
+            writesStarted.incrementAndGet();
+            if (!snapshotExclusive) {
+                return;
+            }
+            writesFinished.incrementAndGet(); // Back off until the snapshot is done
+            while (snapshotExclusive) {
+                Thread.yield();
+            }
+        }
+    }
+
+    private void endWrite() {
+        writesFinished.incrementAndGet();
+    }
+
+    // Returns writesStarted at a moment when every started write had finished
+    private long awaitNoWritesInFlight() {
+        while (true) {
+            long finished = writesFinished.get(); // Read first: finished <= started at all times
+            long started = writesStarted.get();
+            if (started == finished) {
+                return started;
+            }
+            Thread.yield();
+        }
+    }
+
+    // Called with snapshotLock held, right after awaitNoWritesInFlight() returned startedBefore.
+    // Returns null (and marks the SKUs dirty again) if validate is set and a write started while copying.
+    private InventorySnapshot tryBuildSnapshot(long startedBefore, boolean validate) {
+        InventorySnapshot previous = lastSnapshot;
+        Set<String> dirty = dirtySkus.getAndSet(ConcurrentHashMap.newKeySet());
+        if (previous != null && dirty.isEmpty()) {
+            return previous;
+        }
+        PersistentHashMap<String, InventorySnapshot.ItemSnapshot> entries;
+        if (previous == null) {
+            entries = PersistentHashMap.empty();
+            for (Item item : this.items.get().values()) {
+                entries = entries.assoc(item.getSku(), new InventorySnapshot.ItemSnapshot(item));
+            }
         } else {
-            System.out.println("Error: Item with SKU " + sku + " not found. Cannot update.");
-            return false;
+            // Only the changed SKUs are re-copied; the rest of the trie is shared with the previous snapshot
+            entries = previous.entries();
+            PersistentHashMap<String, Item> current = this.items.get();
+            for (String sku : dirty) {
+                Item item = current.get(sku);
+                entries = (item == null) ? entries.without(sku) : entries.assoc(sku, new InventorySnapshot.ItemSnapshot(item));
+            }
+        }
+        if (validate && writesStarted.get() != startedBefore) {
+            dirtySkus.get().addAll(dirty);
+            return null;
         }
+        lastSnapshot = new InventorySnapshot(previous == null ? 1 : previous.getVersion() + 1, entries);
+        return lastSnapshot;
     }
 
     public Item getItem(String sku) {
         if (sku == null || sku.isEmpty()) {
             return null;
         }
-        return this.items.get(sku);
+        return this.items.get().get(sku);
     }
 
     public List<Item> getAllItems() {
-        return new ArrayList<>(this.items.values());
+        return new ArrayList<>(this.items.get().values());
+    }
+
+    /**
+     * The current set of items as an immutable map, in O(1) and without copying. Later adds/removes
+     * do not affect it, so it can be iterated on any thread. The Item objects themselves are live;
+     * use {@link #snapshot()} when quantities and details must also be frozen.
+     */
+    public PersistentHashMap<String, Item> itemMap() {
+        return this.items.get();
+    }
+
+    /** False if {@link #itemMap()} holds only part of the catalog (disk-backed store); use searchItems then. */
+    public boolean isItemMapComplete() {
+        return true;
+    }
+
+    /** At most limit items, in no particular order, for views that cannot show the whole catalog at once. */
+    public List<Item> getFirstItems(int limit) {
+        List<Item> result = new ArrayList<>(Math.min(Math.max(limit, 0), 1024));
+        for (Item item : this.items.get().values()) {
+            if (result.size() >= limit) break;
+            result.add(item);
+        }
+        return result;
     }
 
     public List<Item> searchItems(String criteria) {
+        long startNanos = System.nanoTime();
+        try {
+            return doSearchItems(criteria);
+        } finally {
+            MetricsRegistry.histogram("inventory.searchItems").recordSince(startNanos);
+        }
+    }
+
+    private List<Item> doSearchItems(String criteria) {
         if (criteria == null || criteria.trim().isEmpty()) {
             return getAllItems();
         }
         String lowerCaseCriteria = criteria.toLowerCase();
-        return this.items.values().stream()
-                .filter(item -> item.getSku().toLowerCase().contains(lowerCaseCriteria) ||
-                        item.getName().toLowerCase().contains(lowerCaseCriteria) ||
-                        item.getCategory().toLowerCase().contains(lowerCaseCriteria))
+        return this.items.get().values().stream()
+                .filter(item -> matchesSearch(item, lowerCaseCriteria))
                 .collect(Collectors.toList());
     }
 
+    /** The test used by searchItems; criteria must already be lower case. */
+    public static boolean matchesSearch(Item item, String lowerCaseCriteria) {
+        return item.getSku().toLowerCase().contains(lowerCaseCriteria) ||
+                item.getName().toLowerCase().contains(lowerCaseCriteria) ||
+                item.getCategory().toLowerCase().contains(lowerCaseCriteria);
+    }
+
     public List<Item> generateLowStockReport(int threshold) {
         if (threshold < 0) {
-            System.out.println("Warning: Low stock threshold cannot be negative. Using 0.");
+            AppLog.warn("Warning: Low stock threshold cannot be negative. Using 0.");
             threshold = 0;
         }
         final int finalThreshold = threshold;
-        return this.items.values().stream()
+        return this.items.get().values().stream()
                 .filter(item -> item.getQuantity() <= finalThreshold)
                 .collect(Collectors.toList());
     }
 
     public double calculateTotalValue() {
         double totalValue = 0.0;
-        for (Item item : this.items.values()) {
+        for (Item item : this.items.get().values()) {
             totalValue += item.getPrice() * item.getQuantity();
         }
         return totalValue;
     }
 
     public static void main(String[] args) {
-        System.out.println("--- Testing Inventory CSV Persistence (in " + DATA_DIRECTORY + ") ---");
+        AppLog.info("--- Testing Inventory CSV Persistence (in " + DATA_DIRECTORY + ") ---");
         Inventory inventory = new Inventory();
 
         if (inventory.getAllItems().isEmpty()) {
-            System.out.println("Inventory is empty after initial load. Adding sample items...");
+            AppLog.info("Inventory is empty after initial load. Adding sample items...");
             inventory.addItem(new Item("TSKU001", "Test Apple", "Fruit", 100, 0.55, "TSUP001", "Active"));
             inventory.addItem(new Item("TSKU002", "Test Banana", "Fruit", 150, 0.33, "TSUP001", "Active"));
             inventory.addItem(new Item("TSKU003", "Test Milk, Whole", "Dairy", 50, 1.25, "TSUP002", "Active"));
             inventory.saveItemsToFile(DEFAULT_ITEMS_FILE_PATH);
         } else {
-            System.out.println("Loaded " + inventory.getAllItems().size() + " items from " + DEFAULT_ITEMS_FILE_PATH);
+            AppLog.info("Loaded " + inventory.getAllItems().size() + " items from " + DEFAULT_ITEMS_FILE_PATH);
         }
 
-        System.out.println("\n--- Current Items in Inventory (" + inventory.getAllItems().size() + ") ---");
+        AppLog.info("\n--- Current Items in Inventory (" + inventory.getAllItems().size() + ") ---");
         for (Item item : inventory.getAllItems()) {
-            System.out.println(item.getDetails() + "\n");
+            AppLog.info(item.getDetails() + "\n");
         }
 
-        System.out.println("\n--- Adding a new item ---");
+        AppLog.info("\n--- Adding a new item ---");
         Item newItem = new Item("TSKU004", "Test Bread, \"Whole Wheat\"", "Bakery", 30, 2.75, "TSUP003", "Active");
         inventory.addItem(newItem);
 
-        System.out.println("\n--- Saving all items to file ---");
+        AppLog.info("\n--- Saving all items to file ---");
         inventory.saveItemsToFile(DEFAULT_ITEMS_FILE_PATH);
 
-        System.out.println("\n--- Creating a new Inventory instance to test loading ---");
+        AppLog.info("\n--- Creating a new Inventory instance to test loading ---");
         Inventory inventory2 = new Inventory();
 
-        System.out.println("\n--- Items in new Inventory instance (" + inventory2.getAllItems().size() + ") ---");
+        AppLog.info("\n--- Items in new Inventory instance (" + inventory2.getAllItems().size() + ") ---");
         boolean foundNewItem = false;
         for (Item item : inventory2.getAllItems()) {
-            System.out.println(item.getName() + " (SKU: " + item.getSku() + ")");
+            AppLog.info(item.getName() + " (SKU: " + item.getSku() + ")");
             if (item.getSku().equals("TSKU004")) {
                 foundNewItem = true;
             }
         }
         if (foundNewItem) {
-            System.out.println("Test Bread (TSKU004) was successfully loaded into the new inventory instance.");
+            AppLog.info("Test Bread (TSKU004) was successfully loaded into the new inventory instance.");
         } else {
-            System.out.println("Test Bread (TSKU004) was NOT found in the new inventory instance after saving and reloading.");
+            AppLog.info("Test Bread (TSKU004) was NOT found in the new inventory instance after saving and reloading.");
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,102 @@
+// InventoryClient.java
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * HTTP/JSON client for {@link InventoryServer}, used by the thin-client (--client) mode of the Swing app.
+ * Responses are returned as parsed JSON (see {@link Json}). A 404 on GET is returned as null;
+ * other error statuses are thrown as IOException carrying the server's error message.
+ */
+public class InventoryClient {
+    public static final String DEFAULT_BASE_URL = "http://localhost:" + InventoryServer.DEFAULT_PORT;
+
+    private final String baseUrl;
+    private final HttpClient httpClient;
+    private volatile String authToken; // Issued by the server on login
+
+    public InventoryClient(String baseUrl) {
+        String url = (baseUrl == null || baseUrl.trim().isEmpty()) ? DEFAULT_BASE_URL : baseUrl.trim();
+        this.baseUrl = url.endsWith("/") ? url.substring(0, url.length() - 1) : url;
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+    }
+
+    public String getBaseUrl() { return baseUrl; }
+
+    /** Sent as "Authorization: Bearer ..." with every later request. */
+    public void setAuthToken(String authToken) {
+        this.authToken = authToken;
+    }
+
+    /** Logs in and keeps the session token; false if the server rejected the credentials. */
+    public boolean login(String username, String password) throws IOException {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("username", username);
+        body.put("password", password);
+        Object result = post("login", body);
+        Object token = result instanceof Map ? ((Map<?, ?>) result).get("token") : null;
+        setAuthToken(token == null ? null : String.valueOf(token));
+        return token != null;
+    }
+
+    public Object get(String path) throws IOException {
+        return send(request(path).GET().build(), true);
+    }
+
+    public Object post(String path, Object body) throws IOException {
+        return send(request(path).POST(HttpRequest.BodyPublishers.ofString(Json.write(body), StandardCharsets.UTF_8)).build(), false);
+    }
+
+    public Object put(String path, Object body) throws IOException {
+        return send(request(path).PUT(HttpRequest.BodyPublishers.ofString(Json.write(body), StandardCharsets.UTF_8)).build(), false);
+    }
+
+    public Object delete(String path) throws IOException {
+        return send(request(path).DELETE().build(), false);
+    }
+
+    /** Encodes one path segment or query value (e.g. a SKU). */
+    public static String encode(String value) {
+        return URLEncoder.encode(value == null ? "" : value, StandardCharsets.UTF_8).replace("+", "%20");
+    }
+
+    private HttpRequest.Builder request(String path) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(baseUrl + "/api/" + path))
+                .timeout(Duration.ofSeconds(15))
+                .header("Content-Type", "application/json; charset=utf-8");
+        String token = authToken;
+        if (token != null) {
+            builder.header("Authorization", "Bearer " + token);
+        }
+        return builder;
+    }
+
+    private Object send(HttpRequest request, boolean notFoundAsNull) throws IOException {
+        HttpResponse<String> response;
+        try {
+            response = httpClient.send(request, HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Request to " + request.uri() + " was interrupted.", e);
+        }
+        int status = response.statusCode();
+        if (status == 404 && notFoundAsNull) {
+            return null;
+        }
+        Object body = Json.parse(response.body());
+        if (status >= 400) {
+            String message = (body instanceof Map) ? String.valueOf(((Map<?, ?>) body).get("error")) : response.body();
+            throw new IOException("Server returned " + status + " for " + request.method() + " " + request.uri().getPath() + ": " + message);
+        }
+        return body;
+    }
+}
@@ -0,0 +1,692 @@
+// InventoryServer.java
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Method;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Headless server mode: hosts the managers of one store behind a local HTTP/JSON API so several
+ * POS terminals (MainInventoryWindow started with --client) can share them.
+ * Each request runs on its own virtual thread when the JVM supports them (Java 21+), otherwise on a cached pool.
+ * Requests are not serialized as a whole: item, stock and report routes go straight to the Inventory (CAS
+ * counters, immutable item trie) and reservations to the StockReservationTable, which are thread-safe.
+ * Only the list-based managers are locked - salesLock (create a sale: write; look up / finalize: read, plus a
+ * lock per sale) and backOfficeLock (orders, returns, suppliers, users). ReentrantLocks rather than
+ * synchronized so that waiting virtual threads do not pin their carrier threads.
+ *
+ * POST /api/login returns a token; every other route needs it as "Authorization: Bearer &lt;token&gt;".
+ * Tokens live in memory and expire after 12 hours without use.
+ *
+ * Usage: java InventoryServer [--port 8085] [--host 127.0.0.1]
+ */
+public class InventoryServer {
+    public static final int DEFAULT_PORT = 8085;
+
+    private final Inventory inventory;
+    private final UserManager userManager;
+    private final SupplierManager supplierManager;
+    private final SalesManager salesManager;
+    private final OrderManager orderManager;
+    private final SalesReturnManager salesReturnManager;
+
+    private static final long SESSION_IDLE_MILLIS = 12 * 60 * 60 * 1000L;
+
+    // SalesManager keeps its sales in a plain list: adding a sale needs the write lock, lookups the read lock
+    private final ReentrantReadWriteLock salesLock = new ReentrantReadWriteLock();
+    // One pending sale must not be finalized, cancelled or edited by two requests at once
+    private final Map<String, ReentrantLock> saleLocks = new ConcurrentHashMap<>();
+    // Orders, returns, suppliers and users: low traffic, not thread-safe
+    private final ReentrantLock backOfficeLock = new ReentrantLock();
+    private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+    private final SecureRandom tokenRandom = new SecureRandom();
+    private HttpServer httpServer;
+    private ExecutorService requestExecutor;
+
+    private static final class Session {
+        final String username;
+        final String role;
+        volatile long lastUsedMillis;
+
+        Session(String username, String role) {
+            this.username = username;
+            this.role = role;
+            this.lastUsedMillis = System.currentTimeMillis();
+        }
+    }
+
+    private interface ApiCall {
+        Object call() throws ApiException;
+    }
+
+    /** Thrown by handlers to send an error status with a message. */
+    private static class ApiException extends Exception {
+        final int status;
+        ApiException(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+
+    public InventoryServer(Inventory inventory, UserManager userManager, SupplierManager supplierManager,
+                           SalesManager salesManager, OrderManager orderManager, SalesReturnManager salesReturnManager) {
+        this.inventory = inventory;
+        this.userManager = userManager;
+        this.supplierManager = supplierManager;
+        this.salesManager = salesManager;
+        this.orderManager = orderManager;
+        this.salesReturnManager = salesReturnManager;
+    }
+
+    public void start(String host, int port) throws IOException {
+        InetSocketAddress address = host == null
+                ? new InetSocketAddress(InetAddress.getLoopbackAddress(), port)
+                : new InetSocketAddress(host, port);
+        httpServer = HttpServer.create(address, 256);
+        requestExecutor = newRequestExecutor();
+        httpServer.setExecutor(requestExecutor);
+        httpServer.createContext("/api/", this::handle);
+        httpServer.start();
+        AppLog.info("Inventory server listening on http://" + address.getHostString() + ":" + httpServer.getAddress().getPort() + "/api/");
+        if (!address.getAddress().isLoopbackAddress()) {
+            AppLog.warn("InventoryServer: listening beyond loopback on " + address.getHostString() + "; all routes except login require a session token.");
+        }
+    }
+
+    public int getPort() {
+        return httpServer == null ? -1 : httpServer.getAddress().getPort();
+    }
+
+    public void stop() {
+        if (httpServer != null) {
+            httpServer.stop(1);
+            httpServer = null;
+        }
+        if (requestExecutor != null) {
+            requestExecutor.shutdown();
+            try {
+                requestExecutor.awaitTermination(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            requestExecutor = null;
+        }
+    }
+
+    public void saveAll() {
+        salesLock.writeLock().lock();
+        backOfficeLock.lock();
+        try {
+            AppLog.info("Saving all data...");
+            inventory.saveItemsToFile(Inventory.DEFAULT_ITEMS_FILE_PATH);
+            salesManager.saveSalesToFile();
+            supplierManager.saveSuppliersToFile(SupplierManager.DEFAULT_SUPPLIERS_FILE_PATH);
+            orderManager.saveOrdersToFile();
+            salesReturnManager.saveSalesReturnsToFile();
+        } finally {
+            backOfficeLock.unlock();
+            salesLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * One virtual thread per request when available; looked up reflectively so the project still builds on older JDKs.
+     */
+    static ExecutorService newRequestExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            AppLog.info("Serving requests on virtual threads.");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            AppLog.info("Virtual threads are not available on this JVM; serving requests on a cached thread pool.");
+            return Executors.newCachedThreadPool();
+        }
+    }
+
+    // ---- Request dispatch ----
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            String method = exchange.getRequestMethod().toUpperCase();
+            List<String> path = pathSegments(exchange.getRequestURI().getRawPath());
+            Map<String, String> query = queryParams(exchange.getRequestURI().getRawQuery());
+            Map<String, Object> body = ("POST".equals(method) || "PUT".equals(method))
+                    ? Json.parseObject(readBody(exchange.getRequestBody()))
+                    : new HashMap<>();
+
+            Session session = null;
+            if (path.isEmpty() || !"login".equals(path.get(0))) {
+                session = authenticate(exchange.getRequestHeaders().getFirst("Authorization"));
+            }
+            sendJson(exchange, 200, dispatch(session, method, path, query, body));
+        } catch (ApiException e) {
+            sendJson(exchange, e.status, errorBody(e.getMessage()));
+        } catch (IllegalArgumentException e) {
+            sendJson(exchange, 400, errorBody(e.getMessage()));
+        } catch (Exception e) {
+            AppLog.error("InventoryServer: error handling " + exchange.getRequestURI() + ": " + e.getMessage(), e);
+            sendJson(exchange, 500, errorBody("Internal server error: " + e.getMessage()));
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private Object dispatch(Session session, String method, List<String> path, Map<String, String> query, Map<String, Object> body) throws ApiException {
+        if (path.isEmpty()) throw new ApiException(404, "No resource specified.");
+        String resource = path.get(0);
+        switch (resource) {
+            case "login":
+                requireMethod(method, "POST");
+                return login(body);
+            case "items":
+                return handleItems(session, method, path, query, body);
+            case "reports":
+                requireMethod(method, "GET");
+                return handleReports(path, query);
+            case "sales":
+                if (!"GET".equals(method)) requireRole(session, "Admin", "Staff");
+                return handleSales(method, path, body);
+            case "orders":
+                requireMethod(method, "GET");
+                return locked(backOfficeLock, () -> listOrders(query.get("status")));
+            case "suppliers":
+                requireMethod(method, "GET");
+                return locked(backOfficeLock, () -> {
+                    List<Object> suppliers = new ArrayList<>();
+                    for (Supplier s : supplierManager.getAllSuppliers()) {
+                        suppliers.add(supplierToJson(s));
+                    }
+                    return suppliers;
+                });
+            case "returns":
+                requireMethod(method, "GET");
+                return locked(backOfficeLock, () -> listReturns(query.get("status")));
+            case "stock":
+                requireMethod(method, "POST");
+                requireRole(session, "Admin", "Staff");
+                return adjustStock(body);
+            case "save":
+                requireMethod(method, "POST");
+                requireRole(session, "Admin");
+                saveAll();
+                return okBody(true);
+            default:
+                throw new ApiException(404, "Unknown resource: " + resource);
+        }
+    }
+
+    private Object login(Map<String, Object> body) throws ApiException {
+        Optional<User> userOpt;
+        backOfficeLock.lock();
+        try {
+            userOpt = userManager.authenticateUser(Json.getString(body, "username"), Json.getString(body, "password"));
+        } finally {
+            backOfficeLock.unlock();
+        }
+        if (!userOpt.isPresent()) {
+            throw new ApiException(401, "Invalid username or password.");
+        }
+        byte[] tokenBytes = new byte[32];
+        tokenRandom.nextBytes(tokenBytes);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(tokenBytes);
+        sessions.put(token, new Session(userOpt.get().getUsername(), userOpt.get().getRole()));
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("username", userOpt.get().getUsername());
+        result.put("role", userOpt.get().getRole());
+        result.put("token", token);
+        return result;
+    }
+
+    // Checks "Authorization: Bearer <token>" against the sessions issued by login
+    private Session authenticate(String authorization) throws ApiException {
+        if (authorization == null || !authorization.startsWith("Bearer ")) {
+            throw new ApiException(401, "Login required.");
+        }
+        String token = authorization.substring("Bearer ".length()).trim();
+        Session session = sessions.get(token);
+        long now = System.currentTimeMillis();
+        if (session == null || now - session.lastUsedMillis > SESSION_IDLE_MILLIS) {
+            if (session != null) sessions.remove(token);
+            throw new ApiException(401, "Session expired or invalid. Please log in again.");
+        }
+        session.lastUsedMillis = now;
+        return session;
+    }
+
+    // Same rules as MainInventoryWindow.adjustUiForRole: Admin and Staff sell and edit stock, only Admin deletes items or saves
+    private static void requireRole(Session session, String... roles) throws ApiException {
+        for (String role : roles) {
+            if (role.equalsIgnoreCase(session.role)) return;
+        }
+        throw new ApiException(403, "User " + session.username + " (Role: " + session.role + ") is not allowed to do this.");
+    }
+
+    private Object handleItems(Session session, String method, List<String> path, Map<String, String> query, Map<String, Object> body) throws ApiException {
+        if (path.size() == 1) {
+            if ("GET".equals(method)) {
+                List<Object> items = new ArrayList<>();
+                for (Item item : inventory.searchItems(query.get("q"))) { // empty query returns all items
+                    items.add(itemToJson(item));
+                }
+                return items;
+            }
+            requireMethod(method, "POST");
+            requireRole(session, "Admin", "Staff");
+            Item newItem = itemFromJson(body);
+            if (inventory.getItem(newItem.getSku()) != null) {
+                throw new ApiException(409, "Item with SKU " + newItem.getSku() + " already exists.");
+            }
+            inventory.addItem(newItem);
+            return itemToJson(newItem);
+        }
+
+        String sku = path.get(1);
+        if (path.size() == 3 && "availability".equals(path.get(2))) {
+            requireMethod(method, "GET");
+            Item item = requireItem(sku);
+            Sale sale = query.get("saleId") != null ? findSale(query.get("saleId")) : null;
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("sku", sku);
+            result.put("onHand", item.getQuantity());
+            result.put("available", salesManager.getAvailableQuantity(sku, sale));
+            result.put("onOrder", orderManager.getOnOrderQuantity(sku));
+            return result;
+        }
+        if (path.size() != 2) throw new ApiException(404, "Unknown item resource.");
+
+        switch (method) {
+            case "GET":
+                return itemToJson(requireItem(sku));
+            case "PUT":
+                requireRole(session, "Admin", "Staff");
+                // Optimistic update of the descriptive fields only; quantity changes go through POST /api/stock
+                if (!(body.get("version") instanceof Number)) {
+                    throw new ApiException(400, "Missing version. Reload the item and send the version you edited.");
+                }
+                requireItem(sku);
+                if (!inventory.updateItemDetails(sku, ((Number) body.get("version")).longValue(), Json.getString(body, "name"),
+                        Json.getString(body, "category"), Json.getDouble(body, "price", 0.0),
+                        Json.getString(body, "supplier"), Json.getString(body, "status"))) {
+                    throw new ApiException(409, "Item with SKU " + sku + " was changed by someone else. Reload and try again.");
+                }
+                return itemToJson(requireItem(sku));
+            case "DELETE":
+                requireRole(session, "Admin");
+                return okBody(inventory.removeItem(sku));
+            default:
+                throw new ApiException(405, "Method " + method + " not allowed.");
+        }
+    }
+
+    // POST /api/stock {"source": "...", "deltas": {"SKU": delta, ...}} - all-or-nothing
+    private Object adjustStock(Map<String, Object> body) throws ApiException {
+        Object rawDeltas = body.get("deltas");
+        if (!(rawDeltas instanceof Map) || ((Map<?, ?>) rawDeltas).isEmpty()) {
+            throw new ApiException(400, "Missing deltas.");
+        }
+        Map<String, Integer> deltas = new LinkedHashMap<>();
+        for (Map.Entry<?, ?> e : ((Map<?, ?>) rawDeltas).entrySet()) {
+            // Whole numbers within int range only; intValue() would silently truncate 1.5 or wrap 3000000000
+            double delta = e.getValue() instanceof Number ? ((Number) e.getValue()).doubleValue() : Double.NaN;
+            if (delta != Math.rint(delta) || delta < Integer.MIN_VALUE || delta > Integer.MAX_VALUE) {
+                throw new ApiException(400, "Invalid delta for SKU " + e.getKey() + ".");
+            }
+            deltas.put(String.valueOf(e.getKey()), (int) delta);
+        }
+        String source = Json.getString(body, "source");
+        if (!inventory.adjustQuantities(deltas, source == null ? "REMOTE" : source)) {
+            throw new ApiException(409, "Stock adjustment rejected: unknown SKU or not enough stock.");
+        }
+        return okBody(true);
+    }
+
+    private Object handleReports(List<String> path, Map<String, String> query) throws ApiException {
+        String report = path.size() > 1 ? path.get(1) : "";
+        if ("low-stock".equals(report)) {
+            int threshold;
+            try {
+                threshold = Integer.parseInt(query.getOrDefault("threshold", "0"));
+            } catch (NumberFormatException e) {
+                throw new ApiException(400, "Invalid threshold.");
+            }
+            List<Object> items = new ArrayList<>();
+            for (Item item : inventory.generateLowStockReport(threshold)) {
+                items.add(itemToJson(item));
+            }
+            return items;
+        }
+        if ("total-value".equals(report)) {
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("totalValue", inventory.calculateTotalValue());
+            return result;
+        }
+        throw new ApiException(404, "Unknown report: " + report);
+    }
+
+    private Sale findSale(String saleId) {
+        salesLock.readLock().lock();
+        try {
+            return salesManager.getSaleById(saleId).orElse(null);
+        } finally {
+            salesLock.readLock().unlock();
+        }
+    }
+
+    private Object handleSales(String method, List<String> path, Map<String, Object> body) throws ApiException {
+        if (path.size() == 1) {
+            requireMethod(method, "POST");
+            return locked(salesLock.writeLock(), () -> saleToJson(salesManager.createNewSale()));
+        }
+        Sale sale = findSale(path.get(1));
+        if (sale == null) {
+            throw new ApiException(404, "Sale " + path.get(1) + " not found.");
+        }
+        if (path.size() == 2) {
+            requireMethod(method, "GET");
+            return saleToJson(sale);
+        }
+        // Other sales go on in parallel; finalize only shares the read side of salesLock (save waits for it)
+        ReentrantLock saleLock = saleLocks.computeIfAbsent(sale.getSaleID(), id -> new ReentrantLock());
+        salesLock.readLock().lock();
+        saleLock.lock();
+        try {
+            return handleSaleAction(method, path, body, sale);
+        } finally {
+            saleLock.unlock();
+            salesLock.readLock().unlock();
+            if (!Sale.STATUS_PENDING.equals(sale.getStatus())) {
+                saleLocks.remove(sale.getSaleID(), saleLock);
+            }
+        }
+    }
+
+    private Object handleSaleAction(String method, List<String> path, Map<String, Object> body, Sale sale) throws ApiException {
+        switch (path.get(2)) {
+            case "reservations":
+                if ("DELETE".equals(method)) {
+                    salesManager.releaseAllReservations(sale);
+                    return okBody(true);
+                }
+                requireMethod(method, "POST");
+                String sku = Json.getString(body, "sku");
+                requireItem(sku);
+                int quantity = Json.getInt(body, "quantity", -1);
+                if (quantity < 0) throw new ApiException(400, "Quantity must be zero or positive.");
+                Map<String, Object> reserved = okBody(salesManager.reserveStock(sale, sku, quantity));
+                reserved.put("available", salesManager.getAvailableQuantity(sku, sale));
+                return reserved;
+            case "finalize":
+                requireMethod(method, "POST");
+                return finalizeSale(sale, body);
+            case "cancel":
+                requireMethod(method, "POST");
+                return okBody(salesManager.cancelSale(sale));
+            default:
+                throw new ApiException(404, "Unknown sale resource: " + path.get(2));
+        }
+    }
+
+    // The client builds the sale locally and sends its lines with the finalize request
+    private Object finalizeSale(Sale sale, Map<String, Object> body) throws ApiException {
+        if (!Sale.STATUS_PENDING.equals(sale.getStatus())) {
+            throw new ApiException(409, "Sale " + sale.getSaleID() + " cannot be finalized. Current status: " + sale.getStatus());
+        }
+        Object linesObj = body.get("lines");
+        if (!(linesObj instanceof List)) throw new ApiException(400, "Finalize request must include 'lines'.");
+
+        for (Sale.SaleItem existing : sale.getItemsSold()) { // Replace lines from any earlier failed attempt
+            sale.removeItemFromSale(existing.getSku());
+        }
+        for (Object lineObj : (List<?>) linesObj) {
+            if (!(lineObj instanceof Map)) throw new ApiException(400, "Invalid sale line.");
+            @SuppressWarnings("unchecked")
+            Map<String, Object> line = (Map<String, Object>) lineObj;
+            Item item = requireItem(Json.getString(line, "sku"));
+            if (!sale.addItemToSale(item, Json.getInt(line, "quantity", 0), Json.getDouble(line, "price", -1))) {
+                throw new ApiException(400, "Invalid sale line for SKU " + item.getSku() + ".");
+            }
+        }
+        boolean success = salesManager.finalizeSale(sale);
+        Map<String, Object> result = okBody(success);
+        if (!success) {
+            result.put("error", "Finalization failed. Check stock levels.");
+        }
+        result.put("sale", saleToJson(sale));
+        return result;
+    }
+
+    private Object listOrders(String status) {
+        List<Object> orders = new ArrayList<>();
+        List<Order> source = status == null ? orderManager.getAllOrdersView() : orderManager.getOrdersByStatus(status);
+        for (Order order : source) {
+            Map<String, Object> o = new LinkedHashMap<>();
+            o.put("orderID", order.getOrderID());
+            o.put("supplierID", order.getSupplierID());
+            o.put("orderDate", Timestamps.formatIso(order.getOrderDateMillis()));
+            o.put("status", order.getStatus());
+            o.put("totalCost", order.getTotalCost());
+            List<Object> lines = new ArrayList<>();
+            for (OrderItem oi : order.getItemsView()) {
+                Map<String, Object> l = new LinkedHashMap<>();
+                l.put("sku", oi.getItemSKU());
+                l.put("name", oi.getItemName());
+                l.put("ordered", oi.getOrderedQuantity());
+                l.put("received", oi.getReceivedQuantity());
+                l.put("price", oi.getPurchasePrice());
+                lines.add(l);
+            }
+            o.put("items", lines);
+            orders.add(o);
+        }
+        return orders;
+    }
+
+    private Object listReturns(String status) {
+        List<Object> returns = new ArrayList<>();
+        List<SalesReturn> source = status == null ? salesReturnManager.getAllSalesReturnsView() : salesReturnManager.getSalesReturnsByStatus(status);
+        for (SalesReturn sr : source) {
+            Map<String, Object> r = new LinkedHashMap<>();
+            r.put("returnID", sr.getReturnID());
+            r.put("originalSaleID", sr.getOriginalSaleID());
+            r.put("returnDate", Timestamps.formatIso(sr.getReturnDateMillis()));
+            r.put("status", sr.getStatus());
+            r.put("totalRefundAmount", sr.getTotalRefundAmount());
+            returns.add(r);
+        }
+        return returns;
+    }
+
+    // ---- JSON mapping ----
+
+    private Map<String, Object> itemToJson(Item item) {
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("sku", item.getSku());
+        m.put("name", item.getName());
+        m.put("category", item.getCategory());
+        m.put("quantity", item.getQuantity());
+        m.put("price", item.getPrice());
+        m.put("supplier", item.getSupplier());
+        m.put("status", item.getStatus());
+        m.put("version", item.getVersion());
+        m.put("onOrder", orderManager.getOnOrderQuantity(item.getSku()));
+        return m;
+    }
+
+    static Item itemFromJson(Map<String, Object> m) {
+        String sku = Json.getString(m, "sku");
+        if (sku == null || sku.trim().isEmpty()) {
+            throw new IllegalArgumentException("Item SKU is required.");
+        }
+        return new Item(sku, Json.getString(m, "name"), Json.getString(m, "category"),
+                Json.getInt(m, "quantity", 0), Json.getDouble(m, "price", 0.0),
+                Json.getString(m, "supplier"), Json.getString(m, "status"),
+                m.get("version") instanceof Number ? ((Number) m.get("version")).longValue() : 0L);
+    }
+
+    private static Map<String, Object> saleToJson(Sale sale) {
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("saleID", sale.getSaleID());
+        m.put("saleDate", Timestamps.formatIso(sale.getSaleDateMillis()));
+        m.put("status", sale.getStatus());
+        m.put("totalAmount", sale.getTotalAmount());
+        List<Object> lines = new ArrayList<>();
+        for (Sale.SaleItem si : sale.getItemsSoldView()) {
+            Map<String, Object> l = new LinkedHashMap<>();
+            l.put("sku", si.getSku());
+            l.put("itemName", si.getItemName());
+            l.put("quantity", si.getQuantitySold());
+            l.put("price", si.getPriceAtSale());
+            l.put("subtotal", si.getSubtotal());
+            lines.add(l);
+        }
+        m.put("items", lines);
+        return m;
+    }
+
+    private static Map<String, Object> supplierToJson(Supplier s) {
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("supplierID", s.getSupplierID());
+        m.put("name", s.getName());
+        m.put("contactInfo", s.getContactInfo());
+        return m;
+    }
+
+    private static Map<String, Object> okBody(boolean ok) {
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("ok", ok);
+        return m;
+    }
+
+    private static Map<String, Object> errorBody(String message) {
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("error", message);
+        return m;
+    }
+
+    // ---- HTTP helpers ----
+
+    private static Object locked(Lock lock, ApiCall call) throws ApiException {
+        lock.lock();
+        try {
+            return call.call();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Item requireItem(String sku) throws ApiException {
+        Item item = inventory.getItem(sku);
+        if (item == null) throw new ApiException(404, "Item with SKU " + sku + " not found.");
+        return item;
+    }
+
+    private static void requireMethod(String method, String expected) throws ApiException {
+        if (!expected.equals(method)) throw new ApiException(405, "Method " + method + " not allowed.");
+    }
+
+    private static List<String> pathSegments(String rawPath) {
+        List<String> segments = new ArrayList<>();
+        String rest = rawPath.startsWith("/api/") ? rawPath.substring("/api/".length()) : rawPath;
+        for (String part : rest.split("/")) {
+            if (!part.isEmpty()) {
+                segments.add(URLDecoder.decode(part.replace("+", "%2B"), StandardCharsets.UTF_8));
+            }
+        }
+        return segments;
+    }
+
+    private static Map<String, String> queryParams(String rawQuery) {
+        Map<String, String> params = new HashMap<>();
+        if (rawQuery == null || rawQuery.isEmpty()) return params;
+        for (String pair : rawQuery.split("&")) {
+            int eq = pair.indexOf('=');
+            String key = eq < 0 ? pair : pair.substring(0, eq);
+            String value = eq < 0 ? "" : pair.substring(eq + 1);
+            params.put(URLDecoder.decode(key, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return params;
+    }
+
+    private static String readBody(InputStream in) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        byte[] chunk = new byte[4096];
+        int n;
+        while ((n = in.read(chunk)) != -1) {
+            buffer.write(chunk, 0, n);
+        }
+        return new String(buffer.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private static void sendJson(HttpExchange exchange, int status, Object body) throws IOException {
+        byte[] bytes = Json.write(body).getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    public static void main(String[] args) {
+        int port = DEFAULT_PORT;
+        String host = null;
+        for (int i = 0; i < args.length; i++) {
+            if ("--port".equals(args[i]) && i + 1 < args.length) {
+                port = Integer.parseInt(args[++i]);
+            } else if ("--host".equals(args[i]) && i + 1 < args.length) {
+                host = args[++i];
+            }
+        }
+
+        Inventory inventory = Inventory.open();
+        UserManager userManager = new UserManager();
+        SupplierManager supplierManager = new SupplierManager();
+        SalesManager salesManager = new SalesManager(inventory);
+        OrderManager orderManager = new OrderManager(inventory, supplierManager);
+        SalesReturnManager salesReturnManager = new SalesReturnManager(inventory, salesManager);
+        userManager.createDefaultAdminUserIfNotExists(true);
+        Map<String, Object> memoryRoots = new LinkedHashMap<>();
+        memoryRoots.put("Inventory", inventory);
+        memoryRoots.put("SalesManager", salesManager);
+        memoryRoots.put("OrderManager", orderManager);
+        memoryRoots.put("SalesReturnManager", salesReturnManager);
+        memoryRoots.put("SupplierManager", supplierManager);
+        memoryRoots.put("UserManager", userManager);
+        MemoryReport.install(() -> memoryRoots);
+
+        InventoryServer server = new InventoryServer(inventory, userManager, supplierManager, salesManager, orderManager, salesReturnManager);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            AppLog.info("Shutting down inventory server...");
+            server.stop();
+            server.saveAll();
+            AppLog.flush(); // Shutdown hooks run concurrently; do not lose the save messages
+        }, "inventory-server-shutdown"));
+        try {
+            server.start(host, port);
+        } catch (IOException e) {
+            AppLog.error("Could not start inventory server on port " + port + ": " + e.getMessage(), e);
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,91 @@
+// InventorySnapshot.java
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Read-only, point-in-time view of the inventory (see {@link Inventory#snapshot()}).
+ * Nothing in a snapshot ever changes, so a long report can read it without locks while
+ * sales keep changing the live inventory. The entries are kept in a {@link PersistentHashMap},
+ * so a new snapshot shares all unchanged branches with the previous one and only the SKUs
+ * modified in between are copied.
+ */
+public final class InventorySnapshot {
+
+    /**
+     * Frozen copy of one item: its quantity and descriptive fields at the time the snapshot was taken.
+     */
+    public static final class ItemSnapshot {
+        private final String sku;
+        private final int quantity;
+        private final Item.Details details;
+
+        ItemSnapshot(Item item) {
+            this.sku = item.getSku();
+            this.quantity = item.getQuantity();
+            this.details = item.getDetailsSnapshot(); // Immutable already
+        }
+
+        public String getSku() { return sku; }
+        public int getQuantity() { return quantity; }
+        public String getName() { return details.getName(); }
+        public String getCategory() { return details.getCategory(); }
+        public double getPrice() { return details.getPrice(); }
+        public String getSupplier() { return details.getSupplier(); }
+        public String getStatus() { return details.getStatus(); }
+        public long getVersion() { return details.getVersion(); }
+    }
+
+    private final long version;
+    private final PersistentHashMap<String, ItemSnapshot> items;
+
+    InventorySnapshot(long version, PersistentHashMap<String, ItemSnapshot> items) {
+        this.version = version;
+        this.items = items;
+    }
+
+    /** Increases by one every time a snapshot with different content is taken. */
+    public long getVersion() {
+        return version;
+    }
+
+    public int size() {
+        return items.size();
+    }
+
+    public ItemSnapshot getItem(String sku) {
+        return sku == null ? null : items.get(sku);
+    }
+
+    public List<ItemSnapshot> getAllItems() {
+        return new ArrayList<>(items.values());
+    }
+
+    /** All items without copying; safe to iterate on any thread. */
+    public Collection<ItemSnapshot> values() {
+        return items.values();
+    }
+
+    public List<ItemSnapshot> generateLowStockReport(int threshold) {
+        List<ItemSnapshot> result = new ArrayList<>();
+        for (ItemSnapshot item : items.values()) {
+            if (item.getQuantity() <= threshold) {
+                result.add(item);
+            }
+        }
+        return result;
+    }
+
+    public double calculateTotalValue() {
+        double totalValue = 0.0;
+        for (ItemSnapshot item : items.values()) {
+            totalValue += item.getPrice() * item.getQuantity();
+        }
+        return totalValue;
+    }
+
+    // Used by Inventory to build the next snapshot from this one
+    PersistentHashMap<String, ItemSnapshot> entries() {
+        return items;
+    }
+}
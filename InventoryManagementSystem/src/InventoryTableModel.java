@@ -0,0 +1,231 @@
+// InventoryTableModel.java
+import javax.swing.SwingUtilities;
+import javax.swing.table.AbstractTableModel;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Table model for the main inventory table. Rows hold references to the live Item objects and
+ * cells are read from them only when the table asks (i.e. for the rows that are visible), so no
+ * Object[] per row is built. The model listens to the {@link Inventory} and fires a row update
+ * only for the items that actually changed; changes arriving from other threads are batched
+ * and applied on the Event Dispatch Thread.
+ */
+public class InventoryTableModel extends AbstractTableModel implements Inventory.ItemChangeListener {
+    private static final String[] COLUMN_NAMES = {"SKU", "Name", "Category", "Quantity", "On Order", "Price ($)", "Status"};
+    private static final Class<?>[] COLUMN_CLASSES = {String.class, String.class, String.class, Integer.class, Integer.class, Double.class, String.class};
+    public static final int SKU_COLUMN = 0;
+
+    private final Inventory inventory;
+    private OrderManager orderManager; // For the On Order column; may be null
+    private IndexedRowSorter<?> rowSorter; // Told about rows moved by removeRow; may be null
+
+    private final List<Item> rows = new ArrayList<>();
+    private final Map<String, Integer> rowBySku = new HashMap<>();
+    private boolean showingAllItems = true; // false while a search result is shown: new items are not added then
+    private PersistentHashMap<String, Item> loadedItemMap; // Trie the rows were last loaded from, if any
+
+    // Changes reported from any thread, applied on the EDT in one batch
+    private final Object pendingLock = new Object();
+    private Map<String, Inventory.ChangeType> pendingChanges = new HashMap<>();
+    private boolean flushScheduled = false;
+
+    public InventoryTableModel(Inventory inventory) {
+        this.inventory = inventory;
+        inventory.addItemChangeListener(this);
+    }
+
+    public void setOrderManager(OrderManager orderManager) {
+        this.orderManager = orderManager;
+    }
+
+    /** The sorter of the table showing this model, so row filters follow rows moved on removal. */
+    public void setRowSorter(IndexedRowSorter<?> rowSorter) {
+        this.rowSorter = rowSorter;
+    }
+
+    /** Stops listening to the inventory (e.g. when the window is disposed). */
+    public void detach() {
+        inventory.removeItemChangeListener(this);
+    }
+
+    /**
+     * Replaces all rows. Call on the EDT.
+     * @param showingAllItems true if items is the whole inventory, so items added later should appear as new rows
+     */
+    public void setItems(Iterable<Item> items, boolean showingAllItems) {
+        rows.clear();
+        rowBySku.clear();
+        if (items != null) {
+            for (Item item : items) {
+                rowBySku.put(item.getSku(), rows.size());
+                rows.add(item);
+            }
+        }
+        this.showingAllItems = showingAllItems;
+        this.loadedItemMap = null;
+        fireTableDataChanged();
+    }
+
+    /**
+     * Shows the whole inventory. If the rows were already loaded from this same trie (nothing was added,
+     * removed or replaced since, and item edits have been applied row by row) the rows are kept and only
+     * repainted, so the row sorter keeps its order instead of sorting everything again.
+     */
+    public void showAllItems(PersistentHashMap<String, Item> itemMap) {
+        if (itemMap != null && itemMap == loadedItemMap && showingAllItems) {
+            if (!rows.isEmpty()) {
+                fireTableRowsUpdated(0, rows.size() - 1); // On Order may have changed
+            }
+            return;
+        }
+        setItems(itemMap == null ? null : itemMap.values(), itemMap != null);
+        loadedItemMap = itemMap;
+    }
+
+    /** Model rows of the given items (e.g. a search result), for {@link IndexedRowSorter#setRowFilter}. */
+    public BitSet rowsFor(Iterable<Item> items) {
+        BitSet result = new BitSet(rows.size());
+        for (Item item : items) {
+            Integer row = rowBySku.get(item.getSku());
+            if (row != null) result.set(row);
+        }
+        return result;
+    }
+
+    public String getSkuAt(int modelRow) {
+        return rows.get(modelRow).getSku();
+    }
+
+    public Item getItemAt(int modelRow) {
+        return rows.get(modelRow);
+    }
+
+    @Override
+    public int getRowCount() {
+        return rows.size();
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUMN_NAMES.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return COLUMN_NAMES[column];
+    }
+
+    @Override
+    public Class<?> getColumnClass(int columnIndex) {
+        return COLUMN_CLASSES[columnIndex];
+    }
+
+    @Override
+    public boolean isCellEditable(int row, int column) {
+        return false;
+    }
+
+    @Override
+    public Object getValueAt(int rowIndex, int columnIndex) {
+        Item item = rows.get(rowIndex);
+        switch (columnIndex) {
+            case 0: return item.getSku();
+            case 1: return item.getName();
+            case 2: return item.getCategory();
+            case 3: return item.getQuantity();
+            case 4: return orderManager != null ? orderManager.getOnOrderQuantity(item.getSku()) : 0;
+            case 5: return item.getPrice();
+            case 6: return item.getStatus();
+            default: return null;
+        }
+    }
+
+    // --- Inventory.ItemChangeListener (may be called on any thread) ---
+
+    @Override
+    public void itemChanged(String sku, Inventory.ChangeType type) {
+        synchronized (pendingLock) {
+            Inventory.ChangeType earlier = pendingChanges.get(sku);
+            // ADDED then UPDATED is still an add; anything followed by REMOVED is a remove
+            if (earlier == null || type != Inventory.ChangeType.UPDATED) {
+                pendingChanges.put(sku, type);
+            }
+            if (flushScheduled) {
+                return;
+            }
+            flushScheduled = true;
+        }
+        SwingUtilities.invokeLater(this::flushPendingChanges);
+    }
+
+    private void flushPendingChanges() {
+        Map<String, Inventory.ChangeType> changes;
+        synchronized (pendingLock) {
+            changes = pendingChanges;
+            pendingChanges = new HashMap<>();
+            flushScheduled = false;
+        }
+        Set<Integer> updatedRows = new LinkedHashSet<>();
+        for (Map.Entry<String, Inventory.ChangeType> change : changes.entrySet()) {
+            String sku = change.getKey();
+            Integer row = rowBySku.get(sku);
+            switch (change.getValue()) {
+                case UPDATED:
+                    if (row != null) {
+                        // Updates keep the Item object, but re-read it in case the SKU was re-added
+                        Item current = inventory.getItem(sku);
+                        if (current != null) rows.set(row, current);
+                        updatedRows.add(row);
+                    }
+                    break;
+                case ADDED:
+                    Item added = inventory.getItem(sku);
+                    if (added == null) break;
+                    if (row != null) {
+                        rows.set(row, added);
+                        updatedRows.add(row);
+                    } else if (showingAllItems) {
+                        int newRow = rows.size();
+                        rowBySku.put(sku, newRow);
+                        rows.add(added);
+                        fireTableRowsInserted(newRow, newRow);
+                    }
+                    break;
+                case REMOVED:
+                    if (row != null) {
+                        removeRow(row, updatedRows);
+                    }
+                    break;
+            }
+        }
+        for (int row : updatedRows) {
+            if (row < rows.size()) {
+                fireTableRowsUpdated(row, row);
+            }
+        }
+    }
+
+    // Moves the last row into the freed slot so no other row index changes
+    private void removeRow(int row, Set<Integer> updatedRows) {
+        int last = rows.size() - 1;
+        rowBySku.remove(rows.get(row).getSku());
+        if (row != last) {
+            Item moved = rows.get(last);
+            rows.set(row, moved);
+            rowBySku.put(moved.getSku(), row);
+            updatedRows.add(row);
+            if (rowSorter != null) {
+                rowSorter.rowMoved(last, row); // Otherwise the moved item would keep the deleted row's filter bit
+            }
+        }
+        rows.remove(last);
+        updatedRows.remove(last);
+        fireTableRowsDeleted(last, last);
+    }
+}
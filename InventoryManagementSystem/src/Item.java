@@ -1,4 +1,6 @@
 // Item.java
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
 import java.text.DecimalFormat;
 import java.text.DecimalFormatSymbols;
 import java.util.Locale;
@@ -6,27 +8,66 @@ import java.util.Locale;
 public class Item {
     // Attributes
     private String sku;         // SKU (String): Unique identifier
-    private String name;        // name (String): Product name
-    private String category;    // category (String): Product category
-    private int quantity;       // quantity (Integer): Stock quantity
-    private double price;       // price (Double): Product price (selling price)
-    private String supplier;    // supplier (String): SupplierID
-    private String status;      // status (String): e.g., "Active", "Inactive"
+    private volatile int quantity; // quantity (Integer): Stock quantity, changed with CAS (see tryDecrement/increment)
+    // name, category, price, supplier (SupplierID), status: kept together in one immutable Details
+    // so a reader always sees a consistent set, and every change gets a new version stamp
+    private volatile Details details;
 
     // Status Constants
     public static final String STATUS_ACTIVE = "Active";
     public static final String STATUS_INACTIVE = "Inactive";
     // Add other statuses here if needed, e.g., "Damaged", "Discontinued"
 
+    private static final VarHandle QUANTITY;
+    private static final VarHandle DETAILS;
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            QUANTITY = lookup.findVarHandle(Item.class, "quantity", int.class);
+            DETAILS = lookup.findVarHandle(Item.class, "details", Details.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    /**
+     * Descriptive fields of an item plus their version stamp. Never modified; a change replaces the whole object.
+     */
+    public static final class Details {
+        private final String name;
+        private final String category;
+        private final double price;
+        private final String supplier;
+        private final String status;
+        private final long version;
+
+        private Details(String name, String category, double price, String supplier, String status, long version) {
+            this.name = name;
+            this.category = category;
+            this.price = price;
+            this.supplier = supplier;
+            this.status = status;
+            this.version = version;
+        }
+
+        public String getName() { return name; }
+        public String getCategory() { return category; }
+        public double getPrice() { return price; }
+        public String getSupplier() { return supplier; }
+        public String getStatus() { return status; }
+        public long getVersion() { return version; }
+    }
+
     // Constructor
     public Item(String sku, String name, String category, int quantity, double price, String supplier, String status) {
+        this(sku, name, category, quantity, price, supplier, status, 0L);
+    }
+
+    // Used when the version is known, e.g. an item received from the server in client mode
+    public Item(String sku, String name, String category, int quantity, double price, String supplier, String status, long version) {
         this.sku = sku; // Assuming SKU is now just the number part based on previous CSV modifications
-        this.name = name;
-        this.category = category;
         this.quantity = quantity;
-        this.price = price;
-        this.supplier = supplier; // This should be SupplierID
-        this.status = status;
+        this.details = new Details(name, category, price, supplier, status, version); // supplier should be SupplierID
     }
 
     // Getter and Setter methods
@@ -38,20 +79,35 @@ public class Item {
         this.sku = sku;
     }
 
+    public Details getDetailsSnapshot() {
+        return details;
+    }
+
+    /** Version of the descriptive fields; bumped on every change to name, category, price, supplier or status. */
+    public long getVersion() {
+        return details.version;
+    }
+
     public String getName() {
-        return name;
+        return details.name;
     }
 
     public void setName(String name) {
-        this.name = name;
+        Details d;
+        do {
+            d = details;
+        } while (!DETAILS.compareAndSet(this, d, new Details(name, d.category, d.price, d.supplier, d.status, d.version + 1)));
     }
 
     public String getCategory() {
-        return category;
+        return details.category;
     }
 
     public void setCategory(String category) {
-        this.category = category;
+        Details d;
+        do {
+            d = details;
+        } while (!DETAILS.compareAndSet(this, d, new Details(d.name, category, d.price, d.supplier, d.status, d.version + 1)));
     }
 
     public int getQuantity() {
@@ -62,78 +118,141 @@ public class Item {
         if (quantity >= 0) {
             this.quantity = quantity;
         } else {
-            System.out.println("Error: Quantity cannot be negative. Setting to 0 for SKU: " + this.sku);
+            AppLog.warn("Error: Quantity cannot be negative. Setting to 0 for SKU: " + this.sku);
             this.quantity = 0;
         }
     }
 
     public double getPrice() {
-        return price;
+        return details.price;
     }
 
     public void setPrice(double price) {
-        if (price >= 0) {
-            this.price = price;
-        } else {
-            System.out.println("Error: Price cannot be negative. Setting to 0.0 for SKU: " + this.sku);
-            this.price = 0.0;
+        if (price < 0) {
+            AppLog.warn("Error: Price cannot be negative. Setting to 0.0 for SKU: " + this.sku);
+            price = 0.0;
         }
+        Details d;
+        do {
+            d = details;
+        } while (!DETAILS.compareAndSet(this, d, new Details(d.name, d.category, price, d.supplier, d.status, d.version + 1)));
     }
 
     public String getSupplier() {
-        return supplier; // Should be SupplierID
+        return details.supplier; // Should be SupplierID
     }
 
     public void setSupplier(String supplier) {
-        this.supplier = supplier;
+        Details d;
+        do {
+            d = details;
+        } while (!DETAILS.compareAndSet(this, d, new Details(d.name, d.category, d.price, supplier, d.status, d.version + 1)));
     }
 
     public String getStatus() {
-        return status;
+        return details.status;
     }
 
     public void setStatus(String status) {
-        // Validate against known statuses if necessary
-        if (STATUS_ACTIVE.equals(status) || STATUS_INACTIVE.equals(status) /* || other valid statuses */) {
-            this.status = status;
-        } else {
-            System.err.println("Warning: Attempting to set an unrecognized status '" + status + "' for SKU: " + this.sku + ". Assigning as Inactive.");
-            this.status = STATUS_INACTIVE; // Default to a safe status or throw an error
+        status = validatedStatus(status);
+        Details d;
+        do {
+            d = details;
+        } while (!DETAILS.compareAndSet(this, d, new Details(d.name, d.category, d.price, d.supplier, status, d.version + 1)));
+    }
+
+    // Validate against known statuses if necessary
+    private String validatedStatus(String status) {
+        if (!STATUS_ACTIVE.equals(status) && !STATUS_INACTIVE.equals(status) /* && other valid statuses */) {
+            AppLog.warn("Warning: Attempting to set an unrecognized status '" + status + "' for SKU: " + this.sku + ". Assigning as Inactive.");
+            return STATUS_INACTIVE; // Default to a safe status or throw an error
+        }
+        return status;
+    }
+
+    /**
+     * Replaces all descriptive fields at once, but only if nobody changed them since expectedVersion was read.
+     * Quantity is not touched (stock changes go through tryDecrement/increment).
+     * An unrecognized status is stored as Inactive, as in setStatus.
+     * @return false if the version is stale or the price is negative; nothing changes in that case.
+     */
+    public boolean compareAndSetDetails(long expectedVersion, String name, String category, double price, String supplier, String status) {
+        if (price < 0) {
+            return false;
         }
+        Details d = details;
+        if (d.version != expectedVersion) {
+            return false;
+        }
+        return DETAILS.compareAndSet(this, d, new Details(name, category, price, supplier, validatedStatus(status), expectedVersion + 1));
     }
 
     // Core Business Methods
     public String getDetails() {
         DecimalFormat df = new DecimalFormat("#0.00", new DecimalFormatSymbols(Locale.US));
+        Details d = details;
         return "SKU: " + sku +
-                "\nName: " + name +
-                "\nCategory: " + category +
+                "\nName: " + d.name +
+                "\nCategory: " + d.category +
                 "\nQuantity: " + quantity +
-                "\nPrice: $" + df.format(price) +
-                "\nSupplier: " + supplier + // SupplierID
-                "\nStatus: " + status;
+                "\nPrice: $" + df.format(d.price) +
+                "\nSupplier: " + d.supplier + // SupplierID
+                "\nStatus: " + d.status;
     }
 
     public void updateQuantity(int amount) {
-        int newQuantity = this.quantity + amount;
-        if (newQuantity >= 0) {
-            this.quantity = newQuantity;
-        } else {
-            System.out.println("Error: Not enough stock for SKU " + this.sku + " to decrease by " + Math.abs(amount) +
+        boolean updated = amount >= 0 ? increment(amount) : tryDecrement(-amount);
+        if (!updated) {
+            AppLog.warn("Error: Not enough stock for SKU " + this.sku + " to decrease by " + Math.abs(amount) +
                     ". Current quantity is " + this.quantity + ". Quantity not changed.");
         }
     }
 
+    /**
+     * Takes n units out of stock with a compare-and-set loop; never blocks and never logs.
+     * @return false (and leaves the quantity unchanged) if n is negative or fewer than n units are in stock.
+     */
+    public boolean tryDecrement(int n) {
+        if (n < 0) return false;
+        while (true) {
+            int current = (int) QUANTITY.getVolatile(this);
+            if (current < n) {
+                return false;
+            }
+            if (QUANTITY.compareAndSet(this, current, current - n)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Adds n units to stock with a compare-and-set loop; never blocks and never logs.
+     * @return false (and leaves the quantity unchanged) if n is negative or the quantity would overflow.
+     */
+    public boolean increment(int n) {
+        if (n < 0) return false;
+        while (true) {
+            int current = (int) QUANTITY.getVolatile(this);
+            if (current > Integer.MAX_VALUE - n) {
+                return false;
+            }
+            if (QUANTITY.compareAndSet(this, current, current + n)) {
+                return true;
+            }
+        }
+    }
+
     public String toCsvString() {
         DecimalFormat df = new DecimalFormat("0.00", new DecimalFormatSymbols(Locale.US));
+        Details d = details;
         return String.join(",",
                 escapeCsv(sku),
-                escapeCsv(name),
-                escapeCsv(category),
+                escapeCsv(d.name),
+                escapeCsv(d.category),
                 String.valueOf(quantity),
-                df.format(price),
-                escapeCsv(supplier), // SupplierID
-                escapeCsv(status));
+                df.format(d.price),
+                escapeCsv(d.supplier), // SupplierID
+                escapeCsv(d.status));
     }
 
     public static Item fromCsvString(String csvLine) {
@@ -143,7 +262,7 @@ public class Item {
         String[] parts = csvLine.split(",(?=(?:[^\"]*\"[^\"]*\")*[^\"]*$)", -1);
 
         if (parts.length < 7) {
-            System.err.println("Invalid CSV line for Item (not enough parts): " + csvLine + ". Expected 7, got " + parts.length);
+            AppLog.warn("Invalid CSV line for Item (not enough parts): " + csvLine + ". Expected 7, got " + parts.length);
             return null;
         }
         try {
@@ -156,15 +275,15 @@ public class Item {
             String status = unescapeCsv(parts[6]);
             // Basic status validation during load
             if (!STATUS_ACTIVE.equals(status) && !STATUS_INACTIVE.equals(status)) {
-                System.err.println("Warning: Item SKU " + sku + " loaded with unknown status '" + status + "'. Defaulting to Inactive.");
+                AppLog.warn("Warning: Item SKU " + sku + " loaded with unknown status '" + status + "'. Defaulting to Inactive.");
                 status = STATUS_INACTIVE;
             }
             return new Item(sku, name, category, quantity, price, supplierId, status);
         } catch (NumberFormatException e) {
-            System.err.println("Error parsing numeric value from CSV line for Item: '" + csvLine + "' - " + e.getMessage());
+            AppLog.error("Error parsing numeric value from CSV line for Item: '" + csvLine + "' - " + e.getMessage());
             return null;
         } catch (ArrayIndexOutOfBoundsException e) {
-            System.err.println("Error processing CSV line for Item due to unexpected format: '" + csvLine + "' - " + e.getMessage());
+            AppLog.error("Error processing CSV line for Item due to unexpected format: '" + csvLine + "' - " + e.getMessage());
             return null;
         }
     }
@@ -188,27 +307,27 @@ public class Item {
 
     public static void main(String[] args) {
         Item apple = new Item("001", "Red Delicious Apple, Large", "Fruit", 100, 0.59, "SUP001", STATUS_ACTIVE);
-        System.out.println("--- Initial Item Details ---");
-        System.out.println(apple.getDetails());
+        AppLog.info("--- Initial Item Details ---");
+        AppLog.info(apple.getDetails());
 
         apple.setStatus(STATUS_INACTIVE);
-        System.out.println("\n--- Item Details After Setting Inactive ---");
-        System.out.println(apple.getDetails());
+        AppLog.info("\n--- Item Details After Setting Inactive ---");
+        AppLog.info(apple.getDetails());
 
         // Test CSV
         String csv = apple.toCsvString();
-        System.out.println("\n--- CSV String ---");
-        System.out.println(csv);
+        AppLog.info("\n--- CSV String ---");
+        AppLog.info(csv);
         Item appleFromCsv = Item.fromCsvString(csv);
         if (appleFromCsv != null) {
-            System.out.println("\n--- Item from CSV String ---");
-            System.out.println(appleFromCsv.getDetails());
+            AppLog.info("\n--- Item from CSV String ---");
+            AppLog.info(appleFromCsv.getDetails());
         }
 
         Item invalidStatusItem = Item.fromCsvString("002,Banana,Fruit,50,0.30,SUP002,Discontinued");
         if(invalidStatusItem != null) {
-            System.out.println("\n--- Item with Invalid Status from CSV (should default to Inactive) ---");
-            System.out.println(invalidStatusItem.getDetails());
+            AppLog.info("\n--- Item with Invalid Status from CSV (should default to Inactive) ---");
+            AppLog.info(invalidStatusItem.getDetails());
         }
     }
 }
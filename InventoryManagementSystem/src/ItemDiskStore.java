@@ -0,0 +1,529 @@
+// ItemDiskStore.java
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Items kept on disk, keyed by SKU, for catalogs too large to hold in memory (see {@link DiskBackedInventory}).
+ *
+ * The file is an append-only log: every put appends the whole item, every remove appends a tombstone.
+ * Only an index stays in memory - two long arrays (hash of the SKU, location of its latest record),
+ * about 32 bytes per SKU instead of a full Item. A lookup is one positional read. The index is rebuilt
+ * by reading the log once on open; a record cut off by a crash is dropped. {@link #compact()} rewrites
+ * the live records when old versions take up more space than the current ones.
+ *
+ * File layout: int MAGIC, int FORMAT_VERSION, then records of
+ * [int length][byte LIVE|TOMBSTONE][UTF sku] and, for LIVE, [UTF name][UTF category][int quantity]
+ * [double price][UTF supplier][UTF status][long version].
+ *
+ * All methods except the scans are synchronized; I/O errors are logged and reported as null / false.
+ * A scan takes the offsets of the current records and the end of the log under the lock, then reads
+ * the file through its own stream without it. Records before that end never change (appends go after
+ * it and compaction is skipped while a scan runs), so a scan sees the store as it was when it started
+ * while lookups and writes go on.
+ */
+public class ItemDiskStore {
+
+    private static final int MAGIC = 0x49544D53; // "ITMS"
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_BYTES = 8;
+    private static final byte LIVE = 1;
+    private static final byte TOMBSTONE = 0;
+    private static final int LENGTH_BITS = 24; // location = offset << 24 | record length
+    private static final int MAX_RECORD_BYTES = (1 << LENGTH_BITS) - 1;
+
+    private final File file;
+    private RandomAccessFile raf;
+    private FileChannel channel;
+    private long end; // Where the next record goes
+
+    // Open addressing, linear probing; hashes[i] == 0 means the slot is free
+    private long[] hashes;
+    private long[] locations;
+    private int size;
+    private long liveBytes; // Bytes of the records the index points at
+    private int activeScans; // Scans reading the log without the lock; compaction waits until there are none
+
+    public ItemDiskStore(String path) throws IOException {
+        this.file = new File(path);
+        File parentDir = file.getParentFile();
+        if (parentDir != null && !parentDir.exists()) {
+            parentDir.mkdirs();
+        }
+        this.hashes = new long[1024];
+        this.locations = new long[1024];
+        open();
+    }
+
+    public String getPath() {
+        return file.getPath();
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    /** Size of the log file; minus {@link #liveBytes()} this is what {@link #compact()} would free. */
+    public synchronized long fileBytes() {
+        return end;
+    }
+
+    public synchronized long liveBytes() {
+        return liveBytes;
+    }
+
+    public synchronized boolean contains(String sku) {
+        return findSlot(sku, hash(sku)) >= 0;
+    }
+
+    /** A new Item decoded from the latest record, or null if the SKU is not stored. */
+    public synchronized Item get(String sku) {
+        if (sku == null) return null;
+        int slot = findSlot(sku, hash(sku));
+        if (slot < 0) return null;
+        try {
+            return decode(readRecord(locations[slot]));
+        } catch (IOException e) {
+            AppLog.error("ItemDiskStore: could not read SKU " + sku + " from " + file.getPath() + ": " + e.getMessage(), e);
+            return null;
+        }
+    }
+
+    /** Stores the current state of the item (insert or replace). */
+    public synchronized boolean put(Item item) {
+        try {
+            byte[] record = encode(item);
+            long location = append(record);
+            long h = hash(item.getSku());
+            int slot = findSlot(item.getSku(), h);
+            if (slot >= 0) {
+                liveBytes -= recordBytes(locations[slot]);
+                locations[slot] = location;
+            } else {
+                insert(h, location);
+            }
+            liveBytes += recordBytes(location);
+            return true;
+        } catch (IOException e) {
+            AppLog.error("ItemDiskStore: could not write SKU " + item.getSku() + " to " + file.getPath() + ": " + e.getMessage(), e);
+            return false;
+        }
+    }
+
+    /** @return false if the SKU was not stored (or the tombstone could not be written). */
+    public synchronized boolean remove(String sku) {
+        int slot = (sku == null) ? -1 : findSlot(sku, hash(sku));
+        if (slot < 0) return false;
+        try {
+            append(encodeTombstone(sku));
+        } catch (IOException e) {
+            AppLog.error("ItemDiskStore: could not remove SKU " + sku + " from " + file.getPath() + ": " + e.getMessage(), e);
+            return false;
+        }
+        liveBytes -= recordBytes(locations[slot]);
+        deleteSlot(slot);
+        return true;
+    }
+
+    /**
+     * Reads the whole log once, in file order, and passes every item that was current when the scan
+     * started (as a new Item) to the visitor. Does not hold the lock while reading, so lookups and
+     * writes are not blocked; changes made during the scan are not seen.
+     */
+    public void forEach(Consumer<? super Item> visitor) {
+        forEachWhile(item -> {
+            visitor.accept(item);
+            return true;
+        });
+    }
+
+    /** Like forEach, but stops as soon as the visitor returns false. */
+    public void forEachWhile(Predicate<? super Item> visitor) {
+        long[] currentOffsets;
+        long scanEnd;
+        FileInputStream stream;
+        synchronized (this) {
+            currentOffsets = new long[size];
+            int count = 0;
+            for (int slot = 0; slot < hashes.length; slot++) {
+                if (hashes[slot] != 0) currentOffsets[count++] = locations[slot] >>> LENGTH_BITS;
+            }
+            scanEnd = end;
+            try {
+                stream = new FileInputStream(file);
+            } catch (IOException e) {
+                AppLog.error("ItemDiskStore: could not scan " + file.getPath() + ": " + e.getMessage(), e);
+                return;
+            }
+            activeScans++;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(stream, 1 << 16))) {
+            Arrays.sort(currentOffsets); // File order; a record is current if it is the next offset in the list
+            int next = 0;
+            skipFully(in, HEADER_BYTES);
+            long offset = HEADER_BYTES;
+            while (offset < scanEnd && next < currentOffsets.length) {
+                int length = in.readInt();
+                if (offset == currentOffsets[next]) {
+                    next++;
+                    byte[] record = new byte[length];
+                    in.readFully(record);
+                    if (!visitor.test(decode(record))) {
+                        return;
+                    }
+                } else {
+                    skipFully(in, length); // Older version or tombstone
+                }
+                offset += 4 + length;
+            }
+        } catch (IOException e) {
+            AppLog.error("ItemDiskStore: could not scan " + file.getPath() + ": " + e.getMessage(), e);
+        } finally {
+            synchronized (this) {
+                activeScans--;
+            }
+        }
+    }
+
+    private static void skipFully(DataInputStream in, int bytes) throws IOException {
+        while (bytes > 0) {
+            int skipped = in.skipBytes(bytes);
+            if (skipped <= 0) {
+                in.readByte(); // Throws EOFException at the end of the file
+                skipped = 1;
+            }
+            bytes -= skipped;
+        }
+    }
+
+    /** Writes buffered records through to the disk. */
+    public synchronized void force() {
+        try {
+            channel.force(false);
+        } catch (IOException e) {
+            AppLog.error("ItemDiskStore: could not sync " + file.getPath() + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Rewrites the log with only the current record of each SKU, then swaps it in.
+     * @return bytes freed (0 if nothing was done, a scan is reading the log, or the rewrite failed; the old log is kept then)
+     */
+    public synchronized long compact() {
+        long before = end;
+        if (liveBytes + HEADER_BYTES >= before) return 0;
+        if (activeScans > 0) {
+            AppLog.info("ItemDiskStore: " + activeScans + " scan(s) of " + file.getPath() + " running, compaction postponed.");
+            return 0;
+        }
+        File compacted = new File(file.getPath() + ".compact");
+        boolean swapped = false;
+        try (RandomAccessFile out = new RandomAccessFile(compacted, "rw")) {
+            out.setLength(0);
+            FileChannel outChannel = out.getChannel();
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).putInt(MAGIC).putInt(FORMAT_VERSION);
+            header.flip();
+            outChannel.write(header, 0);
+            long position = HEADER_BYTES;
+            long[] newLocations = locations.clone();
+            for (int slot = 0; slot < hashes.length; slot++) {
+                if (hashes[slot] == 0) continue;
+                byte[] record = readRecord(locations[slot]);
+                ByteBuffer buffer = ByteBuffer.allocate(4 + record.length).putInt(record.length).put(record);
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    outChannel.write(buffer, position + buffer.position());
+                }
+                newLocations[slot] = location(position, record.length);
+                position += 4 + record.length;
+            }
+            outChannel.force(false);
+            channel.close();
+            Files.move(compacted.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            locations = newLocations;
+            end = position;
+            swapped = true;
+        } catch (IOException e) {
+            AppLog.error("ItemDiskStore: compaction of " + file.getPath() + " failed, keeping the old log: " + e.getMessage(), e);
+            compacted.delete();
+        }
+        if (!channel.isOpen()) {
+            try {
+                reopenChannel();
+            } catch (IOException e) {
+                AppLog.error("ItemDiskStore: could not reopen " + file.getPath() + " after compaction: " + e.getMessage(), e);
+            }
+        }
+        if (!swapped) return 0;
+        AppLog.info("ItemDiskStore: compacted " + file.getPath() + " from " + before + " to " + end + " bytes.");
+        return before - end;
+    }
+
+    public synchronized void close() {
+        try {
+            channel.force(false);
+            raf.close();
+        } catch (IOException e) {
+            AppLog.warn("ItemDiskStore: could not close " + file.getPath() + ": " + e.getMessage());
+        }
+    }
+
+    // ---- Log file ----
+
+    private void open() throws IOException {
+        reopenChannel();
+        if (channel.size() < HEADER_BYTES) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).putInt(MAGIC).putInt(FORMAT_VERSION);
+            header.flip();
+            channel.truncate(0);
+            channel.write(header, 0);
+            end = HEADER_BYTES;
+            return;
+        }
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        channel.read(header, 0);
+        header.flip();
+        if (header.getInt() != MAGIC || header.getInt() != FORMAT_VERSION) {
+            raf.close();
+            throw new IOException("Not an item store (or unsupported version): " + file.getPath());
+        }
+        // Replay the log: later records replace earlier ones, tombstones delete
+        long fileSize = channel.size();
+        long offset = HEADER_BYTES;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), 1 << 16))) {
+            in.skipBytes(HEADER_BYTES);
+            while (offset + 4 <= fileSize) {
+                int length = in.readInt();
+                if (length <= 0 || length > MAX_RECORD_BYTES || offset + 4 + length > fileSize) break;
+                byte[] record = new byte[length];
+                in.readFully(record);
+                String sku = readSku(record);
+                long h = hash(sku);
+                int slot = findSlot(sku, h);
+                long location = location(offset, length);
+                if (record[0] == LIVE) {
+                    if (slot >= 0) {
+                        liveBytes -= recordBytes(locations[slot]);
+                        locations[slot] = location;
+                    } else {
+                        insert(h, location);
+                    }
+                    liveBytes += recordBytes(location);
+                } else if (slot >= 0) {
+                    liveBytes -= recordBytes(locations[slot]);
+                    deleteSlot(slot);
+                }
+                offset += 4 + length;
+            }
+        } catch (EOFException e) {
+            // Handled below like any other cut-off record
+        }
+        if (offset < fileSize) {
+            AppLog.warn("ItemDiskStore: dropping " + (fileSize - offset) + " bytes of incomplete record(s) at the end of " + file.getPath());
+            channel.truncate(offset);
+        }
+        end = offset;
+        AppLog.info("ItemDiskStore: " + size + " items indexed from " + file.getPath() + " (" + end + " bytes).");
+    }
+
+    private void reopenChannel() throws IOException {
+        raf = new RandomAccessFile(file, "rw");
+        channel = raf.getChannel();
+    }
+
+    private long append(byte[] record) throws IOException {
+        if (record.length > MAX_RECORD_BYTES) {
+            throw new IOException("Record too large: " + record.length + " bytes");
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(4 + record.length).putInt(record.length).put(record);
+        buffer.flip();
+        long offset = end;
+        while (buffer.hasRemaining()) {
+            channel.write(buffer, offset + buffer.position());
+        }
+        end = offset + 4 + record.length;
+        return location(offset, record.length);
+    }
+
+    private byte[] readRecord(long location) throws IOException {
+        int length = (int) (location & MAX_RECORD_BYTES);
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        long position = (location >>> LENGTH_BITS) + 4;
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new EOFException("Record at " + (location >>> LENGTH_BITS) + " runs past the end of the file");
+            }
+        }
+        return buffer.array();
+    }
+
+    private static long location(long offset, int length) {
+        return (offset << LENGTH_BITS) | length;
+    }
+
+    private static long recordBytes(long location) {
+        return 4 + (location & MAX_RECORD_BYTES);
+    }
+
+    // ---- Records ----
+
+    private static byte[] encode(Item item) throws IOException {
+        Item.Details d = item.getDetailsSnapshot();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(96);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(LIVE);
+        out.writeUTF(item.getSku());
+        out.writeUTF(nullToEmpty(d.getName()));
+        out.writeUTF(nullToEmpty(d.getCategory()));
+        out.writeInt(item.getQuantity());
+        out.writeDouble(d.getPrice());
+        out.writeUTF(nullToEmpty(d.getSupplier()));
+        out.writeUTF(nullToEmpty(d.getStatus()));
+        out.writeLong(d.getVersion());
+        return bytes.toByteArray();
+    }
+
+    private static byte[] encodeTombstone(String sku) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(32);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(TOMBSTONE);
+        out.writeUTF(sku);
+        return bytes.toByteArray();
+    }
+
+    private static Item decode(byte[] record) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(record));
+        in.readByte();
+        String sku = in.readUTF();
+        String name = in.readUTF();
+        String category = in.readUTF();
+        int quantity = in.readInt();
+        double price = in.readDouble();
+        String supplier = in.readUTF();
+        String status = in.readUTF();
+        long version = in.readLong();
+        return new Item(sku, name, category, quantity, price, supplier, status, version);
+    }
+
+    // The SKU right after the flag byte, as written by DataOutputStream.writeUTF (SKUs are plain text, so no
+    // surrogate or NUL special cases; anything unusual goes through readUTF)
+    private static String readSku(byte[] record) {
+        int length = ((record[1] & 0xFF) << 8) | (record[2] & 0xFF);
+        for (int i = 3; i < 3 + length; i++) {
+            if (record[i] < 0) {
+                try {
+                    DataInputStream in = new DataInputStream(new ByteArrayInputStream(record, 1, record.length - 1));
+                    return in.readUTF();
+                } catch (IOException e) {
+                    throw new IllegalStateException("Corrupt SKU in item record", e);
+                }
+            }
+        }
+        return new String(record, 3, length, StandardCharsets.ISO_8859_1);
+    }
+
+    private static String nullToEmpty(String s) {
+        return s == null ? "" : s;
+    }
+
+    // ---- Index ----
+
+    // 64-bit FNV-1a of the SKU, never 0 (0 marks a free slot)
+    private static long hash(String sku) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < sku.length(); i++) {
+            h ^= sku.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        return h == 0 ? 1 : h;
+    }
+
+    private int indexFor(long h) {
+        return (int) (h ^ (h >>> 32)) & (hashes.length - 1);
+    }
+
+    // Slot of the SKU, or -1. Equal hashes are confirmed against the SKU stored on disk.
+    private int findSlot(String sku, long h) {
+        for (int slot = indexFor(h); hashes[slot] != 0; slot = (slot + 1) & (hashes.length - 1)) {
+            if (hashes[slot] == h && skuAt(locations[slot]).equals(sku)) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    private String skuAt(long location) {
+        try {
+            return readSku(readRecord(location));
+        } catch (IOException e) {
+            AppLog.error("ItemDiskStore: could not read record at " + (location >>> LENGTH_BITS) + ": " + e.getMessage(), e);
+            return "";
+        }
+    }
+
+    private void insert(long h, long location) {
+        if ((size + 1) * 4L > hashes.length * 3L) { // Keep the load factor under 0.75
+            resize();
+        }
+        int slot = indexFor(h);
+        while (hashes[slot] != 0) {
+            slot = (slot + 1) & (hashes.length - 1);
+        }
+        hashes[slot] = h;
+        locations[slot] = location;
+        size++;
+    }
+
+    private void resize() {
+        long[] oldHashes = hashes;
+        long[] oldLocations = locations;
+        hashes = new long[oldHashes.length * 2];
+        locations = new long[oldHashes.length * 2];
+        for (int i = 0; i < oldHashes.length; i++) {
+            if (oldHashes[i] == 0) continue;
+            int slot = indexFor(oldHashes[i]);
+            while (hashes[slot] != 0) {
+                slot = (slot + 1) & (hashes.length - 1);
+            }
+            hashes[slot] = oldHashes[i];
+            locations[slot] = oldLocations[i];
+        }
+    }
+
+    // Backward-shift deletion: later entries of the probe run move up so no lookup stops early at the hole
+    private void deleteSlot(int slot) {
+        int mask = hashes.length - 1;
+        int hole = slot;
+        int next = (hole + 1) & mask;
+        while (hashes[next] != 0) {
+            int home = indexFor(hashes[next]);
+            // Move next into the hole unless its home lies cyclically in (hole, next]
+            boolean homeAfterHole = (next > hole) ? (home > hole && home <= next) : (home > hole || home <= next);
+            if (!homeAfterHole) {
+                hashes[hole] = hashes[next];
+                locations[hole] = locations[next];
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+        hashes[hole] = 0;
+        locations[hole] = 0;
+        size--;
+    }
+}
@@ -0,0 +1,233 @@
+// Json.java
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Minimal JSON reader/writer for the server API (no external libraries in this project).
+ * Objects map to LinkedHashMap, arrays to ArrayList, numbers to Long or Double.
+ */
+public final class Json {
+
+    private Json() {}
+
+    // ---- Writing ----
+
+    public static String write(Object value) {
+        StringBuilder sb = new StringBuilder();
+        writeValue(sb, value);
+        return sb.toString();
+    }
+
+    private static void writeValue(StringBuilder sb, Object value) {
+        if (value == null) {
+            sb.append("null");
+        } else if (value instanceof String) {
+            writeString(sb, (String) value);
+        } else if (value instanceof Number || value instanceof Boolean) {
+            sb.append(value);
+        } else if (value instanceof Map) {
+            sb.append('{');
+            boolean first = true;
+            for (Map.Entry<?, ?> e : ((Map<?, ?>) value).entrySet()) {
+                if (!first) sb.append(',');
+                first = false;
+                writeString(sb, String.valueOf(e.getKey()));
+                sb.append(':');
+                writeValue(sb, e.getValue());
+            }
+            sb.append('}');
+        } else if (value instanceof Iterable) {
+            sb.append('[');
+            boolean first = true;
+            for (Object o : (Iterable<?>) value) {
+                if (!first) sb.append(',');
+                first = false;
+                writeValue(sb, o);
+            }
+            sb.append(']');
+        } else {
+            writeString(sb, value.toString());
+        }
+    }
+
+    private static void writeString(StringBuilder sb, String s) {
+        sb.append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"': sb.append("\\\""); break;
+                case '\\': sb.append("\\\\"); break;
+                case '\n': sb.append("\\n"); break;
+                case '\r': sb.append("\\r"); break;
+                case '\t': sb.append("\\t"); break;
+                default:
+                    if (c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+            }
+        }
+        sb.append('"');
+    }
+
+    // ---- Reading ----
+
+    public static Object parse(String text) {
+        if (text == null || text.trim().isEmpty()) {
+            return null;
+        }
+        Parser p = new Parser(text);
+        Object value = p.readValue();
+        p.skipWhitespace();
+        if (p.pos != text.length()) {
+            throw new IllegalArgumentException("Unexpected trailing content at position " + p.pos);
+        }
+        return value;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static Map<String, Object> parseObject(String text) {
+        Object value = parse(text);
+        if (value == null) return new LinkedHashMap<>();
+        if (!(value instanceof Map)) {
+            throw new IllegalArgumentException("Expected a JSON object.");
+        }
+        return (Map<String, Object>) value;
+    }
+
+    public static String getString(Map<String, Object> obj, String key) {
+        Object v = obj.get(key);
+        return v == null ? null : v.toString();
+    }
+
+    public static int getInt(Map<String, Object> obj, String key, int defaultValue) {
+        Object v = obj.get(key);
+        return v instanceof Number ? ((Number) v).intValue() : defaultValue;
+    }
+
+    public static double getDouble(Map<String, Object> obj, String key, double defaultValue) {
+        Object v = obj.get(key);
+        return v instanceof Number ? ((Number) v).doubleValue() : defaultValue;
+    }
+
+    public static boolean getBoolean(Map<String, Object> obj, String key) {
+        return Boolean.TRUE.equals(obj.get(key));
+    }
+
+    private static class Parser {
+        private final String s;
+        private int pos = 0;
+
+        Parser(String s) { this.s = s; }
+
+        void skipWhitespace() {
+            while (pos < s.length() && Character.isWhitespace(s.charAt(pos))) pos++;
+        }
+
+        Object readValue() {
+            skipWhitespace();
+            if (pos >= s.length()) throw new IllegalArgumentException("Unexpected end of JSON input.");
+            char c = s.charAt(pos);
+            switch (c) {
+                case '{': return readObject();
+                case '[': return readArray();
+                case '"': return readString();
+                case 't': expect("true"); return Boolean.TRUE;
+                case 'f': expect("false"); return Boolean.FALSE;
+                case 'n': expect("null"); return null;
+                default: return readNumber();
+            }
+        }
+
+        private Map<String, Object> readObject() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            pos++; // {
+            skipWhitespace();
+            if (peek() == '}') { pos++; return map; }
+            while (true) {
+                skipWhitespace();
+                String key = readString();
+                skipWhitespace();
+                consume(':');
+                map.put(key, readValue());
+                skipWhitespace();
+                if (peek() == ',') { pos++; continue; }
+                consume('}');
+                return map;
+            }
+        }
+
+        private List<Object> readArray() {
+            List<Object> list = new ArrayList<>();
+            pos++; // [
+            skipWhitespace();
+            if (peek() == ']') { pos++; return list; }
+            while (true) {
+                list.add(readValue());
+                skipWhitespace();
+                if (peek() == ',') { pos++; continue; }
+                consume(']');
+                return list;
+            }
+        }
+
+        private String readString() {
+            consume('"');
+            StringBuilder sb = new StringBuilder();
+            while (pos < s.length()) {
+                char c = s.charAt(pos++);
+                if (c == '"') return sb.toString();
+                if (c != '\\') { sb.append(c); continue; }
+                if (pos >= s.length()) break;
+                char esc = s.charAt(pos++);
+                switch (esc) {
+                    case '"': case '\\': case '/': sb.append(esc); break;
+                    case 'b': sb.append('\b'); break;
+                    case 'f': sb.append('\f'); break;
+                    case 'n': sb.append('\n'); break;
+                    case 'r': sb.append('\r'); break;
+                    case 't': sb.append('\t'); break;
+                    case 'u':
+                        if (pos + 4 > s.length()) throw new IllegalArgumentException("Bad unicode escape in JSON string.");
+                        sb.append((char) Integer.parseInt(s.substring(pos, pos + 4), 16));
+                        pos += 4;
+                        break;
+                    default: throw new IllegalArgumentException("Bad escape '\\" + esc + "' in JSON string.");
+                }
+            }
+            throw new IllegalArgumentException("Unterminated JSON string.");
+        }
+
+        private Number readNumber() {
+            int start = pos;
+            boolean decimal = false;
+            while (pos < s.length()) {
+                char c = s.charAt(pos);
+                if (c == '.' || c == 'e' || c == 'E') { decimal = true; pos++; }
+                else if ((c >= '0' && c <= '9') || c == '-' || c == '+') pos++;
+                else break;
+            }
+            String num = s.substring(start, pos);
+            if (num.isEmpty()) throw new IllegalArgumentException("Unexpected character '" + s.charAt(start) + "' at position " + start);
+            return decimal ? (Number) Double.parseDouble(num) : (Number) Long.parseLong(num);
+        }
+
+        private void expect(String word) {
+            if (!s.startsWith(word, pos)) throw new IllegalArgumentException("Expected '" + word + "' at position " + pos);
+            pos += word.length();
+        }
+
+        private char peek() {
+            if (pos >= s.length()) throw new IllegalArgumentException("Unexpected end of JSON input.");
+            return s.charAt(pos);
+        }
+
+        private void consume(char expected) {
+            if (peek() != expected) throw new IllegalArgumentException("Expected '" + expected + "' at position " + pos);
+            pos++;
+        }
+    }
+}
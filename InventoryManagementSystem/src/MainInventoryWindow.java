@@ -1,7 +1,7 @@
 // MainInventoryWindow.java
 import javax.swing.*;
-import javax.swing.table.DefaultTableModel;
-import javax.swing.table.TableRowSorter;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
 import java.awt.*;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
@@ -17,7 +17,12 @@ import javax.swing.SortOrder;
 public class MainInventoryWindow extends JFrame {
 
     private JTable inventoryTable;
-    private DefaultTableModel tableModel;
+    private InventoryTableModel tableModel;
+    private IndexedRowSorter<InventoryTableModel> tableSorter;
+    private IncrementalSearch<Item> itemSearch;
+    private String explicitSearchTerm; // Set when Enter/Search was used, so an empty result is reported
+    private static final int SEARCH_DEBOUNCE_MS = 250;
+    private static final int PARTIAL_CATALOG_ROWS = 5000; // Rows shown when the catalog is not all in memory (disk store)
 
     // UI Components
     private JButton addButton, editButton, deleteButton, reportButton, searchButton;
@@ -26,6 +31,7 @@ public class MainInventoryWindow extends JFrame {
     private JButton createPOButton;
     private JButton viewPOsButton;
     private JButton viewSearchSalesButton; // Changed from createSalesReturnButton
+    private JButton diagnosticsButton;
 
     private JTextField searchField;
     private JLabel statusBarLabel;
@@ -38,6 +44,7 @@ public class MainInventoryWindow extends JFrame {
     private static SupplierManager supplierManagerInstance;
     private static OrderManager orderManagerInstance;
     private static SalesReturnManager salesReturnManagerInstance;
+    private static InventoryClient serverClient; // Non-null in thin-client (--client) mode
 
     public MainInventoryWindow(Inventory inventoryInstanceNouse) {
         setTitle("Inventory and Sales Management System");
@@ -52,35 +59,9 @@ public class MainInventoryWindow extends JFrame {
 
     private void initComponents() {
         // Inventory Table
-        String[] columnNames = {"SKU", "Name", "Category", "Quantity", "Price ($)", "Status"};
-        tableModel = new DefaultTableModel(columnNames, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;
-            }
-
-            // --- MODIFICATION: Override getColumnClass for correct sorting ---
-            @Override
-            public Class<?> getColumnClass(int columnIndex) {
-                switch (columnIndex) {
-                    case 0: // SKU
-                        return String.class;
-                    case 1: // Name
-                        return String.class;
-                    case 2: // Category
-                        return String.class;
-                    case 3: // Quantity
-                        return Integer.class; // Treat as Integer
-                    case 4: // Price ($)
-                        return Double.class;  // Treat as Double
-                    case 5: // Status
-                        return String.class;
-                    default:
-                        return String.class;
-                }
-            }
-            // --- END MODIFICATION ---
-        };
+        // Cells are read from the Item objects on demand; only changed rows are repainted
+        tableModel = new InventoryTableModel(appInventory);
+        tableModel.setOrderManager(orderManagerInstance);
         inventoryTable = new JTable(tableModel);
         inventoryTable.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
         inventoryTable.setFillsViewportHeight(true);
@@ -89,7 +70,13 @@ public class MainInventoryWindow extends JFrame {
             inventoryTable.getTableHeader().setFont(new Font("SansSerif", Font.BOLD, 14));
         }
         inventoryTable.setFont(new Font("SansSerif", Font.PLAIN, 12));
-        inventoryTable.setAutoCreateRowSorter(true);
+        // Sorted orders are cached per column and patched on row changes; search results are a row filter
+        tableSorter = new IndexedRowSorter<>(tableModel);
+        tableModel.setRowSorter(tableSorter);
+        List<RowSorter.SortKey> sortKeys = new ArrayList<>();
+        sortKeys.add(new RowSorter.SortKey(InventoryTableModel.SKU_COLUMN, SortOrder.ASCENDING)); // Default sort by SKU, set once
+        tableSorter.setSortKeys(sortKeys);
+        inventoryTable.setRowSorter(tableSorter);
 
         // Initialize buttons
         makeSaleButton = new JButton("Make New Sale");
@@ -101,6 +88,7 @@ public class MainInventoryWindow extends JFrame {
         createPOButton = new JButton("Create Purchase Order");
         viewPOsButton = new JButton("View Purchase Orders");
         viewSearchSalesButton = new JButton("View/Search Sales");
+        diagnosticsButton = new JButton("Diagnostics");
 
         searchField = new JTextField(25);
         searchButton = new JButton("Search");
@@ -144,6 +132,7 @@ public class MainInventoryWindow extends JFrame {
         buttonActionPanel.add(purchaseOrderActions);
 
         JPanel sessionActions = new JPanel(new FlowLayout(FlowLayout.RIGHT, 10, 5));
+        sessionActions.add(diagnosticsButton);
         sessionActions.add(logoutButton);
         buttonActionPanel.add(sessionActions);
 
@@ -169,7 +158,7 @@ public class MainInventoryWindow extends JFrame {
             int selectedRowInView = inventoryTable.getSelectedRow();
             if (selectedRowInView >= 0) {
                 int modelRow = inventoryTable.convertRowIndexToModel(selectedRowInView);
-                String sku = (String) tableModel.getValueAt(modelRow, 0); // Assuming SKU is still String
+                String sku = tableModel.getSkuAt(modelRow);
                 Item itemToEdit = appInventory.getItem(sku);
                 if (itemToEdit != null) {
                     EditProductWindow editDialog = new EditProductWindow(this, appInventory, itemToEdit);
@@ -185,8 +174,8 @@ public class MainInventoryWindow extends JFrame {
             int selectedRowInView = inventoryTable.getSelectedRow();
             if (selectedRowInView >= 0) {
                 int modelRow = inventoryTable.convertRowIndexToModel(selectedRowInView);
-                String sku = (String) tableModel.getValueAt(modelRow, 0);
-                String name = (String) tableModel.getValueAt(modelRow, 1);
+                String sku = tableModel.getSkuAt(modelRow);
+                String name = tableModel.getItemAt(modelRow).getName();
                 int confirm = JOptionPane.showConfirmDialog(this,
                         "Are you sure you want to delete product:\nSKU: " + sku + "\nName: " + name + "?\n(Consider deactivating if it has transaction history)",
                         "Confirm Deletion", JOptionPane.YES_NO_OPTION, JOptionPane.WARNING_MESSAGE);
@@ -203,11 +192,23 @@ public class MainInventoryWindow extends JFrame {
                 showErrorDialog("Required data systems are not ready for reports.");
                 return;
             }
-            ReportWindow reportDialog = new ReportWindow(this, appInventory, supplierManagerInstance, salesManagerInstance);
+            ReportWindow reportDialog = new ReportWindow(this, appInventory, supplierManagerInstance, salesManagerInstance, orderManagerInstance);
             reportDialog.setVisible(true);
         });
         searchField.addActionListener(e -> performSearch());
         searchButton.addActionListener(e -> performSearch());
+        // Search as you type: debounced, matched off the EDT, and each keystroke refines the last result
+        itemSearch = new IncrementalSearch<>("inventory", SEARCH_DEBOUNCE_MS,
+                () -> appInventory.itemMap().values(), // Immutable trie, safe to walk on the search thread
+                Inventory::matchesSearch, this::showSearchResult);
+        if (appInventory != null && !appInventory.isItemMapComplete()) {
+            itemSearch.setQueryFunction(appInventory::searchItems); // itemMap() has only the cached items: search the store
+        }
+        searchField.getDocument().addDocumentListener(new DocumentListener() {
+            @Override public void insertUpdate(DocumentEvent e) { searchTextChanged(); }
+            @Override public void removeUpdate(DocumentEvent e) { searchTextChanged(); }
+            @Override public void changedUpdate(DocumentEvent e) { searchTextChanged(); }
+        });
         inventoryTable.addMouseListener(new MouseAdapter() {
             public void mouseClicked(MouseEvent evt) {
                 if (evt.getClickCount() == 2 && editButton.isEnabled()) {
@@ -220,6 +221,7 @@ public class MainInventoryWindow extends JFrame {
             }
         });
         logoutButton.addActionListener(e -> performLogout());
+        diagnosticsButton.addActionListener(e -> new DiagnosticsWindow(this).setVisible(true));
         createPOButton.addActionListener(e -> {
             if (orderManagerInstance == null || appInventory == null || supplierManagerInstance == null) {
                 showErrorDialog("Purchase Order system components not ready."); return;
@@ -232,6 +234,7 @@ public class MainInventoryWindow extends JFrame {
             }
             CreateOrderWindow coWin = new CreateOrderWindow(this, orderManagerInstance, appInventory, supplierManagerInstance);
             coWin.setVisible(true);
+            loadInventoryData(); // Refresh On Order column
         });
         viewPOsButton.addActionListener(e -> {
             if (orderManagerInstance == null || appInventory == null) {
@@ -256,69 +259,71 @@ public class MainInventoryWindow extends JFrame {
         String searchTerm = searchField.getText().trim();
         if (appInventory == null) { showErrorDialog("Inventory system not ready for search."); return; }
         if (searchTerm.isEmpty()) {
-            loadInventoryData(); // Load all items if search is empty
+            clearSearch();
         } else {
-            List<Item> searchResult = appInventory.searchItems(searchTerm);
-            loadInventoryData(searchResult); // Load only search results
-            if (searchResult.isEmpty()) { showInfoDialog("No products found matching: '" + searchTerm + "'."); }
+            explicitSearchTerm = searchTerm;
+            itemSearch.searchNow(searchTerm);
         }
     }
 
-    public void loadInventoryData(List<Item> itemsToLoad) {
-        if (tableModel == null) return;
-        tableModel.setRowCount(0);
-
-        if (itemsToLoad != null) {
-            for (Item item : itemsToLoad) {
-                // --- MODIFICATION: Store actual numeric types ---
-                Object[] rowData = {
-                        item.getSku(),       // Assuming SKU is String and its format is consistent
-                        item.getName(),
-                        item.getCategory(),
-                        item.getQuantity(),  // Store as Integer (autoboxed from int)
-                        item.getPrice(),     // Store as Double (autoboxed from double)
-                        item.getStatus()
-                };
-                // --- END MODIFICATION ---
-                tableModel.addRow(rowData);
-            }
+    private void searchTextChanged() {
+        if (appInventory == null || itemSearch == null) return;
+        String searchTerm = searchField.getText().trim();
+        explicitSearchTerm = null;
+        if (searchTerm.isEmpty()) {
+            clearSearch();
+        } else {
+            itemSearch.queryChanged(searchTerm);
         }
+    }
 
-        // Apply default sort by SKU (column 0) ASCENDING
-        // This part should now work correctly with numeric columns too, if user clicks on them
-        TableRowSorter<?> sorter = (TableRowSorter<?>) inventoryTable.getRowSorter();
-        if (sorter == null) { // Should not be null if autoCreateRowSorter is true
-            sorter = new TableRowSorter<>(tableModel);
-            inventoryTable.setRowSorter(sorter);
-        }
+    private void clearSearch() {
+        itemSearch.cancel();
+        loadInventoryData(); // Load all items if search is empty
+        tableSorter.setRowFilter(null);
+    }
 
-        List<RowSorter.SortKey> sortKeys = new ArrayList<>();
-        int skuColumnModelIndex = 0;
-        for(int i=0; i < tableModel.getColumnCount(); i++){
-            if("SKU".equalsIgnoreCase(tableModel.getColumnName(i))){
-                skuColumnModelIndex = i;
-                break;
-            }
+    // Called on the EDT by itemSearch
+    private void showSearchResult(String searchTerm, List<Item> searchResult) {
+        if (appInventory.isItemMapComplete()) {
+            tableModel.showAllItems(appInventory.itemMap()); // Usually a no-op: the rows already hold every item
+            tableSorter.setRowFilter(tableModel.rowsFor(searchResult)); // Show only search results
+        } else {
+            tableModel.setItems(searchResult, false); // The rows hold only part of the catalog: show the matches themselves
         }
-        sortKeys.add(new RowSorter.SortKey(skuColumnModelIndex, SortOrder.ASCENDING));
-        sorter.setSortKeys(sortKeys);
-        // sorter.sort(); // Usually not needed as setSortKeys triggers sorting.
+        if (searchResult.isEmpty() && searchTerm.equals(explicitSearchTerm)) {
+            showInfoDialog("No products found matching: '" + searchTerm + "'.");
+        }
+        explicitSearchTerm = null;
+    }
+
+    public void loadInventoryData(Iterable<Item> itemsToLoad) {
+        if (tableModel == null) return;
+        // One data-changed event instead of one event per addRow; the user's sort order is kept
+        tableModel.setItems(itemsToLoad, false);
     }
 
-    // Default loadInventoryData method - loads all items
     public void loadInventoryData() {
+        if (itemSearch != null) itemSearch.invalidate(); // Items may have been added or renamed
         if (appInventory != null) {
-            loadInventoryData(appInventory.getAllItems());
+            if (tableModel != null) {
+                if (appInventory.isItemMapComplete()) {
+                    tableModel.showAllItems(appInventory.itemMap()); // Walks the item trie directly, no copy
+                } else {
+                    tableModel.setItems(appInventory.getFirstItems(PARTIAL_CATALOG_ROWS), true); // Search reaches the rest
+                }
+            }
         } else {
-            if (tableModel != null) tableModel.setRowCount(0);
-            System.err.println("MainInventoryWindow: appInventory is null. Cannot load inventory data.");
+            if (tableModel != null) tableModel.setItems(null, false);
+            AppLog.error("MainInventoryWindow: appInventory is null. Cannot load inventory data.");
         }
     }
 
     public void onLoginSuccess(User user) {
         currentUser = user;
         setTitle("Inventory System - User: " + currentUser.getUsername() + " (" + currentUser.getRole() + ")");
-        statusBarLabel.setText("Logged in as: " + currentUser.getUsername() + " (Role: " + currentUser.getRole() + ")");
+        statusBarLabel.setText("Logged in as: " + currentUser.getUsername() + " (Role: " + currentUser.getRole() + ")" +
+                (serverClient != null ? " - Connected to " + serverClient.getBaseUrl() : ""));
         adjustUiForRole();
         loadInventoryData();
         this.setVisible(true);
@@ -347,6 +352,15 @@ public class MainInventoryWindow extends JFrame {
         createPOButton.setEnabled(isAdmin || isStaff);
         viewPOsButton.setEnabled(isAdmin || isStaff);
         viewSearchSalesButton.setEnabled(isAdmin || isStaff);
+        diagnosticsButton.setEnabled(isAdmin);
+
+        if (serverClient != null) {
+            // Client mode only serves inventory and POS; reports, POs and returns run on the server side
+            reportButton.setEnabled(false);
+            createPOButton.setEnabled(false);
+            viewPOsButton.setEnabled(false);
+            viewSearchSalesButton.setEnabled(false);
+        }
     }
 
     private void setAllButtonsEnabled(boolean enabled) {
@@ -355,6 +369,7 @@ public class MainInventoryWindow extends JFrame {
         editButton.setEnabled(enabled); deleteButton.setEnabled(enabled);
         reportButton.setEnabled(enabled); createPOButton.setEnabled(enabled);
         viewPOsButton.setEnabled(enabled); viewSearchSalesButton.setEnabled(enabled);
+        diagnosticsButton.setEnabled(enabled);
     }
 
     private void setupCloseAction() {
@@ -367,13 +382,13 @@ public class MainInventoryWindow extends JFrame {
                         "Are you sure you want to exit the application?",
                         "Exit Confirmation", JOptionPane.YES_NO_OPTION, JOptionPane.QUESTION_MESSAGE);
                 if (confirm == JOptionPane.YES_OPTION) {
-                    System.out.println("Saving all data before closing application...");
+                    AppLog.info("Saving all data before closing application...");
                     if (appInventory != null) appInventory.saveItemsToFile(Inventory.DEFAULT_ITEMS_FILE_PATH);
                     if (salesManagerInstance != null) salesManagerInstance.saveSalesToFile();
                     if (supplierManagerInstance != null) supplierManagerInstance.saveSuppliersToFile(SupplierManager.DEFAULT_SUPPLIERS_FILE_PATH);
                     if (orderManagerInstance != null) orderManagerInstance.saveOrdersToFile();
                     if (salesReturnManagerInstance != null) salesReturnManagerInstance.saveSalesReturnsToFile();
-                    System.out.println("All data saved. Exiting application.");
+                    AppLog.info("All data saved. Exiting application.");
                     System.exit(0);
                 }
             }
@@ -388,6 +403,9 @@ public class MainInventoryWindow extends JFrame {
         if (confirm == JOptionPane.YES_OPTION) {
             currentUser = null;
             this.setVisible(false);
+            tableModel.detach(); // A new main window (with its own model) is created after the next login
+            itemSearch.dispose();
+            dispose();
             launchLoginProcess();
         }
     }
@@ -404,32 +422,49 @@ public class MainInventoryWindow extends JFrame {
     private void showErrorDialog(String message) { JOptionPane.showMessageDialog(this, message, "Error", JOptionPane.ERROR_MESSAGE); }
 
     public static void main(String[] args) {
+        // Thin-client mode: java MainInventoryWindow --client [http://host:port]
+        if (args.length > 0 && "--client".equals(args[0])) {
+            serverClient = new InventoryClient(args.length > 1 ? args[1] : InventoryClient.DEFAULT_BASE_URL);
+            appInventory = new RemoteInventory(serverClient);
+            userManager = new RemoteUserManager(serverClient);
+            salesManagerInstance = new RemoteSalesManager(appInventory, serverClient);
+            AppLog.info("Running as a terminal against inventory server " + serverClient.getBaseUrl());
+            launchLoginProcess();
+            return;
+        }
+
         // ... (Keep existing main method logic) ...
-        appInventory = new Inventory();
+        appInventory = Inventory.open();
         userManager = new UserManager();
         supplierManagerInstance = new SupplierManager();
         salesManagerInstance = new SalesManager(appInventory);
         orderManagerInstance = new OrderManager(appInventory, supplierManagerInstance);
         salesReturnManagerInstance = new SalesReturnManager(appInventory, salesManagerInstance);
 
+        StartupProfiler.Phase adminPhase = StartupProfiler.begin("default admin");
         userManager.createDefaultAdminUserIfNotExists(true);
+        adminPhase.end(1);
+        MemoryReport.install(MemoryReport::applicationRoots);
         if (supplierManagerInstance.getAllSuppliers().isEmpty()) {
-            System.out.println("INFO: No suppliers found. Consider pre-populating suppliers.csv.");
+            AppLog.info("No suppliers found. Consider pre-populating suppliers.csv.");
         }
-        if (salesManagerInstance.getAllSales().isEmpty()){
-            System.out.println("INFO: No sales found. For testing, ensure some sales exist in sales.csv and are 'Completed'.");
+        if (salesManagerInstance.getSaleCount() == 0){
+            AppLog.info("No sales found. For testing, ensure some sales exist in sales.csv and are 'Completed'.");
         }
         launchLoginProcess();
     }
 
     private static void launchLoginProcess() {
         // ... (Keep existing launchLoginProcess logic) ...
+        StartupProfiler.Phase windowPhase = StartupProfiler.begin("main window");
         final MainInventoryWindow mainFrame = new MainInventoryWindow(appInventory);
+        windowPhase.end(0);
         SwingUtilities.invokeLater(() -> {
             LoginWindow loginDialog = new LoginWindow(null, userManager, mainFrame);
+            StartupProfiler.finish(); // The login window is about to show
             loginDialog.setVisible(true);
             if (loginDialog.getAuthenticatedUser() == null && !mainFrame.isVisible()) {
-                System.out.println("Login cancelled or failed. Exiting application.");
+                AppLog.info("Login cancelled or failed. Exiting application.");
                 System.exit(0);
             }
         });
@@ -6,6 +6,8 @@ import java.awt.*;
 // import java.awt.event.ActionListener; // Not strictly needed with lambdas
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
 import java.text.DecimalFormat;
 import java.text.DecimalFormatSymbols;
 import java.text.NumberFormat; // For JFormattedTextField
@@ -46,6 +48,7 @@ public class MakeSaleWindow extends JDialog {
         setTitle("Create New Sale - ID: " + currentSale.getSaleID());
         setSize(800, 650);
         setLocationRelativeTo(owner);
+        setDefaultCloseOperation(DISPOSE_ON_CLOSE); // So windowClosed fires and reservations are released
         updateTotalAmountDisplay();
     }
 
@@ -153,6 +156,16 @@ public class MakeSaleWindow extends JDialog {
         cancelSaleButton.addActionListener(e -> cancelSale());
         skuField.addActionListener(e -> findItem()); // Allow Enter in SKU field to find item
 
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosed(WindowEvent e) {
+                // Closed without finalizing or cancelling: don't hold stock until the TTL runs out
+                if (Sale.STATUS_PENDING.equals(currentSale.getStatus())) {
+                    salesManager.releaseAllReservations(currentSale);
+                }
+            }
+        });
+
         saleItemsTable.addMouseListener(new MouseAdapter() {
             public void mouseClicked(MouseEvent evt) {
                 if (evt.getClickCount() == 2) { // Double-click to edit
@@ -207,7 +220,8 @@ public class MakeSaleWindow extends JDialog {
             }
 
             itemNameLabel.setText("Item Name: " + foundItem.getName() + statusInfo);
-            itemStockLabel.setText("Available Stock: " + foundItem.getQuantity());
+            itemStockLabel.setText("Available Stock: " + salesManager.getAvailableQuantity(foundItem.getSku(), currentSale) +
+                    " (On hand: " + foundItem.getQuantity() + ")");
             itemCurrentPriceLabel.setText("Current Price: " + CURRENCY_FORMAT.format(foundItem.getPrice()));
             sellingPriceField.setValue(foundItem.getPrice()); // Pre-fill selling price
             quantityField.setValue(1); // Reset quantity to 1
@@ -286,11 +300,13 @@ public class MakeSaleWindow extends JDialog {
                             "(Choosing 'No' will not add this quantity).",
                     "Item Already in Sale", JOptionPane.YES_NO_OPTION);
             if (choice == JOptionPane.YES_OPTION) {
-                // Check stock for the *additional* quantity
-                if (foundItem.getQuantity() < quantity) { // Check if current stock can cover the *newly added* quantity
+                // Reserve the new line total; fails if other terminals already hold the stock
+                int newTotal = existingSaleItem.getQuantitySold() + quantity;
+                if (!salesManager.reserveStock(currentSale, foundItem.getSku(), newTotal)) {
+                    int available = salesManager.getAvailableQuantity(foundItem.getSku(), currentSale);
                     int confirmStock = JOptionPane.showConfirmDialog(this,
                             "Warning: Adding " + quantity + " units of " + foundItem.getName() +
-                                    " exceeds available stock (" + foundItem.getQuantity() + " remaining for this addition).\n" +
+                                    " exceeds available stock (" + Math.max(0, available - existingSaleItem.getQuantitySold()) + " remaining for this addition).\n" +
                                     "Add anyway (sale might fail or be partially filled on finalize)?",
                             "Stock Warning", JOptionPane.YES_NO_OPTION, JOptionPane.WARNING_MESSAGE);
                     if (confirmStock == JOptionPane.NO_OPTION) return;
@@ -303,11 +319,11 @@ public class MakeSaleWindow extends JDialog {
                 return; // User chose not to update
             }
         } else {
-            // Item not yet in sale, check stock for the full requested quantity
-            if (foundItem.getQuantity() < quantity) {
+            // Item not yet in sale, reserve the full requested quantity
+            if (!salesManager.reserveStock(currentSale, foundItem.getSku(), quantity)) {
                 int choice = JOptionPane.showConfirmDialog(this,
                         "Warning: Requested quantity (" + quantity + ") for " + foundItem.getName() +
-                                " exceeds available stock (" + foundItem.getQuantity() + ").\n" +
+                                " exceeds available stock (" + salesManager.getAvailableQuantity(foundItem.getSku(), currentSale) + ").\n" +
                                 "Add to sale anyway (sale might fail or be partially filled on finalize)?",
                         "Stock Warning", JOptionPane.YES_NO_OPTION, JOptionPane.WARNING_MESSAGE);
                 if (choice == JOptionPane.NO_OPTION) {
@@ -316,6 +332,7 @@ public class MakeSaleWindow extends JDialog {
             }
             // Add as a new item to the sale
             if (!currentSale.addItemToSale(foundItem, quantity, sellingPrice)) {
+                salesManager.releaseStock(currentSale, foundItem.getSku());
                 JOptionPane.showMessageDialog(this, "Could not add item to sale. Check console for details.", "Error Adding Item", JOptionPane.ERROR_MESSAGE);
                 return; // Stop if addItemToSale failed
             }
@@ -379,13 +396,13 @@ public class MakeSaleWindow extends JDialog {
                     return;
                 }
 
-                Item inventoryItem = inventory.getItem(saleItemToEdit.getSku());
                 int quantityChange = newQuantity - saleItemToEdit.getQuantitySold();
 
-                if (inventoryItem != null && quantityChange > 0 && inventoryItem.getQuantity() < quantityChange) {
+                if (!salesManager.reserveStock(currentSale, saleItemToEdit.getSku(), newQuantity)) {
+                    int available = salesManager.getAvailableQuantity(saleItemToEdit.getSku(), currentSale);
                     int choice = JOptionPane.showConfirmDialog(this,
                             "Warning: Increasing quantity for " + saleItemToEdit.getItemName() +
-                                    " by " + quantityChange + " requires " + quantityChange + " more units, but only " + inventoryItem.getQuantity() + " are available in stock.\n" +
+                                    " by " + quantityChange + " requires " + newQuantity + " units, but only " + available + " are available in stock.\n" +
                                     "Update anyway (sale might fail or be partially filled on finalize)?",
                             "Stock Warning", JOptionPane.YES_NO_OPTION, JOptionPane.WARNING_MESSAGE);
                     if (choice == JOptionPane.NO_OPTION) return;
@@ -452,6 +469,7 @@ public class MakeSaleWindow extends JDialog {
 
             if (itemToRemoveInstance != null && actualItems != null) {
                 if (actualItems.remove(itemToRemoveInstance)) {
+                    salesManager.releaseStock(currentSale, skuToRemove);
                     currentSale.calculateTotalAmount(); // Recalculate total in Sale object
                     refreshSaleItemsTable();
                     updateTotalAmountDisplay();
@@ -512,8 +530,7 @@ public class MakeSaleWindow extends JDialog {
                 "Confirm Cancel Sale", JOptionPane.YES_NO_OPTION, JOptionPane.WARNING_MESSAGE);
 
         if (confirm == JOptionPane.YES_OPTION) {
-            currentSale.setStatus(Sale.STATUS_CANCELLED); // Set status to Cancelled
-            System.out.println("Sale " + currentSale.getSaleID() + " marked as Cancelled.");
+            salesManager.cancelSale(currentSale); // Marks it Cancelled and releases reserved stock
             // SalesManager will save this sale with "Cancelled" status at application shutdown or next save point.
             dispose();
         }
@@ -0,0 +1,468 @@
+// MemoryReport.java
+import javax.management.JMException;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.Deque;
+import java.util.EventListener;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Estimates how much heap each manager holds, split by entity type, and how much of it is duplicated
+ * String data, without taking a heap dump.
+ *
+ * It walks the object graph reachable from each manager (other managers are treated as the boundary,
+ * and every object is counted once, for the first manager that reaches it) and adds up estimated
+ * shallow sizes from the field layout: 12/16-byte headers, 4/8-byte references depending on compressed
+ * oops, 8-byte alignment. JDK collections are sized from their element count instead of their internals,
+ * which the module system does not let us read. UI objects and listeners are counted but not followed.
+ * The numbers are estimates (typically within 10-20% of a heap dump), good enough to see which entity
+ * type or which duplicated strings to go after.
+ *
+ * A walk over 100k sales takes a second or so; run it on demand (DiagnosticsWindow, or the refresh()
+ * operation of the "InventoryManagementSystem:type=MemoryReport" MBean), not on a timer.
+ */
+public final class MemoryReport {
+
+    public static final String OBJECT_NAME = MetricsRegistry.JMX_DOMAIN + ":type=MemoryReport";
+    private static final int TOP_DUPLICATES = 20;
+
+    private static final boolean COMPRESSED_OOPS = vmFlag("UseCompressedOops", true);
+    private static final int REF_SIZE = COMPRESSED_OOPS ? 4 : 8;
+    private static final int HEADER_SIZE = vmFlag("UseCompressedClassPointers", true) ? 12 : 16;
+    private static final int ARRAY_HEADER_SIZE = align(HEADER_SIZE + 4);
+
+    private static final Map<Class<?>, Layout> layouts = new ConcurrentHashMap<>();
+    private static volatile Supplier<Map<String, Object>> installedRoots;
+    private static volatile MemoryReport lastReport;
+
+    /** Bytes and object count for one manager or one type. */
+    public static final class Usage {
+        private final String name;
+        private long objects;
+        private long bytes;
+
+        Usage(String name) {
+            this.name = name;
+        }
+
+        public String getName() { return name; }
+        public long getObjects() { return objects; }
+        public long getBytes() { return bytes; }
+    }
+
+    /** A String value that is held by more than one String object. */
+    public static final class DuplicateString {
+        private final String value;
+        private final int copies;
+        private final long wastedBytes;
+
+        DuplicateString(String value, int copies, long wastedBytes) {
+            this.value = value;
+            this.copies = copies;
+            this.wastedBytes = wastedBytes;
+        }
+
+        public String getValue() { return value; }
+        public int getCopies() { return copies; }
+        public long getWastedBytes() { return wastedBytes; }
+    }
+
+    private final Map<String, Usage> byManager = new LinkedHashMap<>();
+    private final Map<String, Usage> byType = new HashMap<>();
+    private long stringCount, stringBytes, duplicateStringBytes, distinctStrings;
+    private final List<DuplicateString> topDuplicates = new ArrayList<>();
+    private long computeMillis;
+    private final long createdAtMillis = System.currentTimeMillis();
+
+    public List<Usage> getManagers() { return new ArrayList<>(byManager.values()); }
+
+    /** Per-type usage, largest first. */
+    public List<Usage> getTypes() {
+        List<Usage> types = new ArrayList<>(byType.values());
+        types.sort((a, b) -> Long.compare(b.bytes, a.bytes));
+        return types;
+    }
+
+    public long getTotalBytes() {
+        long total = 0;
+        for (Usage usage : byManager.values()) total += usage.bytes;
+        return total;
+    }
+
+    public long getStringCount() { return stringCount; }
+    public long getStringBytes() { return stringBytes; }
+    public long getDistinctStrings() { return distinctStrings; }
+    /** Bytes that would be saved if every duplicated String value were held once. */
+    public long getDuplicateStringBytes() { return duplicateStringBytes; }
+    public List<DuplicateString> getTopDuplicates() { return topDuplicates; }
+    public long getComputeMillis() { return computeMillis; }
+    public long getCreatedAtMillis() { return createdAtMillis; }
+
+    // ---- Computing ----
+
+    /** Walks the given roots (name -> manager), in order. */
+    public static MemoryReport compute(Map<String, Object> roots) {
+        long start = System.nanoTime();
+        MemoryReport report = new MemoryReport();
+        Set<Object> boundary = java.util.Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Object root : roots.values()) {
+            if (root != null) boundary.add(root);
+        }
+        Map<Object, Boolean> visited = new IdentityHashMap<>();
+        Map<String, int[]> stringCopies = new HashMap<>();
+        for (Map.Entry<String, Object> root : roots.entrySet()) {
+            Usage usage = new Usage(root.getKey());
+            report.byManager.put(root.getKey(), usage);
+            if (root.getValue() != null) {
+                report.walk(root.getValue(), usage, boundary, visited, stringCopies);
+            }
+        }
+
+        List<DuplicateString> duplicates = new ArrayList<>();
+        for (Map.Entry<String, int[]> entry : stringCopies.entrySet()) {
+            int copies = entry.getValue()[0];
+            if (copies > 1) {
+                long wasted = (copies - 1L) * stringSize(entry.getKey());
+                report.duplicateStringBytes += wasted;
+                duplicates.add(new DuplicateString(entry.getKey(), copies, wasted));
+            }
+        }
+        report.distinctStrings = stringCopies.size();
+        duplicates.sort((a, b) -> Long.compare(b.wastedBytes, a.wastedBytes));
+        report.topDuplicates.addAll(duplicates.subList(0, Math.min(TOP_DUPLICATES, duplicates.size())));
+        report.computeMillis = (System.nanoTime() - start) / 1_000_000;
+        lastReport = report;
+        return report;
+    }
+
+    private void walk(Object root, Usage manager, Set<Object> boundary, Map<Object, Boolean> visited, Map<String, int[]> stringCopies) {
+        Deque<Object> pending = new ArrayDeque<>();
+        pending.push(root);
+        while (!pending.isEmpty()) {
+            Object obj = pending.pop();
+            if (visited.put(obj, Boolean.TRUE) != null) continue;
+            Class<?> type = obj.getClass();
+            long size;
+
+            if (obj instanceof String) {
+                String s = (String) obj;
+                size = stringSize(s);
+                stringCount++;
+                stringBytes += size;
+                stringCopies.computeIfAbsent(s, k -> new int[1])[0]++;
+            } else if (type.isArray()) {
+                size = arraySize(obj, pending, boundary);
+            } else if (obj instanceof Collection) {
+                Collection<?> collection = (Collection<?>) obj;
+                size = collectionSize(collection);
+                for (Object element : collection) follow(element, pending, boundary);
+            } else if (obj instanceof Map) {
+                Map<?, ?> map = (Map<?, ?>) obj;
+                size = mapSize(map);
+                for (Map.Entry<?, ?> entry : map.entrySet()) {
+                    follow(entry.getKey(), pending, boundary);
+                    follow(entry.getValue(), pending, boundary);
+                }
+            } else if (isJdkType(type)) {
+                size = jdkObjectSize(obj, pending, boundary);
+            } else {
+                Layout layout = layoutOf(type);
+                size = layout.shallowSize;
+                if (!isLeafOnly(obj)) {
+                    for (Field field : layout.referenceFields) {
+                        try {
+                            follow(field.get(obj), pending, boundary);
+                        } catch (IllegalAccessException | RuntimeException e) {
+                            // Not readable (e.g. hidden class); count the object, skip the field
+                        }
+                    }
+                }
+            }
+            manager.objects++;
+            manager.bytes += size;
+            Usage typeUsage = byType.computeIfAbsent(typeName(type), Usage::new);
+            typeUsage.objects++;
+            typeUsage.bytes += size;
+        }
+    }
+
+    private static void follow(Object obj, Deque<Object> pending, Set<Object> boundary) {
+        if (obj == null || boundary.contains(obj) || obj instanceof Class || obj instanceof Enum) return;
+        pending.push(obj);
+    }
+
+    // UI components, listeners and lambdas are counted but not followed: they lead into Swing, not into store data
+    private static boolean isLeafOnly(Object obj) {
+        return obj instanceof java.awt.Component || obj instanceof EventListener || obj instanceof Inventory.ItemChangeListener
+                || obj instanceof Thread || obj.getClass().getName().contains("$$Lambda");
+    }
+
+    private static boolean isJdkType(Class<?> type) {
+        String name = type.getName();
+        return name.startsWith("java.") || name.startsWith("javax.") || name.startsWith("jdk.") || name.startsWith("sun.");
+    }
+
+    private long jdkObjectSize(Object obj, Deque<Object> pending, Set<Object> boundary) {
+        if (obj instanceof Date) return align(HEADER_SIZE + 8 + REF_SIZE);
+        if (obj instanceof Number || obj instanceof Boolean || obj instanceof Character) return align(HEADER_SIZE + 8);
+        if (obj instanceof AtomicReference) {
+            follow(((AtomicReference<?>) obj).get(), pending, boundary);
+            return align(HEADER_SIZE + REF_SIZE);
+        }
+        if (obj instanceof AtomicLongArray) {
+            return align(HEADER_SIZE + REF_SIZE) + align(ARRAY_HEADER_SIZE + 8L * ((AtomicLongArray) obj).length());
+        }
+        if (obj instanceof Thread || obj instanceof java.awt.Component) return 0; // Not store data; sized elsewhere
+        return align(HEADER_SIZE + 2 * REF_SIZE); // Unknown JDK object: header plus a couple of fields
+    }
+
+    private long arraySize(Object array, Deque<Object> pending, Set<Object> boundary) {
+        Class<?> component = array.getClass().getComponentType();
+        int length = Array.getLength(array);
+        if (!component.isPrimitive()) {
+            Object[] objects = (Object[]) array;
+            for (Object element : objects) follow(element, pending, boundary);
+        }
+        return align(ARRAY_HEADER_SIZE + (long) length * fieldSize(component));
+    }
+
+    // Unmodifiable views just wrap another collection; lists are an array of references; sets and maps are hash tables
+    private static long collectionSize(Collection<?> collection) {
+        String name = collection.getClass().getName();
+        if (name.contains("Unmodifiable") || name.contains("Synchronized")) return align(HEADER_SIZE + 2 * REF_SIZE);
+        int size = collection.size();
+        if (collection instanceof List) {
+            return align(HEADER_SIZE + 8 + REF_SIZE) + align(ARRAY_HEADER_SIZE + (long) Math.max(size, 10) * REF_SIZE);
+        }
+        return align(HEADER_SIZE + 8 + REF_SIZE) + hashTableSize(size);
+    }
+
+    private static long mapSize(Map<?, ?> map) {
+        String name = map.getClass().getName();
+        if (name.contains("Unmodifiable") || name.contains("Synchronized")) return align(HEADER_SIZE + 2 * REF_SIZE);
+        return align(HEADER_SIZE + 16 + 4 * REF_SIZE) + hashTableSize(map.size());
+    }
+
+    private static long hashTableSize(int entries) {
+        int capacity = 16;
+        while (capacity * 3 / 4 < entries) capacity <<= 1;
+        long node = align(HEADER_SIZE + 4 + 3 * REF_SIZE); // hash, key, value, next
+        return align(ARRAY_HEADER_SIZE + (long) capacity * REF_SIZE) + entries * node;
+    }
+
+    // Compact strings: one byte per char when Latin-1, two otherwise
+    static long stringSize(String s) {
+        boolean latin1 = true;
+        for (int i = 0; i < s.length() && latin1; i++) {
+            latin1 = s.charAt(i) < 256;
+        }
+        long valueBytes = latin1 ? s.length() : 2L * s.length();
+        return align(HEADER_SIZE + 4 + 1 + 1 + REF_SIZE) + align(ARRAY_HEADER_SIZE + valueBytes);
+    }
+
+    private static final class Layout {
+        final long shallowSize;
+        final List<Field> referenceFields;
+
+        Layout(long shallowSize, List<Field> referenceFields) {
+            this.shallowSize = shallowSize;
+            this.referenceFields = referenceFields;
+        }
+    }
+
+    private static Layout layoutOf(Class<?> type) {
+        return layouts.computeIfAbsent(type, t -> {
+            long size = HEADER_SIZE;
+            List<Field> references = new ArrayList<>();
+            for (Class<?> c = t; c != null && c != Object.class; c = c.getSuperclass()) {
+                for (Field field : c.getDeclaredFields()) {
+                    if (Modifier.isStatic(field.getModifiers())) continue;
+                    size += fieldSize(field.getType());
+                    if (!field.getType().isPrimitive() && !isJdkType(c)) {
+                        try {
+                            field.setAccessible(true);
+                            references.add(field);
+                        } catch (RuntimeException e) {
+                            // Inaccessible (module system); counted in the size, not followed
+                        }
+                    }
+                }
+            }
+            return new Layout(align(size), references);
+        });
+    }
+
+    private static int fieldSize(Class<?> type) {
+        if (type == long.class || type == double.class) return 8;
+        if (type == int.class || type == float.class) return 4;
+        if (type == short.class || type == char.class) return 2;
+        if (type == byte.class || type == boolean.class) return 1;
+        return REF_SIZE;
+    }
+
+    private static long align(long size) {
+        return (size + 7) & ~7L;
+    }
+
+    private static int align(int size) {
+        return (size + 7) & ~7;
+    }
+
+    private static String typeName(Class<?> type) {
+        if (type.isArray()) return typeName(type.getComponentType()) + "[]";
+        String name = type.getName();
+        if (name.contains("$$Lambda")) return "(lambda)";
+        return name.startsWith("java.") ? type.getSimpleName() : name.replace('$', '.');
+    }
+
+    private static boolean vmFlag(String name, boolean defaultValue) {
+        try {
+            com.sun.management.HotSpotDiagnosticMXBean hotspot =
+                    ManagementFactory.getPlatformMXBean(com.sun.management.HotSpotDiagnosticMXBean.class);
+            return Boolean.parseBoolean(hotspot.getVMOption(name).getValue());
+        } catch (RuntimeException | LinkageError e) {
+            return defaultValue;
+        }
+    }
+
+    // ---- Application wiring and JMX ----
+
+    /** Roots of the running application, in the order they are charged (an object shared by two managers goes to the first). */
+    public static Map<String, Object> applicationRoots() {
+        Map<String, Object> roots = new LinkedHashMap<>();
+        roots.put("Inventory", MainInventoryWindow.getAppInventory());
+        roots.put("SalesManager", MainInventoryWindow.getSalesManager());
+        roots.put("OrderManager", MainInventoryWindow.getOrderManager());
+        roots.put("SalesReturnManager", MainInventoryWindow.getSalesReturnManager());
+        roots.put("SupplierManager", MainInventoryWindow.getSupplierManager());
+        roots.put("UserManager", MainInventoryWindow.getUserManager());
+        return roots;
+    }
+
+    public static MemoryReport getLastReport() {
+        return lastReport;
+    }
+
+    public interface MemoryReportMBean {
+        long getTotalBytes();
+        long getDuplicateStringBytes();
+        long getStringBytes();
+        long getComputeMillis();
+        String getReport();
+        String refresh();
+    }
+
+    /**
+     * Registers the MemoryReport MBean and "memory.*" gauges for the given roots. Gauges show the last
+     * computed report (they never walk the heap themselves); refresh() over JMX computes a new one.
+     */
+    public static void install(Supplier<Map<String, Object>> roots) {
+        installedRoots = roots;
+        MemoryReportMBean mbean = new MemoryReportMBean() {
+            @Override public long getTotalBytes() { return lastReport == null ? -1 : lastReport.getTotalBytes(); }
+            @Override public long getDuplicateStringBytes() { return lastReport == null ? -1 : lastReport.getDuplicateStringBytes(); }
+            @Override public long getStringBytes() { return lastReport == null ? -1 : lastReport.getStringBytes(); }
+            @Override public long getComputeMillis() { return lastReport == null ? -1 : lastReport.getComputeMillis(); }
+            @Override public String getReport() { return lastReport == null ? "Not computed yet; call refresh()." : lastReport.toString(); }
+            @Override public String refresh() { return refreshInstalled().toString(); }
+        };
+        try {
+            javax.management.MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+            server.registerMBean(new StandardMBean(mbean, MemoryReportMBean.class), name);
+        } catch (JMException | SecurityException e) {
+            AppLog.warn("MemoryReport: Could not register MBean: " + e.getMessage());
+        }
+        MetricsRegistry.gauge("memory.estimatedBytes", mbean::getTotalBytes);
+        MetricsRegistry.gauge("memory.duplicateStringBytes", mbean::getDuplicateStringBytes);
+        for (String manager : roots.get().keySet()) {
+            MetricsRegistry.gauge("memory." + manager + ".bytes", () -> {
+                MemoryReport report = lastReport;
+                if (report == null) return -1;
+                Usage usage = report.byManager.get(manager);
+                return usage == null ? -1 : usage.bytes;
+            });
+        }
+    }
+
+    /** Computes a new report over the installed roots (the application's managers by default). */
+    public static MemoryReport refreshInstalled() {
+        Supplier<Map<String, Object>> roots = installedRoots;
+        return compute(roots != null ? roots.get() : applicationRoots());
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format(Locale.US, "Estimated retained heap: %s (computed in %d ms)%n", formatBytes(getTotalBytes()), computeMillis));
+        sb.append("By manager:\n");
+        for (Usage usage : byManager.values()) {
+            sb.append(String.format(Locale.US, "  %-20s %12s %10d objects%n", usage.name, formatBytes(usage.bytes), usage.objects));
+        }
+        sb.append("Largest types:\n");
+        List<Usage> types = getTypes();
+        for (int i = 0; i < Math.min(15, types.size()); i++) {
+            Usage usage = types.get(i);
+            sb.append(String.format(Locale.US, "  %-32s %12s %10d objects%n", usage.name, formatBytes(usage.bytes), usage.objects));
+        }
+        sb.append(String.format(Locale.US, "Strings: %d objects, %d distinct values, %s, of which %s duplicated%n",
+                stringCount, distinctStrings, formatBytes(stringBytes), formatBytes(duplicateStringBytes)));
+        for (DuplicateString duplicate : topDuplicates) {
+            sb.append(String.format(Locale.US, "  %6d x %-30s wastes %s%n", duplicate.copies,
+                    '"' + abbreviate(duplicate.value, 28) + '"', formatBytes(duplicate.wastedBytes)));
+        }
+        return sb.toString();
+    }
+
+    static String formatBytes(long bytes) {
+        if (bytes < 0) return "-";
+        if (bytes < 1024) return bytes + " B";
+        if (bytes < 1024 * 1024) return String.format(Locale.US, "%.1f KB", bytes / 1024.0);
+        return String.format(Locale.US, "%.1f MB", bytes / (1024.0 * 1024.0));
+    }
+
+    static String abbreviate(String value, int max) {
+        return value.length() <= max ? value : value.substring(0, max - 3) + "...";
+    }
+
+    public static void main(String[] args) {
+        AppLog.setLevel(AppLog.Level.WARN);
+        Inventory inventory = new Inventory(false);
+        SalesManager salesManager = new SalesManager(inventory, false);
+        for (int i = 0; i < 1000; i++) {
+            inventory.addItem(new Item(String.format("MEM%05d", i), "Item " + i, "Category " + (i % 10), 1000, 2.5, "SUP001", "Active"));
+        }
+        for (int i = 0; i < 5000; i++) {
+            Sale sale = salesManager.createNewSale();
+            for (int line = 0; line < 3; line++) {
+                Item item = inventory.getItem(String.format("MEM%05d", (i * 7 + line) % 1000));
+                sale.addItemToSale(item, 1, item.getPrice());
+            }
+        }
+        Map<String, Object> roots = new LinkedHashMap<>();
+        roots.put("Inventory", inventory);
+        roots.put("SalesManager", salesManager);
+        System.out.print(compute(roots));
+    }
+}
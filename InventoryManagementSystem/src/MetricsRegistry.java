@@ -0,0 +1,280 @@
+// MetricsRegistry.java
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Process-wide counters, gauges and latency histograms for the core operations (sale finalize,
+ * order receiving, file load/save, search, reports). Every metric is also registered as an MBean
+ * under "InventoryManagementSystem:type=...,name=..." so it can be read with JConsole/VisualVM,
+ * and {@link DiagnosticsWindow} shows them in the app.
+ *
+ * Recording is lock-free and allocation-free, so it can stay on in production.
+ * Typical use:
+ * <pre>
+ *     long startNanos = System.nanoTime();
+ *     try { ... } finally { MetricsRegistry.histogram("file.save.items").recordSince(startNanos); }
+ * </pre>
+ */
+public final class MetricsRegistry {
+
+    public static final String JMX_DOMAIN = "InventoryManagementSystem";
+
+    private static final Map<String, Counter> counters = new ConcurrentHashMap<>();
+    private static final Map<String, Gauge> gauges = new ConcurrentHashMap<>();
+    private static final Map<String, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+
+    static {
+        gauge("jvm.heap.usedBytes", () -> Runtime.getRuntime().totalMemory() - Runtime.getRuntime().freeMemory());
+        gauge("jvm.threads", Thread::activeCount);
+        gauge("log.dropped", AppLog::getDroppedCount);
+    }
+
+    private MetricsRegistry() {}
+
+    public static Counter counter(String name) {
+        return counters.computeIfAbsent(name, n -> register("Counter", n, new Counter(n), CounterMBean.class));
+    }
+
+    /** Registers (or replaces) a gauge; the supplier is called whenever the value is read. */
+    public static Gauge gauge(String name, LongSupplier supplier) {
+        Gauge gauge = new Gauge(name, supplier);
+        Gauge previous = gauges.put(name, gauge);
+        if (previous != null) {
+            unregister("Gauge", name);
+        }
+        return register("Gauge", name, gauge, GaugeMBean.class);
+    }
+
+    public static LatencyHistogram histogram(String name) {
+        return histograms.computeIfAbsent(name, n -> register("Histogram", n, new LatencyHistogram(n), HistogramMBean.class));
+    }
+
+    public static List<Counter> getCounters() {
+        return new ArrayList<>(counters.values());
+    }
+
+    public static List<Gauge> getGauges() {
+        return new ArrayList<>(gauges.values());
+    }
+
+    public static List<LatencyHistogram> getHistograms() {
+        return new ArrayList<>(histograms.values());
+    }
+
+    // ---- JMX ----
+
+    private static <T> T register(String type, String name, T metric, Class<? super T> mbeanInterface) {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = objectName(type, name);
+            if (server.isRegistered(objectName)) {
+                server.unregisterMBean(objectName);
+            }
+            server.registerMBean(new StandardMBean(metric, mbeanInterface), objectName);
+        } catch (JMException | SecurityException e) {
+            AppLog.warn("MetricsRegistry: Could not register " + type + " '" + name + "' with JMX: " + e.getMessage());
+        }
+        return metric;
+    }
+
+    private static void unregister(String type, String name) {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = objectName(type, name);
+            if (server.isRegistered(objectName)) {
+                server.unregisterMBean(objectName);
+            }
+        } catch (JMException | SecurityException e) {
+            AppLog.warn("MetricsRegistry: Could not unregister " + type + " '" + name + "': " + e.getMessage());
+        }
+    }
+
+    private static ObjectName objectName(String type, String name) throws JMException {
+        return new ObjectName(JMX_DOMAIN + ":type=" + type + ",name=" + ObjectName.quote(name));
+    }
+
+    // ---- MBean interfaces ----
+
+    public interface CounterMBean {
+        long getCount();
+    }
+
+    public interface GaugeMBean {
+        long getValue();
+    }
+
+    public interface HistogramMBean {
+        long getCount();
+        double getMeanMillis();
+        double getP50Millis();
+        double getP90Millis();
+        double getP99Millis();
+        double getP999Millis();
+        double getMaxMillis();
+        void reset();
+    }
+
+    // ---- Metric types ----
+
+    public static final class Counter implements CounterMBean {
+        private final String name;
+        private final LongAdder count = new LongAdder();
+
+        Counter(String name) {
+            this.name = name;
+        }
+
+        public String getName() { return name; }
+        public void increment() { count.increment(); }
+        public void add(long n) { count.add(n); }
+        @Override public long getCount() { return count.sum(); }
+    }
+
+    public static final class Gauge implements GaugeMBean {
+        private final String name;
+        private final LongSupplier supplier;
+
+        Gauge(String name, LongSupplier supplier) {
+            this.name = name;
+            this.supplier = supplier;
+        }
+
+        public String getName() { return name; }
+
+        @Override
+        public long getValue() {
+            try {
+                return supplier.getAsLong();
+            } catch (RuntimeException e) {
+                return -1; // A broken gauge must not break the caller (JMX client, diagnostics window)
+            }
+        }
+    }
+
+    /**
+     * Latency histogram with HdrHistogram-style log-linear buckets: values below 64 ns get their own
+     * bucket, above that every power of two is split into 32 buckets, so any recorded value is
+     * reported within about 3% of what was recorded, from nanoseconds up to hours, in a fixed array.
+     */
+    public static final class LatencyHistogram implements HistogramMBean {
+        private static final int SUB_BUCKET_BITS = 5;
+        private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;       // 32
+        private static final int LINEAR_LIMIT = SUB_BUCKETS * 2;            // Values below this are exact
+        private static final int BUCKET_COUNT = LINEAR_LIMIT + (63 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+        private final String name;
+        private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final AtomicLong maxNanos = new AtomicLong();
+
+        LatencyHistogram(String name) {
+            this.name = name;
+        }
+
+        public String getName() { return name; }
+
+        public void recordSince(long startNanos) {
+            recordNanos(System.nanoTime() - startNanos);
+        }
+
+        public void recordNanos(long nanos) {
+            if (nanos < 0) nanos = 0;
+            buckets.incrementAndGet(bucketIndex(nanos));
+            count.increment();
+            totalNanos.add(nanos);
+            long max = maxNanos.get();
+            while (nanos > max && !maxNanos.compareAndSet(max, nanos)) {
+                max = maxNanos.get();
+            }
+        }
+
+        static int bucketIndex(long value) {
+            if (value < LINEAR_LIMIT) return (int) value;
+            int shift = (63 - Long.numberOfLeadingZeros(value)) - SUB_BUCKET_BITS; // >= 1
+            int mantissa = (int) (value >>> shift);                                // 32..63
+            return LINEAR_LIMIT + (shift - 1) * SUB_BUCKETS + (mantissa - SUB_BUCKETS);
+        }
+
+        // Highest value that falls into the bucket
+        static long bucketUpperBound(int index) {
+            if (index < LINEAR_LIMIT) return index;
+            int shift = (index - LINEAR_LIMIT) / SUB_BUCKETS + 1;
+            long mantissa = (index - LINEAR_LIMIT) % SUB_BUCKETS + SUB_BUCKETS;
+            return ((mantissa + 1) << shift) - 1;
+        }
+
+        /** Value (in nanoseconds) at the given percentile (0-100), e.g. 99.0 for p99. 0 if nothing was recorded. */
+        public long getPercentileNanos(double percentile) {
+            long[] snapshot = new long[BUCKET_COUNT];
+            long total = 0;
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                snapshot[i] = buckets.get(i);
+                total += snapshot[i];
+            }
+            if (total == 0) return 0;
+            long rank = (long) Math.ceil(Math.min(100.0, Math.max(0.0, percentile)) / 100.0 * total);
+            rank = Math.max(1, rank);
+            long seen = 0;
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                seen += snapshot[i];
+                if (seen >= rank) {
+                    return Math.min(bucketUpperBound(i), maxNanos.get());
+                }
+            }
+            return maxNanos.get();
+        }
+
+        @Override public long getCount() { return count.sum(); }
+
+        @Override
+        public double getMeanMillis() {
+            long n = count.sum();
+            return n == 0 ? 0.0 : totalNanos.sum() / (double) n / 1_000_000.0;
+        }
+
+        @Override public double getP50Millis() { return getPercentileNanos(50.0) / 1_000_000.0; }
+        @Override public double getP90Millis() { return getPercentileNanos(90.0) / 1_000_000.0; }
+        @Override public double getP99Millis() { return getPercentileNanos(99.0) / 1_000_000.0; }
+        @Override public double getP999Millis() { return getPercentileNanos(99.9) / 1_000_000.0; }
+        @Override public double getMaxMillis() { return maxNanos.get() / 1_000_000.0; }
+
+        /** Clears the recorded values (not atomic with respect to concurrent recording). */
+        @Override
+        public void reset() {
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                buckets.set(i, 0);
+            }
+            count.reset();
+            totalNanos.reset();
+            maxNanos.set(0);
+        }
+    }
+
+    public static void main(String[] args) {
+        LatencyHistogram h = histogram("demo.latency");
+        java.util.Random random = new java.util.Random(1);
+        for (int i = 0; i < 100_000; i++) {
+            h.recordNanos(1_000_000L + random.nextInt(1_000_000)); // 1-2 ms
+        }
+        h.recordNanos(50_000_000L); // One 50 ms outlier
+        System.out.printf("count=%d mean=%.3fms p50=%.3fms p99=%.3fms max=%.3fms%n",
+                h.getCount(), h.getMeanMillis(), h.getP50Millis(), h.getP99Millis(), h.getMaxMillis());
+        counter("demo.events").add(3);
+        System.out.println("demo.events=" + counter("demo.events").getCount());
+        for (Gauge gauge : getGauges()) {
+            System.out.println(gauge.getName() + "=" + gauge.getValue());
+        }
+    }
+}
@@ -1,26 +1,25 @@
 // Order.java
 import java.text.DecimalFormat;
 import java.text.DecimalFormatSymbols;
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
 import java.util.List;
 import java.util.Locale;
-import java.util.UUID;
-import java.time.Instant;
-import java.time.format.DateTimeFormatter;
-import java.time.ZoneOffset;
+import java.util.function.Consumer;
 
 
 public class Order {
     private String orderID;
     private String supplierID; // Store Supplier ID for simplicity in CSV
     private transient Supplier supplier; // Transient: not directly part of CSV, but can be loaded/linked
-    private Date orderDate;
+    private long orderDateMillis; // Epoch millis; Date objects are only created for callers that ask
+    private long orderEpochDay;   // Local calendar day of orderDateMillis
     private List<OrderItem> items;
+    private List<OrderItem> itemsView; // Read-only view of items, created once
     private String status; // e.g., "Pending", "Placed", "Partially Received", "Received", "Cancelled"
     private double totalCost; // Calculated based on ordered items
+    private transient StatusChangeListener statusListener; // Set by OrderManager to keep its status index current
 
     public static final String STATUS_PENDING = "Pending";
     public static final String STATUS_PLACED = "Placed"; // Order sent to supplier
@@ -28,9 +27,13 @@ public class Order {
     public static final String STATUS_RECEIVED = "Received"; // All items received
     public static final String STATUS_CANCELLED = "Cancelled";
 
-    private static final DateTimeFormatter CSV_DATE_FORMATTER = DateTimeFormatter.ISO_INSTANT; // UTC for persistence
-    private static final SimpleDateFormat DISPLAY_DATE_FORMAT = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
-
+    /**
+     * Notified whenever {@link #setStatus(String)} changes an order's status,
+     * including changes made internally by {@link #updateOrderStatusBasedOnReceipts()}.
+     */
+    public interface StatusChangeListener {
+        void onStatusChanged(Order order, String oldStatus, String newStatus);
+    }
 
     // Constructor for creating a new order
     public Order(Supplier supplier) {
@@ -40,55 +43,81 @@ public class Order {
         this.orderID = generateOrderID();
         this.supplier = supplier;
         this.supplierID = supplier.getSupplierID();
-        this.orderDate = new Date();
+        setOrderDateMillis(System.currentTimeMillis());
         this.items = new ArrayList<>();
+        this.itemsView = Collections.unmodifiableList(this.items);
         this.status = STATUS_PENDING;
         this.totalCost = 0.0;
     }
 
     // Constructor for loading from CSV
     public Order(String orderID, String supplierID, Date orderDate, String status, double totalCost) {
+        this(orderID, supplierID, orderDate.getTime(), status, totalCost);
+    }
+
+    public Order(String orderID, String supplierID, long orderDateMillis, String status, double totalCost) {
         this.orderID = orderID;
         this.supplierID = supplierID;
-        this.orderDate = orderDate;
-        this.items = new ArrayList<>(); // Items will be loaded separately
+        setOrderDateMillis(orderDateMillis);
+        this.items = new ArrayList<>();
+        this.itemsView = Collections.unmodifiableList(this.items); // Items will be loaded separately
         this.status = status;
         this.totalCost = totalCost; // This is the stored total, might be recalculated after loading items
     }
 
     private String generateOrderID() {
-        SimpleDateFormat sdfDate = new SimpleDateFormat("yyyyMMddHHmmss");
-        return "PO-" + sdfDate.format(new Date()) + "-" + UUID.randomUUID().toString().substring(0, 4).toUpperCase();
+        return IdGenerator.PURCHASE_ORDERS.nextId();
+    }
+
+    private void setOrderDateMillis(long millis) {
+        this.orderDateMillis = millis;
+        this.orderEpochDay = Timestamps.localEpochDay(millis);
     }
 
     // Getters
     public String getOrderID() { return orderID; }
     public String getSupplierID() { return supplierID; }
     public Supplier getSupplier() { return supplier; } // May be null if not linked after loading
-    public Date getOrderDate() { return orderDate; }
+    public Date getOrderDate() { return new Date(orderDateMillis); } // Copy; prefer getOrderDateMillis()
+    public long getOrderDateMillis() { return orderDateMillis; }
+    public long getOrderEpochDay() { return orderEpochDay; }
     public List<OrderItem> getItems() { return new ArrayList<>(items); } // Return copy
+    public List<OrderItem> getItemsView() { return itemsView; } // Read-only, no copy; reflects later changes
+    public void forEachItem(Consumer<? super OrderItem> visitor) {
+        for (int i = 0; i < items.size(); i++) { // Index loop: no iterator allocated
+            visitor.accept(items.get(i));
+        }
+    }
     public String getStatus() { return status; }
     public double getTotalCost() {
         calculateTotalCost(); // Ensure it's up-to-date
         return totalCost;
     }
-    public String getOrderDateString() { return DISPLAY_DATE_FORMAT.format(this.orderDate); }
+    public String getOrderDateString() { return Timestamps.formatDisplay(orderDateMillis); }
 
 
     // Setters
     public void setSupplier(Supplier supplier) { // Used by OrderManager after loading to link supplier object
         this.supplier = supplier;
         if (supplier != null && !this.supplierID.equals(supplier.getSupplierID())) {
-            System.err.println("Warning: Supplier object ID " + supplier.getSupplierID() +
+            AppLog.warn("Warning: Supplier object ID " + supplier.getSupplierID() +
                     " does not match stored supplierID " + this.supplierID + " for order " + this.orderID);
             // this.supplierID = supplier.getSupplierID(); // Optionally update if supplier object is master
         }
     }
 
+    public void setStatusChangeListener(StatusChangeListener listener) {
+        this.statusListener = listener;
+    }
+
     public void setStatus(String status) {
         // Add validation for allowed statuses if necessary
+        String oldStatus = this.status;
         this.status = status;
-        System.out.println("Order " + orderID + " status updated to: " + status);
+        AppLog.info("Order " + orderID + " status updated to: " + status);
+        if (statusListener != null && (oldStatus == null || !oldStatus.equals(status))) {
+            statusListener.onStatusChanged(this, oldStatus, status);
+        }
     }
 
     public void addItem(OrderItem item) {
@@ -96,7 +125,7 @@ public class Order {
             // Check if item with same SKU already exists; if so, perhaps update quantity or disallow
             boolean itemExists = items.stream().anyMatch(oi -> oi.getItemSKU().equals(item.getItemSKU()));
             if (itemExists) {
-                System.err.println("Item with SKU " + item.getItemSKU() + " already exists in order " + orderID + ". Consider updating existing item.");
+                AppLog.warn("Item with SKU " + item.getItemSKU() + " already exists in order " + orderID + ". Consider updating existing item.");
                 // For now, allow adding, but in UI, this should be handled by editing existing line
             }
             this.items.add(item);
@@ -177,7 +206,7 @@ public class Order {
     // orderID,supplierID,orderDate (ISO),status,totalCost
     public String toOrderCsvString() {
         DecimalFormat df = new DecimalFormat("0.00", new DecimalFormatSymbols(Locale.US));
-        String isoOrderDate = CSV_DATE_FORMATTER.format(this.orderDate.toInstant().atZone(ZoneOffset.UTC));
+        String isoOrderDate = Timestamps.formatIso(orderDateMillis);
         return String.join(",",
                 escapeCsv(orderID),
                 escapeCsv(supplierID),
@@ -192,19 +221,8 @@ public class Order {
 
     public static Date parseIsoDateString(String dateString) {
         if (dateString == null || dateString.trim().isEmpty()) return null;
-        try {
-            return Date.from(Instant.parse(dateString.trim()));
-        } catch (Exception e) {
-            System.err.println("Error parsing ISO date string for Order: '" + dateString + "' - " + e.getMessage() + ". Trying legacy format.");
-            // Fallback for older Date.toString() format if needed, though ISO is preferred
-            try {
-                SimpleDateFormat legacySdf = new SimpleDateFormat("EEE MMM dd HH:mm:ss zzz yyyy", Locale.ENGLISH);
-                return legacySdf.parse(dateString.trim());
-            } catch (ParseException pe) {
-                System.err.println("Error parsing legacy date string for Order after ISO fail: '" + dateString + "' - " + pe.getMessage());
-                return null;
-            }
-        }
+        long millis = Timestamps.parseIso(dateString.trim());
+        return millis == Timestamps.INVALID ? null : new Date(millis);
     }
 
     // Helper for CSV string generation
@@ -257,30 +275,30 @@ public class Order {
         // Test
         Supplier testSupplier = new Supplier("SUPPLIER_TEST", "Test Supplier Co.", "test@supplier.com");
         Order order = new Order(testSupplier);
-        System.out.println("Created Order: " + order.getOrderID());
+        AppLog.info("Created Order: " + order.getOrderID());
 
         OrderItem item1 = new OrderItem("ITEM001", "Test Item A", 10, 15.99);
         OrderItem item2 = new OrderItem("ITEM002", "Test Item B", 5, 25.00);
         order.addItem(item1);
         order.addItem(item2);
 
-        System.out.println(order.getOrderDetails());
+        AppLog.info(order.getOrderDetails());
 
-        System.out.println("Order CSV String: " + order.toOrderCsvString());
+        AppLog.info("Order CSV String: " + order.toOrderCsvString());
         for(OrderItem oi : order.getItems()){
-            System.out.println("OrderItem CSV String for Order " + order.getOrderID() + ": " + oi.toCsvString());
+            AppLog.info("OrderItem CSV String for Order " + order.getOrderID() + ": " + oi.toCsvString());
         }
 
         // Simulate receiving some items
         item1.receiveItems(5);
         order.updateOrderStatusBasedOnReceipts(); // Should be Partially Received
-        System.out.println("\nAfter receiving 5 of ITEM001:");
-        System.out.println(order.getOrderDetails());
+        AppLog.info("\nAfter receiving 5 of ITEM001:");
+        AppLog.info(order.getOrderDetails());
 
         item1.receiveItems(5); // Receive remaining
         item2.receiveItems(5); // Receive all of item2
         order.updateOrderStatusBasedOnReceipts(); // Should be Received
-        System.out.println("\nAfter receiving all items:");
-        System.out.println(order.getOrderDetails());
+        AppLog.info("\nAfter receiving all items:");
+        AppLog.info(order.getOrderDetails());
     }
 }
@@ -28,7 +28,7 @@ public class OrderItem {
     public OrderItem(String itemSKU, String itemName, int orderedQuantity, int receivedQuantity, double purchasePrice) {
         this(itemSKU, itemName, orderedQuantity, purchasePrice); // Calls the main constructor
         if (receivedQuantity < 0 || receivedQuantity > orderedQuantity) {
-            System.err.println("Warning: Invalid received quantity ("+ receivedQuantity +") for SKU " + itemSKU +
+            AppLog.warn("Warning: Invalid received quantity ("+ receivedQuantity +") for SKU " + itemSKU +
                     ". Must be between 0 and ordered quantity (" + orderedQuantity + "). Setting to 0.");
             this.receivedQuantity = 0;
         } else {
@@ -47,7 +47,7 @@ public class OrderItem {
     // Setters
     public void setOrderedQuantity(int orderedQuantity) {
         if (orderedQuantity <= 0) {
-            System.err.println("Error: Ordered quantity must be positive for SKU " + itemSKU);
+            AppLog.error("Error: Ordered quantity must be positive for SKU " + itemSKU);
             return;
         }
         this.orderedQuantity = orderedQuantity;
@@ -58,7 +58,7 @@ public class OrderItem {
 
     public void setPurchasePrice(double purchasePrice) {
         if (purchasePrice < 0) {
-            System.err.println("Error: Purchase price cannot be negative for SKU " + itemSKU);
+            AppLog.error("Error: Purchase price cannot be negative for SKU " + itemSKU);
             return;
         }
         this.purchasePrice = purchasePrice;
@@ -71,22 +71,35 @@ public class OrderItem {
      */
     public int receiveItems(int quantity) {
         if (quantity < 0) {
-            System.err.println("Cannot receive a negative quantity for SKU " + itemSKU);
+            AppLog.warn("Cannot receive a negative quantity for SKU " + itemSKU);
             return 0;
         }
         int newReceivedQuantity = this.receivedQuantity + quantity;
         if (newReceivedQuantity > this.orderedQuantity) {
-            System.err.println("Warning: Receiving " + quantity + " for SKU " + itemSKU +
+            AppLog.warn("Warning: Receiving " + quantity + " for SKU " + itemSKU +
                     " would exceed ordered quantity. Receiving " + (this.orderedQuantity - this.receivedQuantity) + " instead.");
             quantity = this.orderedQuantity - this.receivedQuantity; // adjust quantity to receive only remaining
             this.receivedQuantity = this.orderedQuantity;
         } else {
             this.receivedQuantity = newReceivedQuantity;
         }
-        System.out.println(quantity + " units of SKU " + itemSKU + " marked as received. Total received: " + this.receivedQuantity);
+        if (AppLog.isDebugEnabled()) AppLog.debug(quantity + " units of SKU " + itemSKU + " marked as received. Total received: " + this.receivedQuantity);
         return quantity; // return actual quantity added to received
     }
 
+    /**
+     * Records a receipt that the caller has already validated against the outstanding quantity.
+     * Used by bulk receiving, which logs once per document instead of once per line.
+     * @return false (and changes nothing) if the quantity is not positive or exceeds what is outstanding.
+     */
+    public boolean recordReceipt(int quantity) {
+        if (quantity <= 0 || quantity > this.orderedQuantity - this.receivedQuantity) {
+            return false;
+        }
+        this.receivedQuantity += quantity;
+        return true;
+    }
+
 
     public double getSubtotal() {
         return this.orderedQuantity * this.purchasePrice;
@@ -111,7 +124,7 @@ public class OrderItem {
 
     public static OrderItem fromCsvParts(String[] parts) {
         if (parts.length < 5) { // Expecting parts for itemSKU, itemName, orderedQty, receivedQty, purchasePrice
-            System.err.println("Invalid CSV parts for OrderItem: not enough parts. Expected 5, Got " + parts.length);
+            AppLog.warn("Invalid CSV parts for OrderItem: not enough parts. Expected 5, Got " + parts.length);
             return null;
         }
         try {
@@ -122,10 +135,10 @@ public class OrderItem {
             double price = Double.parseDouble(Order.unescapeCsv(parts[4]));
             return new OrderItem(sku, name, orderedQty, receivedQty, price);
         } catch (NumberFormatException e) {
-            System.err.println("Error parsing numeric value for OrderItem from CSV: " + e.getMessage());
+            AppLog.error("Error parsing numeric value for OrderItem from CSV: " + e.getMessage());
             return null;
         } catch (IllegalArgumentException e) {
-            System.err.println("Error creating OrderItem from CSV due to invalid arguments: " + e.getMessage());
+            AppLog.error("Error creating OrderItem from CSV due to invalid arguments: " + e.getMessage());
             return null;
         }
     }
@@ -1,14 +1,25 @@
 import java.io.*;
 import java.util.ArrayList;
-import java.util.Date;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
 
-public class OrderManager {
+public class OrderManager implements Order.StatusChangeListener {
     private List<Order> ordersList;
+    private List<Order> ordersListView; // Read-only view of ordersList, created once
+    // Indexes kept in step with ordersList so lookups don't scan every PO ever created
+    private Map<String, Order> ordersById;
+    private Map<String, Map<String, Order>> ordersByStatus; // status (lower case) -> orderID -> order
+    // Units ordered but not yet received on open POs (Placed / Partially Received), by SKU
+    private Map<String, Integer> onOrderBySku;
     private Inventory inventory;
     private SupplierManager supplierManager;
 
@@ -24,22 +35,40 @@ public class OrderManager {
         this.inventory = inventory;
         this.supplierManager = supplierManager;
         this.ordersList = new ArrayList<>();
+        this.ordersListView = Collections.unmodifiableList(this.ordersList);
+        this.ordersById = new HashMap<>();
+        this.ordersByStatus = new HashMap<>();
+        this.onOrderBySku = new ConcurrentHashMap<>(); // Read by server item requests without the back-office lock
         loadOrdersFromFile();
     }
 
     public Order createNewOrder(Supplier supplier) {
         if (supplier == null) {
-            System.err.println("Cannot create order: Supplier is null.");
+            AppLog.warn("Cannot create order: Supplier is null.");
             return null;
         }
         Order newOrder = new Order(supplier);
-        this.ordersList.add(newOrder);
-        System.out.println("New Purchase Order created: " + newOrder.getOrderID() + " for Supplier: " + supplier.getName());
+        addToIndexes(newOrder);
+        AppLog.info("New Purchase Order created: " + newOrder.getOrderID() + " for Supplier: " + supplier.getName());
         return newOrder;
     }
 
     public Optional<Order> getOrderById(String orderId) {
-        return ordersList.stream().filter(o -> o.getOrderID().equals(orderId)).findFirst();
+        if (orderId == null) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(ordersById.get(orderId));
+    }
+
+    /** Read-only view of all purchase orders (no copy); it reflects orders added later. */
+    public List<Order> getAllOrdersView() {
+        return ordersListView;
+    }
+
+    public void forEachOrder(Consumer<? super Order> visitor) {
+        for (int i = 0; i < ordersList.size(); i++) {
+            visitor.accept(ordersList.get(i));
+        }
     }
 
     public List<Order> getAllOrders() {
@@ -47,12 +76,105 @@ public class OrderManager {
     }
 
     public List<Order> getOrdersByStatus(String status) {
-        return ordersList.stream()
-                .filter(o -> o.getStatus().equalsIgnoreCase(status))
-                .collect(Collectors.toList());
+        if (status == null) {
+            return new ArrayList<>();
+        }
+        Map<String, Order> bucket = ordersByStatus.get(statusKey(status));
+        return bucket == null ? new ArrayList<>() : new ArrayList<>(bucket.values());
+    }
+
+    @Override
+    public void onStatusChanged(Order order, String oldStatus, String newStatus) {
+        if (ordersById.get(order.getOrderID()) != order) {
+            return; // Not managed here (e.g. a stale instance from a previous load)
+        }
+        removeFromStatusBucket(order, oldStatus);
+        addToStatusBucket(order, newStatus);
+
+        boolean wasOpen = isOpenStatus(oldStatus);
+        boolean nowOpen = isOpenStatus(newStatus);
+        if (!wasOpen && nowOpen) {
+            adjustOnOrder(order, 1); // PO placed
+        } else if (wasOpen && !nowOpen) {
+            adjustOnOrder(order, -1); // PO cancelled or closed; whatever is still outstanding is no longer coming
+        }
+    }
+
+    /**
+     * Returns how many units of the SKU are on open purchase orders but not yet received.
+     */
+    public int getOnOrderQuantity(String sku) {
+        if (sku == null) return 0;
+        Integer qty = onOrderBySku.get(sku);
+        return qty == null ? 0 : qty;
+    }
+
+    private static boolean isOpenStatus(String status) {
+        return Order.STATUS_PLACED.equals(status) || Order.STATUS_PARTIALLY_RECEIVED.equals(status);
+    }
+
+    // Adds (sign = 1) or removes (sign = -1) the outstanding quantity of every line of the order
+    private void adjustOnOrder(Order order, int sign) {
+        for (OrderItem oi : order.getItemsView()) {
+            int outstanding = oi.getOrderedQuantity() - oi.getReceivedQuantity();
+            if (outstanding > 0) {
+                addOnOrder(oi.getItemSKU(), sign * outstanding);
+            }
+        }
+    }
+
+    private void addOnOrder(String sku, int delta) {
+        onOrderBySku.compute(sku, (k, qty) -> {
+            int updated = (qty == null ? 0 : qty) + delta;
+            return updated > 0 ? updated : null;
+        });
+    }
+
+    private void addToIndexes(Order order) {
+        this.ordersList.add(order);
+        this.ordersById.put(order.getOrderID(), order);
+        addToStatusBucket(order, order.getStatus());
+        if (isOpenStatus(order.getStatus())) {
+            adjustOnOrder(order, 1);
+        }
+        order.setStatusChangeListener(this);
+    }
+
+    private void addToStatusBucket(Order order, String status) {
+        if (status == null) return;
+        ordersByStatus.computeIfAbsent(statusKey(status), k -> new LinkedHashMap<>()).put(order.getOrderID(), order);
+    }
+
+    private void removeFromStatusBucket(Order order, String status) {
+        if (status == null) return;
+        Map<String, Order> bucket = ordersByStatus.get(statusKey(status));
+        if (bucket != null) {
+            bucket.remove(order.getOrderID());
+            if (bucket.isEmpty()) {
+                ordersByStatus.remove(statusKey(status));
+            }
+        }
+    }
+
+    private static String statusKey(String status) {
+        return status.toLowerCase(Locale.ROOT);
     }
 
     public void loadOrdersFromFile() {
+        StartupProfiler.Phase startupPhase = StartupProfiler.begin("orders");
+        long startNanos = System.nanoTime();
+        AppEvents.FileIoEvent event = new AppEvents.FileIoEvent("load", "orders");
+        event.begin();
+        try {
+            doLoadOrdersFromFile();
+        } finally {
+            MetricsRegistry.histogram("file.load.orders").recordSince(startNanos);
+            event.finish(ordersList.size(), DEFAULT_ORDERS_FILE_PATH, DEFAULT_ORDER_ITEMS_FILE_PATH);
+            startupPhase.end(ordersList.size());
+        }
+    }
+
+    private void doLoadOrdersFromFile() {
         Map<String, Order> loadedOrdersMap = new HashMap<>();
         File ordersFile = new File(DEFAULT_ORDERS_FILE_PATH);
         File orderItemsFile = new File(DEFAULT_ORDER_ITEMS_FILE_PATH);
@@ -67,24 +189,24 @@ public class OrderManager {
             try (BufferedReader br = new BufferedReader(new FileReader(ordersFile))) {
                 String line = br.readLine();
                 if (line == null || !line.trim().equalsIgnoreCase(ORDERS_CSV_HEADER)) {
-                    System.err.println("Warning: orders.csv header mismatch or file empty. Expected: " + ORDERS_CSV_HEADER);
+                    AppLog.warn("Warning: orders.csv header mismatch or file empty. Expected: " + ORDERS_CSV_HEADER);
                 } else {
                     while ((line = br.readLine()) != null) {
                         if (line.trim().isEmpty() || line.startsWith("#")) continue;
                         String[] parts = line.split(",(?=(?:[^\"]*\"[^\"]*\")*[^\"]*$)", -1);
                         if (parts.length < 5) {
-                            System.err.println("Skipping invalid line in orders.csv (not enough parts): " + line);
+                            AppLog.warn("Skipping invalid line in orders.csv (not enough parts): " + line);
                             continue;
                         }
                         try {
                             String orderID = Order.unescapeCsv(parts[0]);
                             String supplierID = Order.unescapeCsv(parts[1]);
-                            Date orderDate = Order.parseIsoDateString(Order.unescapeCsv(parts[2]));
+                            long orderDate = Timestamps.parseIso(Order.unescapeCsv(parts[2]).trim());
                             String status = Order.unescapeCsv(parts[3]);
                             double totalCost = Double.parseDouble(Order.unescapeCsv(parts[4]));
 
-                            if (orderDate == null) {
-                                System.err.println("Skipping order due to invalid date in orders.csv: " + line);
+                            if (orderDate == Timestamps.INVALID) {
+                                AppLog.warn("Skipping order due to invalid date in orders.csv: " + line);
                                 continue;
                             }
 
@@ -92,30 +214,30 @@ public class OrderManager {
                             supplierManager.findSupplierById(supplierID).ifPresent(order::setSupplier);
                             loadedOrdersMap.put(orderID, order);
                         } catch (NumberFormatException e) {
-                            System.err.println("Error parsing numeric value from orders.csv line: " + line + " - " + e.getMessage());
+                            AppLog.error("Error parsing numeric value from orders.csv line: " + line + " - " + e.getMessage());
                         } catch (Exception e) {
-                            System.err.println("Error processing line from orders.csv: " + line + " - " + e.getMessage());
+                            AppLog.error("Error processing line from orders.csv: " + line + " - " + e.getMessage());
                         }
                     }
                 }
             } catch (IOException e) {
-                System.err.println("Error loading from " + DEFAULT_ORDERS_FILE_PATH + ": " + e.getMessage());
+                AppLog.error("Error loading from " + DEFAULT_ORDERS_FILE_PATH + ": " + e.getMessage());
             }
         } else {
-            System.out.println(DEFAULT_ORDERS_FILE_PATH + " not found. No purchase orders loaded.");
+            AppLog.info(DEFAULT_ORDERS_FILE_PATH + " not found. No purchase orders loaded.");
         }
 
         if (orderItemsFile.exists() && !loadedOrdersMap.isEmpty()) {
             try (BufferedReader br = new BufferedReader(new FileReader(orderItemsFile))) {
                 String line = br.readLine();
                 if (line == null || !line.trim().equalsIgnoreCase(ORDER_ITEMS_CSV_HEADER)) {
-                    System.err.println("Warning: order_items.csv header mismatch or file empty. Expected: " + ORDER_ITEMS_CSV_HEADER);
+                    AppLog.warn("Warning: order_items.csv header mismatch or file empty. Expected: " + ORDER_ITEMS_CSV_HEADER);
                 } else {
                     while ((line = br.readLine()) != null) {
                         if (line.trim().isEmpty() || line.startsWith("#")) continue;
                         String[] parts = line.split(",(?=(?:[^\"]*\"[^\"]*\")*[^\"]*$)", -1);
                         if (parts.length < 6) {
-                            System.err.println("Skipping invalid line in order_items.csv (not enough parts): " + line);
+                            AppLog.warn("Skipping invalid line in order_items.csv (not enough parts): " + line);
                             continue;
                         }
                         try {
@@ -129,34 +251,50 @@ public class OrderManager {
                                     targetOrder.addLoadedOrderItem(orderItem);
                                 }
                             } else {
-                                System.err.println("Warning: OrderItem found for non-existent OrderID " + orderID + " in order_items.csv: " + line);
+                                AppLog.warn("Warning: OrderItem found for non-existent OrderID " + orderID + " in order_items.csv: " + line);
                             }
                         } catch (Exception e) {
-                            System.err.println("Error processing line from order_items.csv: " + line + " - " + e.getMessage());
+                            AppLog.error("Error processing line from order_items.csv: " + line + " - " + e.getMessage());
                         }
                     }
                 }
             } catch (IOException e) {
-                System.err.println("Error loading from " + DEFAULT_ORDER_ITEMS_FILE_PATH + ": " + e.getMessage());
+                AppLog.error("Error loading from " + DEFAULT_ORDER_ITEMS_FILE_PATH + ": " + e.getMessage());
             }
         } else if (!loadedOrdersMap.isEmpty()) {
-            System.out.println(DEFAULT_ORDER_ITEMS_FILE_PATH + " not found, but orders were loaded. Order items might be missing.");
+            AppLog.info(DEFAULT_ORDER_ITEMS_FILE_PATH + " not found, but orders were loaded. Order items might be missing.");
         }
 
         this.ordersList.clear();
+        this.ordersById.clear();
+        this.ordersByStatus.clear();
+        this.onOrderBySku.clear();
         for (Order order : loadedOrdersMap.values()) {
             order.calculateTotalCost();
-            this.ordersList.add(order);
+            addToIndexes(order);
+            IdGenerator.PURCHASE_ORDERS.observe(order.getOrderID());
         }
-        System.out.println(this.ordersList.size() + " purchase orders processed and loaded.");
+        AppLog.info(this.ordersList.size() + " purchase orders processed and loaded.");
     }
 
     public void saveOrdersToFile() {
+        long startNanos = System.nanoTime();
+        AppEvents.FileIoEvent event = new AppEvents.FileIoEvent("save", "orders");
+        event.begin();
+        try {
+            doSaveOrdersToFile();
+        } finally {
+            MetricsRegistry.histogram("file.save.orders").recordSince(startNanos);
+            event.finish(ordersList.size(), DEFAULT_ORDERS_FILE_PATH, DEFAULT_ORDER_ITEMS_FILE_PATH);
+        }
+    }
+
+    private void doSaveOrdersToFile() {
         File ordersFile = new File(DEFAULT_ORDERS_FILE_PATH); // e.g., "data/orders.csv"
         File parentDir = ordersFile.getParentFile(); // This will be "data"
         if (parentDir != null && !parentDir.exists()) {
             if (!parentDir.mkdirs()) {
-                System.err.println("Could not create directory: " + parentDir.getPath());
+                AppLog.warn("Could not create directory: " + parentDir.getPath());
                 return; // Stop if directory creation fails
             }
         }
@@ -167,65 +305,234 @@ public class OrderManager {
             for (Order order : this.ordersList) {
                 ordersOut.println(order.toOrderCsvString());
             }
-            System.out.println(this.ordersList.size() + " purchase orders saved to " + DEFAULT_ORDERS_FILE_PATH);
+            AppLog.info(this.ordersList.size() + " purchase orders saved to " + DEFAULT_ORDERS_FILE_PATH);
         } catch (IOException e) {
-            System.err.println("Error saving to " + DEFAULT_ORDERS_FILE_PATH + ": " + e.getMessage());
+            AppLog.error("Error saving to " + DEFAULT_ORDERS_FILE_PATH + ": " + e.getMessage());
         }
 
         File orderItemsFile = new File(DEFAULT_ORDER_ITEMS_FILE_PATH);
         try (PrintWriter itemsOut = new PrintWriter(new BufferedWriter(new FileWriter(orderItemsFile)))) {
             itemsOut.println(ORDER_ITEMS_CSV_HEADER);
             for (Order order : this.ordersList) {
-                for (OrderItem oi : order.getItems()) {
+                for (OrderItem oi : order.getItemsView()) {
                     itemsOut.println(Order.escapeCsv(order.getOrderID()) + "," + oi.toCsvString());
                 }
             }
-            System.out.println("Purchase order items saved to " + DEFAULT_ORDER_ITEMS_FILE_PATH);
+            AppLog.info("Purchase order items saved to " + DEFAULT_ORDER_ITEMS_FILE_PATH);
         } catch (IOException e) {
-            System.err.println("Error saving to " + DEFAULT_ORDER_ITEMS_FILE_PATH + ": " + e.getMessage());
+            AppLog.error("Error saving to " + DEFAULT_ORDER_ITEMS_FILE_PATH + ": " + e.getMessage());
         }
     }
 
     public boolean receiveOrderItem(Order order, OrderItem itemToReceive, int quantityReceived) {
+        long startNanos = System.nanoTime();
+        AppEvents.OrderItemReceivedEvent event = new AppEvents.OrderItemReceivedEvent();
+        event.begin();
+        boolean success = false;
+        try {
+            success = doReceiveOrderItem(order, itemToReceive, quantityReceived);
+            return success;
+        } finally {
+            MetricsRegistry.histogram("order.receiveItem").recordSince(startNanos);
+            if (!success) MetricsRegistry.counter("order.receiveItem.failures").increment();
+            event.end();
+            if (event.shouldCommit()) {
+                event.orderId = order != null ? order.getOrderID() : null;
+                event.sku = itemToReceive != null ? itemToReceive.getItemSKU() : null;
+                event.quantity = quantityReceived;
+                event.success = success;
+                event.commit();
+            }
+        }
+    }
+
+    private boolean doReceiveOrderItem(Order order, OrderItem itemToReceive, int quantityReceived) {
         if (order == null || itemToReceive == null || quantityReceived <= 0) {
-            System.err.println("Invalid parameters for receiving order item.");
+            AppLog.warn("Invalid parameters for receiving order item.");
             return false;
         }
         if (!order.getStatus().equals(Order.STATUS_PLACED) && !order.getStatus().equals(Order.STATUS_PARTIALLY_RECEIVED)) {
-            System.err.println("Cannot receive items for order " + order.getOrderID() + " with status: " + order.getStatus());
+            AppLog.warn("Cannot receive items for order " + order.getOrderID() + " with status: " + order.getStatus());
             return false;
         }
 
-        int actualQtyRecordedAsReceived = itemToReceive.receiveItems(quantityReceived);
+        // Stock first: if the inventory refuses the change the PO line is left as it was
+        int outstanding = itemToReceive.getOrderedQuantity() - itemToReceive.getReceivedQuantity();
+        int toReceive = Math.min(quantityReceived, outstanding);
+        if (toReceive > 0) {
+            if (inventory.getItem(itemToReceive.getItemSKU()) == null) {
+                AppLog.error("Critical Error: Item SKU " + itemToReceive.getItemSKU() + " from PO not found in inventory during receiving!");
+                return false;
+            }
+            if (!inventory.adjustQuantity(itemToReceive.getItemSKU(), toReceive, "PO " + order.getOrderID())) {
+                AppLog.error("Receiving " + toReceive + " x " + itemToReceive.getItemSKU() + " on PO " + order.getOrderID() +
+                        " rejected by the inventory. Nothing recorded.");
+                return false;
+            }
+        }
 
+        int actualQtyRecordedAsReceived = itemToReceive.receiveItems(quantityReceived);
         if (actualQtyRecordedAsReceived > 0) {
-            Item inventoryItem = inventory.getItem(itemToReceive.getItemSKU());
-            if (inventoryItem != null) {
-                inventoryItem.updateQuantity(actualQtyRecordedAsReceived);
-                System.out.println("Inventory updated for SKU " + itemToReceive.getItemSKU() + ": +" + actualQtyRecordedAsReceived + " units. New stock: " + inventoryItem.getQuantity());
-            } else {
-                System.err.println("Critical Error: Item SKU " + itemToReceive.getItemSKU() + " from PO not found in inventory during receiving!");
-            }
+            addOnOrder(itemToReceive.getItemSKU(), -actualQtyRecordedAsReceived);
+            if (AppLog.isDebugEnabled()) AppLog.debug("Inventory updated for SKU " + itemToReceive.getItemSKU() + ": +" + actualQtyRecordedAsReceived + " units.");
         }
 
         order.updateOrderStatusBasedOnReceipts();
         return actualQtyRecordedAsReceived > 0;
     }
 
+    /**
+     * Applies a whole receiving document in one pass. The document may span several POs.
+     * All lines are validated first; if any line is invalid nothing is applied (all-or-nothing).
+     * Inventory is adjusted once per SKU, each touched PO has its status re-evaluated once,
+     * and a single summary record is logged for the document.
+     * @return true if the document was applied, false if it was rejected.
+     */
+    public boolean receiveOrderItems(List<ReceiptLine> receiptLines) {
+        long startNanos = System.nanoTime();
+        AppEvents.ReceiptProcessedEvent event = new AppEvents.ReceiptProcessedEvent();
+        event.begin();
+        boolean success = false;
+        try {
+            success = doReceiveOrderItems(receiptLines);
+            return success;
+        } finally {
+            MetricsRegistry.histogram("order.receiveDocument").recordSince(startNanos);
+            if (!success) MetricsRegistry.counter("order.receiveDocument.failures").increment();
+            event.end();
+            if (event.shouldCommit()) {
+                Set<String> orderIds = new HashSet<>();
+                if (receiptLines != null) {
+                    for (ReceiptLine line : receiptLines) {
+                        orderIds.add(line.getOrderID());
+                    }
+                }
+                event.lineCount = receiptLines != null ? receiptLines.size() : 0;
+                event.orderCount = orderIds.size();
+                event.success = success;
+                event.commit();
+            }
+        }
+    }
+
+    private boolean doReceiveOrderItems(List<ReceiptLine> receiptLines) {
+        if (receiptLines == null || receiptLines.isEmpty()) {
+            AppLog.warn("Invalid parameters for receiving order items: no receipt lines.");
+            return false;
+        }
+
+        // Pass 1: validate and aggregate quantities per PO line (orderID -> SKU -> qty)
+        Map<String, Map<String, Integer>> requested = new LinkedHashMap<>();
+        List<String> errors = new ArrayList<>();
+        for (ReceiptLine line : receiptLines) {
+            Order order = ordersById.get(line.getOrderID());
+            if (order == null) {
+                errors.add("Order " + line.getOrderID() + " not found.");
+                continue;
+            }
+            if (!isOpenStatus(order.getStatus())) {
+                errors.add("Cannot receive items for order " + order.getOrderID() + " with status: " + order.getStatus());
+                continue;
+            }
+            if (inventory.getItem(line.getItemSKU()) == null) {
+                errors.add("Item SKU " + line.getItemSKU() + " from PO " + order.getOrderID() + " not found in inventory.");
+                continue;
+            }
+            requested.computeIfAbsent(order.getOrderID(), k -> new LinkedHashMap<>())
+                    .merge(line.getItemSKU(), line.getQuantity(), Integer::sum);
+        }
+
+        Map<String, Map<String, List<OrderItem>>> linesByOrder = new HashMap<>();
+        for (Map.Entry<String, Map<String, Integer>> orderEntry : requested.entrySet()) {
+            Map<String, List<OrderItem>> orderLines = new HashMap<>();
+            for (OrderItem oi : ordersById.get(orderEntry.getKey()).getItemsView()) {
+                orderLines.computeIfAbsent(oi.getItemSKU(), k -> new ArrayList<>()).add(oi);
+            }
+            linesByOrder.put(orderEntry.getKey(), orderLines);
+
+            for (Map.Entry<String, Integer> skuEntry : orderEntry.getValue().entrySet()) {
+                List<OrderItem> skuLines = orderLines.get(skuEntry.getKey());
+                if (skuLines == null) {
+                    errors.add("SKU " + skuEntry.getKey() + " is not on order " + orderEntry.getKey() + ".");
+                    continue;
+                }
+                int outstanding = 0;
+                for (OrderItem oi : skuLines) {
+                    outstanding += oi.getOrderedQuantity() - oi.getReceivedQuantity();
+                }
+                if (skuEntry.getValue() > outstanding) {
+                    errors.add("Receiving " + skuEntry.getValue() + " of SKU " + skuEntry.getKey() + " on order " + orderEntry.getKey() +
+                            " exceeds the outstanding quantity (" + outstanding + ").");
+                }
+            }
+        }
+
+        if (!errors.isEmpty()) {
+            AppLog.error("Receiving document rejected (" + errors.size() + " error(s)); nothing was applied:");
+            for (String error : errors) {
+                AppLog.error("  - " + error);
+            }
+            return false;
+        }
+
+        // Pass 2: stock first. The item may have been removed or hit the stock limit since validation;
+        // then the whole document is rejected before any PO line is marked received.
+        Map<String, Integer> inventoryDeltas = new HashMap<>();
+        int totalUnits = 0;
+        for (Map<String, Integer> skuQuantities : requested.values()) {
+            for (Map.Entry<String, Integer> skuEntry : skuQuantities.entrySet()) {
+                inventoryDeltas.merge(skuEntry.getKey(), skuEntry.getValue(), Integer::sum);
+                totalUnits += skuEntry.getValue();
+            }
+        }
+        if (!inventory.adjustQuantities(inventoryDeltas, "RECEIPT " + String.join(" ", requested.keySet()))) {
+            AppLog.error("Receiving document rejected: the inventory refused the stock change " + inventoryDeltas +
+                    " (item removed or stock limit reached). No PO line was marked received.");
+            return false;
+        }
+
+        // Pass 3: record the receipts on the PO lines
+        for (Map.Entry<String, Map<String, Integer>> orderEntry : requested.entrySet()) {
+            Map<String, List<OrderItem>> orderLines = linesByOrder.get(orderEntry.getKey());
+            for (Map.Entry<String, Integer> skuEntry : orderEntry.getValue().entrySet()) {
+                int remaining = skuEntry.getValue();
+                // Fill lines in order when the same SKU appears on more than one line of a PO
+                for (OrderItem oi : orderLines.get(skuEntry.getKey())) {
+                    int take = Math.min(remaining, oi.getOrderedQuantity() - oi.getReceivedQuantity());
+                    if (take > 0) {
+                        oi.recordReceipt(take);
+                        remaining -= take;
+                    }
+                    if (remaining == 0) break;
+                }
+            }
+        }
+        for (Map.Entry<String, Integer> delta : inventoryDeltas.entrySet()) {
+            addOnOrder(delta.getKey(), -delta.getValue());
+        }
+        for (String orderId : requested.keySet()) {
+            ordersById.get(orderId).updateOrderStatusBasedOnReceipts();
+        }
+
+        AppLog.info("Receiving document applied: " + receiptLines.size() + " line(s), " + totalUnits + " unit(s) of " +
+                inventoryDeltas.size() + " SKU(s) across " + requested.size() + " purchase order(s): " + String.join(", ", requested.keySet()));
+        return true;
+    }
+
     public boolean updateOrderStatus(String orderId, String newStatus) {
         Optional<Order> orderOpt = getOrderById(orderId);
         if (orderOpt.isPresent()) {
             Order order = orderOpt.get();
             order.setStatus(newStatus);
-            System.out.println("Order " + orderId + " status updated to " + newStatus);
+            AppLog.info("Order " + orderId + " status updated to " + newStatus);
             return true;
         }
-        System.err.println("Failed to update status: Order " + orderId + " not found.");
+        AppLog.warn("Failed to update status: Order " + orderId + " not found.");
         return false;
     }
 
     public static void main(String[] args) {
-        System.out.println("Testing OrderManager (data in " + DATA_DIRECTORY + ")...");
+        AppLog.info("Testing OrderManager (data in " + DATA_DIRECTORY + ")...");
         Inventory inv = new Inventory();
         if(inv.getItem("LAP001") == null) inv.addItem(new Item("LAP001", "Laptop X", "Electronics", 5, 800.00, "SUP001", "Active"));
         if(inv.getItem("MOU001") == null) inv.addItem(new Item("MOU001", "Wireless Mouse", "Accessory", 20, 15.00, "SUP001", "Active"));
@@ -241,14 +548,14 @@ public class OrderManager {
         OrderManager om = new OrderManager(inv, sm);
 
         if (om.getAllOrders().isEmpty() && testSupplier != null) {
-            System.out.println("No orders loaded. Creating a test PO.");
+            AppLog.info("No orders loaded. Creating a test PO.");
             Order testOrder = om.createNewOrder(testSupplier);
             testOrder.addItem(new OrderItem("LAP001", "Laptop X", 2, 750.00));
             testOrder.addItem(new OrderItem("MOU001", "Wireless Mouse", 10, 10.00));
             testOrder.setStatus(Order.STATUS_PLACED);
             om.saveOrdersToFile();
         } else {
-            System.out.println("Loaded " + om.getAllOrders().size() + " purchase orders.");
+            AppLog.info("Loaded " + om.getAllOrders().size() + " purchase orders.");
         }
 
         Optional<Order> orderToReceiveOpt = om.getAllOrders().stream()
@@ -257,16 +564,16 @@ public class OrderManager {
         if (orderToReceiveOpt.isPresent()) {
             Order order = orderToReceiveOpt.get();
             OrderItem firstItem = order.getItems().get(0);
-            System.out.println("\nAttempting to receive items for Order: " + order.getOrderID() + ", Item: " + firstItem.getItemSKU());
+            AppLog.info("\nAttempting to receive items for Order: " + order.getOrderID() + ", Item: " + firstItem.getItemSKU());
             om.receiveOrderItem(order, firstItem, 1);
-            System.out.println("Order status after partial receive: " + order.getStatus());
+            AppLog.info("Order status after partial receive: " + order.getStatus());
             Item updatedInvItem = inv.getItem(firstItem.getItemSKU());
             if(updatedInvItem != null) {
-                System.out.println("Inventory for " + firstItem.getItemSKU() + ": " + updatedInvItem.getQuantity());
+                AppLog.info("Inventory for " + firstItem.getItemSKU() + ": " + updatedInvItem.getQuantity());
             }
             om.saveOrdersToFile();
             inv.saveItemsToFile(Inventory.DEFAULT_ITEMS_FILE_PATH);
         }
-        System.out.println("\nOrderManager test finished.");
+        AppLog.info("\nOrderManager test finished.");
     }
 }
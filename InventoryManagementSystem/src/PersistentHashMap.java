@@ -0,0 +1,350 @@
+// PersistentHashMap.java
+import java.util.AbstractCollection;
+import java.util.AbstractMap;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.function.BiConsumer;
+
+/**
+ * Immutable hash map implemented as a hash array mapped trie (HAMT).
+ * {@link #assoc} and {@link #without} return a new map that shares every untouched branch with
+ * the old one, so keeping an old version around ("taking a snapshot") costs nothing and a change
+ * copies only the O(log32 n) nodes on the path to the key. A map can be read or iterated from any
+ * thread without locking because it never changes.
+ */
+public final class PersistentHashMap<K, V> implements Iterable<Map.Entry<K, V>> {
+
+    private static final PersistentHashMap<?, ?> EMPTY = new PersistentHashMap<>(null, 0);
+    private static final int BITS = 5;
+    private static final int MASK = (1 << BITS) - 1;
+
+    private final Node root;
+    private final int size;
+
+    private PersistentHashMap(Node root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <K, V> PersistentHashMap<K, V> empty() {
+        return (PersistentHashMap<K, V>) EMPTY;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(Object key) {
+        if (root == null || key == null) return null;
+        Leaf leaf = root.find(0, hash(key), key);
+        return leaf == null ? null : (V) leaf.value;
+    }
+
+    public boolean containsKey(Object key) {
+        return root != null && key != null && root.find(0, hash(key), key) != null;
+    }
+
+    /** Returns a map with key bound to value; this map is unchanged. Null keys and values are not allowed. */
+    public PersistentHashMap<K, V> assoc(K key, V value) {
+        if (key == null || value == null) {
+            throw new IllegalArgumentException("PersistentHashMap does not accept null keys or values.");
+        }
+        boolean[] added = new boolean[1];
+        Node start = (root == null) ? BitmapNode.EMPTY_NODE : root;
+        Node newRoot = start.assoc(0, hash(key), key, value, added);
+        if (newRoot == root) return this;
+        return new PersistentHashMap<>(newRoot, added[0] ? size + 1 : size);
+    }
+
+    /** Returns a map without key; this map is unchanged. */
+    public PersistentHashMap<K, V> without(Object key) {
+        if (root == null || key == null) return this;
+        Node newRoot = root.without(0, hash(key), key);
+        if (newRoot == root) return this;
+        return newRoot == null ? empty() : new PersistentHashMap<>(newRoot, size - 1);
+    }
+
+    @SuppressWarnings("unchecked")
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        for (Map.Entry<K, V> e : this) {
+            action.accept(e.getKey(), e.getValue());
+        }
+    }
+
+    @Override
+    public Iterator<Map.Entry<K, V>> iterator() {
+        return new EntryIterator<>(root);
+    }
+
+    /** Read-only view of the values; iterating it walks the trie directly, nothing is copied. */
+    public Collection<V> values() {
+        return new AbstractCollection<V>() {
+            @Override
+            public Iterator<V> iterator() {
+                Iterator<Map.Entry<K, V>> entries = PersistentHashMap.this.iterator();
+                return new Iterator<V>() {
+                    @Override public boolean hasNext() { return entries.hasNext(); }
+                    @Override public V next() { return entries.next().getValue(); }
+                };
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    private static int hash(Object key) {
+        int h = key.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    // ---- Trie nodes ----
+
+    private static final class Leaf {
+        final int hash;
+        final Object key;
+        final Object value;
+
+        Leaf(int hash, Object key, Object value) {
+            this.hash = hash;
+            this.key = key;
+            this.value = value;
+        }
+    }
+
+    private abstract static class Node {
+        abstract Leaf find(int shift, int hash, Object key);
+        abstract Node assoc(int shift, int hash, Object key, Object value, boolean[] added);
+        /** @return this if the key is absent, null if the node became empty. */
+        abstract Node without(int shift, int hash, Object key);
+        /** Children (Leaf or Node) for iteration. */
+        abstract Object[] children();
+    }
+
+    /** Up to 32 children, one per 5-bit slice of the hash; the bitmap says which slots are present. */
+    private static final class BitmapNode extends Node {
+        static final BitmapNode EMPTY_NODE = new BitmapNode(0, new Object[0]);
+
+        final int bitmap;
+        final Object[] array; // Leaf or Node, in bit order
+
+        BitmapNode(int bitmap, Object[] array) {
+            this.bitmap = bitmap;
+            this.array = array;
+        }
+
+        private int index(int bit) {
+            return Integer.bitCount(bitmap & (bit - 1));
+        }
+
+        @Override
+        Leaf find(int shift, int hash, Object key) {
+            int bit = 1 << ((hash >>> shift) & MASK);
+            if ((bitmap & bit) == 0) return null;
+            Object child = array[index(bit)];
+            if (child instanceof Leaf) {
+                Leaf leaf = (Leaf) child;
+                return (leaf.hash == hash && leaf.key.equals(key)) ? leaf : null;
+            }
+            return ((Node) child).find(shift + BITS, hash, key);
+        }
+
+        @Override
+        Node assoc(int shift, int hash, Object key, Object value, boolean[] added) {
+            int bit = 1 << ((hash >>> shift) & MASK);
+            int idx = index(bit);
+            if ((bitmap & bit) == 0) {
+                Object[] newArray = new Object[array.length + 1];
+                System.arraycopy(array, 0, newArray, 0, idx);
+                newArray[idx] = new Leaf(hash, key, value);
+                System.arraycopy(array, idx, newArray, idx + 1, array.length - idx);
+                added[0] = true;
+                return new BitmapNode(bitmap | bit, newArray);
+            }
+            Object child = array[idx];
+            Object newChild;
+            if (child instanceof Leaf) {
+                Leaf leaf = (Leaf) child;
+                if (leaf.hash == hash && leaf.key.equals(key)) {
+                    if (leaf.value == value) return this;
+                    newChild = new Leaf(hash, key, value);
+                } else {
+                    added[0] = true;
+                    newChild = merge(shift + BITS, leaf, new Leaf(hash, key, value));
+                }
+            } else {
+                newChild = ((Node) child).assoc(shift + BITS, hash, key, value, added);
+                if (newChild == child) return this;
+            }
+            Object[] newArray = array.clone();
+            newArray[idx] = newChild;
+            return new BitmapNode(bitmap, newArray);
+        }
+
+        @Override
+        Node without(int shift, int hash, Object key) {
+            int bit = 1 << ((hash >>> shift) & MASK);
+            if ((bitmap & bit) == 0) return this;
+            int idx = index(bit);
+            Object child = array[idx];
+            if (child instanceof Leaf) {
+                Leaf leaf = (Leaf) child;
+                if (leaf.hash != hash || !leaf.key.equals(key)) return this;
+                return removeSlot(bit, idx);
+            }
+            Node newChild = ((Node) child).without(shift + BITS, hash, key);
+            if (newChild == child) return this;
+            if (newChild == null) return removeSlot(bit, idx);
+            Object[] newArray = array.clone();
+            newArray[idx] = newChild;
+            return new BitmapNode(bitmap, newArray);
+        }
+
+        private Node removeSlot(int bit, int idx) {
+            if (bitmap == bit) return null;
+            Object[] newArray = new Object[array.length - 1];
+            System.arraycopy(array, 0, newArray, 0, idx);
+            System.arraycopy(array, idx + 1, newArray, idx, array.length - idx - 1);
+            return new BitmapNode(bitmap & ~bit, newArray);
+        }
+
+        @Override
+        Object[] children() {
+            return array;
+        }
+
+        private static Node merge(int shift, Leaf a, Leaf b) {
+            if (a.hash == b.hash) {
+                return new CollisionNode(a.hash, new Leaf[]{a, b});
+            }
+            boolean[] ignored = new boolean[1];
+            return EMPTY_NODE.assoc(shift, a.hash, a.key, a.value, ignored)
+                    .assoc(shift, b.hash, b.key, b.value, ignored);
+        }
+    }
+
+    /** Keys whose full 32-bit hashes are equal. */
+    private static final class CollisionNode extends Node {
+        final int hash;
+        final Leaf[] leaves;
+
+        CollisionNode(int hash, Leaf[] leaves) {
+            this.hash = hash;
+            this.leaves = leaves;
+        }
+
+        private int indexOf(Object key) {
+            for (int i = 0; i < leaves.length; i++) {
+                if (leaves[i].key.equals(key)) return i;
+            }
+            return -1;
+        }
+
+        @Override
+        Leaf find(int shift, int hash, Object key) {
+            if (hash != this.hash) return null;
+            int i = indexOf(key);
+            return i < 0 ? null : leaves[i];
+        }
+
+        @Override
+        Node assoc(int shift, int hash, Object key, Object value, boolean[] added) {
+            if (hash != this.hash) {
+                // Push this node one level down next to the new key
+                BitmapNode wrapper = new BitmapNode(1 << ((this.hash >>> shift) & MASK), new Object[]{this});
+                return wrapper.assoc(shift, hash, key, value, added);
+            }
+            int i = indexOf(key);
+            Leaf[] newLeaves;
+            if (i >= 0) {
+                if (leaves[i].value == value) return this;
+                newLeaves = leaves.clone();
+                newLeaves[i] = new Leaf(hash, key, value);
+            } else {
+                newLeaves = new Leaf[leaves.length + 1];
+                System.arraycopy(leaves, 0, newLeaves, 0, leaves.length);
+                newLeaves[leaves.length] = new Leaf(hash, key, value);
+                added[0] = true;
+            }
+            return new CollisionNode(hash, newLeaves);
+        }
+
+        @Override
+        Node without(int shift, int hash, Object key) {
+            if (hash != this.hash) return this;
+            int i = indexOf(key);
+            if (i < 0) return this;
+            if (leaves.length == 1) return null;
+            Leaf[] newLeaves = new Leaf[leaves.length - 1];
+            System.arraycopy(leaves, 0, newLeaves, 0, i);
+            System.arraycopy(leaves, i + 1, newLeaves, i, leaves.length - i - 1);
+            return new CollisionNode(hash, newLeaves);
+        }
+
+        @Override
+        Object[] children() {
+            return leaves;
+        }
+    }
+
+    // Depth-first walk with an explicit stack of (children, next index) frames
+    private static final class EntryIterator<K, V> implements Iterator<Map.Entry<K, V>> {
+        private final Deque<Object[]> arrays = new ArrayDeque<>();
+        private final Deque<int[]> positions = new ArrayDeque<>();
+        private Leaf next;
+
+        EntryIterator(Node root) {
+            if (root != null) {
+                arrays.push(root.children());
+                positions.push(new int[]{0});
+            }
+            advance();
+        }
+
+        private void advance() {
+            next = null;
+            while (!arrays.isEmpty()) {
+                Object[] array = arrays.peek();
+                int[] pos = positions.peek();
+                if (pos[0] >= array.length) {
+                    arrays.pop();
+                    positions.pop();
+                    continue;
+                }
+                Object child = array[pos[0]++];
+                if (child instanceof Leaf) {
+                    next = (Leaf) child;
+                    return;
+                }
+                arrays.push(((Node) child).children());
+                positions.push(new int[]{0});
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public Map.Entry<K, V> next() {
+            if (next == null) throw new NoSuchElementException();
+            Leaf leaf = next;
+            advance();
+            return new AbstractMap.SimpleImmutableEntry<>((K) leaf.key, (V) leaf.value);
+        }
+    }
+}
@@ -0,0 +1,361 @@
+// PosLoadTest.java
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Load-test driver that simulates several POS terminals ringing up sales at the same time:
+ * createNewSale -> reserveStock/addItemToSale per line -> finalizeSale, the same calls MakeSaleWindow makes.
+ * Each terminal runs on its own virtual thread when the JVM has them (Java 21+), otherwise on a platform thread.
+ *
+ * In-process mode (default) seeds a fresh in-memory Inventory/SalesManager (no files are read or written)
+ * and calls the managers concurrently, relying on their own thread safety. --locked wraps every call in one
+ * global lock instead, as a serialized baseline to compare throughput and consistency against.
+ * With --server URL the terminals go through RemoteInventory/RemoteSalesManager against a running InventoryServer
+ * and use the SKUs it already has, logged in as --user/--password (default admin/admin).
+ *
+ * At the end it prints throughput, latency percentiles (whole sale and finalize) and checks every SKU:
+ * final stock must equal initial stock minus what the terminals sold, and must not be negative (oversell).
+ * Sale IDs handed out to the terminals must be unique.
+ *
+ * Usage: java PosLoadTest [--terminals 8] [--duration 10] [--warmup 2] [--basket 1-5] [--max-qty 3]
+ *                         [--skus 200] [--stock 100000] [--skew 1.0] [--think 0] [--locked] [--server URL]
+ *                         [--user admin] [--password admin]
+ *   --skew   Zipf exponent for picking SKUs: 0 = uniform, 1 = a few best sellers get most of the traffic
+ *   --think  mean think time between sales in ms (exponentially distributed), per terminal
+ */
+public class PosLoadTest {
+
+    private int terminals = 8;
+    private int durationSeconds = 10;
+    private int warmupSeconds = 2;
+    private int minBasket = 1, maxBasket = 5;
+    private int maxQuantityPerLine = 3;
+    private int skuCount = 200;
+    private int initialStock = 100_000;
+    private double skew = 1.0;
+    private long meanThinkMillis = 0;
+    private boolean globalLock = false;
+    private String serverUrl = null;
+    private String serverUser = "admin";
+    private String serverPassword = "admin";
+
+    private Inventory inventory;
+    private SalesManager salesManager;
+    private ReentrantLock managerLock; // Only with --locked (in-process baseline)
+    private String[] skus;
+    private double[] cumulativeWeights; // Zipf CDF over skus
+    private final Map<String, Integer> stockBefore = new LinkedHashMap<>();
+    private final Map<String, LongAdder> soldBySku = new ConcurrentHashMap<>();
+    private final Set<String> saleIds = ConcurrentHashMap.newKeySet();
+
+    private final MetricsRegistry.LatencyHistogram saleLatency = MetricsRegistry.histogram("loadtest.sale");
+    private final MetricsRegistry.LatencyHistogram finalizeLatency = MetricsRegistry.histogram("loadtest.finalize");
+    private final LongAdder completedSales = new LongAdder();   // Counted during the measured window only
+    private final LongAdder failedFinalizes = new LongAdder();
+    private final LongAdder abandonedSales = new LongAdder();   // Every line was out of stock
+    private final LongAdder stockOuts = new LongAdder();        // Lines dropped because reserveStock said no
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder duplicateSaleIds = new LongAdder(); // Two open sales sharing an ID also share reservations
+    private final LongAdder totalCompleted = new LongAdder();   // Including warmup, for the consistency check
+
+    public static void main(String[] args) throws Exception {
+        PosLoadTest test = new PosLoadTest();
+        test.parseArgs(args);
+        if (System.getProperty(AppLog.LEVEL_PROPERTY) == null) {
+            AppLog.setLevel(AppLog.Level.WARN); // Per-sale INFO lines would only measure the console
+        }
+        test.setUp();
+        test.run();
+        AppLog.flush();
+        boolean consistent = test.report();
+        System.exit(consistent ? 0 : 1);
+    }
+
+    private void parseArgs(String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            boolean hasValue = i + 1 < args.length;
+            if ("--terminals".equals(arg) && hasValue) {
+                terminals = Integer.parseInt(args[++i]);
+            } else if ("--duration".equals(arg) && hasValue) {
+                durationSeconds = Integer.parseInt(args[++i]);
+            } else if ("--warmup".equals(arg) && hasValue) {
+                warmupSeconds = Integer.parseInt(args[++i]);
+            } else if ("--basket".equals(arg) && hasValue) {
+                String[] range = args[++i].split("-");
+                minBasket = Integer.parseInt(range[0]);
+                maxBasket = range.length > 1 ? Integer.parseInt(range[1]) : minBasket;
+            } else if ("--max-qty".equals(arg) && hasValue) {
+                maxQuantityPerLine = Integer.parseInt(args[++i]);
+            } else if ("--skus".equals(arg) && hasValue) {
+                skuCount = Integer.parseInt(args[++i]);
+            } else if ("--stock".equals(arg) && hasValue) {
+                initialStock = Integer.parseInt(args[++i]);
+            } else if ("--skew".equals(arg) && hasValue) {
+                skew = Double.parseDouble(args[++i]);
+            } else if ("--think".equals(arg) && hasValue) {
+                meanThinkMillis = Long.parseLong(args[++i]);
+            } else if ("--locked".equals(arg)) {
+                globalLock = true;
+            } else if ("--server".equals(arg) && hasValue) {
+                serverUrl = args[++i];
+            } else if ("--user".equals(arg) && hasValue) {
+                serverUser = args[++i];
+            } else if ("--password".equals(arg) && hasValue) {
+                serverPassword = args[++i];
+            } else {
+                throw new IllegalArgumentException("Unknown or incomplete option: " + arg);
+            }
+        }
+        if (terminals < 1 || minBasket < 1 || maxBasket < minBasket || maxQuantityPerLine < 1 || durationSeconds < 1) {
+            throw new IllegalArgumentException("Invalid load-test parameters.");
+        }
+    }
+
+    private void setUp() {
+        if (serverUrl != null) {
+            InventoryClient client = new InventoryClient(serverUrl);
+            try {
+                if (!client.login(serverUser, serverPassword)) {
+                    throw new IllegalStateException("Server at " + serverUrl + " did not issue a session token.");
+                }
+            } catch (IOException e) {
+                throw new IllegalStateException("Login to " + serverUrl + " as " + serverUser + " failed: " + e.getMessage(), e);
+            }
+            inventory = new RemoteInventory(client);
+            salesManager = new RemoteSalesManager(inventory, client);
+            List<String> active = new ArrayList<>();
+            for (Item item : inventory.getAllItems()) {
+                if ("Active".equalsIgnoreCase(item.getStatus()) && item.getQuantity() > 0) {
+                    active.add(item.getSku());
+                }
+            }
+            if (active.isEmpty()) {
+                throw new IllegalStateException("Server at " + serverUrl + " has no active items in stock.");
+            }
+            skus = active.toArray(new String[0]);
+            managerLock = null; // The server does its own locking
+        } else {
+            inventory = new Inventory(false);
+            salesManager = new SalesManager(inventory, false);
+            skus = new String[skuCount];
+            for (int i = 0; i < skuCount; i++) {
+                skus[i] = String.format("LT-%05d", i);
+                inventory.addItem(new Item(skus[i], "Load Test Item " + i, "LoadTest", initialStock,
+                        1.0 + (i % 50), "LTSUP", "Active"));
+            }
+            managerLock = globalLock ? new ReentrantLock() : null;
+        }
+        for (String sku : skus) {
+            stockBefore.put(sku, inventory.getItem(sku).getQuantity());
+            soldBySku.put(sku, new LongAdder());
+        }
+
+        // Zipf weights: the k-th SKU is picked with probability proportional to 1 / (k + 1)^skew
+        cumulativeWeights = new double[skus.length];
+        double sum = 0;
+        for (int k = 0; k < skus.length; k++) {
+            sum += 1.0 / Math.pow(k + 1, skew);
+            cumulativeWeights[k] = sum;
+        }
+        for (int k = 0; k < skus.length; k++) {
+            cumulativeWeights[k] /= sum;
+        }
+    }
+
+    private void run() throws Exception {
+        saleLatency.reset();
+        finalizeLatency.reset();
+        System.out.printf(Locale.US, "PosLoadTest: %d terminals, %ds (+%ds warmup), basket %d-%d, %d SKUs, skew %.2f, think %dms, %s%n",
+                terminals, durationSeconds, warmupSeconds, minBasket, maxBasket, skus.length, skew, meanThinkMillis,
+                serverUrl != null ? "server " + serverUrl : (managerLock != null ? "in-process (global lock baseline)" : "in-process"));
+
+        long start = System.nanoTime();
+        long measureFrom = start + warmupSeconds * 1_000_000_000L;
+        long deadline = measureFrom + durationSeconds * 1_000_000_000L;
+        ExecutorService executor = newTerminalExecutor();
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < terminals; t++) {
+            futures.add(executor.submit(() -> runTerminal(measureFrom, deadline)));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+    }
+
+    private void runTerminal(long measureFrom, long deadline) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        while (System.nanoTime() < deadline) {
+            if (meanThinkMillis > 0) {
+                long think = (long) (-Math.log(1.0 - random.nextDouble()) * meanThinkMillis);
+                try {
+                    Thread.sleep(think);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+            try {
+                ringUpSale(random, System.nanoTime() >= measureFrom);
+            } catch (RuntimeException e) {
+                errors.increment();
+                AppLog.error("PosLoadTest: terminal error: " + e, e);
+            }
+        }
+    }
+
+    private void ringUpSale(ThreadLocalRandom random, boolean measured) {
+        long saleStart = System.nanoTime();
+        Sale sale = locked(() -> salesManager.createNewSale());
+        if (!saleIds.add(sale.getSaleID())) {
+            duplicateSaleIds.increment();
+        }
+
+        Map<String, Integer> basket = new LinkedHashMap<>();
+        int lines = minBasket + random.nextInt(maxBasket - minBasket + 1);
+        for (int i = 0; i < lines; i++) {
+            String sku = pickSku(random);
+            int total = basket.getOrDefault(sku, 0) + 1 + random.nextInt(maxQuantityPerLine);
+            if (locked(() -> salesManager.reserveStock(sale, sku, total))) {
+                basket.put(sku, total);
+            } else if (measured) {
+                stockOuts.increment();
+            }
+        }
+        if (basket.isEmpty()) {
+            lockedRun(() -> salesManager.cancelSale(sale));
+            if (measured) abandonedSales.increment();
+            return;
+        }
+        for (Map.Entry<String, Integer> line : basket.entrySet()) {
+            Item item = locked(() -> inventory.getItem(line.getKey()));
+            sale.addItemToSale(item, line.getValue(), item.getPrice());
+        }
+
+        long finalizeStart = System.nanoTime();
+        boolean finalized = locked(() -> salesManager.finalizeSale(sale));
+        long end = System.nanoTime();
+        if (finalized) {
+            totalCompleted.increment();
+            for (Map.Entry<String, Integer> line : basket.entrySet()) {
+                soldBySku.get(line.getKey()).add(line.getValue());
+            }
+        } else {
+            lockedRun(() -> salesManager.releaseAllReservations(sale));
+        }
+        if (!measured) return;
+        if (finalized) {
+            completedSales.increment();
+            saleLatency.recordNanos(end - saleStart);
+            finalizeLatency.recordNanos(end - finalizeStart);
+        } else {
+            failedFinalizes.increment();
+        }
+    }
+
+    private String pickSku(ThreadLocalRandom random) {
+        double u = random.nextDouble();
+        int low = 0, high = cumulativeWeights.length - 1;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (cumulativeWeights[mid] < u) low = mid + 1; else high = mid;
+        }
+        return skus[low];
+    }
+
+    private <T> T locked(Supplier<T> call) {
+        if (managerLock == null) return call.get();
+        managerLock.lock();
+        try {
+            return call.get();
+        } finally {
+            managerLock.unlock();
+        }
+    }
+
+    private void lockedRun(Runnable call) {
+        locked(() -> {
+            call.run();
+            return null;
+        });
+    }
+
+    /** Prints the results and returns true if no consistency violations were found. */
+    private boolean report() {
+        long completed = completedSales.sum();
+        System.out.println();
+        System.out.println("--- Throughput ---");
+        System.out.printf(Locale.US, "Completed sales: %d (%.1f sales/s)%n", completed, completed / (double) durationSeconds);
+        System.out.printf("Failed finalizes: %d, abandoned (all lines out of stock): %d, out-of-stock lines: %d, errors: %d%n",
+                failedFinalizes.sum(), abandonedSales.sum(), stockOuts.sum(), errors.sum());
+
+        System.out.println("--- Latency (ms) ---");
+        printLatency("whole sale", saleLatency);
+        printLatency("finalize", finalizeLatency);
+
+        System.out.println("--- Consistency ---");
+        int oversold = 0, mismatched = 0;
+        for (String sku : skus) {
+            Item item = inventory.getItem(sku);
+            int after = item == null ? 0 : item.getQuantity();
+            long expected = stockBefore.get(sku) - soldBySku.get(sku).sum();
+            if (after < 0) {
+                oversold++;
+                System.out.println("OVERSOLD: SKU " + sku + " stock is " + after);
+            }
+            if (after != expected) {
+                mismatched++;
+                if (mismatched <= 20) {
+                    System.out.println("MISMATCH: SKU " + sku + " stock is " + after + ", expected " + expected);
+                }
+            }
+        }
+        if (serverUrl == null) {
+            long completedInManager = 0;
+            for (Sale sale : salesManager.getAllSalesView()) {
+                if (Sale.STATUS_COMPLETED.equals(sale.getStatus())) completedInManager++;
+            }
+            if (completedInManager != totalCompleted.sum()) {
+                mismatched++;
+                System.out.println("MISMATCH: SalesManager has " + completedInManager + " completed sales, terminals finalized " + totalCompleted.sum());
+            }
+        } else if (mismatched > 0) {
+            System.out.println("(Other clients selling on the same server also show up as mismatches.)");
+        }
+        long duplicates = duplicateSaleIds.sum();
+        System.out.println("Oversold SKUs: " + oversold + ", stock/sales mismatches: " + mismatched + ", duplicate sale IDs: " + duplicates);
+        boolean consistent = oversold == 0 && mismatched == 0 && duplicates == 0;
+        System.out.println(consistent ? "Consistency: OK" : "Consistency: VIOLATIONS FOUND");
+        return consistent;
+    }
+
+    private static void printLatency(String label, MetricsRegistry.LatencyHistogram h) {
+        System.out.printf(Locale.US, "%-11s n=%d mean=%.3f p50=%.3f p90=%.3f p99=%.3f p99.9=%.3f max=%.3f%n",
+                label + ":", h.getCount(), h.getMeanMillis(), h.getP50Millis(), h.getP90Millis(),
+                h.getP99Millis(), h.getP999Millis(), h.getMaxMillis());
+    }
+
+    /** One virtual thread per terminal when available; looked up reflectively like InventoryServer does. */
+    private ExecutorService newTerminalExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newFixedThreadPool(terminals);
+        }
+    }
+}
@@ -0,0 +1,37 @@
+// ReceiptLine.java
+
+/**
+ * One line of a receiving document: a quantity of a SKU received against a purchase order.
+ * A single document may reference several POs (e.g. a multi-PO shipment); see
+ * {@link OrderManager#receiveOrderItems(java.util.List)}.
+ */
+public class ReceiptLine {
+    private String orderID;
+    private String itemSKU;
+    private int quantity;
+
+    public ReceiptLine(String orderID, String itemSKU, int quantity) {
+        if (orderID == null || orderID.trim().isEmpty()) {
+            throw new IllegalArgumentException("Order ID cannot be empty for a receipt line.");
+        }
+        if (itemSKU == null || itemSKU.trim().isEmpty()) {
+            throw new IllegalArgumentException("Item SKU cannot be empty for a receipt line.");
+        }
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("Received quantity must be positive for SKU: " + itemSKU);
+        }
+        this.orderID = orderID;
+        this.itemSKU = itemSKU;
+        this.quantity = quantity;
+    }
+
+    // Getters
+    public String getOrderID() { return orderID; }
+    public String getItemSKU() { return itemSKU; }
+    public int getQuantity() { return quantity; }
+
+    @Override
+    public String toString() {
+        return orderID + " / " + itemSKU + " x" + quantity;
+    }
+}
@@ -0,0 +1,184 @@
+// RemoteInventory.java
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Inventory backed by an {@link InventoryServer}; used by the Swing app in thin-client (--client) mode.
+ * Every call goes to the server, so all terminals see the same stock. Errors are logged and reported
+ * the same way the local Inventory reports them (null / false / empty list).
+ */
+public class RemoteInventory extends Inventory {
+    private final InventoryClient client;
+    private long snapshotVersion = 0;
+
+    public RemoteInventory(InventoryClient client) {
+        super(false);
+        this.client = client;
+    }
+
+    @Override
+    public void loadItemsFromFile(String filePath) {
+        // Items are loaded by the server
+    }
+
+    @Override
+    public void saveItemsToFile(String filePath) {
+        AppLog.info("Client mode: items are saved by the server at " + client.getBaseUrl());
+    }
+
+    @Override
+    public void addItem(Item item) {
+        if (item == null || item.getSku() == null || item.getSku().isEmpty()) {
+            AppLog.warn("Error: Item or SKU cannot be null or empty. Item not added.");
+            return;
+        }
+        try {
+            client.post("items", itemToJson(item));
+            AppLog.info("Item " + item.getName() + " (SKU: " + item.getSku() + ") added to inventory on server.");
+        } catch (IOException e) {
+            AppLog.warn("RemoteInventory: could not add item " + item.getSku() + ": " + e.getMessage());
+        }
+    }
+
+    @Override
+    public boolean removeItem(String sku) {
+        if (sku == null || sku.isEmpty()) return false;
+        try {
+            Object result = client.delete("items/" + InventoryClient.encode(sku));
+            return result instanceof Map && Boolean.TRUE.equals(((Map<?, ?>) result).get("ok"));
+        } catch (IOException e) {
+            AppLog.warn("RemoteInventory: could not remove item " + sku + ": " + e.getMessage());
+            return false;
+        }
+    }
+
+    @Override
+    public boolean updateItemDetails(String sku, long expectedVersion, String name, String category, double price, String supplier, String status) {
+        if (sku == null || sku.isEmpty()) return false;
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("sku", sku);
+        body.put("version", expectedVersion);
+        body.put("name", name);
+        body.put("category", category);
+        body.put("price", price);
+        body.put("supplier", supplier);
+        body.put("status", status);
+        try {
+            client.put("items/" + InventoryClient.encode(sku), body);
+            return true;
+        } catch (IOException e) {
+            AppLog.warn("RemoteInventory: could not update item " + sku + ": " + e.getMessage());
+            return false;
+        }
+    }
+
+    @Override
+    public boolean adjustQuantities(Map<String, Integer> deltas, String source) {
+        if (deltas == null || deltas.isEmpty()) return true;
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("source", source);
+        body.put("deltas", deltas);
+        try {
+            client.post("stock", body);
+            return true;
+        } catch (IOException e) {
+            AppLog.warn("RemoteInventory: stock adjustment rejected (" + source + "): " + e.getMessage());
+            return false;
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Item getItem(String sku) {
+        if (sku == null || sku.isEmpty()) return null;
+        try {
+            Object result = client.get("items/" + InventoryClient.encode(sku));
+            return result instanceof Map ? InventoryServer.itemFromJson((Map<String, Object>) result) : null;
+        } catch (IOException e) {
+            AppLog.warn("RemoteInventory: could not fetch item " + sku + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    @Override
+    public synchronized InventorySnapshot snapshot() {
+        // One request returns the whole list, so the server's view is already consistent
+        PersistentHashMap<String, InventorySnapshot.ItemSnapshot> entries = PersistentHashMap.empty();
+        for (Item item : getAllItems()) {
+            entries = entries.assoc(item.getSku(), new InventorySnapshot.ItemSnapshot(item));
+        }
+        return new InventorySnapshot(++snapshotVersion, entries);
+    }
+
+    @Override
+    public PersistentHashMap<String, Item> itemMap() {
+        PersistentHashMap<String, Item> map = PersistentHashMap.empty();
+        for (Item item : getAllItems()) {
+            map = map.assoc(item.getSku(), item);
+        }
+        return map;
+    }
+
+    @Override
+    public List<Item> getAllItems() {
+        return fetchItems("items");
+    }
+
+    @Override
+    public List<Item> searchItems(String criteria) {
+        if (criteria == null || criteria.trim().isEmpty()) {
+            return getAllItems();
+        }
+        return fetchItems("items?q=" + InventoryClient.encode(criteria));
+    }
+
+    @Override
+    public List<Item> generateLowStockReport(int threshold) {
+        return fetchItems("reports/low-stock?threshold=" + Math.max(0, threshold));
+    }
+
+    @Override
+    public double calculateTotalValue() {
+        try {
+            Object result = client.get("reports/total-value");
+            Object value = result instanceof Map ? ((Map<?, ?>) result).get("totalValue") : null;
+            return value instanceof Number ? ((Number) value).doubleValue() : 0.0;
+        } catch (IOException e) {
+            AppLog.warn("RemoteInventory: could not fetch total inventory value: " + e.getMessage());
+            return 0.0;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Item> fetchItems(String path) {
+        List<Item> items = new ArrayList<>();
+        try {
+            Object result = client.get(path);
+            if (result instanceof List) {
+                for (Object o : (List<?>) result) {
+                    if (o instanceof Map) {
+                        items.add(InventoryServer.itemFromJson((Map<String, Object>) o));
+                    }
+                }
+            }
+        } catch (IOException e) {
+            AppLog.warn("RemoteInventory: could not fetch items (" + path + "): " + e.getMessage());
+        }
+        return items;
+    }
+
+    private static Map<String, Object> itemToJson(Item item) {
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("sku", item.getSku());
+        m.put("name", item.getName());
+        m.put("category", item.getCategory());
+        m.put("quantity", item.getQuantity());
+        m.put("price", item.getPrice());
+        m.put("supplier", item.getSupplier());
+        m.put("status", item.getStatus());
+        return m;
+    }
+}
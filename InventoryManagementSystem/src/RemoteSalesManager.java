@@ -0,0 +1,147 @@
+// RemoteSalesManager.java
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * SalesManager backed by an {@link InventoryServer}; used by MakeSaleWindow in thin-client (--client) mode.
+ * The pending sale is created on the server (so its ID is known there for reservations) and built up locally;
+ * its lines are sent with the finalize request and the server applies the sale against shared stock.
+ */
+public class RemoteSalesManager extends SalesManager {
+    private final InventoryClient client;
+
+    public RemoteSalesManager(Inventory inventory, InventoryClient client) {
+        super(inventory, false);
+        this.client = client;
+    }
+
+    @Override
+    public Sale createNewSale() {
+        try {
+            Object result = client.post("sales", new LinkedHashMap<>());
+            if (result instanceof Map) {
+                String saleId = String.valueOf(((Map<?, ?>) result).get("saleID"));
+                AppLog.info("New sale created on server with ID: " + saleId);
+                return new Sale(saleId, System.currentTimeMillis(), 0.0, Sale.STATUS_PENDING);
+            }
+        } catch (IOException e) {
+            AppLog.warn("RemoteSalesManager: could not create sale on server: " + e.getMessage());
+        }
+        // Still give the window a sale to work with; finalizing it will report the server error
+        return new Sale();
+    }
+
+    @Override
+    public boolean finalizeSale(Sale sale) {
+        if (sale == null) {
+            AppLog.warn("Cannot finalize a null sale.");
+            return false;
+        }
+        List<Object> lines = new ArrayList<>();
+        for (Sale.SaleItem si : sale.getItemsSold()) {
+            Map<String, Object> line = new LinkedHashMap<>();
+            line.put("sku", si.getSku());
+            line.put("quantity", si.getQuantitySold());
+            line.put("price", si.getPriceAtSale());
+            lines.add(line);
+        }
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("lines", lines);
+        try {
+            Object result = client.post("sales/" + InventoryClient.encode(sale.getSaleID()) + "/finalize", body);
+            if (isOk(result)) {
+                sale.setStatus(Sale.STATUS_COMPLETED);
+                AppLog.info("Sale " + sale.getSaleID() + " finalized on server.");
+                return true;
+            }
+            AppLog.warn("RemoteSalesManager: server refused to finalize sale " + sale.getSaleID() + ": " +
+                    (result instanceof Map ? ((Map<?, ?>) result).get("error") : result));
+        } catch (IOException e) {
+            AppLog.warn("RemoteSalesManager: could not finalize sale " + sale.getSaleID() + ": " + e.getMessage());
+        }
+        return false;
+    }
+
+    @Override
+    public boolean reserveStock(Sale sale, String sku, int quantity) {
+        if (sale == null || sku == null || quantity < 0) return false;
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("sku", sku);
+        body.put("quantity", quantity);
+        try {
+            return isOk(client.post("sales/" + InventoryClient.encode(sale.getSaleID()) + "/reservations", body));
+        } catch (IOException e) {
+            AppLog.warn("RemoteSalesManager: could not reserve " + quantity + " of " + sku + ": " + e.getMessage());
+            return false;
+        }
+    }
+
+    @Override
+    public void releaseStock(Sale sale, String sku) {
+        reserveStock(sale, sku, 0);
+    }
+
+    @Override
+    public void releaseAllReservations(Sale sale) {
+        if (sale == null) return;
+        try {
+            client.delete("sales/" + InventoryClient.encode(sale.getSaleID()) + "/reservations");
+        } catch (IOException e) {
+            AppLog.warn("RemoteSalesManager: could not release reservations for sale " + sale.getSaleID() + ": " + e.getMessage());
+        }
+    }
+
+    @Override
+    public boolean cancelSale(Sale sale) {
+        if (sale == null) return false;
+        try {
+            if (isOk(client.post("sales/" + InventoryClient.encode(sale.getSaleID()) + "/cancel", new LinkedHashMap<>()))) {
+                sale.setStatus(Sale.STATUS_CANCELLED);
+                AppLog.info("Sale " + sale.getSaleID() + " cancelled on server.");
+                return true;
+            }
+        } catch (IOException e) {
+            AppLog.warn("RemoteSalesManager: could not cancel sale " + sale.getSaleID() + ": " + e.getMessage());
+        }
+        return false;
+    }
+
+    @Override
+    public int getAvailableQuantity(String sku) {
+        return getAvailableQuantity(sku, null);
+    }
+
+    @Override
+    public int getAvailableQuantity(String sku, Sale sale) {
+        if (sku == null) return 0;
+        String path = "items/" + InventoryClient.encode(sku) + "/availability";
+        if (sale != null) {
+            path += "?saleId=" + InventoryClient.encode(sale.getSaleID());
+        }
+        try {
+            Object result = client.get(path);
+            Object available = result instanceof Map ? ((Map<?, ?>) result).get("available") : null;
+            return available instanceof Number ? ((Number) available).intValue() : 0;
+        } catch (IOException e) {
+            AppLog.warn("RemoteSalesManager: could not fetch availability for " + sku + ": " + e.getMessage());
+            return 0;
+        }
+    }
+
+    @Override
+    public void loadSalesFromFile() {
+        // Sales are loaded by the server
+    }
+
+    @Override
+    public void saveSalesToFile() {
+        // Sales are saved by the server
+    }
+
+    private static boolean isOk(Object result) {
+        return result instanceof Map && Boolean.TRUE.equals(((Map<?, ?>) result).get("ok"));
+    }
+}
@@ -0,0 +1,47 @@
+// RemoteUserManager.java
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * UserManager that authenticates against an {@link InventoryServer}; used in thin-client (--client) mode
+ * so terminals need no local users file.
+ */
+public class RemoteUserManager extends UserManager {
+    private final InventoryClient client;
+
+    public RemoteUserManager(InventoryClient client) {
+        super(false);
+        this.client = client;
+    }
+
+    @Override
+    public Optional<User> authenticateUser(String username, String password) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("username", username);
+        body.put("password", password);
+        try {
+            Object result = client.post("login", body);
+            if (result instanceof Map) {
+                Map<?, ?> user = (Map<?, ?>) result;
+                client.setAuthToken(user.get("token") == null ? null : String.valueOf(user.get("token"))); // Required by every later request
+                // Password hash and salt stay on the server
+                return Optional.of(new User(String.valueOf(user.get("username")), "", "", String.valueOf(user.get("role"))));
+            }
+        } catch (IOException e) {
+            AppLog.warn("RemoteUserManager: login failed for '" + username + "': " + e.getMessage());
+        }
+        return Optional.empty();
+    }
+
+    @Override
+    public void createDefaultAdminUserIfNotExists(boolean saveToFileAfterCreation) {
+        // The server creates the default admin
+    }
+
+    @Override
+    public void saveUsersToFile() {
+        // Users are stored on the server
+    }
+}
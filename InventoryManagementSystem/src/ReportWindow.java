@@ -36,6 +36,7 @@ public class ReportWindow extends JDialog {
     private Inventory inventory;
     private SupplierManager supplierManager;
     private SalesManager salesManager;
+    private OrderManager orderManager; // Optional: supplies on-order quantities for the low stock report
 
     private final String SELECT_REPORT_PROMPT = "-- Select a Report Type --";
     private final String ENHANCED_LOW_STOCK_REPORT = "Low Stock Report (with Supplier)";
@@ -48,11 +49,12 @@ public class ReportWindow extends JDialog {
     // This format takes a number (e.g., 25.0) and appends a '%', outputting "25.00%"
     private static final DecimalFormat PERCENTAGE_FORMAT = new DecimalFormat("0.00'%'", new DecimalFormatSymbols(Locale.US));
 
-    public ReportWindow(Frame owner, Inventory inventory, SupplierManager supplierManager, SalesManager salesManager) {
+    public ReportWindow(Frame owner, Inventory inventory, SupplierManager supplierManager, SalesManager salesManager, OrderManager orderManager) {
         super(owner, "Generate Reports", true);
         this.inventory = inventory;
         this.supplierManager = supplierManager;
         this.salesManager = salesManager;
+        this.orderManager = orderManager;
 
         initComponents();
         layoutComponents();
@@ -171,23 +173,40 @@ public class ReportWindow extends JDialog {
         }
         showNoDataMessage("Generating '" + selectedReport + "', please wait...");
 
+        long startNanos = System.nanoTime();
+        AppEvents.ReportGeneratedEvent event = new AppEvents.ReportGeneratedEvent();
+        event.begin();
+        String metricName = null;
         switch (selectedReport) {
             case SALES_BY_PRODUCT_SUMMARY:
                 generateSalesByProductReport();
+                metricName = "report.salesByProduct";
                 break;
             case SALES_BY_CATEGORY_REPORT:
                 generateSalesByCategoryReport();
+                metricName = "report.salesByCategory";
                 break;
             case ENHANCED_LOW_STOCK_REPORT:
                 generateEnhancedLowStockReport();
+                metricName = "report.lowStock";
                 break;
             case TOTAL_INVENTORY_VALUE_REPORT:
                 generateTotalInventoryValueReport();
+                metricName = "report.totalInventoryValue";
                 break;
             default:
                 showNoDataMessage("Selected report type '" + selectedReport + "' is not yet implemented.");
                 break;
         }
+        if (metricName != null) {
+            MetricsRegistry.histogram(metricName).recordSince(startNanos);
+            event.end();
+            if (event.shouldCommit()) {
+                event.report = metricName;
+                event.rows = reportTableModel.getRowCount();
+                event.commit();
+            }
+        }
     }
 
     private static class ProductSalesReportEntry {
@@ -243,7 +262,8 @@ public class ReportWindow extends JDialog {
             return;
         }
 
-        List<Sale> completedSales = salesManager.getCompletedSalesByDateRange(startDate, endDate);
+        // Read a pinned snapshot (plus any archived months in range) so sales finalized while the report runs do not affect it
+        List<SalesSnapshot.SaleSnapshot> completedSales = salesManager.getCompletedSaleSnapshots(startDate, endDate);
         if (completedSales.isEmpty()) {
             showNoDataMessage("No completed sales found in the selected date range: " + startDate + " to " + endDate + ".");
             return;
@@ -251,9 +271,9 @@ public class ReportWindow extends JDialog {
 
         Map<String, ProductSalesReportEntry> productSalesData = new HashMap<>();
         double grandTotalRevenue = 0.0;
-        for (Sale sale : completedSales) {
+        for (SalesSnapshot.SaleSnapshot sale : completedSales) {
             grandTotalRevenue += sale.getTotalAmount();
-            for (Sale.SaleItem item : sale.getItemsSold()) {
+            for (SalesSnapshot.LineSnapshot item : sale.getItemsSold()) {
                 productSalesData.computeIfAbsent(item.getSku(), sku -> new ProductSalesReportEntry(sku, item.getItemName()))
                         .addSale(item.getQuantitySold(), item.getSubtotal());
             }
@@ -315,7 +335,9 @@ public class ReportWindow extends JDialog {
             return;
         }
 
-        List<Sale> completedSales = salesManager.getCompletedSalesByDateRange(startDate, endDate);
+        // Pin one snapshot of sales and one of the inventory for the whole report
+        List<SalesSnapshot.SaleSnapshot> completedSales = salesManager.getCompletedSaleSnapshots(startDate, endDate);
+        InventorySnapshot inventorySnapshot = inventory.snapshot();
         if (completedSales.isEmpty()) {
             showNoDataMessage("No completed sales found in the selected date range: " + startDate + " to " + endDate + ".");
             return;
@@ -325,11 +347,11 @@ public class ReportWindow extends JDialog {
         double grandTotalRevenue = 0.0;
         int grandTotalQuantity = 0;
 
-        for (Sale sale : completedSales) {
+        for (SalesSnapshot.SaleSnapshot sale : completedSales) {
             grandTotalRevenue += sale.getTotalAmount();
-            for (Sale.SaleItem saleItem : sale.getItemsSold()) {
+            for (SalesSnapshot.LineSnapshot saleItem : sale.getItemsSold()) {
                 grandTotalQuantity += saleItem.getQuantitySold();
-                Item itemDetails = inventory.getItem(saleItem.getSku());
+                InventorySnapshot.ItemSnapshot itemDetails = inventorySnapshot.getItem(saleItem.getSku());
                 String category = "Unknown Category";
                 if (itemDetails != null && itemDetails.getCategory() != null && !itemDetails.getCategory().isEmpty()) {
                     category = itemDetails.getCategory();
@@ -387,14 +409,14 @@ public class ReportWindow extends JDialog {
                 return;
             }
 
-            List<Item> lowStockItems = inventory.generateLowStockReport(threshold);
-            String[] columnNames = {"SKU", "Name", "Category", "Quantity", "Price ($)", "Supplier ID", "Supplier Name", "Status"};
+            List<InventorySnapshot.ItemSnapshot> lowStockItems = inventory.snapshot().generateLowStockReport(threshold);
+            String[] columnNames = {"SKU", "Name", "Category", "Quantity", "On Order", "Price ($)", "Supplier ID", "Supplier Name", "Status"};
             prepareTableForReport(columnNames);
 
             if (lowStockItems.isEmpty()) {
                 showNoDataMessage("No items are currently below the threshold of " + threshold + ".");
             } else {
-                for (Item item : lowStockItems) {
+                for (InventorySnapshot.ItemSnapshot item : lowStockItems) {
                     String supplierId = item.getSupplier() != null ? item.getSupplier() : "N/A";
                     String supplierName = "N/A";
                     if (supplierManager != null && item.getSupplier() != null && !item.getSupplier().isEmpty()) {
@@ -409,6 +431,7 @@ public class ReportWindow extends JDialog {
                     }
                     reportTableModel.addRow(new Object[]{
                             item.getSku(), item.getName(), item.getCategory(), item.getQuantity(),
+                            orderManager != null ? orderManager.getOnOrderQuantity(item.getSku()) : 0,
                             String.format(Locale.US, "%.2f", item.getPrice()),
                             supplierId, supplierName, item.getStatus()
                     });
@@ -430,7 +453,8 @@ public class ReportWindow extends JDialog {
             return;
         }
 
-        double totalValue = inventory.calculateTotalValue();
+        InventorySnapshot inventorySnapshot = inventory.snapshot(); // Value and SKU count from the same point in time
+        double totalValue = inventorySnapshot.calculateTotalValue();
         String reportDate = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(new Date());
 
         String[] columnNames = {"Metric", "Value", "Notes"};
@@ -448,7 +472,7 @@ public class ReportWindow extends JDialog {
         });
         reportTableModel.addRow(new Object[]{
                 "Number of Unique SKUs in Inventory",
-                inventory.getAllItems().size(),
+                inventorySnapshot.size(),
                 ""
         });
 
@@ -1,16 +1,14 @@
 import java.text.DecimalFormat;
 import java.text.DecimalFormatSymbols;
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
-import java.util.UUID;
+import java.util.Map;
 import java.util.Iterator;
-import java.time.Instant;
-import java.time.format.DateTimeFormatter;
-import java.time.ZoneOffset;
+import java.util.function.Consumer;
 
 // 假设 Item.java 和 Inventory.java 在同一个包或已正确导入
 // 如果您的 Item 和 Inventory 类在特定包下，例如 com.example.inventory:
@@ -53,7 +51,7 @@ public class Sale {
         // --- MODIFIED/NEW: Setters and Recalculate Subtotal ---
         public void setQuantitySold(int quantitySold) {
             if (quantitySold <= 0) {
-                System.err.println("Error: Quantity sold must be positive. Value not changed for SKU: " + this.sku);
+                AppLog.error("Error: Quantity sold must be positive. Value not changed for SKU: " + this.sku);
                 // Optionally throw an IllegalArgumentException here if preferred
                 // throw new IllegalArgumentException("Quantity sold must be positive.");
                 return;
@@ -64,7 +62,7 @@ public class Sale {
 
         public void setPriceAtSale(double priceAtSale) {
             if (priceAtSale < 0) {
-                System.err.println("Error: Price at sale cannot be negative. Value not changed for SKU: " + this.sku);
+                AppLog.error("Error: Price at sale cannot be negative. Value not changed for SKU: " + this.sku);
                 // Optionally throw an IllegalArgumentException here
                 // throw new IllegalArgumentException("Price at sale cannot be negative.");
                 return;
@@ -97,7 +95,7 @@ public class Sale {
 
         public static SaleItem fromCsvString(String[] parts) {
             if (parts.length < 4) {
-                System.err.println("Invalid CSV parts for SaleItem: not enough parts.");
+                AppLog.warn("Invalid CSV parts for SaleItem: not enough parts.");
                 return null;
             }
             try {
@@ -107,10 +105,10 @@ public class Sale {
                 double priceAtSale = Double.parseDouble(Sale.unescapeCsv(parts[3]));
                 return new SaleItem(itemSku, itemName, quantitySold, priceAtSale);
             } catch (NumberFormatException e) {
-                System.err.println("Error parsing numeric value for SaleItem from CSV: " + e.getMessage());
+                AppLog.error("Error parsing numeric value for SaleItem from CSV: " + e.getMessage());
                 return null;
             } catch (ArrayIndexOutOfBoundsException e) {
-                System.err.println("Error processing CSV parts for SaleItem: " + e.getMessage());
+                AppLog.error("Error processing CSV parts for SaleItem: " + e.getMessage());
                 return null;
             }
         }
@@ -119,8 +117,10 @@ public class Sale {
 
     // Sale Class Attributes
     private String saleID;
-    private Date saleDate;
+    private long saleDateMillis; // Epoch millis; Date objects are only created for callers that ask
+    private long saleEpochDay;   // Local calendar day of saleDateMillis, for date-range queries
     private List<SaleItem> itemsSold;
+    private List<SaleItem> itemsSoldView; // Read-only view of itemsSold, created once
     private double totalAmount;
     private String status;
 
@@ -128,36 +128,53 @@ public class Sale {
     public static final String STATUS_COMPLETED = "Completed";
     public static final String STATUS_CANCELLED = "Cancelled";
 
-    private static final DateTimeFormatter CSV_DATE_FORMATTER = DateTimeFormatter.ISO_INSTANT;
-
     // Constructor
     public Sale() {
         this.saleID = generateSaleID();
-        this.saleDate = new Date();
+        setSaleDateMillis(System.currentTimeMillis());
         this.itemsSold = new ArrayList<>();
+        this.itemsSoldView = Collections.unmodifiableList(this.itemsSold);
         this.totalAmount = 0.0;
         this.status = STATUS_PENDING;
     }
 
     // Constructor for loading from CSV
     public Sale(String saleID, Date saleDate, double totalAmount, String status) {
+        this(saleID, saleDate.getTime(), totalAmount, status);
+    }
+
+    public Sale(String saleID, long saleDateMillis, double totalAmount, String status) {
         this.saleID = saleID;
-        this.saleDate = saleDate;
+        setSaleDateMillis(saleDateMillis);
         this.itemsSold = new ArrayList<>();
+        this.itemsSoldView = Collections.unmodifiableList(this.itemsSold);
         this.totalAmount = totalAmount; // This might be recalculated after loading items
         this.status = status;
     }
 
 
     private String generateSaleID() {
-        SimpleDateFormat sdfDate = new SimpleDateFormat("yyyyMMddHHmmss");
-        return "SALE-" + sdfDate.format(new Date()) + "-" + UUID.randomUUID().toString().substring(0, 4).toUpperCase();
+        return IdGenerator.SALES.nextId();
+    }
+
+    private void setSaleDateMillis(long millis) {
+        this.saleDateMillis = millis;
+        this.saleEpochDay = Timestamps.localEpochDay(millis);
     }
 
     // Getters
     public String getSaleID() { return saleID; }
-    public Date getSaleDate() { return saleDate; }
+    public Date getSaleDate() { return new Date(saleDateMillis); } // Copy; prefer getSaleDateMillis()
+    public long getSaleDateMillis() { return saleDateMillis; }
+    public long getSaleEpochDay() { return saleEpochDay; }
     public List<SaleItem> getItemsSold() { return new ArrayList<>(itemsSold); } // Return copy
+    public List<SaleItem> getItemsSoldView() { return itemsSoldView; } // Read-only, no copy; reflects later changes
+    public int getItemCount() { return itemsSold.size(); }
+    public void forEachItemSold(Consumer<? super SaleItem> visitor) {
+        for (int i = 0; i < itemsSold.size(); i++) { // Index loop: no iterator allocated
+            visitor.accept(itemsSold.get(i));
+        }
+    }
     public double getTotalAmount() { return totalAmount; }
     public String getStatus() { return status; }
 
@@ -176,43 +193,43 @@ public class Sale {
         if (STATUS_PENDING.equals(status) || STATUS_COMPLETED.equals(status) || STATUS_CANCELLED.equals(status)) {
             this.status = status;
         } else {
-            System.err.println("Invalid sale status: " + status + ". Status not changed for Sale ID: " + this.saleID);
+            AppLog.warn("Invalid sale status: " + status + ". Status not changed for Sale ID: " + this.saleID);
         }
     }
 
     public boolean addItemToSale(Item itemFromInventory, int quantityToSell, double sellingPrice) {
         if (!this.status.equals(STATUS_PENDING)) {
-            System.err.println("Cannot add items to sale " + saleID + "; status is: " + this.status);
+            AppLog.warn("Cannot add items to sale " + saleID + "; status is: " + this.status);
             return false;
         }
         if (itemFromInventory == null) {
-            System.err.println("Item to add to sale " + saleID + " cannot be null.");
+            AppLog.warn("Item to add to sale " + saleID + " cannot be null.");
             return false;
         }
         // Validations for quantityToSell and sellingPrice are in SaleItem constructor now
         try {
             SaleItem saleItem = new SaleItem(itemFromInventory.getSku(), itemFromInventory.getName(), quantityToSell, sellingPrice);
             this.itemsSold.add(saleItem);
-            System.out.println("Added to sale " + saleID + ": " + itemFromInventory.getName() + ", Qty: " + quantityToSell + ", Price: " + sellingPrice);
+            if (AppLog.isDebugEnabled()) AppLog.debug("Added to sale " + saleID + ": " + itemFromInventory.getName() + ", Qty: " + quantityToSell + ", Price: " + sellingPrice);
             calculateTotalAmount();
             return true;
         } catch (IllegalArgumentException e) {
-            System.err.println("Error adding item to sale " + saleID + ": " + e.getMessage());
+            AppLog.error("Error adding item to sale " + saleID + ": " + e.getMessage());
             return false;
         }
     }
 
     public boolean removeItemFromSale(String sku) {
         if (!this.status.equals(STATUS_PENDING)) {
-            System.err.println("Cannot remove items from sale " + saleID + "; status is: " + this.status);
+            AppLog.warn("Cannot remove items from sale " + saleID + "; status is: " + this.status);
             return false;
         }
         boolean removed = this.itemsSold.removeIf(si -> si.getSku().equals(sku));
         if (removed) {
-            System.out.println("Removed SKU " + sku + " from sale " + saleID);
+            AppLog.debug("Removed SKU " + sku + " from sale " + saleID);
             calculateTotalAmount();
         } else {
-            System.out.println("SKU " + sku + " not found in sale " + saleID + " for removal.");
+            AppLog.debug("SKU " + sku + " not found in sale " + saleID + " for removal.");
         }
         return removed;
     }
@@ -229,50 +246,76 @@ public class Sale {
     }
 
     public boolean finalizeSale(Inventory inventory) {
+        long startNanos = System.nanoTime();
+        AppEvents.SaleFinalizedEvent event = new AppEvents.SaleFinalizedEvent();
+        event.begin();
+        boolean success = false;
+        try {
+            success = doFinalizeSale(inventory);
+            return success;
+        } finally {
+            MetricsRegistry.histogram("sale.finalize").recordSince(startNanos);
+            if (!success) MetricsRegistry.counter("sale.finalize.failures").increment();
+            event.end();
+            if (event.shouldCommit()) {
+                event.saleId = saleID;
+                event.lineCount = itemsSold.size();
+                event.success = success;
+                event.commit();
+            }
+        }
+    }
+
+    private boolean doFinalizeSale(Inventory inventory) {
         if (!this.status.equals(STATUS_PENDING)) {
-            System.err.println("Sale " + saleID + " cannot be finalized. Current status: " + this.status);
+            AppLog.warn("Sale " + saleID + " cannot be finalized. Current status: " + this.status);
             return false;
         }
         if (this.itemsSold.isEmpty()) {
-            System.err.println("Sale " + saleID + " has no items. Cannot finalize.");
+            AppLog.warn("Sale " + saleID + " has no items. Cannot finalize.");
             return false;
         }
-        System.out.println("Finalizing sale: " + this.saleID);
+        AppLog.info("Finalizing sale: " + this.saleID);
 
         for (SaleItem si : this.itemsSold) {
             Item itemInStock = inventory.getItem(si.getSku());
             if (itemInStock == null) {
-                System.err.println("Finalize Error (Sale " + saleID + "): Item " + si.getSku() + " not found in inventory.");
+                AppLog.error("Finalize Error (Sale " + saleID + "): Item " + si.getSku() + " not found in inventory.");
                 return false;
             }
             if (itemInStock.getQuantity() < si.getQuantitySold()) {
-                System.err.println("Finalize Error (Sale " + saleID + "): Insufficient stock for " + itemInStock.getName() +
+                AppLog.error("Finalize Error (Sale " + saleID + "): Insufficient stock for " + itemInStock.getName() +
                         " (SKU: " + si.getSku() + "). Required: " + si.getQuantitySold() +
                         ", Available: " + itemInStock.getQuantity());
                 return false;
             }
         }
 
+        Map<String, Integer> deltas = new LinkedHashMap<>();
         for (SaleItem si : this.itemsSold) {
-            Item itemInStock = inventory.getItem(si.getSku());
-            itemInStock.updateQuantity(-si.getQuantitySold());
-            System.out.println("Inventory updated for SKU " + si.getSku() + " (Sale " + saleID +"): new quantity " + itemInStock.getQuantity());
+            deltas.merge(si.getSku(), -si.getQuantitySold(), Integer::sum);
+        }
+        if (!inventory.adjustQuantities(deltas, "SALE " + saleID)) {
+            AppLog.error("Finalize Error (Sale " + saleID + "): Stock changed before it could be taken. No stock was deducted.");
+            return false;
+        }
+        for (String sku : deltas.keySet()) {
+            if (AppLog.isDebugEnabled()) AppLog.debug("Inventory updated for SKU " + sku + " (Sale " + saleID +"): new quantity " + inventory.getItem(sku).getQuantity());
         }
         this.status = STATUS_COMPLETED;
-        this.saleDate = new Date();
+        setSaleDateMillis(System.currentTimeMillis());
         // Recalculate total amount just to be absolutely sure, though it should be correct
         calculateTotalAmount();
-        System.out.println("Sale " + saleID + " successfully finalized. Total: $" + String.format(Locale.US, "%.2f", this.totalAmount));
+        AppLog.info("Sale " + saleID + " successfully finalized. Total: $" + String.format(Locale.US, "%.2f", this.totalAmount));
         return true;
     }
 
     public String getSaleDetails() {
         DecimalFormat df = new DecimalFormat("#0.00", new DecimalFormatSymbols(Locale.US));
-        SimpleDateFormat displaySdf = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
         StringBuilder details = new StringBuilder();
         details.append("-------------------- SALE RECEIPT --------------------\n");
         details.append("Sale ID: ").append(saleID).append("\n");
-        details.append("Date: ").append(displaySdf.format(saleDate)).append("\n");
+        details.append("Date: ").append(Timestamps.formatDisplay(saleDateMillis)).append("\n");
         details.append("Status: ").append(status).append("\n");
         details.append("Items Sold (").append(itemsSold.size()).append("):\n");
         if (itemsSold.isEmpty()) {
@@ -290,7 +333,7 @@ public class Sale {
 
     public String toSaleCsvString() {
         DecimalFormat df = new DecimalFormat("0.00", new DecimalFormatSymbols(Locale.US));
-        String isoSaleDate = CSV_DATE_FORMATTER.format(this.saleDate.toInstant().atZone(ZoneOffset.UTC));
+        String isoSaleDate = Timestamps.formatIso(saleDateMillis);
         return String.join(",",
                 escapeCsv(saleID),
                 escapeCsv(isoSaleDate),
@@ -316,18 +359,8 @@ public class Sale {
     }
 
     public static Date parseIsoDateString(String dateString) {
-        try {
-            return Date.from(Instant.parse(dateString));
-        } catch (Exception e) {
-            System.err.println("Error parsing ISO date string: " + dateString + " - " + e.getMessage() + ". Falling back.");
-            try {
-                SimpleDateFormat legacySdf = new SimpleDateFormat("EEE MMM dd HH:mm:ss zzz yyyy", Locale.ENGLISH);
-                return legacySdf.parse(dateString); // Default Date.toString() format
-            } catch (ParseException pe) {
-                System.err.println("Error parsing legacy date string after ISO fail: " + dateString + " - " + pe.getMessage());
-                return null;
-            }
-        }
+        long millis = Timestamps.parseIso(dateString);
+        return millis == Timestamps.INVALID ? null : new Date(millis);
     }
 
     public static void main(String[] args) {
@@ -343,26 +376,26 @@ public class Sale {
         Item laptop = testInventory.getItem("SKU001");
         if (laptop != null) sale1.addItemToSale(laptop, 1, 1199.00);
 
-        System.out.println(sale1.getSaleDetails());
+        AppLog.info(sale1.getSaleDetails());
 
         // Simulate editing an item in the sale
         if (!sale1.itemsSold.isEmpty()) {
             SaleItem itemToEdit = sale1.itemsSold.get(0); // Get the first item (laptop)
-            System.out.println("\n--- Editing first sale item ---");
-            System.out.println("Old Qty: " + itemToEdit.getQuantitySold() + ", Old Price: " + itemToEdit.getPriceAtSale());
+            AppLog.info("\n--- Editing first sale item ---");
+            AppLog.info("Old Qty: " + itemToEdit.getQuantitySold() + ", Old Price: " + itemToEdit.getPriceAtSale());
             itemToEdit.setQuantitySold(2); // Change quantity
             itemToEdit.setPriceAtSale(1150.00); // Change price
             sale1.calculateTotalAmount(); // Sale needs to recalculate its grand total
-            System.out.println("New Qty: " + itemToEdit.getQuantitySold() + ", New Price: " + itemToEdit.getPriceAtSale());
-            System.out.println("\nSale details after edit:");
-            System.out.println(sale1.getSaleDetails());
+            AppLog.info("New Qty: " + itemToEdit.getQuantitySold() + ", New Price: " + itemToEdit.getPriceAtSale());
+            AppLog.info("\nSale details after edit:");
+            AppLog.info(sale1.getSaleDetails());
         }
 
         sale1.finalizeSale(testInventory);
-        System.out.println("\n--- Final Sale details after finalization ---");
-        System.out.println(sale1.getSaleDetails());
+        AppLog.info("\n--- Final Sale details after finalization ---");
+        AppLog.info(sale1.getSaleDetails());
         if (laptop != null) {
-            System.out.println("Laptop stock after sale: " + testInventory.getItem("SKU001").getQuantity());
+            AppLog.info("Laptop stock after sale: " + testInventory.getItem("SKU001").getQuantity());
         }
     }
 }
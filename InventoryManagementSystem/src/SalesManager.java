@@ -1,62 +1,184 @@
 // SalesManager.java
-import java.io.BufferedReader;
-import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileReader;
-import java.io.FileWriter;
 import java.io.IOException;
-import java.io.PrintWriter;
-import java.time.Instant;
 import java.time.LocalDate;
-import java.time.ZoneId;
+import java.time.YearMonth;
 import java.util.ArrayList;
-import java.util.Date;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.NavigableSet;
 import java.util.Optional;
+import java.util.TreeMap;
+import java.util.TreeSet;
 import java.util.stream.Collectors;
+import java.util.function.Consumer;
 
 public class SalesManager {
     private List<Sale> salesList;
+    private List<Sale> salesListView; // Read-only view of salesList, created once
+    private final Map<String, Sale> salesById = new HashMap<>(); // Same sales as salesList, by ID
     private Inventory inventory; // To update stock upon sale finalization
+    private StockReservationTable reservations; // Stock held by pending sales
+    private volatile SalesSnapshot.Log completedSales = new SalesSnapshot.Log(); // Append-only, read by reports via snapshot()
+    private final SalesTimeIndex salesByTime = new SalesTimeIndex(); // All sales by date, for paging the sales history
+    private SalesPartitionStore partitions; // Monthly sales files; null in client mode
+    private YearMonth residentFrom; // Months from this one on are fully in salesList; earlier ones are read from the archive
 
     // Unified data directory path
     public static final String DATA_DIRECTORY = "data/";
-    public static final String DEFAULT_SALES_FILE_PATH = DATA_DIRECTORY + "sales.csv";
+    public static final String DEFAULT_SALES_FILE_PATH = DATA_DIRECTORY + "sales.csv"; // Pre-partitioning layout, migrated on load
     public static final String DEFAULT_SALE_ITEMS_FILE_PATH = DATA_DIRECTORY + "sale_items.csv";
+    public static final String SALES_PARTITION_DIRECTORY = DATA_DIRECTORY + "sales/";
 
-    private static final String SALES_CSV_HEADER = "SaleID,SaleDate,TotalAmount,Status";
-    private static final String SALE_ITEMS_CSV_HEADER = "SaleID,ItemSKU,ItemName,QuantitySold,PriceAtSale";
+    /** Number of months kept in memory (the newest month with sales and the ones before it); older months stay archived on disk. */
+    public static final String HOT_MONTHS_PROPERTY = "sales.hotMonths";
+    private static final int DEFAULT_HOT_MONTHS = 3;
 
     public SalesManager(Inventory inventory) {
+        this(inventory, true);
+    }
+
+    // Used by RemoteSalesManager (client mode): sales live on the server, nothing is read locally
+    protected SalesManager(Inventory inventory, boolean loadFromFile) {
         this.inventory = inventory;
         this.salesList = new ArrayList<>();
-        loadSalesFromFile();
+        this.salesListView = Collections.unmodifiableList(this.salesList);
+        this.reservations = new StockReservationTable();
+        this.reservations.setExpiryListener((saleId, released) ->
+                AppLog.info("Reservations for pending sale " + saleId + " expired. Released: " + released));
+        if (loadFromFile) {
+            loadSalesFromFile();
+            MetricsRegistry.gauge("sales.count", () -> salesByTime.size());
+        }
     }
 
     public Sale createNewSale() {
         Sale newSale = new Sale();
         this.salesList.add(newSale);
-        System.out.println("New sale created with ID: " + newSale.getSaleID() + " (Status: " + newSale.getStatus() + ")");
+        this.salesById.put(newSale.getSaleID(), newSale);
+        salesByTime.add(newSale);
+        AppLog.info("New sale created with ID: " + newSale.getSaleID() + " (Status: " + newSale.getStatus() + ")");
         return newSale;
     }
 
     public boolean finalizeSale(Sale sale) {
+        long startNanos = System.nanoTime();
+        boolean success = false;
+        try {
+            success = doFinalizeSale(sale);
+            return success;
+        } finally {
+            MetricsRegistry.histogram("salesManager.finalizeSale").recordSince(startNanos);
+            if (!success) MetricsRegistry.counter("salesManager.finalizeSale.failures").increment();
+        }
+    }
+
+    private boolean doFinalizeSale(Sale sale) {
         if (sale == null) {
-            System.err.println("Cannot finalize a null sale.");
+            AppLog.warn("Cannot finalize a null sale.");
             return false;
         }
+        if (Sale.STATUS_PENDING.equals(sale.getStatus())) {
+            // Stock held by other pending sales is not ours to sell. Checked and claimed in one step under the
+            // reservation table's lock, so a concurrent finalize cannot count the same units as free.
+            Map<String, Integer> required = new LinkedHashMap<>();
+            for (Sale.SaleItem si : sale.getItemsSoldView()) {
+                required.merge(si.getSku(), si.getQuantitySold(), Integer::sum);
+            }
+            String shortSku = reservations.tryClaim(sale.getSaleID(), required, this::getOnHandQuantity);
+            if (shortSku != null) {
+                AppLog.error("Finalize Error (Sale " + sale.getSaleID() + "): Insufficient unreserved stock for SKU " + shortSku +
+                        ". Required: " + required.get(shortSku) + ", Available: " + getAvailableQuantity(shortSku, sale));
+                return false;
+            }
+        }
         // The finalizeSale method in Sale object itself updates inventory and status to COMPLETED
+        long dateBeforeFinalize = SalesTimeIndex.millisOf(sale);
         boolean success = sale.finalizeSale(this.inventory);
         if (success) {
-            System.out.println("Sale " + sale.getSaleID() + " successfully finalized by SalesManager. Status: " + sale.getStatus());
+            completedSales.append(sale);
+            salesByTime.reindex(sale, dateBeforeFinalize); // The sale date becomes the finalize time
+            reservations.releaseAll(sale.getSaleID());
+            AppLog.info("Sale " + sale.getSaleID() + " successfully finalized by SalesManager. Status: " + sale.getStatus());
         } else {
-            System.err.println("SalesManager: Finalization failed for sale " + sale.getSaleID() + ". Check logs or sale status (" + sale.getStatus() + ").");
+            AppLog.warn("SalesManager: Finalization failed for sale " + sale.getSaleID() + ". Check logs or sale status (" + sale.getStatus() + ").");
         }
         return success;
     }
 
+    /**
+     * Reserves stock for a pending sale. Sets the total quantity of the SKU held by the sale
+     * (not an increment) and restarts the sale's reservation TTL.
+     * @return false if the quantity exceeds what is on hand minus other sales' reservations; nothing changes in that case.
+     */
+    public boolean reserveStock(Sale sale, String sku, int quantity) {
+        if (sale == null || sku == null || quantity < 0) {
+            AppLog.warn("Invalid parameters for reserving stock.");
+            return false;
+        }
+        if (!Sale.STATUS_PENDING.equals(sale.getStatus())) {
+            AppLog.warn("Cannot reserve stock for sale " + sale.getSaleID() + " with status: " + sale.getStatus());
+            return false;
+        }
+        return reservations.tryReserve(sale.getSaleID(), sku, quantity, getOnHandQuantity(sku));
+    }
+
+    public void releaseStock(Sale sale, String sku) {
+        if (sale == null || sku == null) return;
+        reservations.setReservation(sale.getSaleID(), sku, 0);
+    }
+
+    public void releaseAllReservations(Sale sale) {
+        if (sale == null) return;
+        reservations.releaseAll(sale.getSaleID());
+    }
+
+    /**
+     * Cancels a pending sale and releases any stock it had reserved.
+     */
+    public boolean cancelSale(Sale sale) {
+        if (sale == null) {
+            AppLog.warn("Cannot cancel a null sale.");
+            return false;
+        }
+        if (!Sale.STATUS_PENDING.equals(sale.getStatus())) {
+            AppLog.warn("Sale " + sale.getSaleID() + " cannot be cancelled. Current status: " + sale.getStatus());
+            return false;
+        }
+        sale.setStatus(Sale.STATUS_CANCELLED);
+        reservations.releaseAll(sale.getSaleID());
+        AppLog.info("Sale " + sale.getSaleID() + " cancelled. Reserved stock released.");
+        return true;
+    }
+
+    private int getOnHandQuantity(String sku) {
+        Item item = inventory.getItem(sku);
+        return item == null ? 0 : item.getQuantity();
+    }
+
+    /**
+     * On-hand quantity minus everything reserved by pending sales.
+     */
+    public int getAvailableQuantity(String sku) {
+        Item item = inventory.getItem(sku);
+        if (item == null) return 0;
+        return item.getQuantity() - reservations.getReservedQuantity(sku);
+    }
+
+    /**
+     * Quantity the given sale may take: on hand minus what other pending sales have reserved.
+     */
+    public int getAvailableQuantity(String sku, Sale sale) {
+        int available = getAvailableQuantity(sku);
+        if (sale != null) {
+            available += reservations.getReservedQuantity(sale.getSaleID(), sku);
+        }
+        return available;
+    }
+
     public Optional<Sale> getSaleById(String saleId) {
         if (saleId == null || saleId.trim().isEmpty()) {
             return Optional.empty();
@@ -64,9 +186,74 @@ public class SalesManager {
         if (this.salesList == null) {
             return Optional.empty();
         }
-        return this.salesList.stream()
-                .filter(sale -> sale != null && sale.getSaleID() != null && sale.getSaleID().equals(saleId))
-                .findFirst();
+        Sale resident = this.salesById.get(saleId);
+        if (resident != null || partitions == null) {
+            return Optional.ofNullable(resident);
+        }
+        return Optional.ofNullable(partitions.findArchived(saleId, residentFrom)); // Older sale: read-only copy from the archive
+    }
+
+    /** Read-only view of the sales in memory (no copy): the hot months only. It reflects sales added later. */
+    public List<Sale> getAllSalesView() {
+        return salesListView;
+    }
+
+    public int getSaleCount() {
+        return salesList.size();
+    }
+
+    public void forEachSale(Consumer<? super Sale> visitor) {
+        for (int i = 0; i < salesList.size(); i++) {
+            visitor.accept(salesList.get(i));
+        }
+    }
+
+    /**
+     * One page of the sales history, newest first. Pass null for the first page and the returned
+     * page's getNext() for the following ones. Once the months in memory are used up, paging continues
+     * through the archived months (read-only sales), newest first.
+     */
+    public SalesTimeIndex.Page getSalesPage(SalesTimeIndex.Cursor after, int pageSize) {
+        SalesTimeIndex.Page page = salesByTime.pageBefore(after, pageSize);
+        if (page.getNext() != null || partitions == null || residentFrom == null) {
+            return page;
+        }
+        List<Sale> sales = new ArrayList<>(page.getSales());
+        SalesTimeIndex.Cursor position = sales.isEmpty() ? after : SalesTimeIndex.Cursor.after(sales.get(sales.size() - 1));
+        YearMonth from = residentFrom.minusMonths(1);
+        if (position != null && position.month().isBefore(from)) from = position.month();
+        for (YearMonth month : partitions.months().headSet(from, true).descendingSet()) {
+            List<Sale> archived = new ArrayList<>(partitions.readArchived(month));
+            archived.sort(SalesTimeIndex.ORDER.reversed());
+            for (Sale sale : archived) {
+                if (position != null && !position.isBefore(sale)) continue; // Already shown
+                if (sales.size() >= pageSize) {
+                    return new SalesTimeIndex.Page(Collections.unmodifiableList(sales), SalesTimeIndex.Cursor.after(sales.get(sales.size() - 1)));
+                }
+                sales.add(sale);
+            }
+        }
+        return new SalesTimeIndex.Page(Collections.unmodifiableList(sales), null);
+    }
+
+    /**
+     * Archived sales of the month named in a (partial) sale ID such as "SALE-202403", and of the month
+     * after it, for searching by ID beyond the months in memory. Empty if the text names no archived month.
+     */
+    public List<Sale> getArchivedSalesForId(String saleIdText) {
+        YearMonth fromId = (saleIdText == null || partitions == null || residentFrom == null)
+                ? null : SalesPartitionStore.monthFromId(saleIdText.trim());
+        if (fromId == null) {
+            return Collections.emptyList();
+        }
+        NavigableSet<YearMonth> archivedMonths = partitions.months().headSet(residentFrom, false);
+        List<Sale> result = new ArrayList<>();
+        for (YearMonth month : new YearMonth[]{fromId, fromId.plusMonths(1)}) {
+            if (archivedMonths.contains(month)) {
+                result.addAll(partitions.readArchived(month));
+            }
+        }
+        return result;
     }
 
     public List<Sale> getAllSales() {
@@ -76,34 +263,101 @@ public class SalesManager {
         return new ArrayList<>(salesList); // Return a copy
     }
 
+    /**
+     * Returns a read-only view of all completed sales so far. Reports read it without locks
+     * while new sales keep being finalized.
+     */
+    public SalesSnapshot snapshot() {
+        return completedSales.snapshot();
+    }
+
     public List<Sale> getCompletedSalesByDateRange(LocalDate startDate, LocalDate endDate) {
         if (this.salesList == null) {
             return new ArrayList<>();
         }
         if (startDate == null || endDate == null) {
-            System.err.println("SalesManager Error: Start date or end date cannot be null for date range search.");
+            AppLog.error("SalesManager Error: Start date or end date cannot be null for date range search.");
             return new ArrayList<>();
         }
         if (endDate.isBefore(startDate)) {
-            System.err.println("SalesManager Error: End date cannot be before start date for date range search.");
+            AppLog.error("SalesManager Error: End date cannot be before start date for date range search.");
             return new ArrayList<>();
         }
 
-        return this.salesList.stream()
+        long startDay = startDate.toEpochDay();
+        long endDay = endDate.toEpochDay();
+        List<Sale> result = this.salesList.stream()
                 .filter(sale -> sale != null && Sale.STATUS_COMPLETED.equals(sale.getStatus()))
                 .filter(sale -> {
-                    if (sale.getSaleDate() == null) return false;
-                    Instant instant = sale.getSaleDate().toInstant();
-                    ZoneId zoneId = ZoneId.systemDefault(); // Consider a fixed ZoneId like ZoneId.of("UTC") for consistency
-                    LocalDate saleLocalDate = instant.atZone(zoneId).toLocalDate();
-                    return !saleLocalDate.isBefore(startDate) && !saleLocalDate.isAfter(endDate);
+                    long saleDay = sale.getSaleEpochDay(); // Local calendar day, computed once when the date was set
+                    return saleDay >= startDay && saleDay <= endDay;
                 })
                 .collect(Collectors.toList());
+        forEachArchivedSale(startDate, endDate, sale -> {
+            if (Sale.STATUS_COMPLETED.equals(sale.getStatus()) && sale.getSaleEpochDay() >= startDay && sale.getSaleEpochDay() <= endDay) {
+                result.add(sale);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Completed sales between the dates (inclusive) as frozen snapshots, for reports: the in-memory
+     * months from {@link #snapshot()}, older months from the archive (archived sales never change).
+     */
+    public List<SalesSnapshot.SaleSnapshot> getCompletedSaleSnapshots(LocalDate startDate, LocalDate endDate) {
+        List<SalesSnapshot.SaleSnapshot> result = snapshot().getCompletedSalesByDateRange(startDate, endDate);
+        if (startDate == null || endDate == null || endDate.isBefore(startDate)) {
+            return result;
+        }
+        long startDay = startDate.toEpochDay();
+        long endDay = endDate.toEpochDay();
+        forEachArchivedSale(startDate, endDate, sale -> {
+            if (Sale.STATUS_COMPLETED.equals(sale.getStatus()) && sale.getSaleEpochDay() >= startDay && sale.getSaleEpochDay() <= endDay) {
+                result.add(new SalesSnapshot.SaleSnapshot(sale));
+            }
+        });
+        return result;
+    }
+
+    /**
+     * All archived sales (any status) of the months the date range touches; empty if the range is
+     * inside the months held in memory. The sales are read-only.
+     */
+    public List<Sale> getArchivedSales(LocalDate startDate, LocalDate endDate) {
+        List<Sale> result = new ArrayList<>();
+        if (startDate != null && endDate != null && !endDate.isBefore(startDate)) {
+            forEachArchivedSale(startDate, endDate, result::add);
+        }
+        return result;
+    }
+
+    // Reads only the archived months between the dates; months held in memory are skipped
+    private void forEachArchivedSale(LocalDate startDate, LocalDate endDate, Consumer<Sale> visitor) {
+        if (partitions == null || residentFrom == null) return;
+        YearMonth last = YearMonth.from(endDate);
+        if (!last.isBefore(residentFrom)) last = residentFrom.minusMonths(1);
+        for (YearMonth month : partitions.months().subSet(YearMonth.from(startDate), true, last, true)) {
+            for (Sale sale : partitions.readArchived(month)) {
+                visitor.accept(sale);
+            }
+        }
+    }
+
+    /**
+     * First month kept in memory, from -Dsales.hotMonths (default 3: the newest month that has sales and
+     * the two before). Counting from the newest partition rather than today keeps a store whose last sales
+     * are older than the window (e.g. restored or sample data) browsable; this month is used if there are none.
+     */
+    public static YearMonth firstHotMonth(NavigableSet<YearMonth> partitionMonths) {
+        int hotMonths = Math.max(1, Integer.getInteger(HOT_MONTHS_PROPERTY, DEFAULT_HOT_MONTHS));
+        YearMonth newest = partitionMonths.isEmpty() ? YearMonth.now() : partitionMonths.last();
+        return newest.minusMonths(hotMonths - 1);
     }
 
     public List<Sale> getCompletedSalesByDate(LocalDate specificDate) {
         if (specificDate == null) {
-            System.err.println("SalesManager Error: Specific date cannot be null for single date search.");
+            AppLog.error("SalesManager Error: Specific date cannot be null for single date search.");
             return new ArrayList<>();
         }
         return getCompletedSalesByDateRange(specificDate, specificDate);
@@ -111,152 +365,154 @@ public class SalesManager {
 
 
     public void loadSalesFromFile() {
-        Map<String, Sale> loadedSalesMap = new HashMap<>();
-        File salesFile = new File(DEFAULT_SALES_FILE_PATH);
-        File saleItemsFile = new File(DEFAULT_SALE_ITEMS_FILE_PATH);
+        long startNanos = System.nanoTime();
+        AppEvents.FileIoEvent event = new AppEvents.FileIoEvent("load", "sales");
+        event.begin();
+        try {
+            doLoadSalesFromFile();
+        } finally {
+            MetricsRegistry.histogram("file.load.sales").recordSince(startNanos);
+            event.finish(salesList.size(), hotPartitionPaths());
+        }
+    }
 
+    private void doLoadSalesFromFile() {
+        Map<String, Sale> loadedSalesMap = new HashMap<>();
         File dataDir = new File(DATA_DIRECTORY);
         if (!dataDir.exists()) {
             if (!dataDir.mkdirs()){
-                System.err.println("Could not create data directory: " + DATA_DIRECTORY);
+                AppLog.warn("Could not create data directory: " + DATA_DIRECTORY);
             }
         }
+        partitions = new SalesPartitionStore(new File(SALES_PARTITION_DIRECTORY));
+
+        File legacySalesFile = new File(DEFAULT_SALES_FILE_PATH);
+        if (legacySalesFile.exists()) { // One-time split of the old single-file layout
+            StartupProfiler.Phase migrationPhase = StartupProfiler.begin("sales migration");
+            int migrated = partitions.migrateLegacy(legacySalesFile, new File(DEFAULT_SALE_ITEMS_FILE_PATH));
+            partitions.archiveBefore(firstHotMonth(partitions.months()));
+            migrationPhase.end(migrated);
+        }
 
-        if (salesFile.exists()) {
-            try (BufferedReader br = new BufferedReader(new FileReader(salesFile))) {
-                String line = br.readLine();
-                if (line == null || !line.trim().equalsIgnoreCase(SALES_CSV_HEADER)) {
-                    System.err.println("Warning: sales.csv header mismatch or file empty. Expected: " + SALES_CSV_HEADER + ". Got: " + (line != null ? line.trim() : "null"));
-                } else {
-                    while ((line = br.readLine()) != null) {
-                        if (line.trim().isEmpty() || line.startsWith("#")) continue;
-                        String[] parts = line.split(",(?=(?:[^\"]*\"[^\"]*\")*[^\"]*$)", -1);
-                        if (parts.length < 4) {
-                            System.err.println("Skipping invalid line in sales.csv (not enough parts): " + line); continue;
-                        }
-                        try {
-                            String saleID = Sale.unescapeCsv(parts[0]);
-                            Date saleDate = Sale.parseIsoDateString(Sale.unescapeCsv(parts[1]));
-                            double totalAmount = Double.parseDouble(Sale.unescapeCsv(parts[2]));
-                            String status = Sale.unescapeCsv(parts[3]);
-                            if (saleDate == null) {
-                                System.err.println("Skipping sale " + saleID + " due to invalid date in sales.csv: " + line); continue;
-                            }
-                            // Only load Completed or Cancelled sales from file. Pending sales should not be in the file.
-                            if (Sale.STATUS_COMPLETED.equals(status) || Sale.STATUS_CANCELLED.equals(status)) {
-                                Sale sale = new Sale(saleID, saleDate, totalAmount, status);
-                                loadedSalesMap.put(saleID, sale);
-                            } else {
-                                System.out.println("SalesManager Load: Skipping sale " + saleID + " with status '" + status + "' from sales.csv. Only loading Completed or Cancelled.");
-                            }
-                        } catch (NumberFormatException e) {
-                            System.err.println("Error parsing numeric value from sales.csv line: '" + line + "' - " + e.getMessage());
-                        } catch (Exception e) {
-                            System.err.println("Error processing line from sales.csv: '" + line + "' - " + e.getMessage());
-                        }
-                    }
-                }
-            } catch (IOException e) { System.err.println("Error loading sales from " + DEFAULT_SALES_FILE_PATH + ": " + e.getMessage()); }
-        } else { System.out.println(DEFAULT_SALES_FILE_PATH + " not found. No sales loaded."); }
-
-        if (saleItemsFile.exists() && !loadedSalesMap.isEmpty()) {
-            try (BufferedReader br = new BufferedReader(new FileReader(saleItemsFile))) {
-                String line = br.readLine();
-                if (line == null || !line.trim().equalsIgnoreCase(SALE_ITEMS_CSV_HEADER)) {
-                    System.err.println("Warning: sale_items.csv header mismatch or file empty. Expected: " + SALE_ITEMS_CSV_HEADER + ". Got: " + (line != null ? line.trim() : "null"));
-                } else {
-                    while ((line = br.readLine()) != null) {
-                        if (line.trim().isEmpty() || line.startsWith("#")) continue;
-                        String[] parts = line.split(",(?=(?:[^\"]*\"[^\"]*\")*[^\"]*$)", -1);
-                        if (parts.length < 5) {
-                            System.err.println("Skipping invalid line in sale_items.csv (not enough parts): " + line); continue;
-                        }
-                        try {
-                            String saleID = Sale.unescapeCsv(parts[0]);
-                            Sale targetSale = loadedSalesMap.get(saleID); // Will only be non-null if sale was Completed/Cancelled
-                            if (targetSale != null) {
-                                String[] itemParts = new String[parts.length - 1];
-                                System.arraycopy(parts, 1, itemParts, 0, parts.length - 1);
-                                Sale.SaleItem saleItem = Sale.SaleItem.fromCsvString(itemParts);
-                                if (saleItem != null) {
-                                    targetSale.addLoadedSaleItem(saleItem);
-                                }
-                            }
-                            // No "else" needed here, as if targetSale is null, it means the sale header was not loaded (e.g. was Pending)
-                        } catch (Exception e) {
-                            System.err.println("Error processing line from sale_items.csv: '" + line + "' - " + e.getMessage());
-                        }
-                    }
-                }
-            } catch (IOException e) { System.err.println("Error loading sale items from " + DEFAULT_SALE_ITEMS_FILE_PATH + ": " + e.getMessage()); }
-        } else if (!loadedSalesMap.isEmpty()) {
-            System.out.println(DEFAULT_SALE_ITEMS_FILE_PATH + " not found, but some sales headers were loaded. Sale items might be missing for them.");
+        // Only the hot months are read; older partitions stay on disk until a query needs them
+        residentFrom = firstHotMonth(partitions.months());
+        List<YearMonth> hotMonths = new ArrayList<>(partitions.months().tailSet(residentFrom, true));
+        StartupProfiler.Phase headersPhase = StartupProfiler.begin("sales headers");
+        for (YearMonth month : hotMonths) {
+            if (partitions.isHot(month)) {
+                SalesPartitionStore.readSalesCsv(partitions.salesFile(month), loadedSalesMap);
+            } else {
+                partitions.readInto(month, loadedSalesMap); // Archived month back inside the window (hot window was widened)
+            }
+        }
+        if (hotMonths.isEmpty()) {
+            AppLog.info("No sales partitions from " + residentFrom + " on in " + SALES_PARTITION_DIRECTORY + ". No sales loaded.");
+        }
+        headersPhase.end(loadedSalesMap.size());
+
+        StartupProfiler.Phase itemsPhase = StartupProfiler.begin("sale items");
+        int saleItemRows = 0;
+        for (YearMonth month : hotMonths) {
+            if (partitions.isHot(month)) {
+                saleItemRows += SalesPartitionStore.readSaleItemsCsv(partitions.itemsFile(month), loadedSalesMap);
+            }
         }
+        itemsPhase.end(saleItemRows);
 
+        StartupProfiler.Phase indexPhase = StartupProfiler.begin("sales index");
         this.salesList.clear();
+        this.salesById.clear();
+        SalesSnapshot.Log loadedCompletedSales = new SalesSnapshot.Log();
         for (Sale sale : loadedSalesMap.values()) {
-            if (!sale.getItemsSold().isEmpty()) {
+            if (sale.getItemCount() > 0) {
                 sale.refreshTotalAmountFromItems();
             }
             this.salesList.add(sale);
+            this.salesById.put(sale.getSaleID(), sale);
+            IdGenerator.SALES.observe(sale.getSaleID());
+            if (Sale.STATUS_COMPLETED.equals(sale.getStatus())) {
+                loadedCompletedSales.append(sale);
+            }
         }
-        System.out.println(this.salesList.size() + " sales (Completed or Cancelled) processed and loaded into SalesManager.");
+        this.completedSales = loadedCompletedSales;
+        salesByTime.rebuild(this.salesList);
+        indexPhase.end(this.salesList.size());
+        AppLog.info(this.salesList.size() + " sales (Completed or Cancelled) from " + residentFrom + " on processed and loaded into SalesManager.");
     }
 
-    public void saveSalesToFile() {
-        File salesFile = new File(DEFAULT_SALES_FILE_PATH);
-        File salesDir = salesFile.getParentFile();
-        if (salesDir != null && !salesDir.exists()) {
-            if (!salesDir.mkdirs()) {
-                System.err.println("Could not create directory for sales file: " + salesDir.getPath());
-                return;
+    // Files of the months held in memory, for the file I/O events
+    private String[] hotPartitionPaths() {
+        List<String> paths = new ArrayList<>();
+        if (partitions != null && residentFrom != null) {
+            for (YearMonth month : partitions.months().tailSet(residentFrom, true)) {
+                paths.add(partitions.salesFile(month).getPath());
+                paths.add(partitions.itemsFile(month).getPath());
             }
         }
-        File saleItemsFile = new File(DEFAULT_SALE_ITEMS_FILE_PATH);
+        return paths.toArray(new String[0]);
+    }
 
-        // Filter out PENDING sales before saving
-        List<Sale> salesToSave = new ArrayList<>();
+    public void saveSalesToFile() {
+        long startNanos = System.nanoTime();
+        AppEvents.FileIoEvent event = new AppEvents.FileIoEvent("save", "sales");
+        event.begin();
+        try {
+            doSaveSalesToFile();
+        } finally {
+            MetricsRegistry.histogram("file.save.sales").recordSince(startNanos);
+            event.finish(salesList.size(), hotPartitionPaths());
+        }
+    }
+
+    private void doSaveSalesToFile() {
+        if (partitions == null) {
+            AppLog.warn("SalesManager: sales were never loaded from disk, nothing saved.");
+            return;
+        }
+        // Filter out PENDING sales before saving, grouped by partition month
+        Map<YearMonth, List<Sale>> salesByMonth = new TreeMap<>();
+        int savedCount = 0;
         if (this.salesList != null) {
             for (Sale sale : this.salesList) {
                 if (sale != null &&
                         (Sale.STATUS_COMPLETED.equals(sale.getStatus()) || Sale.STATUS_CANCELLED.equals(sale.getStatus()))) {
-                    salesToSave.add(sale);
+                    salesByMonth.computeIfAbsent(SalesPartitionStore.monthOf(sale), m -> new ArrayList<>()).add(sale);
+                    savedCount++;
                 } else if (sale != null && Sale.STATUS_PENDING.equals(sale.getStatus())) {
-                    System.out.println("SalesManager Save: Skipping PENDING Sale ID: " + sale.getSaleID() + ". It will not be saved to CSV.");
+                    AppLog.debug("SalesManager Save: Skipping PENDING Sale ID: " + sale.getSaleID() + ". It will not be saved to CSV.");
                 }
             }
         }
 
-        try (PrintWriter salesOut = new PrintWriter(new BufferedWriter(new FileWriter(salesFile)))) {
-            salesOut.println(SALES_CSV_HEADER);
-            for (Sale sale : salesToSave) { // Use the filtered list
-                salesOut.println(sale.toSaleCsvString());
+        NavigableSet<YearMonth> months = new TreeSet<>(partitions.months());
+        months.addAll(salesByMonth.keySet());
+        YearMonth firstHot = firstHotMonth(months); // Later than residentFrom if sales of a newer month were added since loading
+        for (Map.Entry<YearMonth, List<Sale>> entry : salesByMonth.entrySet()) {
+            YearMonth month = entry.getKey();
+            List<Sale> monthSales = entry.getValue();
+            if (month.isBefore(residentFrom)) {
+                // Not loaded, so the file holds sales we do not have in memory: keep them
+                Map<String, Sale> merged = new HashMap<>();
+                partitions.readInto(month, merged);
+                for (Sale sale : monthSales) merged.put(sale.getSaleID(), sale);
+                monthSales = new ArrayList<>(merged.values());
             }
-            System.out.println(salesToSave.size() + " sales records (Completed or Cancelled) saved to " + DEFAULT_SALES_FILE_PATH);
-        } catch (IOException e) {
-            System.err.println("Error saving sales to " + DEFAULT_SALES_FILE_PATH + ": " + e.getMessage());
-            e.printStackTrace();
-        }
-
-        try (PrintWriter itemsOut = new PrintWriter(new BufferedWriter(new FileWriter(saleItemsFile)))) {
-            itemsOut.println(SALE_ITEMS_CSV_HEADER);
-            for (Sale sale : salesToSave) { // Use the filtered list for items as well
-                List<Sale.SaleItem> itemsSold = sale.getItemsSold();
-                if (itemsSold != null) {
-                    for (Sale.SaleItem si : itemsSold) {
-                        itemsOut.println(Sale.escapeCsv(sale.getSaleID()) + "," + si.toCsvString());
-                    }
+            try {
+                if (month.isBefore(firstHot)) {
+                    partitions.writeCold(month, monthSales);
+                } else {
+                    partitions.writeHot(month, monthSales);
                 }
+            } catch (IOException e) {
+                AppLog.error("Error saving sales partition " + month + " to " + SALES_PARTITION_DIRECTORY + ": " + e.getMessage(), e);
             }
-            System.out.println("Sale items for (Completed or Cancelled) sales saved to " + DEFAULT_SALE_ITEMS_FILE_PATH);
-        } catch (IOException e) {
-            System.err.println("Error saving sale items to " + DEFAULT_SALE_ITEMS_FILE_PATH + ": " + e.getMessage());
-            e.printStackTrace();
         }
+        AppLog.info(savedCount + " sales records (Completed or Cancelled) saved to " + salesByMonth.size() + " monthly partitions in " + SALES_PARTITION_DIRECTORY);
+        partitions.archiveBefore(firstHot); // Months that fell out of the hot window since they were written
     }
 
     public static void main(String[] args) {
-        System.out.println("Testing SalesManager (data in " + DATA_DIRECTORY + ")...");
+        AppLog.info("Testing SalesManager (data in " + DATA_DIRECTORY + ")...");
         Inventory testInv = new Inventory();
         if (testInv.getItem("BOOK001") == null) {
             testInv.addItem(new Item("BOOK001", "Java Programming Guide", "Books", 20, 49.99, "SUP009", "Active"));
@@ -268,9 +524,9 @@ public class SalesManager {
 
         SalesManager sm = new SalesManager(testInv);
 
-        System.out.println("Initial sales in manager after load: " + sm.getAllSales().size());
+        AppLog.info("Initial sales in manager after load: " + sm.getAllSales().size());
         for(Sale s : sm.getAllSales()){
-            System.out.println("Loaded Sale: ID " + s.getSaleID() + ", Status " + s.getStatus());
+            AppLog.info("Loaded Sale: ID " + s.getSaleID() + ", Status " + s.getStatus());
         }
 
 
@@ -278,59 +534,62 @@ public class SalesManager {
         Sale pendingSale = sm.createNewSale(); // Status is PENDING
         Item book = testInv.getItem("BOOK001");
         if (book != null) pendingSale.addItemToSale(book, 1, 40.00);
-        System.out.println("Created a PENDING sale: " + pendingSale.getSaleID());
+        AppLog.info("Created a PENDING sale: " + pendingSale.getSaleID());
 
         // Test creating and COMPLETING a sale
         Sale completedSale = sm.createNewSale();
         Item pen = testInv.getItem("PEN001");
         if (pen != null) completedSale.addItemToSale(pen, 3, 1.75);
         sm.finalizeSale(completedSale); // Status becomes COMPLETED
-        System.out.println("Created and FINALIZED a sale: " + completedSale.getSaleID());
+        AppLog.info("Created and FINALIZED a sale: " + completedSale.getSaleID());
 
         // Test creating and CANCELLING a sale
         Sale cancelledSale = sm.createNewSale();
         if (book != null) cancelledSale.addItemToSale(book, 2, 42.00);
-        cancelledSale.setStatus(Sale.STATUS_CANCELLED); // Manually set to Cancelled
-        System.out.println("Created and CANCELLED a sale: " + cancelledSale.getSaleID());
+        if (book != null) sm.reserveStock(cancelledSale, book.getSku(), 2);
+        AppLog.info("BOOK001 available after reserving 2: " + sm.getAvailableQuantity("BOOK001"));
+        sm.cancelSale(cancelledSale); // Releases the reservation
+        AppLog.info("BOOK001 available after cancel: " + sm.getAvailableQuantity("BOOK001"));
+        AppLog.info("Created and CANCELLED a sale: " + cancelledSale.getSaleID());
 
-        System.out.println("\nTotal sales in manager before explicit save: " + sm.getAllSales().size());
+        AppLog.info("\nTotal sales in manager before explicit save: " + sm.getAllSales().size());
         for(Sale s : sm.getAllSales()){
-            System.out.println("In Memory Sale: ID " + s.getSaleID() + ", Status " + s.getStatus());
+            AppLog.info("In Memory Sale: ID " + s.getSaleID() + ", Status " + s.getStatus());
         }
 
-        System.out.println("\nSimulating end of program: Saving sales data via SalesManager...");
+        AppLog.info("\nSimulating end of program: Saving sales data via SalesManager...");
         sm.saveSalesToFile();
         // After this, only completedSale and cancelledSale (and any previously loaded Completed/Cancelled sales) should be in the CSV.
         // pendingSale should not be.
 
-        System.out.println("\n--- Reloading SalesManager to verify what was saved ---");
-        SalesManager sm2 = new SalesManager(testInv); // This will load from CSV
-        System.out.println("Sales loaded by sm2 after save: " + sm2.getAllSales().size());
+        AppLog.info("\n--- Reloading SalesManager to verify what was saved ---");
+        SalesManager sm2 = new SalesManager(testInv); // This will load from the monthly partitions
+        AppLog.info("Sales loaded by sm2 after save: " + sm2.getAllSales().size());
         boolean pendingFound = false;
         boolean completedFound = false;
         boolean cancelledFound = false;
         for(Sale s : sm2.getAllSales()){
-            System.out.println("Reloaded Sale: ID " + s.getSaleID() + ", Status " + s.getStatus());
+            AppLog.info("Reloaded Sale: ID " + s.getSaleID() + ", Status " + s.getStatus());
             if(s.getSaleID().equals(pendingSale.getSaleID())) pendingFound = true;
             if(s.getSaleID().equals(completedSale.getSaleID())) completedFound = true;
             if(s.getSaleID().equals(cancelledSale.getSaleID())) cancelledFound = true;
         }
         if(pendingFound){
-            System.err.println("ERROR: PENDING sale was found in CSV after reload!");
+            AppLog.warn("ERROR: PENDING sale was found in CSV after reload!");
         } else {
-            System.out.println("SUCCESS: PENDING sale was NOT found in CSV after reload, as expected.");
+            AppLog.info("SUCCESS: PENDING sale was NOT found in CSV after reload, as expected.");
         }
         if(completedFound){
-            System.out.println("SUCCESS: COMPLETED sale was found in CSV after reload, as expected.");
+            AppLog.info("SUCCESS: COMPLETED sale was found in CSV after reload, as expected.");
         } else {
-            System.err.println("ERROR: COMPLETED sale was NOT found in CSV after reload!");
+            AppLog.warn("ERROR: COMPLETED sale was NOT found in CSV after reload!");
         }
         if(cancelledFound){
-            System.out.println("SUCCESS: CANCELLED sale was found in CSV after reload, as expected.");
+            AppLog.info("SUCCESS: CANCELLED sale was found in CSV after reload, as expected.");
         } else {
-            System.err.println("ERROR: CANCELLED sale was NOT found in CSV after reload!");
+            AppLog.warn("ERROR: CANCELLED sale was NOT found in CSV after reload!");
         }
 
-        System.out.println("\nSalesManager test finished.");
+        AppLog.info("\nSalesManager test finished.");
     }
 }
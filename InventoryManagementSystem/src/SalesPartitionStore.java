@@ -0,0 +1,486 @@
+// SalesPartitionStore.java
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Sales history on disk, one partition per calendar month of the sale date (local time), in data/sales/:
+ * <pre>
+ *   2025-03.sales.csv + 2025-03.sale_items.csv   hot month: same CSV layout as the old sales.csv / sale_items.csv
+ *   2024-11.cols.gz                              cold month: gzip'd columnar file (see writeCold)
+ * </pre>
+ * SalesManager keeps the hot months in memory and rewrites them on save. Months that fall out of the
+ * hot window are archived to the columnar format once and after that only read, when a query or a
+ * lookup touches them; the last few archived months read stay in a small LRU cache
+ * (-Dsales.coldCacheMonths, default 2). If a month exists in both forms (a crash while archiving),
+ * the CSV wins.
+ */
+public class SalesPartitionStore {
+
+    public static final String COLD_CACHE_PROPERTY = "sales.coldCacheMonths";
+    static final String SALES_CSV_HEADER = "SaleID,SaleDate,TotalAmount,Status";
+    static final String SALE_ITEMS_CSV_HEADER = "SaleID,ItemSKU,ItemName,QuantitySold,PriceAtSale";
+
+    private static final String SALES_SUFFIX = ".sales.csv";
+    private static final String ITEMS_SUFFIX = ".sale_items.csv";
+    private static final String COLD_SUFFIX = ".cols.gz";
+    private static final int COLD_MAGIC = 0x53414C43; // "SALC"
+    private static final int COLD_VERSION = 1;
+    private static final String CSV_SPLIT = ",(?=(?:[^\"]*\"[^\"]*\")*[^\"]*$)";
+
+    private final File directory;
+    private final int coldCacheMonths;
+    private final Map<YearMonth, List<Sale>> coldCache = new LinkedHashMap<>(16, 0.75f, true); // Access order: LRU first
+
+    public SalesPartitionStore(File directory) {
+        this.directory = directory;
+        this.coldCacheMonths = Math.max(0, Integer.getInteger(COLD_CACHE_PROPERTY, 2));
+        if (!directory.exists() && !directory.mkdirs()) {
+            AppLog.warn("Could not create sales partition directory: " + directory.getPath());
+        }
+    }
+
+    public File getDirectory() {
+        return directory;
+    }
+
+    /** Partition month of a sale: the calendar month of its date in the default time zone. */
+    public static YearMonth monthOf(Sale sale) {
+        return YearMonth.from(LocalDate.ofEpochDay(sale.getSaleEpochDay()));
+    }
+
+    File salesFile(YearMonth month) { return new File(directory, month + SALES_SUFFIX); }
+    File itemsFile(YearMonth month) { return new File(directory, month + ITEMS_SUFFIX); }
+    File coldFile(YearMonth month) { return new File(directory, month + COLD_SUFFIX); }
+
+    public boolean isHot(YearMonth month) {
+        return salesFile(month).exists();
+    }
+
+    public boolean isCold(YearMonth month) {
+        return !isHot(month) && coldFile(month).exists();
+    }
+
+    /** Months that have a partition on disk, oldest first. */
+    public NavigableSet<YearMonth> months() {
+        NavigableSet<YearMonth> months = new TreeSet<>();
+        String[] names = directory.list();
+        if (names == null) return months;
+        for (String name : names) {
+            String monthText = name.endsWith(SALES_SUFFIX) ? name.substring(0, name.length() - SALES_SUFFIX.length())
+                    : name.endsWith(COLD_SUFFIX) ? name.substring(0, name.length() - COLD_SUFFIX.length()) : null;
+            if (monthText == null) continue;
+            try {
+                months.add(YearMonth.parse(monthText));
+            } catch (DateTimeParseException e) {
+                AppLog.warn("Ignoring unexpected file in " + directory.getPath() + ": " + name);
+            }
+        }
+        return months;
+    }
+
+    /**
+     * Reads one month, hot or cold, into the map (sale ID -> sale). Totals are not recalculated.
+     * @return number of sales read
+     */
+    public int readInto(YearMonth month, Map<String, Sale> into) {
+        if (isHot(month)) {
+            int count = readSalesCsv(salesFile(month), into);
+            readSaleItemsCsv(itemsFile(month), into);
+            return count;
+        }
+        if (!coldFile(month).exists()) return 0;
+        try {
+            List<Sale> sales = readCold(coldFile(month));
+            for (Sale sale : sales) {
+                into.put(sale.getSaleID(), sale);
+            }
+            return sales.size();
+        } catch (IOException e) {
+            AppLog.error("Error reading archived sales partition " + coldFile(month).getPath() + ": " + e.getMessage(), e);
+            return 0;
+        }
+    }
+
+    /**
+     * Sales of a month that is not held by SalesManager, read from disk or from the LRU cache.
+     * The list and its sales are shared between callers and must not be modified.
+     */
+    public synchronized List<Sale> readArchived(YearMonth month) {
+        List<Sale> cached = coldCache.get(month);
+        if (cached != null) {
+            MetricsRegistry.counter("sales.archive.cacheHits").increment();
+            return cached;
+        }
+        long startNanos = System.nanoTime();
+        AppEvents.FileIoEvent event = new AppEvents.FileIoEvent("load", "sales archive " + month);
+        event.begin();
+        Map<String, Sale> loaded = new LinkedHashMap<>();
+        try {
+            readInto(month, loaded);
+            for (Sale sale : loaded.values()) {
+                if (sale.getItemCount() > 0) sale.refreshTotalAmountFromItems();
+            }
+        } finally {
+            MetricsRegistry.histogram("file.load.salesArchive").recordSince(startNanos);
+            event.finish(loaded.size(), isHot(month) ? salesFile(month).getPath() : coldFile(month).getPath());
+        }
+        List<Sale> sales = Collections.unmodifiableList(new ArrayList<>(loaded.values()));
+        if (coldCacheMonths > 0) {
+            coldCache.put(month, sales);
+            while (coldCache.size() > coldCacheMonths) {
+                coldCache.remove(coldCache.keySet().iterator().next());
+            }
+        }
+        return sales;
+    }
+
+    /**
+     * Looks an archived sale up by ID. IDs made by {@link IdGenerator} carry their creation time, so the
+     * month of the ID and the one after it (for sales finalized across a month end) are tried first;
+     * other IDs mean reading the archived months newest first until it is found.
+     * @param before only months before this one are searched (the later ones are in memory)
+     */
+    public Sale findArchived(String saleId, YearMonth before) {
+        NavigableSet<YearMonth> candidates = months().headSet(before, false);
+        YearMonth fromId = monthFromId(saleId);
+        if (fromId != null) {
+            for (YearMonth month : new YearMonth[]{fromId, fromId.plusMonths(1)}) {
+                if (!candidates.remove(month)) continue;
+                Sale sale = findIn(month, saleId);
+                if (sale != null) return sale;
+            }
+        }
+        for (YearMonth month : candidates.descendingSet()) {
+            Sale sale = findIn(month, saleId);
+            if (sale != null) return sale;
+        }
+        return null;
+    }
+
+    private Sale findIn(YearMonth month, String saleId) {
+        for (Sale sale : readArchived(month)) {
+            if (saleId.equals(sale.getSaleID())) return sale;
+        }
+        return null;
+    }
+
+    // "SALE-20250314093015-01002A" -> 2025-03; null if the ID does not start with PREFIX-yyyyMM
+    static YearMonth monthFromId(String saleId) {
+        int dash = saleId.indexOf('-');
+        if (dash < 0 || saleId.length() < dash + 7) return null;
+        for (int i = dash + 1; i < dash + 7; i++) {
+            if (!Character.isDigit(saleId.charAt(i))) return null;
+        }
+        int year = Integer.parseInt(saleId.substring(dash + 1, dash + 5));
+        int month = Integer.parseInt(saleId.substring(dash + 5, dash + 7));
+        return (month >= 1 && month <= 12) ? YearMonth.of(year, month) : null;
+    }
+
+    /** Writes a month as a hot CSV partition and removes its archived form, if any. */
+    public synchronized void writeHot(YearMonth month, Collection<Sale> sales) throws IOException {
+        File salesTmp = new File(directory, month + SALES_SUFFIX + ".tmp");
+        File itemsTmp = new File(directory, month + ITEMS_SUFFIX + ".tmp");
+        writeSalesCsv(salesTmp, sales);
+        writeSaleItemsCsv(itemsTmp, sales);
+        // Items first: a month is hot once its sales file exists
+        Files.move(itemsTmp.toPath(), itemsFile(month).toPath(), StandardCopyOption.REPLACE_EXISTING);
+        Files.move(salesTmp.toPath(), salesFile(month).toPath(), StandardCopyOption.REPLACE_EXISTING);
+        Files.deleteIfExists(coldFile(month).toPath());
+        coldCache.remove(month);
+    }
+
+    /**
+     * Writes a month as a cold partition and then removes its CSV files. Layout (all inside one gzip stream):
+     * magic, version, sale count n, item count m, string dictionary (statuses, SKUs, item names),
+     * then one column after the other: n sale IDs, n date deltas (first one from 0), n totals,
+     * n status indexes, n item counts, m SKU indexes, m name indexes, m quantities, m prices.
+     * Sales are sorted by date, so the date deltas are small and compress well.
+     */
+    public synchronized void writeCold(YearMonth month, Collection<Sale> sales) throws IOException {
+        List<Sale> sorted = new ArrayList<>(sales);
+        sorted.sort(Comparator.comparingLong(Sale::getSaleDateMillis).thenComparing(Sale::getSaleID));
+        Map<String, Integer> dictionary = new LinkedHashMap<>();
+        int itemCount = 0;
+        for (Sale sale : sorted) {
+            dictionary.putIfAbsent(nonNull(sale.getStatus()), dictionary.size());
+            for (Sale.SaleItem si : sale.getItemsSoldView()) {
+                dictionary.putIfAbsent(nonNull(si.getSku()), dictionary.size());
+                dictionary.putIfAbsent(nonNull(si.getItemName()), dictionary.size());
+                itemCount++;
+            }
+        }
+
+        File tmp = new File(directory, month + COLD_SUFFIX + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                new GZIPOutputStream(new FileOutputStream(tmp), 1 << 16), 1 << 16))) {
+            out.writeInt(COLD_MAGIC);
+            out.writeInt(COLD_VERSION);
+            out.writeInt(sorted.size());
+            out.writeInt(itemCount);
+            out.writeInt(dictionary.size());
+            for (String value : dictionary.keySet()) out.writeUTF(value);
+            for (Sale sale : sorted) out.writeUTF(sale.getSaleID());
+            long previousMillis = 0;
+            for (Sale sale : sorted) {
+                out.writeLong(sale.getSaleDateMillis() - previousMillis);
+                previousMillis = sale.getSaleDateMillis();
+            }
+            for (Sale sale : sorted) out.writeDouble(sale.getTotalAmount());
+            for (Sale sale : sorted) out.writeInt(dictionary.get(nonNull(sale.getStatus())));
+            for (Sale sale : sorted) out.writeInt(sale.getItemCount());
+            for (Sale sale : sorted) for (Sale.SaleItem si : sale.getItemsSoldView()) out.writeInt(dictionary.get(nonNull(si.getSku())));
+            for (Sale sale : sorted) for (Sale.SaleItem si : sale.getItemsSoldView()) out.writeInt(dictionary.get(nonNull(si.getItemName())));
+            for (Sale sale : sorted) for (Sale.SaleItem si : sale.getItemsSoldView()) out.writeInt(si.getQuantitySold());
+            for (Sale sale : sorted) for (Sale.SaleItem si : sale.getItemsSoldView()) out.writeDouble(si.getPriceAtSale());
+        }
+        Files.move(tmp.toPath(), coldFile(month).toPath(), StandardCopyOption.REPLACE_EXISTING);
+        // Sales file first: without it the month is read from the cold file
+        Files.deleteIfExists(salesFile(month).toPath());
+        Files.deleteIfExists(itemsFile(month).toPath());
+        coldCache.remove(month);
+    }
+
+    private static List<Sale> readCold(File file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                new GZIPInputStream(new FileInputStream(file), 1 << 16), 1 << 16))) {
+            if (in.readInt() != COLD_MAGIC || in.readInt() != COLD_VERSION) {
+                throw new IOException("Not a sales archive (or unsupported version): " + file.getName());
+            }
+            int saleCount = in.readInt();
+            int itemCount = in.readInt();
+            String[] dictionary = new String[in.readInt()];
+            for (int i = 0; i < dictionary.length; i++) dictionary[i] = in.readUTF();
+
+            String[] ids = new String[saleCount];
+            for (int i = 0; i < saleCount; i++) ids[i] = in.readUTF();
+            long[] millis = new long[saleCount];
+            long previousMillis = 0;
+            for (int i = 0; i < saleCount; i++) {
+                previousMillis += in.readLong();
+                millis[i] = previousMillis;
+            }
+            double[] totals = new double[saleCount];
+            for (int i = 0; i < saleCount; i++) totals[i] = in.readDouble();
+            int[] statuses = new int[saleCount];
+            for (int i = 0; i < saleCount; i++) statuses[i] = in.readInt();
+            int[] itemCounts = new int[saleCount];
+            for (int i = 0; i < saleCount; i++) itemCounts[i] = in.readInt();
+            int[] skus = new int[itemCount];
+            for (int i = 0; i < itemCount; i++) skus[i] = in.readInt();
+            int[] names = new int[itemCount];
+            for (int i = 0; i < itemCount; i++) names[i] = in.readInt();
+            int[] quantities = new int[itemCount];
+            for (int i = 0; i < itemCount; i++) quantities[i] = in.readInt();
+            double[] prices = new double[itemCount];
+            for (int i = 0; i < itemCount; i++) prices[i] = in.readDouble();
+
+            List<Sale> sales = new ArrayList<>(saleCount);
+            int item = 0;
+            for (int i = 0; i < saleCount; i++) {
+                Sale sale = new Sale(ids[i], millis[i], totals[i], dictionary[statuses[i]]);
+                for (int j = 0; j < itemCounts[i]; j++, item++) {
+                    sale.addLoadedSaleItem(new Sale.SaleItem(dictionary[skus[item]], dictionary[names[item]], quantities[item], prices[item]));
+                }
+                sales.add(sale);
+            }
+            return sales;
+        }
+    }
+
+    /**
+     * Converts hot partitions of months before firstHot to the cold format.
+     * @return number of months archived
+     */
+    public int archiveBefore(YearMonth firstHot) {
+        int archived = 0;
+        for (YearMonth month : months().headSet(firstHot, false)) {
+            if (!isHot(month)) continue;
+            Map<String, Sale> sales = new LinkedHashMap<>();
+            readInto(month, sales);
+            try {
+                writeCold(month, sales.values());
+                archived++;
+                AppLog.info("Archived sales partition " + month + " (" + sales.size() + " sales) to " + coldFile(month).getPath());
+            } catch (IOException e) {
+                AppLog.error("Error archiving sales partition " + month + ": " + e.getMessage(), e);
+            }
+        }
+        return archived;
+    }
+
+    /**
+     * Splits the old single-file sales.csv / sale_items.csv into monthly hot partitions (merged with any
+     * partition that already exists) and renames the old files to *.migrated.
+     * @return number of sales migrated
+     */
+    public int migrateLegacy(File legacySalesFile, File legacyItemsFile) {
+        Map<String, Sale> legacy = new LinkedHashMap<>();
+        readSalesCsv(legacySalesFile, legacy);
+        if (legacyItemsFile.exists()) readSaleItemsCsv(legacyItemsFile, legacy);
+        Map<YearMonth, List<Sale>> byMonth = new TreeMap<>();
+        for (Sale sale : legacy.values()) {
+            byMonth.computeIfAbsent(monthOf(sale), m -> new ArrayList<>()).add(sale);
+        }
+        for (Map.Entry<YearMonth, List<Sale>> entry : byMonth.entrySet()) {
+            Map<String, Sale> merged = new LinkedHashMap<>();
+            readInto(entry.getKey(), merged);
+            for (Sale sale : entry.getValue()) merged.put(sale.getSaleID(), sale);
+            try {
+                writeHot(entry.getKey(), merged.values());
+            } catch (IOException e) {
+                AppLog.error("Error migrating sales of " + entry.getKey() + ", keeping " + legacySalesFile.getPath() + ": " + e.getMessage(), e);
+                return 0;
+            }
+        }
+        renameMigrated(legacySalesFile);
+        renameMigrated(legacyItemsFile);
+        AppLog.info("Migrated " + legacy.size() + " sales from " + legacySalesFile.getPath() + " into " + byMonth.size() + " monthly partitions in " + directory.getPath());
+        return legacy.size();
+    }
+
+    private static void renameMigrated(File file) {
+        if (file.exists() && !file.renameTo(new File(file.getPath() + ".migrated"))) {
+            AppLog.warn("Could not rename " + file.getPath() + " after migrating it");
+        }
+    }
+
+    // ---- CSV partitions (same format as the old sales.csv / sale_items.csv) ----
+
+    /** Reads sale headers; only Completed and Cancelled sales are kept. Returns the number of sales read. */
+    static int readSalesCsv(File salesFile, Map<String, Sale> into) {
+        int count = 0;
+        try (BufferedReader br = new BufferedReader(new FileReader(salesFile))) {
+            String line = br.readLine();
+            if (line == null || !line.trim().equalsIgnoreCase(SALES_CSV_HEADER)) {
+                AppLog.warn("Warning: " + salesFile.getName() + " header mismatch or file empty. Expected: " + SALES_CSV_HEADER + ". Got: " + (line != null ? line.trim() : "null"));
+                return 0;
+            }
+            while ((line = br.readLine()) != null) {
+                if (line.trim().isEmpty() || line.startsWith("#")) continue;
+                String[] parts = line.split(CSV_SPLIT, -1);
+                if (parts.length < 4) {
+                    AppLog.warn("Skipping invalid line in " + salesFile.getName() + " (not enough parts): " + line); continue;
+                }
+                try {
+                    String saleID = Sale.unescapeCsv(parts[0]);
+                    long saleDate = Timestamps.parseIso(Sale.unescapeCsv(parts[1]));
+                    double totalAmount = Double.parseDouble(Sale.unescapeCsv(parts[2]));
+                    String status = Sale.unescapeCsv(parts[3]);
+                    if (saleDate == Timestamps.INVALID) {
+                        AppLog.warn("Skipping sale " + saleID + " due to invalid date in " + salesFile.getName() + ": " + line); continue;
+                    }
+                    // Only load Completed or Cancelled sales from file. Pending sales should not be in the file.
+                    if (Sale.STATUS_COMPLETED.equals(status) || Sale.STATUS_CANCELLED.equals(status)) {
+                        into.put(saleID, new Sale(saleID, saleDate, totalAmount, status));
+                        count++;
+                    } else {
+                        AppLog.debug("SalesManager Load: Skipping sale " + saleID + " with status '" + status + "' from " + salesFile.getName() + ". Only loading Completed or Cancelled.");
+                    }
+                } catch (NumberFormatException e) {
+                    AppLog.error("Error parsing numeric value from " + salesFile.getName() + " line: '" + line + "' - " + e.getMessage());
+                } catch (Exception e) {
+                    AppLog.error("Error processing line from " + salesFile.getName() + ": '" + line + "' - " + e.getMessage());
+                }
+            }
+        } catch (IOException e) {
+            AppLog.error("Error loading sales from " + salesFile.getPath() + ": " + e.getMessage());
+        }
+        return count;
+    }
+
+    /** Adds sale lines to the sales already in the map; lines of other sales are ignored. Returns the lines added. */
+    static int readSaleItemsCsv(File itemsFile, Map<String, Sale> sales) {
+        if (sales.isEmpty()) return 0;
+        if (!itemsFile.exists()) {
+            AppLog.info(itemsFile.getPath() + " not found, but some sales headers were loaded. Sale items might be missing for them.");
+            return 0;
+        }
+        int count = 0;
+        try (BufferedReader br = new BufferedReader(new FileReader(itemsFile))) {
+            String line = br.readLine();
+            if (line == null || !line.trim().equalsIgnoreCase(SALE_ITEMS_CSV_HEADER)) {
+                AppLog.warn("Warning: " + itemsFile.getName() + " header mismatch or file empty. Expected: " + SALE_ITEMS_CSV_HEADER + ". Got: " + (line != null ? line.trim() : "null"));
+                return 0;
+            }
+            while ((line = br.readLine()) != null) {
+                if (line.trim().isEmpty() || line.startsWith("#")) continue;
+                String[] parts = line.split(CSV_SPLIT, -1);
+                if (parts.length < 5) {
+                    AppLog.warn("Skipping invalid line in " + itemsFile.getName() + " (not enough parts): " + line); continue;
+                }
+                try {
+                    Sale targetSale = sales.get(Sale.unescapeCsv(parts[0])); // Will only be non-null if sale was Completed/Cancelled
+                    if (targetSale != null) {
+                        String[] itemParts = new String[parts.length - 1];
+                        System.arraycopy(parts, 1, itemParts, 0, parts.length - 1);
+                        Sale.SaleItem saleItem = Sale.SaleItem.fromCsvString(itemParts);
+                        if (saleItem != null) {
+                            targetSale.addLoadedSaleItem(saleItem);
+                            count++;
+                        }
+                    }
+                } catch (Exception e) {
+                    AppLog.error("Error processing line from " + itemsFile.getName() + ": '" + line + "' - " + e.getMessage());
+                }
+            }
+        } catch (IOException e) {
+            AppLog.error("Error loading sale items from " + itemsFile.getPath() + ": " + e.getMessage());
+        }
+        return count;
+    }
+
+    private static void writeSalesCsv(File file, Collection<Sale> sales) throws IOException {
+        try (PrintWriter out = new PrintWriter(new BufferedWriter(new FileWriter(file)))) {
+            out.println(SALES_CSV_HEADER);
+            for (Sale sale : sales) {
+                out.println(sale.toSaleCsvString());
+            }
+            if (out.checkError()) throw new IOException("Write failed: " + file.getPath());
+        }
+    }
+
+    private static void writeSaleItemsCsv(File file, Collection<Sale> sales) throws IOException {
+        try (PrintWriter out = new PrintWriter(new BufferedWriter(new FileWriter(file)))) {
+            out.println(SALE_ITEMS_CSV_HEADER);
+            for (Sale sale : sales) {
+                String escapedId = Sale.escapeCsv(sale.getSaleID());
+                for (Sale.SaleItem si : sale.getItemsSoldView()) {
+                    out.println(escapedId + "," + si.toCsvString());
+                }
+            }
+            if (out.checkError()) throw new IOException("Write failed: " + file.getPath());
+        }
+    }
+
+    private static String nonNull(String value) {
+        return value == null ? "" : value;
+    }
+}
@@ -1,34 +1,37 @@
 // SalesReturn.java
 import java.text.DecimalFormat;
 import java.text.DecimalFormatSymbols;
-import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
 import java.util.List;
 import java.util.Locale;
-import java.util.UUID;
-import java.time.Instant;
-import java.time.format.DateTimeFormatter;
-import java.time.ZoneOffset;
-import java.text.ParseException;
+import java.util.function.Consumer;
 
 
 public class SalesReturn {
     private String returnID;
     private String originalSaleID; // 关联的原始销售单ID
-    private Date returnDate;
+    private long returnDateMillis; // 纪元毫秒；只在调用方需要时才创建 Date 对象
+    private long returnEpochDay;   // returnDateMillis 对应的本地日期（自 1970-01-01 起的天数）
     private List<SalesReturnItem> returnedItems;
+    private List<SalesReturnItem> returnedItemsView; // returnedItems 的只读视图，只创建一次
     private double totalRefundAmount;
     private String status; // 例如: "Pending", "Approved_Resellable", "Approved_Damaged", "Completed_Refunded", "Rejected"
     private String customerNotes; // 客户备注或退货处理备注
+    private transient StatusChangeListener statusListener; // 由 SalesReturnManager 设置，用于维护状态索引
 
     public static final String STATUS_PENDING = "Pending"; // 等待处理
     public static final String STATUS_APPROVED = "Approved"; // 退货已批准 (后续可能细化为可再销售或损坏)
     public static final String STATUS_COMPLETED = "Completed"; // 退货处理完成 (例如已退款，库存已更新)
     public static final String STATUS_REJECTED = "Rejected"; // 退货被拒绝
 
-    private static final DateTimeFormatter CSV_DATE_FORMATTER = DateTimeFormatter.ISO_INSTANT; // UTC for persistence
-    private static final SimpleDateFormat DISPLAY_DATE_FORMAT = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+    /**
+     * Notified whenever {@link #setStatus(String)} changes a return's status.
+     */
+    public interface StatusChangeListener {
+        void onStatusChanged(SalesReturn salesReturn, String oldStatus, String newStatus);
+    }
 
     // 新建退货单
     public SalesReturn(String originalSaleID) {
@@ -37,8 +40,9 @@ public class SalesReturn {
         }
         this.returnID = generateReturnID();
         this.originalSaleID = originalSaleID;
-        this.returnDate = new Date();
+        setReturnDateMillis(System.currentTimeMillis());
         this.returnedItems = new ArrayList<>();
+        this.returnedItemsView = Collections.unmodifiableList(this.returnedItems);
         this.status = STATUS_PENDING;
         this.totalRefundAmount = 0.0;
         this.customerNotes = "";
@@ -46,10 +50,15 @@ public class SalesReturn {
 
     // 从CSV加载时使用的构造函数
     public SalesReturn(String returnID, String originalSaleID, Date returnDate, double totalRefundAmount, String status, String customerNotes) {
+        this(returnID, originalSaleID, returnDate.getTime(), totalRefundAmount, status, customerNotes);
+    }
+
+    public SalesReturn(String returnID, String originalSaleID, long returnDateMillis, double totalRefundAmount, String status, String customerNotes) {
         this.returnID = returnID;
         this.originalSaleID = originalSaleID;
-        this.returnDate = returnDate;
-        this.returnedItems = new ArrayList<>(); // 退货项将单独加载
+        setReturnDateMillis(returnDateMillis);
+        this.returnedItems = new ArrayList<>();
+        this.returnedItemsView = Collections.unmodifiableList(this.returnedItems); // 退货项将单独加载
         this.totalRefundAmount = totalRefundAmount; // 这是CSV中存储的总额，之后会根据项重新计算
         this.status = status;
         this.customerNotes = customerNotes;
@@ -57,16 +66,28 @@ public class SalesReturn {
 
 
     private String generateReturnID() {
-        SimpleDateFormat sdfDate = new SimpleDateFormat("yyyyMMddHHmmss");
-        return "RTN-" + sdfDate.format(new Date()) + "-" + UUID.randomUUID().toString().substring(0, 4).toUpperCase();
+        return IdGenerator.SALES_RETURNS.nextId();
+    }
+
+    private void setReturnDateMillis(long millis) {
+        this.returnDateMillis = millis;
+        this.returnEpochDay = Timestamps.localEpochDay(millis);
     }
 
     // Getters
     public String getReturnID() { return returnID; }
     public String getOriginalSaleID() { return originalSaleID; }
-    public Date getReturnDate() { return returnDate; }
-    public String getReturnDateString() { return DISPLAY_DATE_FORMAT.format(this.returnDate); }
+    public Date getReturnDate() { return new Date(returnDateMillis); } // 返回副本；优先使用 getReturnDateMillis()
+    public long getReturnDateMillis() { return returnDateMillis; }
+    public long getReturnEpochDay() { return returnEpochDay; }
+    public String getReturnDateString() { return Timestamps.formatDisplay(returnDateMillis); }
     public List<SalesReturnItem> getReturnedItems() { return new ArrayList<>(returnedItems); } // 返回副本
+    public List<SalesReturnItem> getReturnedItemsView() { return returnedItemsView; } // 只读视图，不复制
+    public void forEachReturnedItem(Consumer<? super SalesReturnItem> visitor) {
+        for (int i = 0; i < returnedItems.size(); i++) { // 按下标遍历，不创建迭代器
+            visitor.accept(returnedItems.get(i));
+        }
+    }
     public double getTotalRefundAmount() {
         calculateTotalRefundAmount(); // 确保总是最新的
         return totalRefundAmount;
@@ -75,7 +96,14 @@ public class SalesReturn {
     public String getCustomerNotes() { return customerNotes; }
 
     // Setters
-    public void setStatus(String status) { this.status = status; }
+    public void setStatus(String status) {
+        String oldStatus = this.status;
+        this.status = status;
+        if (statusListener != null && (oldStatus == null || !oldStatus.equals(status))) {
+            statusListener.onStatusChanged(this, oldStatus, status);
+        }
+    }
+    public void setStatusChangeListener(StatusChangeListener listener) { this.statusListener = listener; }
     public void setCustomerNotes(String customerNotes) { this.customerNotes = customerNotes; }
     public void setOriginalSaleID(String originalSaleID) { this.originalSaleID = originalSaleID; }
 
@@ -113,7 +141,7 @@ public class SalesReturn {
     // returnID,originalSaleID,returnDate,totalRefundAmount,status,customerNotes
     public String toSalesReturnCsvString() {
         DecimalFormat df = new DecimalFormat("0.00", new DecimalFormatSymbols(Locale.US));
-        String isoReturnDate = CSV_DATE_FORMATTER.format(this.returnDate.toInstant().atZone(ZoneOffset.UTC));
+        String isoReturnDate = Timestamps.formatIso(returnDateMillis);
         return String.join(",",
                 escapeCsv(returnID),
                 escapeCsv(originalSaleID),
@@ -125,20 +153,9 @@ public class SalesReturn {
     }
 
     public static Date parseIsoDateString(String dateString) {
-        // (与Order.java中的方法相同，可以提取到公共工具类)
         if (dateString == null || dateString.trim().isEmpty()) return null;
-        try {
-            return Date.from(Instant.parse(dateString.trim()));
-        } catch (Exception e) {
-            System.err.println("Error parsing ISO date string for SalesReturn: '" + dateString + "' - " + e.getMessage());
-            try { // Fallback for older Date.toString() format or other common formats
-                SimpleDateFormat legacySdf = new SimpleDateFormat("EEE MMM dd HH:mm:ss zzz yyyy", Locale.ENGLISH);
-                return legacySdf.parse(dateString.trim());
-            } catch (ParseException pe) {
-                System.err.println("Error parsing legacy/common date string for SalesReturn after ISO fail: '" + dateString + "' - " + pe.getMessage());
-                return null;
-            }
-        }
+        long millis = Timestamps.parseIso(dateString.trim());
+        return millis == Timestamps.INVALID ? null : new Date(millis);
     }
 
     // CSV Helper methods (可以提取到公共工具类)
@@ -183,7 +200,7 @@ public class SalesReturn {
 
     public static void main(String[] args) {
         SalesReturn sr = new SalesReturn("SALE-20250101-TEST1");
-        System.out.println("Created Sales Return: " + sr.getReturnID());
+        AppLog.info("Created Sales Return: " + sr.getReturnID());
 
         SalesReturnItem item1 = new SalesReturnItem("SKU001", "Laptop", 1, 1200.00, SalesReturnItem.CONDITION_RESELLABLE, "Customer changed mind");
         SalesReturnItem item2 = new SalesReturnItem("SKU002", "Mouse", 1, 25.00, SalesReturnItem.CONDITION_DAMAGED, "Box crushed");
@@ -192,10 +209,10 @@ public class SalesReturn {
         sr.setCustomerNotes("Customer requested full refund.");
         sr.setStatus(SalesReturn.STATUS_APPROVED);
 
-        System.out.println(sr.getReturnDetails());
-        System.out.println("SalesReturn CSV: " + sr.toSalesReturnCsvString());
+        AppLog.info(sr.getReturnDetails());
+        AppLog.info("SalesReturn CSV: " + sr.toSalesReturnCsvString());
         for(SalesReturnItem sri : sr.getReturnedItems()){
-            System.out.println("SalesReturnItem CSV for Return " + sr.getReturnID() + ": " + sri.toCsvString());
+            AppLog.info("SalesReturnItem CSV for Return " + sr.getReturnID() + ": " + sri.toCsvString());
         }
     }
 }
@@ -63,7 +63,7 @@ public class SalesReturnItem {
 
     public static SalesReturnItem fromCsvParts(String[] parts) { // parts不包含returnID
         if (parts.length < 6) {
-            System.err.println("Invalid CSV parts for SalesReturnItem: not enough parts. Expected 6, Got " + parts.length);
+            AppLog.warn("Invalid CSV parts for SalesReturnItem: not enough parts. Expected 6, Got " + parts.length);
             return null;
         }
         try {
@@ -75,10 +75,10 @@ public class SalesReturnItem {
             String reason = SalesReturn.unescapeCsv(parts[5]);
             return new SalesReturnItem(sku, name, qty, price, condition, reason);
         } catch (NumberFormatException e) {
-            System.err.println("Error parsing numeric value for SalesReturnItem from CSV: " + e.getMessage());
+            AppLog.error("Error parsing numeric value for SalesReturnItem from CSV: " + e.getMessage());
             return null;
         } catch (IllegalArgumentException e) {
-            System.err.println("Error creating SalesReturnItem from CSV due to invalid arguments: " + e.getMessage());
+            AppLog.error("Error creating SalesReturnItem from CSV due to invalid arguments: " + e.getMessage());
             return null;
         }
     }
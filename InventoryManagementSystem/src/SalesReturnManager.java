@@ -1,15 +1,21 @@
 // SalesReturnManager.java
 import java.io.*;
 import java.util.ArrayList;
-import java.util.Date;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.function.Consumer;
 
-public class SalesReturnManager {
+public class SalesReturnManager implements SalesReturn.StatusChangeListener {
     private List<SalesReturn> salesReturnList;
+    private List<SalesReturn> salesReturnListView; // salesReturnList 的只读视图，只创建一次
+    // 与 salesReturnList 同步维护的索引，避免按ID或状态查找时全表扫描
+    private Map<String, SalesReturn> returnsById;
+    private Map<String, Map<String, SalesReturn>> returnsByStatus; // status (lower case) -> returnID -> return
     private Inventory inventory; // To update stock
     private SalesManager salesManager; // To find original sales
 
@@ -25,31 +31,48 @@ public class SalesReturnManager {
         this.inventory = inventory;
         this.salesManager = salesManager;
         this.salesReturnList = new ArrayList<>();
+        this.salesReturnListView = Collections.unmodifiableList(this.salesReturnList);
+        this.returnsById = new HashMap<>();
+        this.returnsByStatus = new HashMap<>();
         loadSalesReturnsFromFile();
     }
 
     public SalesReturn createNewSalesReturn(String originalSaleID) {
         Optional<Sale> originalSaleOpt = salesManager.getSaleById(originalSaleID);
         if (originalSaleOpt.isEmpty()) {
-            System.err.println("Cannot create return: Original Sale ID '" + originalSaleID + "' not found.");
+            AppLog.warn("Cannot create return: Original Sale ID '" + originalSaleID + "' not found.");
             return null;
         }
         // Further checks: is the sale completed?
         Sale originalSale = originalSaleOpt.get();
         if (!Sale.STATUS_COMPLETED.equals(originalSale.getStatus())) {
-            System.err.println("Cannot create return: Original Sale ID '" + originalSaleID + "' is not completed. Status: " + originalSale.getStatus());
+            AppLog.warn("Cannot create return: Original Sale ID '" + originalSaleID + "' is not completed. Status: " + originalSale.getStatus());
             return null;
         }
 
 
         SalesReturn newReturn = new SalesReturn(originalSaleID);
-        this.salesReturnList.add(newReturn);
-        System.out.println("New Sales Return created: " + newReturn.getReturnID() + " for Original Sale: " + originalSaleID);
+        addToIndexes(newReturn);
+        AppLog.info("New Sales Return created: " + newReturn.getReturnID() + " for Original Sale: " + originalSaleID);
         return newReturn;
     }
 
     public Optional<SalesReturn> getSalesReturnById(String returnId) {
-        return salesReturnList.stream().filter(sr -> sr.getReturnID().equals(returnId)).findFirst();
+        if (returnId == null) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(returnsById.get(returnId));
+    }
+
+    // 只读视图，不复制；之后新增的退货单也会反映出来
+    public List<SalesReturn> getAllSalesReturnsView() {
+        return salesReturnListView;
+    }
+
+    public void forEachSalesReturn(Consumer<? super SalesReturn> visitor) {
+        for (int i = 0; i < salesReturnList.size(); i++) {
+            visitor.accept(salesReturnList.get(i));
+        }
     }
 
     public List<SalesReturn> getAllSalesReturns() {
@@ -57,43 +80,105 @@ public class SalesReturnManager {
     }
 
     public List<SalesReturn> getSalesReturnsByStatus(String status) {
-        return salesReturnList.stream()
-                .filter(sr -> sr.getStatus().equalsIgnoreCase(status))
-                .collect(Collectors.toList());
+        if (status == null) {
+            return new ArrayList<>();
+        }
+        Map<String, SalesReturn> bucket = returnsByStatus.get(statusKey(status));
+        return bucket == null ? new ArrayList<>() : new ArrayList<>(bucket.values());
+    }
+
+    @Override
+    public void onStatusChanged(SalesReturn salesReturn, String oldStatus, String newStatus) {
+        if (returnsById.get(salesReturn.getReturnID()) != salesReturn) {
+            return; // 不是本管理器维护的对象
+        }
+        removeFromStatusBucket(salesReturn, oldStatus);
+        addToStatusBucket(salesReturn, newStatus);
+    }
+
+    private void addToIndexes(SalesReturn salesReturn) {
+        this.salesReturnList.add(salesReturn);
+        this.returnsById.put(salesReturn.getReturnID(), salesReturn);
+        addToStatusBucket(salesReturn, salesReturn.getStatus());
+        salesReturn.setStatusChangeListener(this);
+    }
+
+    private void addToStatusBucket(SalesReturn salesReturn, String status) {
+        if (status == null) return;
+        returnsByStatus.computeIfAbsent(statusKey(status), k -> new LinkedHashMap<>()).put(salesReturn.getReturnID(), salesReturn);
+    }
+
+    private void removeFromStatusBucket(SalesReturn salesReturn, String status) {
+        if (status == null) return;
+        Map<String, SalesReturn> bucket = returnsByStatus.get(statusKey(status));
+        if (bucket != null) {
+            bucket.remove(salesReturn.getReturnID());
+            if (bucket.isEmpty()) {
+                returnsByStatus.remove(statusKey(status));
+            }
+        }
+    }
+
+    private static String statusKey(String status) {
+        return status.toLowerCase(Locale.ROOT);
     }
 
     public boolean processReturnInventoryUpdate(SalesReturn salesReturn) {
+        long startNanos = System.nanoTime();
+        AppEvents.ReturnProcessedEvent event = new AppEvents.ReturnProcessedEvent();
+        event.begin();
+        boolean success = false;
+        try {
+            success = doProcessReturnInventoryUpdate(salesReturn);
+            return success;
+        } finally {
+            MetricsRegistry.histogram("return.process").recordSince(startNanos);
+            if (!success) MetricsRegistry.counter("return.process.failures").increment();
+            event.end();
+            if (event.shouldCommit()) {
+                event.returnId = salesReturn != null ? salesReturn.getReturnID() : null;
+                event.lineCount = salesReturn != null ? salesReturn.getReturnedItemsView().size() : 0;
+                event.success = success;
+                event.commit();
+            }
+        }
+    }
+
+    private boolean doProcessReturnInventoryUpdate(SalesReturn salesReturn) {
         if (salesReturn == null || !salesReturn.getStatus().equals(SalesReturn.STATUS_APPROVED)) {
-            System.err.println("Return cannot be processed or is not in an approvable state for inventory update. SR_ID: " + (salesReturn != null ? salesReturn.getReturnID() : "null"));
+            AppLog.warn("Return cannot be processed or is not in an approvable state for inventory update. SR_ID: " + (salesReturn != null ? salesReturn.getReturnID() : "null"));
             return false;
         }
 
-        System.out.println("Processing inventory update for Sales Return: " + salesReturn.getReturnID());
+        AppLog.info("Processing inventory update for Sales Return: " + salesReturn.getReturnID());
         boolean allItemsProcessedSuccessfully = true;
 
-        for (SalesReturnItem sri : salesReturn.getReturnedItems()) {
+        for (SalesReturnItem sri : salesReturn.getReturnedItemsView()) {
             Item inventoryItem = inventory.getItem(sri.getItemSKU());
             if (inventoryItem == null) {
-                System.err.println("  Error: Item SKU '" + sri.getItemSKU() + "' not found in inventory. Cannot update stock for this item.");
+                AppLog.error("  Error: Item SKU '" + sri.getItemSKU() + "' not found in inventory. Cannot update stock for this item.");
                 allItemsProcessedSuccessfully = false;
                 continue;
             }
 
             if (SalesReturnItem.CONDITION_RESELLABLE.equalsIgnoreCase(sri.getCondition())) {
-                inventoryItem.updateQuantity(sri.getReturnedQuantity());
-                System.out.println("  SKU " + sri.getItemSKU() + ": +" + sri.getReturnedQuantity() + " (Resellable). New Qty: " + inventoryItem.getQuantity());
+                if (!inventory.adjustQuantity(sri.getItemSKU(), sri.getReturnedQuantity(), "RETURN " + salesReturn.getReturnID())) {
+                    allItemsProcessedSuccessfully = false;
+                    continue;
+                }
+                if (AppLog.isDebugEnabled()) AppLog.debug("  SKU " + sri.getItemSKU() + ": +" + sri.getReturnedQuantity() + " (Resellable). New Qty: " + inventoryItem.getQuantity());
             } else if (SalesReturnItem.CONDITION_DAMAGED.equalsIgnoreCase(sri.getCondition()) ||
                     SalesReturnItem.CONDITION_DEFECTIVE.equalsIgnoreCase(sri.getCondition())) {
                 // inventoryItem.setStatus(sri.getCondition()); // This might be too simplistic if an item has multiple damages
                 // For now, we just log it. A more complex system might have separate stock for damaged goods
                 // or specific workflows for handling them.
-                System.out.println("  SKU " + sri.getItemSKU() + ": " + sri.getReturnedQuantity() + " units returned as '" + sri.getCondition() + "'. Active stock quantity unchanged, status of this SKU in inventory might need manual review or specific handling based on business rules.");
+                if (AppLog.isDebugEnabled()) AppLog.debug("  SKU " + sri.getItemSKU() + ": " + sri.getReturnedQuantity() + " units returned as '" + sri.getCondition() + "'. Active stock quantity unchanged, status of this SKU in inventory might need manual review or specific handling based on business rules.");
             } else {
-                System.out.println("  SKU " + sri.getItemSKU() + ": " + sri.getReturnedQuantity() + " units with condition '" + sri.getCondition() + "'. No specific inventory action defined for this condition.");
+                if (AppLog.isDebugEnabled()) AppLog.debug("  SKU " + sri.getItemSKU() + ": " + sri.getReturnedQuantity() + " units with condition '" + sri.getCondition() + "'. No specific inventory action defined for this condition.");
             }
         }
         salesReturn.setStatus(SalesReturn.STATUS_COMPLETED);
-        System.out.println("Sales Return " + salesReturn.getReturnID() + " processed and status set to " + SalesReturn.STATUS_COMPLETED);
+        AppLog.info("Sales Return " + salesReturn.getReturnID() + " processed and status set to " + SalesReturn.STATUS_COMPLETED);
         return allItemsProcessedSuccessfully;
     }
 
@@ -102,14 +187,28 @@ public class SalesReturnManager {
         if (returnOpt.isPresent()) {
             SalesReturn sr = returnOpt.get();
             sr.setStatus(newStatus);
-            System.out.println("Sales Return " + returnId + " status updated to " + newStatus);
+            AppLog.info("Sales Return " + returnId + " status updated to " + newStatus);
             return true;
         }
-        System.err.println("Failed to update status: Sales Return " + returnId + " not found.");
+        AppLog.warn("Failed to update status: Sales Return " + returnId + " not found.");
         return false;
     }
 
     public void loadSalesReturnsFromFile() {
+        StartupProfiler.Phase startupPhase = StartupProfiler.begin("returns");
+        long startNanos = System.nanoTime();
+        AppEvents.FileIoEvent event = new AppEvents.FileIoEvent("load", "salesReturns");
+        event.begin();
+        try {
+            doLoadSalesReturnsFromFile();
+        } finally {
+            MetricsRegistry.histogram("file.load.salesReturns").recordSince(startNanos);
+            event.finish(salesReturnList.size(), DEFAULT_SALES_RETURNS_FILE_PATH, DEFAULT_SALES_RETURN_ITEMS_FILE_PATH);
+            startupPhase.end(salesReturnList.size());
+        }
+    }
+
+    private void doLoadSalesReturnsFromFile() {
         Map<String, SalesReturn> loadedReturnsMap = new HashMap<>();
         File returnsFile = new File(DEFAULT_SALES_RETURNS_FILE_PATH);
         File returnItemsFile = new File(DEFAULT_SALES_RETURN_ITEMS_FILE_PATH);
@@ -117,7 +216,7 @@ public class SalesReturnManager {
         File dataDir = new File(DATA_DIRECTORY);
         if (!dataDir.exists()) {
             if (!dataDir.mkdirs()){
-                System.err.println("Failed to create data directory: " + DATA_DIRECTORY + " while loading sales returns.");
+                AppLog.warn("Failed to create data directory: " + DATA_DIRECTORY + " while loading sales returns.");
                 // If data dir cannot be created, subsequent file operations will likely fail.
             }
         }
@@ -126,40 +225,40 @@ public class SalesReturnManager {
             try (BufferedReader br = new BufferedReader(new FileReader(returnsFile))) {
                 String line = br.readLine();
                 if (line == null || !line.trim().equalsIgnoreCase(RETURNS_CSV_HEADER)) {
-                    System.err.println("Warning: sales_returns.csv header mismatch or empty. Expected: " + RETURNS_CSV_HEADER);
+                    AppLog.warn("Warning: sales_returns.csv header mismatch or empty. Expected: " + RETURNS_CSV_HEADER);
                 } else {
                     while ((line = br.readLine()) != null) {
                         if (line.trim().isEmpty() || line.startsWith("#")) continue;
                         String[] parts = line.split(",(?=(?:[^\"]*\"[^\"]*\")*[^\"]*$)", -1);
                         if (parts.length < 6) {
-                            System.err.println("Skipping invalid line in sales_returns.csv: " + line); continue;
+                            AppLog.warn("Skipping invalid line in sales_returns.csv: " + line); continue;
                         }
                         try {
                             String returnID = SalesReturn.unescapeCsv(parts[0]);
                             String originalSaleID = SalesReturn.unescapeCsv(parts[1]);
-                            Date returnDate = SalesReturn.parseIsoDateString(SalesReturn.unescapeCsv(parts[2]));
+                            long returnDate = Timestamps.parseIso(SalesReturn.unescapeCsv(parts[2]).trim());
                             double totalRefund = Double.parseDouble(SalesReturn.unescapeCsv(parts[3]));
                             String status = SalesReturn.unescapeCsv(parts[4]);
                             String notes = SalesReturn.unescapeCsv(parts[5]);
-                            if (returnDate == null) { System.err.println("Skipping return " + returnID + " due to invalid date."); continue; }
+                            if (returnDate == Timestamps.INVALID) { AppLog.warn("Skipping return " + returnID + " due to invalid date."); continue; }
                             loadedReturnsMap.put(returnID, new SalesReturn(returnID, originalSaleID, returnDate, totalRefund, status, notes));
-                        } catch (Exception e) { System.err.println("Error processing line from sales_returns.csv: " + line + " - " + e.getMessage()); }
+                        } catch (Exception e) { AppLog.error("Error processing line from sales_returns.csv: " + line + " - " + e.getMessage()); }
                     }
                 }
-            } catch (IOException e) { System.err.println("Error loading " + DEFAULT_SALES_RETURNS_FILE_PATH + ": " + e.getMessage()); }
-        } else { System.out.println(DEFAULT_SALES_RETURNS_FILE_PATH + " not found. No sales returns loaded."); }
+            } catch (IOException e) { AppLog.error("Error loading " + DEFAULT_SALES_RETURNS_FILE_PATH + ": " + e.getMessage()); }
+        } else { AppLog.info(DEFAULT_SALES_RETURNS_FILE_PATH + " not found. No sales returns loaded."); }
 
         if (returnItemsFile.exists() && !loadedReturnsMap.isEmpty()) {
             try (BufferedReader br = new BufferedReader(new FileReader(returnItemsFile))) {
                 String line = br.readLine();
                 if (line == null || !line.trim().equalsIgnoreCase(RETURN_ITEMS_CSV_HEADER)) {
-                    System.err.println("Warning: sales_return_items.csv header mismatch or empty. Expected: " + RETURN_ITEMS_CSV_HEADER);
+                    AppLog.warn("Warning: sales_return_items.csv header mismatch or empty. Expected: " + RETURN_ITEMS_CSV_HEADER);
                 } else {
                     while ((line = br.readLine()) != null) {
                         if (line.trim().isEmpty() || line.startsWith("#")) continue;
                         String[] parts = line.split(",(?=(?:[^\"]*\"[^\"]*\")*[^\"]*$)", -1);
                         if (parts.length < 7) {
-                            System.err.println("Skipping invalid line in sales_return_items.csv: " + line); continue;
+                            AppLog.warn("Skipping invalid line in sales_return_items.csv: " + line); continue;
                         }
                         try {
                             String returnID = SalesReturn.unescapeCsv(parts[0]);
@@ -169,27 +268,42 @@ public class SalesReturnManager {
                                 System.arraycopy(parts, 1, itemParts, 0, parts.length - 1);
                                 SalesReturnItem sri = SalesReturnItem.fromCsvParts(itemParts);
                                 if (sri != null) targetReturn.addLoadedReturnItem(sri);
-                            } else { System.err.println("Warning: SalesReturnItem for non-existent ReturnID " + returnID + " in " + DEFAULT_SALES_RETURN_ITEMS_FILE_PATH); }
-                        } catch (Exception e) { System.err.println("Error processing line from sales_return_items.csv: " + line + " - " + e.getMessage());}
+                            } else { AppLog.warn("Warning: SalesReturnItem for non-existent ReturnID " + returnID + " in " + DEFAULT_SALES_RETURN_ITEMS_FILE_PATH); }
+                        } catch (Exception e) { AppLog.error("Error processing line from sales_return_items.csv: " + line + " - " + e.getMessage());}
                     }
                 }
-            } catch (IOException e) { System.err.println("Error loading " + DEFAULT_SALES_RETURN_ITEMS_FILE_PATH + ": " + e.getMessage());}
+            } catch (IOException e) { AppLog.error("Error loading " + DEFAULT_SALES_RETURN_ITEMS_FILE_PATH + ": " + e.getMessage());}
         }
 
         this.salesReturnList.clear();
+        this.returnsById.clear();
+        this.returnsByStatus.clear();
         for (SalesReturn sr : loadedReturnsMap.values()) {
             sr.calculateTotalRefundAmount();
-            this.salesReturnList.add(sr);
+            addToIndexes(sr);
+            IdGenerator.SALES_RETURNS.observe(sr.getReturnID());
         }
-        System.out.println(this.salesReturnList.size() + " sales returns processed and loaded.");
+        AppLog.info(this.salesReturnList.size() + " sales returns processed and loaded.");
     }
 
     public void saveSalesReturnsToFile() {
+        long startNanos = System.nanoTime();
+        AppEvents.FileIoEvent event = new AppEvents.FileIoEvent("save", "salesReturns");
+        event.begin();
+        try {
+            doSaveSalesReturnsToFile();
+        } finally {
+            MetricsRegistry.histogram("file.save.salesReturns").recordSince(startNanos);
+            event.finish(salesReturnList.size(), DEFAULT_SALES_RETURNS_FILE_PATH, DEFAULT_SALES_RETURN_ITEMS_FILE_PATH);
+        }
+    }
+
+    private void doSaveSalesReturnsToFile() {
         File returnsFile = new File(DEFAULT_SALES_RETURNS_FILE_PATH);
         File parentDir = returnsFile.getParentFile();
         if (parentDir != null && !parentDir.exists()) {
             if (!parentDir.mkdirs()) {
-                System.err.println("Could not create directory: " + parentDir.getPath());
+                AppLog.warn("Could not create directory: " + parentDir.getPath());
                 return;
             }
         }
@@ -199,24 +313,24 @@ public class SalesReturnManager {
             for (SalesReturn sr : this.salesReturnList) {
                 returnsOut.println(sr.toSalesReturnCsvString());
             }
-            System.out.println(this.salesReturnList.size() + " sales returns saved to " + DEFAULT_SALES_RETURNS_FILE_PATH);
-        } catch (IOException e) { System.err.println("Error saving " + DEFAULT_SALES_RETURNS_FILE_PATH + ": " + e.getMessage()); }
+            AppLog.info(this.salesReturnList.size() + " sales returns saved to " + DEFAULT_SALES_RETURNS_FILE_PATH);
+        } catch (IOException e) { AppLog.error("Error saving " + DEFAULT_SALES_RETURNS_FILE_PATH + ": " + e.getMessage()); }
 
         File returnItemsFile = new File(DEFAULT_SALES_RETURN_ITEMS_FILE_PATH);
         try (PrintWriter itemsOut = new PrintWriter(new BufferedWriter(new FileWriter(returnItemsFile)))) {
             itemsOut.println(RETURN_ITEMS_CSV_HEADER);
             for (SalesReturn sr : this.salesReturnList) {
-                for (SalesReturnItem sri : sr.getReturnedItems()) {
+                for (SalesReturnItem sri : sr.getReturnedItemsView()) {
                     itemsOut.println(SalesReturn.escapeCsv(sr.getReturnID()) + "," + sri.toCsvString());
                 }
             }
-            System.out.println("Sales return items saved to " + DEFAULT_SALES_RETURN_ITEMS_FILE_PATH);
-        } catch (IOException e) { System.err.println("Error saving " + DEFAULT_SALES_RETURN_ITEMS_FILE_PATH + ": " + e.getMessage()); }
+            AppLog.info("Sales return items saved to " + DEFAULT_SALES_RETURN_ITEMS_FILE_PATH);
+        } catch (IOException e) { AppLog.error("Error saving " + DEFAULT_SALES_RETURN_ITEMS_FILE_PATH + ": " + e.getMessage()); }
     }
 
     // Main for testing
     public static void main(String[] args) {
-        System.out.println("Testing SalesReturnManager (data in " + DATA_DIRECTORY + ")...");
+        AppLog.info("Testing SalesReturnManager (data in " + DATA_DIRECTORY + ")...");
 
         // Setup Inventory
         Inventory inv = new Inventory(); // Will load from data/items.csv or create if not exists
@@ -225,17 +339,17 @@ public class SalesReturnManager {
         inv.saveItemsToFile(Inventory.DEFAULT_ITEMS_FILE_PATH); // Save if items were added/modified
 
         // Setup SalesManager and ensure a test sale exists
-        SalesManager sm = new SalesManager(inv); // Will load from data/sales.csv
+        SalesManager sm = new SalesManager(inv); // Will load from data/sales/
         String saleIdToUseForReturn = "SALE-FOR-RETURN-PURPOSES-001"; // A predictable ID for testing
 
         Optional<Sale> saleToReturnOpt = sm.getSaleById(saleIdToUseForReturn);
 
         if (saleToReturnOpt.isEmpty()) {
-            System.out.println("Test sale (ID: " + saleIdToUseForReturn + ") not found by SalesManager. Creating a new one for this test session.");
+            AppLog.info("Test sale (ID: " + saleIdToUseForReturn + ") not found by SalesManager. Creating a new one for this test session.");
 
             Sale testSale = sm.createNewSale(); // This will generate a NEW ID.
             saleIdToUseForReturn = testSale.getSaleID(); // CRITICAL: Use the actual auto-generated ID for the return test
-            System.out.println("Created a new sale with auto-generated ID for return testing: " + saleIdToUseForReturn);
+            AppLog.info("Created a new sale with auto-generated ID for return testing: " + saleIdToUseForReturn);
 
             Item book = inv.getItem("BOOK001");
             if (book != null) {
@@ -249,34 +363,34 @@ public class SalesReturnManager {
             boolean finalized = sm.finalizeSale(testSale);
 
             if (finalized) {
-                System.out.println("Newly created test sale (ID: " + saleIdToUseForReturn + ") finalized successfully.");
+                AppLog.info("Newly created test sale (ID: " + saleIdToUseForReturn + ") finalized successfully.");
                 sm.saveSalesToFile();
                 inv.saveItemsToFile(Inventory.DEFAULT_ITEMS_FILE_PATH);
             } else {
-                System.err.println("CRITICAL TEST SETUP ERROR: Failed to finalize newly created sale " + saleIdToUseForReturn);
+                AppLog.warn("CRITICAL TEST SETUP ERROR: Failed to finalize newly created sale " + saleIdToUseForReturn);
                 return;
             }
             saleToReturnOpt = sm.getSaleById(saleIdToUseForReturn); // Re-fetch to ensure it's in SalesManager
             if(saleToReturnOpt.isEmpty()){
-                System.err.println("CRITICAL TEST SETUP ERROR: Newly created and finalized sale " + saleIdToUseForReturn + " could not be re-fetched from SalesManager.");
+                AppLog.warn("CRITICAL TEST SETUP ERROR: Newly created and finalized sale " + saleIdToUseForReturn + " could not be re-fetched from SalesManager.");
                 return;
             }
         } else {
-            System.out.println("Found existing test sale for return with ID: " + saleIdToUseForReturn);
+            AppLog.info("Found existing test sale for return with ID: " + saleIdToUseForReturn);
             Sale existingSale = saleToReturnOpt.get();
             if (!Sale.STATUS_COMPLETED.equals(existingSale.getStatus())) {
-                System.out.println("Existing test sale " + saleIdToUseForReturn + " is not completed. Attempting to finalize for test.");
+                AppLog.info("Existing test sale " + saleIdToUseForReturn + " is not completed. Attempting to finalize for test.");
                 if(Sale.STATUS_PENDING.equals(existingSale.getStatus())){
                     boolean finalized = sm.finalizeSale(existingSale);
                     if(finalized){
-                        System.out.println("Finalized existing pending sale " + saleIdToUseForReturn);
+                        AppLog.info("Finalized existing pending sale " + saleIdToUseForReturn);
                         sm.saveSalesToFile();
                         inv.saveItemsToFile(Inventory.DEFAULT_ITEMS_FILE_PATH);
                     } else {
-                        System.err.println("Failed to finalize existing pending sale " + saleIdToUseForReturn + ". Return test may fail.");
+                        AppLog.warn("Failed to finalize existing pending sale " + saleIdToUseForReturn + ". Return test may fail.");
                     }
                 } else {
-                    System.out.println("Existing test sale " + saleIdToUseForReturn + " status is " + existingSale.getStatus() + ". Return test may fail if not completed.");
+                    AppLog.info("Existing test sale " + saleIdToUseForReturn + " status is " + existingSale.getStatus() + ". Return test may fail if not completed.");
                 }
             }
         }
@@ -288,7 +402,7 @@ public class SalesReturnManager {
         final String finalSaleIdForReturn = saleIdToUseForReturn;
 
         if (srm.getAllSalesReturns().stream().noneMatch(sr -> sr.getOriginalSaleID().equals(finalSaleIdForReturn))) {
-            System.out.println("No sales returns loaded for sale ID " + finalSaleIdForReturn + ". Creating a test return.");
+            AppLog.info("No sales returns loaded for sale ID " + finalSaleIdForReturn + ". Creating a test return.");
             SalesReturn testReturn = srm.createNewSalesReturn(finalSaleIdForReturn);
 
             if (testReturn != null) {
@@ -298,12 +412,12 @@ public class SalesReturnManager {
                 if (bookToReturn != null) {
                     testReturn.addReturnItem(new SalesReturnItem("BOOK001", bookToReturn.getName(), 1, 45.00, SalesReturnItem.CONDITION_RESELLABLE, "Customer changed mind"));
                 } else {
-                    System.out.println("INFO: BOOK001 not in inventory, cannot add to return item test.");
+                    AppLog.info("INFO: BOOK001 not in inventory, cannot add to return item test.");
                 }
                 if (penToReturn != null) {
                     testReturn.addReturnItem(new SalesReturnItem("PEN001", penToReturn.getName(), 2, 0.90, SalesReturnItem.CONDITION_DAMAGED, "Broken casing"));
                 } else {
-                    System.out.println("INFO: PEN001 not in inventory, cannot add to return item test.");
+                    AppLog.info("INFO: PEN001 not in inventory, cannot add to return item test.");
                 }
 
                 if (!testReturn.getReturnedItems().isEmpty()) {
@@ -311,25 +425,25 @@ public class SalesReturnManager {
                     srm.processReturnInventoryUpdate(testReturn);
                     srm.saveSalesReturnsToFile();
                     inv.saveItemsToFile(Inventory.DEFAULT_ITEMS_FILE_PATH);
-                    System.out.println("Test return " + testReturn.getReturnID() + " created, processed, and saved.");
+                    AppLog.info("Test return " + testReturn.getReturnID() + " created, processed, and saved.");
                 } else {
-                    System.out.println("No items could be added to the test return. Return not processed.");
+                    AppLog.info("No items could be added to the test return. Return not processed.");
                 }
             } else {
-                System.out.println("Could not create test return for sale ID '" + finalSaleIdForReturn + "'. Original sale might not be 'Completed' or other issue.");
+                AppLog.info("Could not create test return for sale ID '" + finalSaleIdForReturn + "'. Original sale might not be 'Completed' or other issue.");
             }
         } else {
-            System.out.println("Loaded " + srm.getAllSalesReturns().size() + " sales returns. Found existing return for sale ID " + finalSaleIdForReturn);
+            AppLog.info("Loaded " + srm.getAllSalesReturns().size() + " sales returns. Found existing return for sale ID " + finalSaleIdForReturn);
         }
 
         Item bookAfterReturn = inv.getItem("BOOK001");
         if (bookAfterReturn != null) {
-            System.out.println("\nFinal inventory for BOOK001: " + bookAfterReturn.getQuantity() + " (Status: " + bookAfterReturn.getStatus() + ")");
+            AppLog.info("\nFinal inventory for BOOK001: " + bookAfterReturn.getQuantity() + " (Status: " + bookAfterReturn.getStatus() + ")");
         }
         Item penAfterReturn = inv.getItem("PEN001");
         if (penAfterReturn != null) {
-            System.out.println("Final inventory for PEN001: " + penAfterReturn.getQuantity() + " (Status: " + penAfterReturn.getStatus() + ")");
+            AppLog.info("Final inventory for PEN001: " + penAfterReturn.getQuantity() + " (Status: " + penAfterReturn.getStatus() + ")");
         }
-        System.out.println("\nSalesReturnManager test finished.");
+        AppLog.info("\nSalesReturnManager test finished.");
     }
 }
\ No newline at end of file
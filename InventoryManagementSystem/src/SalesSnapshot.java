@@ -0,0 +1,141 @@
+// SalesSnapshot.java
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Read-only view of the completed sales at one point in time (see {@link SalesManager#snapshot()}).
+ * Completed sales never change, so SalesManager keeps them in an append-only log; a snapshot is just
+ * the log's array plus the number of entries that were published when it was taken.
+ */
+public final class SalesSnapshot {
+
+    /**
+     * Frozen copy of one completed sale.
+     */
+    public static final class SaleSnapshot {
+        private final String saleID;
+        private final long saleDateMillis;
+        private final double totalAmount;
+        private final List<LineSnapshot> itemsSold;
+
+        SaleSnapshot(Sale sale) {
+            this.saleID = sale.getSaleID();
+            this.saleDateMillis = sale.getSaleDateMillis();
+            this.totalAmount = sale.getTotalAmount();
+            List<LineSnapshot> lines = new ArrayList<>();
+            for (Sale.SaleItem si : sale.getItemsSoldView()) {
+                lines.add(new LineSnapshot(si));
+            }
+            this.itemsSold = Collections.unmodifiableList(lines);
+        }
+
+        public String getSaleID() { return saleID; }
+        public Date getSaleDate() { return new Date(saleDateMillis); }
+        public double getTotalAmount() { return totalAmount; }
+        public List<LineSnapshot> getItemsSold() { return itemsSold; }
+
+        public long getSaleDateMillis() { return saleDateMillis; }
+    }
+
+    /**
+     * Frozen copy of one line of a completed sale.
+     */
+    public static final class LineSnapshot {
+        private final String sku;
+        private final String itemName;
+        private final int quantitySold;
+        private final double priceAtSale;
+        private final double subtotal;
+
+        LineSnapshot(Sale.SaleItem si) {
+            this.sku = si.getSku();
+            this.itemName = si.getItemName();
+            this.quantitySold = si.getQuantitySold();
+            this.priceAtSale = si.getPriceAtSale();
+            this.subtotal = si.getSubtotal();
+        }
+
+        public String getSku() { return sku; }
+        public String getItemName() { return itemName; }
+        public int getQuantitySold() { return quantitySold; }
+        public double getPriceAtSale() { return priceAtSale; }
+        public double getSubtotal() { return subtotal; }
+    }
+
+    /**
+     * Append-only log of completed sales. Appends are serialized; readers never lock.
+     * An entry is written before the size is published, so everything below a size read by a reader is complete.
+     */
+    static final class Log {
+        private volatile SaleSnapshot[] entries = new SaleSnapshot[64];
+        private volatile int size = 0;
+
+        synchronized void append(Sale sale) {
+            SaleSnapshot[] current = entries;
+            if (size == current.length) {
+                current = Arrays.copyOf(current, current.length * 2);
+                entries = current;
+            }
+            current[size] = new SaleSnapshot(sale);
+            size = size + 1; // Volatile write publishes the new entry
+        }
+
+        SalesSnapshot snapshot() {
+            int n = size; // Read the size first: any array read afterwards holds at least n entries
+            return new SalesSnapshot(entries, n);
+        }
+    }
+
+    private final SaleSnapshot[] sales;
+    private final int count;
+
+    private SalesSnapshot(SaleSnapshot[] sales, int count) {
+        this.sales = sales;
+        this.count = count;
+    }
+
+    public int getCompletedSaleCount() {
+        return count;
+    }
+
+    public List<SaleSnapshot> getCompletedSales() {
+        return Collections.unmodifiableList(Arrays.asList(sales).subList(0, count));
+    }
+
+    public List<SaleSnapshot> getCompletedSalesByDateRange(LocalDate startDate, LocalDate endDate) {
+        List<SaleSnapshot> result = new ArrayList<>();
+        forEachCompletedSale(startDate, endDate, result::add);
+        return result;
+    }
+
+    /**
+     * Visits the completed sales made between startDate and endDate (inclusive, local time) without
+     * building a list. The dates are turned into a millisecond range once, so nothing is allocated per sale.
+     */
+    public void forEachCompletedSale(LocalDate startDate, LocalDate endDate, Consumer<? super SaleSnapshot> visitor) {
+        if (startDate == null || endDate == null || endDate.isBefore(startDate)) {
+            return;
+        }
+        ZoneId zoneId = ZoneId.systemDefault();
+        long fromMillis = startDate.atStartOfDay(zoneId).toInstant().toEpochMilli();
+        long toMillisExclusive = endDate.plusDays(1).atStartOfDay(zoneId).toInstant().toEpochMilli();
+        for (int i = 0; i < count; i++) {
+            long saleMillis = sales[i].saleDateMillis;
+            if (saleMillis >= fromMillis && saleMillis < toMillisExclusive) {
+                visitor.accept(sales[i]);
+            }
+        }
+    }
+
+    public void forEachCompletedSale(Consumer<? super SaleSnapshot> visitor) {
+        for (int i = 0; i < count; i++) {
+            visitor.accept(sales[i]);
+        }
+    }
+}
@@ -0,0 +1,73 @@
+// SalesTableModel.java
+import javax.swing.table.AbstractTableModel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Table model for the sales list in {@link ViewSalesWindow}. Rows are the Sale objects themselves;
+ * cells are read only for the rows the table paints. Rows can be replaced in one go (search results)
+ * or appended page by page while the user scrolls through the sales history.
+ */
+public class SalesTableModel extends AbstractTableModel {
+    private static final String[] COLUMN_NAMES = {"Sale ID", "Sale Date", "Total Amount", "Status"};
+    private static final Class<?>[] COLUMN_CLASSES = {String.class, Long.class, Double.class, String.class};
+    public static final int SALE_DATE_COLUMN = 1; // Epoch millis; ViewSalesWindow renders them as dates
+
+    private final List<Sale> rows = new ArrayList<>();
+
+    public void setRows(List<Sale> sales) {
+        rows.clear();
+        if (sales != null) {
+            rows.addAll(sales);
+        }
+        fireTableDataChanged();
+    }
+
+    public void appendRows(List<Sale> sales) {
+        if (sales == null || sales.isEmpty()) return;
+        int first = rows.size();
+        rows.addAll(sales);
+        fireTableRowsInserted(first, rows.size() - 1);
+    }
+
+    public Sale getSaleAt(int modelRow) {
+        return rows.get(modelRow);
+    }
+
+    @Override
+    public int getRowCount() {
+        return rows.size();
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUMN_NAMES.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return COLUMN_NAMES[column];
+    }
+
+    @Override
+    public Class<?> getColumnClass(int columnIndex) {
+        return COLUMN_CLASSES[columnIndex];
+    }
+
+    @Override
+    public boolean isCellEditable(int row, int column) {
+        return false;
+    }
+
+    @Override
+    public Object getValueAt(int rowIndex, int columnIndex) {
+        Sale sale = rows.get(rowIndex);
+        switch (columnIndex) {
+            case 0: return sale.getSaleID();
+            case 1: return sale.getSaleDateMillis();
+            case 2: return sale.getTotalAmount();
+            case 3: return sale.getStatus();
+            default: return null;
+        }
+    }
+}
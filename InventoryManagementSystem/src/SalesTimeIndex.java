@@ -0,0 +1,150 @@
+// SalesTimeIndex.java
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Sales ordered by sale date (ties broken by sale ID), for paging through the sales history newest
+ * first. Pages are addressed by a {@link Cursor} (the key of the last row already shown) rather than
+ * by an offset, so sales added while the user is scrolling do not shift the following pages.
+ * A page costs a binary search plus the rows returned, however many sales exist.
+ */
+public class SalesTimeIndex {
+
+    /** Position after the last sale of a page: the next page starts with the next older sale. */
+    public static final class Cursor {
+        private final long saleDateMillis;
+        private final String saleID;
+
+        Cursor(long saleDateMillis, String saleID) {
+            this.saleDateMillis = saleDateMillis;
+            this.saleID = saleID;
+        }
+
+        /** Cursor right after the given sale, for pages built outside the index (e.g. from archived months). */
+        static Cursor after(Sale sale) {
+            return new Cursor(millisOf(sale), sale.getSaleID());
+        }
+
+        /** True if the sale comes after this cursor, i.e. belongs on a following page. */
+        boolean isBefore(Sale sale) {
+            int c = Long.compare(millisOf(sale), saleDateMillis);
+            return c < 0 || (c == 0 && sale.getSaleID().compareTo(saleID) < 0);
+        }
+
+        /** Partition month of the last sale shown. */
+        YearMonth month() {
+            return YearMonth.from(LocalDate.ofEpochDay(Timestamps.localEpochDay(saleDateMillis)));
+        }
+    }
+
+    /** Index order: by sale date, then sale ID. */
+    static final Comparator<Sale> ORDER = Comparator.comparingLong(SalesTimeIndex::millisOf).thenComparing(Sale::getSaleID);
+
+    public static final class Page {
+        private final List<Sale> sales;
+        private final Cursor next;
+
+        Page(List<Sale> sales, Cursor next) {
+            this.sales = sales;
+            this.next = next;
+        }
+
+        /** Sales of this page, newest first. */
+        public List<Sale> getSales() { return sales; }
+        /** Cursor for the following page, or null if this was the last one. */
+        public Cursor getNext() { return next; }
+    }
+
+    // Sorted ascending by (millis, saleID); valid up to size
+    private long[] millis = new long[64];
+    private Sale[] sales = new Sale[64];
+    private int size = 0;
+
+    public static long millisOf(Sale sale) {
+        return sale.getSaleDateMillis();
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    /** Replaces the contents with the given sales (sorted once). */
+    public synchronized void rebuild(Collection<Sale> allSales) {
+        Sale[] sorted = allSales.toArray(new Sale[0]);
+        Arrays.sort(sorted, ORDER);
+        int capacity = Math.max(64, sorted.length + sorted.length / 4);
+        millis = new long[capacity];
+        sales = Arrays.copyOf(sorted, capacity);
+        size = sorted.length;
+        for (int i = 0; i < size; i++) {
+            millis[i] = millisOf(sorted[i]);
+        }
+    }
+
+    /** Adds a sale under its current date. New sales are the newest, so this is normally an append. */
+    public synchronized void add(Sale sale) {
+        long key = millisOf(sale);
+        int pos = (size == 0 || compare(size - 1, key, sale.getSaleID()) < 0) ? size : insertionPoint(key, sale.getSaleID());
+        if (size == sales.length) {
+            millis = Arrays.copyOf(millis, size * 2);
+            sales = Arrays.copyOf(sales, size * 2);
+        }
+        System.arraycopy(millis, pos, millis, pos + 1, size - pos);
+        System.arraycopy(sales, pos, sales, pos + 1, size - pos);
+        millis[pos] = key;
+        sales[pos] = sale;
+        size++;
+    }
+
+    /** Moves a sale whose date changed (e.g. set to the finalize time) from its old position. */
+    public synchronized void reindex(Sale sale, long oldMillis) {
+        int pos = insertionPoint(oldMillis, sale.getSaleID());
+        if (pos < size && sales[pos] == sale) {
+            System.arraycopy(millis, pos + 1, millis, pos, size - pos - 1);
+            System.arraycopy(sales, pos + 1, sales, pos, size - pos - 1);
+            size--;
+            sales[size] = null;
+        }
+        add(sale);
+    }
+
+    /**
+     * Up to limit sales older than the cursor, newest first.
+     * @param after null for the first page (the newest sales)
+     */
+    public synchronized Page pageBefore(Cursor after, int limit) {
+        int end = (after == null) ? size : insertionPoint(after.saleDateMillis, after.saleID); // Exclusive
+        int start = Math.max(0, end - Math.max(0, limit));
+        List<Sale> page = new ArrayList<>(end - start);
+        for (int i = end - 1; i >= start; i--) {
+            page.add(sales[i]);
+        }
+        Cursor next = null;
+        if (start > 0 && !page.isEmpty()) {
+            Sale last = page.get(page.size() - 1);
+            next = new Cursor(millis[start], last.getSaleID());
+        }
+        return new Page(Collections.unmodifiableList(page), next);
+    }
+
+    // First position whose key is >= (key, saleID)
+    private int insertionPoint(long key, String saleID) {
+        int low = 0, high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (compare(mid, key, saleID) < 0) low = mid + 1; else high = mid;
+        }
+        return low;
+    }
+
+    private int compare(int index, long key, String saleID) {
+        int c = Long.compare(millis[index], key);
+        return c != 0 ? c : sales[index].getSaleID().compareTo(saleID);
+    }
+}
@@ -0,0 +1,276 @@
+// SegmentedLruCache.java
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+
+/**
+ * Bounded cache in the W-TinyLFU layout: a small LRU window (1% of the capacity) in front of a
+ * segmented LRU main area (20% probation, 80% protected). New entries go to the window; an entry
+ * pushed out of the window only gets into the main area if it has been asked for more often than
+ * the entry it would evict there, judged by a small count-min sketch of recent access frequencies.
+ * So one pass over many cold keys (a search, a report) cannot flush the hot keys.
+ *
+ * All methods are synchronized, except that getOrLoad runs the loader (disk I/O) outside the lock:
+ * the first caller to miss a key registers a future for it, later callers for the same key wait on
+ * that future, and callers for other keys are not held up. A put, replace or invalidate of the key
+ * while it is loading means the loaded value may be stale, so it is returned but not cached.
+ */
+public class SegmentedLruCache<K, V> {
+
+    private final int windowCapacity;
+    private final int protectedCapacity;
+    private final int mainCapacity;
+    // Insertion-ordered; a hit re-inserts the key, so the first entry is always the least recently used
+    private final LinkedHashMap<K, V> window = new LinkedHashMap<>();
+    private final LinkedHashMap<K, V> probation = new LinkedHashMap<>();
+    private final LinkedHashMap<K, V> protectedSegment = new LinkedHashMap<>();
+    private final FrequencySketch sketch;
+    private final Map<K, CompletableFuture<V>> loading = new HashMap<>(); // Keys being loaded by getOrLoad
+
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long rejections; // Candidates from the window not admitted to the main area
+
+    public SegmentedLruCache(int capacity) {
+        if (capacity < 2) {
+            throw new IllegalArgumentException("Cache capacity must be at least 2: " + capacity);
+        }
+        this.windowCapacity = Math.max(1, capacity / 100);
+        this.mainCapacity = capacity - windowCapacity;
+        this.protectedCapacity = Math.max(1, mainCapacity * 8 / 10);
+        this.sketch = new FrequencySketch(capacity);
+    }
+
+    /** Cached value, or null. Counts as a hit or a miss. */
+    public synchronized V get(K key) {
+        sketch.increment(key);
+        V value = window.get(key);
+        if (value != null) {
+            window.remove(key);
+            window.put(key, value);
+        } else if ((value = probation.remove(key)) != null) {
+            protectedSegment.put(key, value); // Second hit: promote
+            if (protectedSegment.size() > protectedCapacity) {
+                Iterator<Map.Entry<K, V>> eldest = protectedSegment.entrySet().iterator();
+                Map.Entry<K, V> demoted = eldest.next();
+                eldest.remove();
+                probation.put(demoted.getKey(), demoted.getValue());
+            }
+        } else if ((value = protectedSegment.remove(key)) != null) {
+            protectedSegment.put(key, value);
+        }
+        if (value != null) hits++; else misses++;
+        return value;
+    }
+
+    /** Cached value without touching recency, frequency or the statistics; null if not cached. */
+    public synchronized V peek(K key) {
+        V value = window.get(key);
+        if (value == null) value = probation.get(key);
+        if (value == null) value = protectedSegment.get(key);
+        return value;
+    }
+
+    /**
+     * Cached value, or the loader's value (which is then cached). Returns null, and caches nothing,
+     * if the loader returns null. The loader runs without the cache lock; concurrent misses on one key share one load.
+     */
+    public V getOrLoad(K key, Function<? super K, ? extends V> loader) {
+        CompletableFuture<V> future;
+        boolean loadHere = false;
+        synchronized (this) {
+            V value = get(key);
+            if (value != null) {
+                return value;
+            }
+            future = loading.get(key);
+            if (future == null) {
+                future = new CompletableFuture<>();
+                loading.put(key, future);
+                loadHere = true;
+            }
+        }
+        if (!loadHere) {
+            try {
+                return future.join(); // Another caller is loading this key
+            } catch (CompletionException e) {
+                throw (e.getCause() instanceof RuntimeException) ? (RuntimeException) e.getCause() : e;
+            }
+        }
+        V value;
+        try {
+            value = loader.apply(key);
+        } catch (RuntimeException | Error e) {
+            synchronized (this) {
+                loading.remove(key, future);
+            }
+            future.completeExceptionally(e);
+            throw e;
+        }
+        synchronized (this) {
+            // Not cached if the key was written or invalidated while loading (our value may be stale)
+            if (loading.remove(key, future) && value != null) {
+                put(key, value);
+            }
+        }
+        future.complete(value);
+        return value;
+    }
+
+    /** Adds or replaces an entry; a new key starts in the window. */
+    public synchronized void put(K key, V value) {
+        if (replaceIfPresent(key, value)) return;
+        window.put(key, value);
+        if (window.size() > windowCapacity) {
+            Iterator<Map.Entry<K, V>> eldest = window.entrySet().iterator();
+            Map.Entry<K, V> candidate = eldest.next();
+            eldest.remove();
+            admit(candidate.getKey(), candidate.getValue());
+        }
+    }
+
+    /** Replaces the value of a cached key in place (same position); false if the key is not cached. */
+    public synchronized boolean replaceIfPresent(K key, V value) {
+        loading.remove(key); // A load in progress may have read the old value
+        if (window.containsKey(key)) { window.put(key, value); return true; }
+        if (probation.containsKey(key)) { probation.put(key, value); return true; }
+        if (protectedSegment.containsKey(key)) { protectedSegment.put(key, value); return true; }
+        return false;
+    }
+
+    public synchronized void invalidate(K key) {
+        loading.remove(key);
+        if (window.remove(key) == null && probation.remove(key) == null) {
+            protectedSegment.remove(key);
+        }
+    }
+
+    public synchronized void clear() {
+        loading.clear();
+        window.clear();
+        probation.clear();
+        protectedSegment.clear();
+    }
+
+    // TinyLFU admission of an entry leaving the window
+    private void admit(K key, V value) {
+        if (probation.size() + protectedSegment.size() < mainCapacity) {
+            probation.put(key, value);
+            return;
+        }
+        LinkedHashMap<K, V> victimSegment = probation.isEmpty() ? protectedSegment : probation;
+        K victim = victimSegment.keySet().iterator().next();
+        if (sketch.frequency(key) > sketch.frequency(victim)) {
+            victimSegment.remove(victim);
+            probation.put(key, value);
+        } else {
+            rejections++;
+        }
+        evictions++; // Either the victim or the candidate left the cache
+    }
+
+    /** Copy of all cached values, hottest segment first. */
+    public synchronized List<V> values() {
+        List<V> values = new ArrayList<>(size());
+        values.addAll(protectedSegment.values());
+        values.addAll(probation.values());
+        values.addAll(window.values());
+        return values;
+    }
+
+    public synchronized int size() {
+        return window.size() + probation.size() + protectedSegment.size();
+    }
+
+    public int capacity() {
+        return windowCapacity + mainCapacity;
+    }
+
+    public synchronized long getHits() { return hits; }
+    public synchronized long getMisses() { return misses; }
+    public synchronized long getEvictions() { return evictions; }
+    public synchronized long getRejections() { return rejections; }
+
+    /** Hits per lookup so far, 0.0 before the first lookup. */
+    public synchronized double getHitRate() {
+        long lookups = hits + misses;
+        return lookups == 0 ? 0.0 : (double) hits / lookups;
+    }
+
+    /**
+     * Count-min sketch with 4-bit counters (four rows, one counter per row per key). Every
+     * 10 x capacity increments all counters are halved, so old popularity fades out.
+     */
+    static final class FrequencySketch {
+        private final long[] table; // 16 counters of 4 bits per long
+        private final int mask;
+        private final int sampleSize;
+        private int additions;
+
+        FrequencySketch(int capacity) {
+            int words = Integer.highestOneBit(Math.max(1, capacity - 1)) << 1; // One long (16 counters) per entry, power of two
+            this.table = new long[words];
+            int counters = words << 4;
+            this.mask = counters - 1;
+            this.sampleSize = 10 * capacity;
+        }
+
+        void increment(Object key) {
+            int hash = spread(key.hashCode());
+            boolean added = false;
+            for (int row = 0; row < 4; row++) {
+                added |= incrementAt(indexOf(hash, row));
+            }
+            if (added && ++additions >= sampleSize) {
+                reset();
+            }
+        }
+
+        int frequency(Object key) {
+            int hash = spread(key.hashCode());
+            int min = 15;
+            for (int row = 0; row < 4; row++) {
+                min = Math.min(min, counterAt(indexOf(hash, row)));
+            }
+            return min;
+        }
+
+        private int indexOf(int hash, int row) {
+            int h = hash * (0x9E3779B9 + 2 * row + 1); // A different odd multiplier per row
+            return (h ^ (h >>> 15)) & mask;
+        }
+
+        private int counterAt(int index) {
+            return (int) (table[index >>> 4] >>> ((index & 15) << 2)) & 0xF;
+        }
+
+        private boolean incrementAt(int index) {
+            int shift = (index & 15) << 2;
+            long word = table[index >>> 4];
+            if (((word >>> shift) & 0xF) == 0xF) return false; // Saturated
+            table[index >>> 4] = word + (1L << shift);
+            return true;
+        }
+
+        // Halve every counter (aging)
+        private void reset() {
+            for (int i = 0; i < table.length; i++) {
+                table[i] = (table[i] >>> 1) & 0x7777777777777777L;
+            }
+            additions /= 2;
+        }
+
+        private static int spread(int h) {
+            h ^= h >>> 16;
+            h *= 0x45D9F3B;
+            return h ^ (h >>> 16);
+        }
+    }
+}
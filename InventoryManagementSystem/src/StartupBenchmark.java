@@ -0,0 +1,261 @@
+// StartupBenchmark.java
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Repeatable cold-start benchmark. For each data set size it writes a synthetic store (items, suppliers,
+ * sales with sale items, purchase orders, returns, users) into a temporary directory, then starts a fresh
+ * JVM there several times with -Dstartup.profile=true. The child runs the same manager start-up sequence as
+ * MainInventoryWindow (without opening windows) and prints its {@link StartupProfiler} report; this class
+ * collects the per-phase times and prints the median and best run per phase, plus the time to login.
+ *
+ * Usage: java StartupBenchmark [--sizes 1000,10000,100000] [--runs 5] [--keep]
+ *   sizes are numbers of sales; the other data sets are scaled from it (items = sales/10, min 100;
+ *   3 lines per sale; orders = sales/20; returns = sales/50). --keep leaves the generated directories.
+ */
+public class StartupBenchmark {
+
+    private static final String PROBE_ARG = "--probe";
+
+    public static void main(String[] args) throws Exception {
+        if (args.length > 0 && PROBE_ARG.equals(args[0])) {
+            runProbe();
+            return;
+        }
+        List<Integer> sizes = new ArrayList<>(List.of(1_000, 10_000, 100_000));
+        int runs = 5;
+        boolean keep = false;
+        for (int i = 0; i < args.length; i++) {
+            if ("--sizes".equals(args[i]) && i + 1 < args.length) {
+                sizes.clear();
+                for (String size : args[++i].split(",")) {
+                    sizes.add(Integer.parseInt(size.trim()));
+                }
+            } else if ("--runs".equals(args[i]) && i + 1 < args.length) {
+                runs = Integer.parseInt(args[++i]);
+            } else if ("--keep".equals(args[i])) {
+                keep = true;
+            }
+        }
+
+        for (int size : sizes) {
+            Path dir = Files.createTempDirectory("ims-startup-" + size + "-");
+            long generateStart = System.nanoTime();
+            generateDataSet(new File(dir.toFile(), "data"), size);
+            System.out.printf(Locale.US, "%nData set: %d sales (generated in %.1f s, %s)%n",
+                    size, (System.nanoTime() - generateStart) / 1e9, dir);
+
+            Map<String, List<long[]>> samples = new LinkedHashMap<>(); // phase -> {nanos, rows, bytes} per run
+            for (int run = 0; run < runs; run++) {
+                for (Map.Entry<String, long[]> phase : runChild(dir.toFile()).entrySet()) {
+                    samples.computeIfAbsent(phase.getKey(), k -> new ArrayList<>()).add(phase.getValue());
+                }
+            }
+            printSummary(samples, runs);
+            if (!keep) {
+                deleteRecursively(dir);
+            }
+        }
+    }
+
+    // ---- Child JVM ----
+
+    // Same order as MainInventoryWindow.main; the window itself is left out so this runs headless
+    private static void runProbe() {
+        Inventory inventory = Inventory.open();
+        UserManager userManager = new UserManager();
+        SupplierManager supplierManager = new SupplierManager();
+        SalesManager salesManager = new SalesManager(inventory);
+        new OrderManager(inventory, supplierManager);
+        new SalesReturnManager(inventory, salesManager);
+        StartupProfiler.Phase adminPhase = StartupProfiler.begin("default admin");
+        userManager.createDefaultAdminUserIfNotExists(true);
+        adminPhase.end(1);
+        StartupProfiler.finish();
+        AppLog.flush();
+    }
+
+    private static Map<String, long[]> runChild(File workingDir) throws IOException, InterruptedException {
+        String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        ProcessBuilder builder = new ProcessBuilder(java,
+                "-cp", absoluteClassPath(),
+                "-D" + StartupProfiler.ENABLE_PROPERTY + "=true",
+                "-D" + AppLog.LEVEL_PROPERTY + "=WARN",
+                "-Djava.awt.headless=true",
+                "StartupBenchmark", PROBE_ARG);
+        builder.directory(workingDir);
+        builder.redirectErrorStream(true);
+        Process process = builder.start();
+        Map<String, long[]> phases = new LinkedHashMap<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.startsWith(StartupProfiler.REPORT_LINE_PREFIX)) continue;
+                String[] parts = line.substring(StartupProfiler.REPORT_LINE_PREFIX.length()).split("\t");
+                phases.put(parts[0], new long[]{Long.parseLong(parts[1]), Long.parseLong(parts[2]), Long.parseLong(parts[3])});
+            }
+        }
+        int exitCode = process.waitFor();
+        if (exitCode != 0 || phases.isEmpty()) {
+            throw new IOException("Startup probe failed (exit code " + exitCode + ") in " + workingDir);
+        }
+        return phases;
+    }
+
+    // The child runs in the data set directory, so relative class path entries must be resolved first
+    private static String absoluteClassPath() {
+        List<String> entries = new ArrayList<>();
+        for (String entry : System.getProperty("java.class.path", ".").split(File.pathSeparator)) {
+            entries.add(new File(entry).getAbsolutePath());
+        }
+        return String.join(File.pathSeparator, entries);
+    }
+
+    private static void printSummary(Map<String, List<long[]>> samples, int runs) {
+        System.out.printf(Locale.US, "%-16s %12s %12s %10s %12s %10s%n", "Phase", "median ms", "best ms", "rows", "rows/s", "alloc MB");
+        for (Map.Entry<String, List<long[]>> entry : samples.entrySet()) {
+            List<long[]> values = entry.getValue();
+            values.sort(Comparator.comparingLong(v -> v[0]));
+            long median = values.get(values.size() / 2)[0];
+            long best = values.get(0)[0];
+            long rows = values.get(0)[1];
+            long bytes = values.get(values.size() / 2)[2];
+            if ("jvm uptime".equals(entry.getKey())) {
+                System.out.printf(Locale.US, "%-16s %12.1f %12.1f   (time to login window, %d runs)%n",
+                        "to login", median / 1e6, best / 1e6, runs);
+                continue;
+            }
+            System.out.printf(Locale.US, "%-16s %12.1f %12.1f %10d %12.0f %10.1f%n", entry.getKey(), median / 1e6, best / 1e6,
+                    rows, median == 0 ? 0.0 : rows * 1e9 / median, bytes / (1024.0 * 1024.0));
+        }
+    }
+
+    // ---- Data set generation (same file formats the managers write) ----
+
+    static void generateDataSet(File dataDir, int saleCount) throws IOException {
+        if (!dataDir.isDirectory() && !dataDir.mkdirs()) {
+            throw new IOException("Could not create " + dataDir);
+        }
+        Random random = new Random(42); // Same data set for every run and every machine (dates relative to today)
+        int itemCount = Math.max(100, saleCount / 10);
+        int supplierCount = 50;
+        // Dates cover the year up to today, so the hot window of the sales partitions holds the last few months
+        long now = System.currentTimeMillis();
+        long yearMillis = 365L * 24 * 60 * 60 * 1000;
+
+        List<Item> items = new ArrayList<>(itemCount);
+        try (PrintWriter out = writer(dataDir, "items.csv", "SKU,Name,Category,Quantity,Price,SupplierID,Status")) {
+            for (int i = 0; i < itemCount; i++) {
+                Item item = new Item(String.format("SKU%06d", i), "Product " + i, "Category " + (i % 40),
+                        random.nextInt(500), 0.5 + random.nextInt(20_000) / 100.0, String.format("SUP%03d", i % supplierCount), "Active");
+                items.add(item);
+                out.println(item.toCsvString());
+            }
+        }
+        try (PrintWriter out = writer(dataDir, "suppliers.csv", "supplierID,name,contactInfo")) {
+            for (int i = 0; i < supplierCount; i++) {
+                out.println(String.format("SUP%03d,Supplier %d,supplier%d@example.com", i, i, i));
+            }
+        }
+
+        List<String> saleIds = new ArrayList<>(saleCount);
+        try (PrintWriter salesOut = writer(dataDir, "sales.csv", "SaleID,SaleDate,TotalAmount,Status");
+             PrintWriter itemsOut = writer(dataDir, "sale_items.csv", "SaleID,ItemSKU,ItemName,QuantitySold,PriceAtSale")) {
+            for (int i = 0; i < saleCount; i++) {
+                String saleId = String.format("SALE-BENCH-%08d", i);
+                long date = now - (long) (random.nextDouble() * yearMillis);
+                double total = 0;
+                for (int line = 0; line < 3; line++) {
+                    Item item = items.get(random.nextInt(itemCount));
+                    Sale.SaleItem saleItem = new Sale.SaleItem(item.getSku(), item.getName(), 1 + random.nextInt(5), item.getPrice());
+                    total += saleItem.getSubtotal();
+                    itemsOut.println(Sale.escapeCsv(saleId) + "," + saleItem.toCsvString());
+                }
+                String status = random.nextInt(20) == 0 ? Sale.STATUS_CANCELLED : Sale.STATUS_COMPLETED;
+                salesOut.println(new Sale(saleId, date, total, status).toSaleCsvString());
+                saleIds.add(saleId);
+            }
+        }
+
+        // Split into monthly partitions and archive the months outside the hot window, as SalesManager does
+        SalesPartitionStore partitions = new SalesPartitionStore(new File(dataDir, "sales"));
+        partitions.migrateLegacy(new File(dataDir, "sales.csv"), new File(dataDir, "sale_items.csv"));
+        partitions.archiveBefore(SalesManager.firstHotMonth(partitions.months()));
+
+        try (PrintWriter ordersOut = writer(dataDir, "orders.csv", "orderID,supplierID,orderDate,status,totalCost");
+             PrintWriter itemsOut = writer(dataDir, "order_items.csv", "orderID,itemSKU,itemName,orderedQuantity,receivedQuantity,purchasePrice")) {
+            String[] statuses = {Order.STATUS_PLACED, Order.STATUS_PARTIALLY_RECEIVED, Order.STATUS_RECEIVED};
+            for (int i = 0; i < saleCount / 20; i++) {
+                String orderId = String.format("PO-BENCH-%08d", i);
+                double total = 0;
+                for (int line = 0; line < 4; line++) {
+                    Item item = items.get(random.nextInt(itemCount));
+                    int ordered = 10 + random.nextInt(100);
+                    OrderItem orderItem = new OrderItem(item.getSku(), item.getName(), ordered, random.nextInt(ordered + 1), item.getPrice() / 2);
+                    total += ordered * item.getPrice() / 2;
+                    itemsOut.println(Order.escapeCsv(orderId) + "," + orderItem.toCsvString());
+                }
+                long date = now - (long) (random.nextDouble() * yearMillis);
+                ordersOut.println(new Order(orderId, String.format("SUP%03d", i % supplierCount), date,
+                        statuses[random.nextInt(statuses.length)], total).toOrderCsvString());
+            }
+        }
+
+        try (PrintWriter returnsOut = writer(dataDir, "sales_returns.csv", "returnID,originalSaleID,returnDate,totalRefundAmount,status,customerNotes");
+             PrintWriter itemsOut = writer(dataDir, "sales_return_items.csv", "returnID,itemSKU,itemName,returnedQuantity,unitPriceAtSale,condition,reason")) {
+            for (int i = 0; i < saleCount / 50; i++) {
+                String returnId = String.format("SR-BENCH-%08d", i);
+                Item item = items.get(random.nextInt(itemCount));
+                SalesReturnItem returnItem = new SalesReturnItem(item.getSku(), item.getName(), 1, item.getPrice(),
+                        SalesReturnItem.CONDITION_RESELLABLE, "Benchmark");
+                itemsOut.println(SalesReturn.escapeCsv(returnId) + "," + returnItem.toCsvString());
+                returnsOut.println(new SalesReturn(returnId, saleIds.get(random.nextInt(saleIds.size())),
+                        now - (long) (random.nextDouble() * yearMillis), item.getPrice(),
+                        SalesReturn.STATUS_COMPLETED, "").toSalesReturnCsvString());
+            }
+        }
+
+        try (PrintWriter out = writer(dataDir, "users.csv", "username,passwordHash,salt,role")) {
+            for (int i = 0; i < 20; i++) {
+                String salt = PasswordUtils.generateSalt();
+                String username = i == 0 ? "admin" : "cashier" + i;
+                out.println(String.join(",", username, PasswordUtils.hashPassword(username, salt), salt, i == 0 ? "Admin" : "Staff"));
+            }
+        }
+    }
+
+    private static PrintWriter writer(File dir, String fileName, String header) throws IOException {
+        PrintWriter out = new PrintWriter(new BufferedWriter(new FileWriter(new File(dir, fileName))));
+        out.println(header);
+        return out;
+    }
+
+    private static void deleteRecursively(Path dir) throws IOException {
+        List<Path> paths;
+        try (Stream<Path> walk = Files.walk(dir)) {
+            paths = walk.collect(Collectors.toList());
+        }
+        Collections.reverse(paths); // Children before their directory
+        for (Path path : paths) {
+            Files.deleteIfExists(path);
+        }
+    }
+}
@@ -0,0 +1,120 @@
+// StartupProfiler.java
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Startup profiling mode: with -Dstartup.profile=true every startup phase (loading items, suppliers,
+ * sales headers, sale items, orders, returns, users, default admin, main window) records its wall time,
+ * row count and the bytes allocated by the loading thread. {@link #finish()} is called when the login
+ * window is about to show; it prints the table (plus time since JVM start) and switches profiling off,
+ * so later reloads are not counted.
+ *
+ * When the property is not set, begin() returns a shared no-op phase and nothing is measured.
+ * {@link StartupBenchmark} runs the same startup in fresh JVMs over generated data sets.
+ */
+public final class StartupProfiler {
+
+    public static final String ENABLE_PROPERTY = "startup.profile";
+    /** Lines starting with this prefix are the machine-readable report read by StartupBenchmark. */
+    static final String REPORT_LINE_PREFIX = "#startup-phase\t";
+
+    private static volatile boolean enabled = Boolean.getBoolean(ENABLE_PROPERTY);
+    private static final List<Phase> phases = new ArrayList<>();
+    private static final Phase NO_OP = new Phase(null);
+    private static final ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+
+    private StartupProfiler() {}
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /** Starts a phase; call {@link Phase#end(long)} on the same thread when it is done. */
+    public static Phase begin(String name) {
+        if (!enabled) return NO_OP;
+        Phase phase = new Phase(name);
+        phase.startNanos = System.nanoTime();
+        phase.startAllocatedBytes = allocatedBytes();
+        return phase;
+    }
+
+    public static final class Phase {
+        private final String name;
+        private long startNanos;
+        private long startAllocatedBytes;
+        private long nanos;
+        private long rows;
+        private long allocated;
+
+        private Phase(String name) {
+            this.name = name;
+        }
+
+        public void end(long rows) {
+            if (name == null || !enabled) return;
+            this.nanos = System.nanoTime() - startNanos;
+            long allocatedNow = allocatedBytes();
+            this.allocated = (allocatedNow < 0 || startAllocatedBytes < 0) ? -1 : allocatedNow - startAllocatedBytes;
+            this.rows = rows;
+            synchronized (phases) {
+                phases.add(this);
+            }
+        }
+
+        public String getName() { return name; }
+        public double getMillis() { return nanos / 1_000_000.0; }
+        public long getRows() { return rows; }
+        public long getAllocatedBytes() { return allocated; }
+
+        public double getRowsPerSecond() {
+            return nanos == 0 ? 0.0 : rows * 1_000_000_000.0 / nanos;
+        }
+    }
+
+    /** Prints the startup report once and turns profiling off. No-op when profiling is disabled. */
+    public static void finish() {
+        if (!enabled) return;
+        enabled = false;
+        long uptimeMillis = ManagementFactory.getRuntimeMXBean().getUptime();
+        List<Phase> recorded;
+        synchronized (phases) {
+            recorded = new ArrayList<>(phases);
+        }
+
+        StringBuilder report = new StringBuilder();
+        report.append("--- Startup profile ---\n");
+        report.append(String.format(Locale.US, "%-16s %10s %10s %12s %12s%n", "Phase", "ms", "rows", "rows/s", "alloc MB"));
+        double totalMillis = 0;
+        long totalAllocated = 0;
+        for (Phase p : recorded) {
+            report.append(String.format(Locale.US, "%-16s %10.1f %10d %12.0f %12.1f%n",
+                    p.getName(), p.getMillis(), p.getRows(), p.getRowsPerSecond(), p.getAllocatedBytes() / (1024.0 * 1024.0)));
+            totalMillis += p.getMillis();
+            if (p.getAllocatedBytes() > 0) totalAllocated += p.getAllocatedBytes();
+        }
+        report.append(String.format(Locale.US, "%-16s %10.1f %10s %12s %12.1f%n", "total (phases)", totalMillis, "", "", totalAllocated / (1024.0 * 1024.0)));
+        report.append(String.format(Locale.US, "Time to login window since JVM start: %d ms%n", uptimeMillis));
+        for (Phase p : recorded) {
+            report.append(REPORT_LINE_PREFIX).append(p.getName()).append('\t').append(p.nanos).append('\t')
+                    .append(p.getRows()).append('\t').append(p.getAllocatedBytes()).append('\n');
+        }
+        report.append(REPORT_LINE_PREFIX).append("jvm uptime").append('\t').append(uptimeMillis * 1_000_000L).append("\t0\t0\n");
+        System.out.print(report);
+        System.out.flush();
+    }
+
+    // Bytes allocated so far by the current thread, or -1 if the JVM cannot tell
+    private static long allocatedBytes() {
+        if (threadBean instanceof com.sun.management.ThreadMXBean) {
+            try {
+                return ((com.sun.management.ThreadMXBean) threadBean).getCurrentThreadAllocatedBytes(); // No thread id needed (getId() is deprecated)
+            } catch (UnsupportedOperationException e) {
+                return -1;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,229 @@
+// StockMutationSequencer.java
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Optional single-writer pipeline for stock changes (enable with -Dinventory.sequencer=true).
+ * Producers claim a slot in a ring buffer with a CAS on the claim sequence and publish the command;
+ * one consumer thread applies the commands strictly in sequence order, so changes to a SKU are never
+ * interleaved, and appends them to the stock journal in batches (flushed when the buffer runs dry).
+ * A command may touch several SKUs and is applied all-or-nothing.
+ */
+public class StockMutationSequencer {
+    public static final String ENABLE_PROPERTY = "inventory.sequencer";
+    public static final String DEFAULT_JOURNAL_PATH = Inventory.DATA_DIRECTORY + "stock_journal.log";
+    private static final int DEFAULT_CAPACITY = 1024; // must be a power of two
+    private static final String JOURNAL_HEADER = "Sequence,Timestamp,Source,SKU,Delta,Result";
+
+    /**
+     * Applies one command to the stock. Only ever called from the sequencer thread.
+     */
+    public interface Applier {
+        boolean apply(Map<String, Integer> deltas);
+    }
+
+    private static final class Slot {
+        Map<String, Integer> deltas;
+        String source;
+        CompletableFuture<Boolean> result;
+    }
+
+    private final Slot[] ring;
+    private final int mask;
+    private final AtomicLong claimSequence = new AtomicLong(-1);   // last sequence handed to a producer
+    private final AtomicLongArray publishedSequence;               // per slot: sequence of the command it holds
+    private volatile long consumedSequence = -1;                   // last sequence applied; frees its slot
+    private final Applier applier;
+    private final String journalPath;
+    private BufferedWriter journal;
+    private final Thread consumerThread;
+    private volatile boolean running = true;
+    private volatile boolean consumerDone = false;                 // set once the consumer has stopped applying
+
+    public StockMutationSequencer(Applier applier) {
+        this(applier, DEFAULT_CAPACITY, DEFAULT_JOURNAL_PATH);
+    }
+
+    public StockMutationSequencer(Applier applier, int capacity, String journalPath) {
+        if (capacity <= 0 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Ring buffer capacity must be a power of two: " + capacity);
+        }
+        this.applier = applier;
+        this.journalPath = journalPath;
+        this.ring = new Slot[capacity];
+        for (int i = 0; i < capacity; i++) {
+            ring[i] = new Slot();
+        }
+        this.mask = capacity - 1;
+        this.publishedSequence = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            publishedSequence.set(i, -1);
+        }
+        openJournal();
+        this.consumerThread = new Thread(this::runConsumer, "stock-mutation-sequencer");
+        this.consumerThread.setDaemon(true);
+        this.consumerThread.start();
+    }
+
+    /**
+     * Queues a stock change. Never takes a lock; waits only if the ring buffer is full.
+     * @return a future completed with true once applied, or false if it was rejected (unknown SKU or stock would go negative).
+     */
+    public CompletableFuture<Boolean> submit(Map<String, Integer> deltas, String source) {
+        CompletableFuture<Boolean> result = new CompletableFuture<>();
+        if (!running) {
+            result.complete(false);
+            return result;
+        }
+        long sequence;
+        while (true) {
+            long current = claimSequence.get();
+            long next = current + 1;
+            if (next - ring.length > consumedSequence) {
+                if (!running) { // Shut down while waiting; nothing claimed yet
+                    result.complete(false);
+                    return result;
+                }
+                LockSupport.parkNanos(1_000L); // Buffer full: wait for the consumer to free a slot
+                continue;
+            }
+            if (claimSequence.compareAndSet(current, next)) {
+                sequence = next;
+                break;
+            }
+        }
+        int index = (int) (sequence & mask);
+        Slot slot = ring[index];
+        slot.deltas = new LinkedHashMap<>(deltas);
+        slot.source = source;
+        slot.result = result;
+        publishedSequence.set(index, sequence); // Volatile write publishes the slot fields
+        LockSupport.unpark(consumerThread);
+        // Re-check after publishing: shutdown may have raced with the claim. Either the consumer's final
+        // sweep sees this slot, or we see consumerDone here (both are volatile), so the future always completes.
+        if (consumerDone) {
+            result.complete(false);
+        }
+        return result;
+    }
+
+    /**
+     * Stops accepting commands, drains what is already queued and closes the journal.
+     * Commands submitted concurrently with shutdown are either applied or completed with false.
+     */
+    public void shutdown() {
+        running = false;
+        LockSupport.unpark(consumerThread);
+        try {
+            consumerThread.join(5000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void runConsumer() {
+        long next = 0;
+        while (running || next <= claimSequence.get()) {
+            int index = (int) (next & mask);
+            if (publishedSequence.get(index) != next) {
+                flushJournal(); // End of batch
+                LockSupport.park(); // Woken by submit() or shutdown(); spurious wake-ups just loop
+                continue;
+            }
+            Slot slot = ring[index];
+            Map<String, Integer> deltas = slot.deltas;
+            String source = slot.source;
+            CompletableFuture<Boolean> result = slot.result;
+            slot.deltas = null;
+            slot.source = null;
+            slot.result = null;
+
+            boolean applied;
+            try {
+                applied = applier.apply(deltas);
+            } catch (RuntimeException e) {
+                AppLog.error("StockMutationSequencer: error applying #" + next + " (" + source + "): " + e.getMessage());
+                applied = false;
+            }
+            appendToJournal(next, source, deltas, applied);
+            consumedSequence = next; // Frees the slot for producers
+            result.complete(applied);
+            next++;
+        }
+        flushJournal();
+        closeJournal();
+        consumerDone = true;
+        // Commands claimed after the loop ended are not applied; producers that published before seeing
+        // consumerDone are completed here, the rest complete their own future in submit()
+        for (long sequence = next; sequence <= claimSequence.get(); sequence++) {
+            int index = (int) (sequence & mask);
+            if (publishedSequence.get(index) == sequence) {
+                CompletableFuture<Boolean> result = ring[index].result;
+                if (result != null) {
+                    result.complete(false);
+                }
+            }
+        }
+    }
+
+    private void openJournal() {
+        File file = new File(journalPath);
+        File parentDir = file.getParentFile();
+        if (parentDir != null && !parentDir.exists()) {
+            parentDir.mkdirs();
+        }
+        boolean isNew = !file.exists() || file.length() == 0;
+        try {
+            journal = new BufferedWriter(new FileWriter(file, true));
+            if (isNew) {
+                journal.write(JOURNAL_HEADER);
+                journal.newLine();
+            }
+        } catch (IOException e) {
+            AppLog.warn("StockMutationSequencer: could not open journal " + journalPath + ": " + e.getMessage() + ". Continuing without a journal.");
+            journal = null;
+        }
+    }
+
+    private void appendToJournal(long sequence, String source, Map<String, Integer> deltas, boolean applied) {
+        if (journal == null) return;
+        String timestamp = Instant.now().toString();
+        try {
+            for (Map.Entry<String, Integer> e : deltas.entrySet()) {
+                journal.write(sequence + "," + timestamp + "," + Order.escapeCsv(source) + "," + Order.escapeCsv(e.getKey()) + "," +
+                        e.getValue() + "," + (applied ? "APPLIED" : "REJECTED"));
+                journal.newLine();
+            }
+        } catch (IOException e) {
+            AppLog.warn("StockMutationSequencer: journal write failed: " + e.getMessage());
+        }
+    }
+
+    private void flushJournal() {
+        if (journal == null) return;
+        try {
+            journal.flush();
+        } catch (IOException e) {
+            AppLog.warn("StockMutationSequencer: journal flush failed: " + e.getMessage());
+        }
+    }
+
+    private void closeJournal() {
+        if (journal == null) return;
+        try {
+            journal.close();
+        } catch (IOException e) {
+            AppLog.warn("StockMutationSequencer: could not close journal: " + e.getMessage());
+        }
+        journal = null;
+    }
+}
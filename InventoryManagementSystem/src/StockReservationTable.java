@@ -0,0 +1,226 @@
+// StockReservationTable.java
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToIntFunction;
+
+/**
+ * Holds stock for pending sales so two terminals cannot both sell the last unit.
+ * Reservations are keyed by sale ID (one pending sale per terminal/window) and expire after a TTL
+ * unless the sale touches them again. Expiry is driven by a hashed timer wheel ticking on a daemon thread,
+ * so expiring N reservations costs O(N), not a scan of every reservation on every tick.
+ * The total reserved per SKU is kept as a running counter, so availability checks are O(1).
+ */
+public class StockReservationTable {
+    public static final long DEFAULT_TTL_MILLIS = 15 * 60 * 1000L; // 15 minutes
+    private static final long TICK_MILLIS = 1000L;
+    private static final int WHEEL_SIZE = 512; // slots; TTLs longer than one revolution just wait extra rounds
+
+    /**
+     * Notified (on the wheel thread) after a sale's reservations have expired and been released.
+     */
+    public interface ExpiryListener {
+        void onReservationsExpired(String saleId, Map<String, Integer> releasedQuantities);
+    }
+
+    private static class Reservation {
+        final Map<String, Integer> quantitiesBySku = new HashMap<>();
+        long expiryTick;
+    }
+
+    private static class WheelEntry {
+        final String saleId;
+        final long expiryTick;
+        WheelEntry(String saleId, long expiryTick) {
+            this.saleId = saleId;
+            this.expiryTick = expiryTick;
+        }
+    }
+
+    private final long ttlTicks;
+    private final List<List<WheelEntry>> wheel;
+    private long currentTick = 0;
+    private final Map<String, Reservation> reservationsBySale = new HashMap<>();
+    private final Map<String, Integer> reservedBySku = new HashMap<>();
+    private final ScheduledExecutorService ticker;
+    private volatile ExpiryListener expiryListener;
+
+    public StockReservationTable() {
+        this(DEFAULT_TTL_MILLIS);
+    }
+
+    public StockReservationTable(long ttlMillis) {
+        if (ttlMillis <= 0) {
+            throw new IllegalArgumentException("Reservation TTL must be positive.");
+        }
+        this.ttlTicks = Math.max(1, (ttlMillis + TICK_MILLIS - 1) / TICK_MILLIS);
+        this.wheel = new ArrayList<>(WHEEL_SIZE);
+        for (int i = 0; i < WHEEL_SIZE; i++) {
+            wheel.add(new ArrayList<>());
+        }
+        this.ticker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "stock-reservation-wheel");
+            t.setDaemon(true);
+            return t;
+        });
+        ticker.scheduleAtFixedRate(this::tick, TICK_MILLIS, TICK_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    public void setExpiryListener(ExpiryListener listener) {
+        this.expiryListener = listener;
+    }
+
+    /**
+     * Sets the quantity of a SKU held by a sale (replacing any previous amount for that SKU)
+     * and restarts the sale's TTL. A quantity of 0 releases the SKU.
+     */
+    public synchronized void setReservation(String saleId, String sku, int quantity) {
+        Reservation reservation = reservationsBySale.get(saleId);
+        if (reservation == null) {
+            if (quantity <= 0) return;
+            reservation = new Reservation();
+            reservationsBySale.put(saleId, reservation);
+        }
+        Integer previous = reservation.quantitiesBySku.remove(sku);
+        if (previous != null) {
+            addReserved(sku, -previous);
+        }
+        if (quantity > 0) {
+            reservation.quantitiesBySku.put(sku, quantity);
+            addReserved(sku, quantity);
+        }
+        if (reservation.quantitiesBySku.isEmpty()) {
+            reservationsBySale.remove(saleId);
+        } else {
+            schedule(saleId, reservation);
+        }
+    }
+
+    /**
+     * Check and reserve in one step: sets the sale's quantity of the SKU only if it fits into onHand
+     * minus what other sales hold. Two terminals can therefore not both reserve the last unit.
+     * @return false (nothing changes) if there is not enough unreserved stock.
+     */
+    public synchronized boolean tryReserve(String saleId, String sku, int quantity, int onHand) {
+        if (quantity > onHand - reservedByOthers(saleId, sku)) {
+            return false;
+        }
+        setReservation(saleId, sku, quantity);
+        return true;
+    }
+
+    /**
+     * Used right before a sale takes its stock: checks every SKU against onHand minus other sales'
+     * reservations and, if all fit, raises the sale's reservations to the required quantities so no
+     * other sale can claim the same units while this one is being finalized. The caller releases them
+     * with {@link #releaseAll(String)} once the stock has been taken.
+     * @return null if everything was claimed, otherwise the first SKU that is short (nothing changes then)
+     */
+    public synchronized String tryClaim(String saleId, Map<String, Integer> required, ToIntFunction<String> onHand) {
+        for (Map.Entry<String, Integer> e : required.entrySet()) {
+            if (e.getValue() > onHand.applyAsInt(e.getKey()) - reservedByOthers(saleId, e.getKey())) {
+                return e.getKey();
+            }
+        }
+        for (Map.Entry<String, Integer> e : required.entrySet()) {
+            if (e.getValue() > getReservedQuantity(saleId, e.getKey())) {
+                setReservation(saleId, e.getKey(), e.getValue());
+            }
+        }
+        return null;
+    }
+
+    private int reservedByOthers(String saleId, String sku) {
+        return getReservedQuantity(sku) - getReservedQuantity(saleId, sku);
+    }
+
+    /**
+     * Releases everything held by a sale (on finalize or cancel).
+     * @return the quantities that were released, by SKU (empty if the sale held nothing).
+     */
+    public synchronized Map<String, Integer> releaseAll(String saleId) {
+        Reservation reservation = reservationsBySale.remove(saleId);
+        if (reservation == null) {
+            return new HashMap<>();
+        }
+        for (Map.Entry<String, Integer> e : reservation.quantitiesBySku.entrySet()) {
+            addReserved(e.getKey(), -e.getValue());
+        }
+        return new HashMap<>(reservation.quantitiesBySku);
+    }
+
+    /** Restarts the TTL of a sale's reservations, e.g. while the cashier is still working on it. */
+    public synchronized void touch(String saleId) {
+        Reservation reservation = reservationsBySale.get(saleId);
+        if (reservation != null) {
+            schedule(saleId, reservation);
+        }
+    }
+
+    /** Total quantity of the SKU held by all pending sales. */
+    public synchronized int getReservedQuantity(String sku) {
+        Integer qty = reservedBySku.get(sku);
+        return qty == null ? 0 : qty;
+    }
+
+    /** Quantity of the SKU held by one sale. */
+    public synchronized int getReservedQuantity(String saleId, String sku) {
+        Reservation reservation = reservationsBySale.get(saleId);
+        if (reservation == null) return 0;
+        Integer qty = reservation.quantitiesBySku.get(sku);
+        return qty == null ? 0 : qty;
+    }
+
+    public void shutdown() {
+        ticker.shutdownNow();
+    }
+
+    private void schedule(String saleId, Reservation reservation) {
+        // Older wheel entries for this sale become stale and are dropped when their slot comes round
+        reservation.expiryTick = currentTick + ttlTicks;
+        wheel.get((int) (reservation.expiryTick % WHEEL_SIZE)).add(new WheelEntry(saleId, reservation.expiryTick));
+    }
+
+    private void addReserved(String sku, int delta) {
+        int updated = getReservedQuantity(sku) + delta;
+        if (updated > 0) {
+            reservedBySku.put(sku, updated);
+        } else {
+            reservedBySku.remove(sku);
+        }
+    }
+
+    private void tick() {
+        Map<String, Map<String, Integer>> expired = new HashMap<>();
+        synchronized (this) {
+            currentTick++;
+            Iterator<WheelEntry> it = wheel.get((int) (currentTick % WHEEL_SIZE)).iterator();
+            while (it.hasNext()) {
+                WheelEntry entry = it.next();
+                if (entry.expiryTick > currentTick) {
+                    continue; // Due on a later revolution
+                }
+                it.remove();
+                Reservation reservation = reservationsBySale.get(entry.saleId);
+                if (reservation != null && reservation.expiryTick == entry.expiryTick) {
+                    expired.put(entry.saleId, releaseAll(entry.saleId));
+                }
+            }
+        }
+        ExpiryListener listener = expiryListener;
+        if (listener != null) {
+            for (Map.Entry<String, Map<String, Integer>> e : expired.entrySet()) {
+                try {
+                    listener.onReservationsExpired(e.getKey(), e.getValue());
+                } catch (Exception ex) {
+                    AppLog.error("Error in reservation expiry listener for sale " + e.getKey() + ": " + ex.getMessage());
+                }
+            }
+        }
+    }
+}
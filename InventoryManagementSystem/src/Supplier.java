@@ -58,12 +58,12 @@ public class Supplier {
             // Optional: Check if the product (by SKU) is already in the list to avoid duplicates
             if (this.productsSupplied.stream().noneMatch(p -> p.getSku().equals(item.getSku()))) {
                 this.productsSupplied.add(item);
-                System.out.println("Product " + item.getName() + " (SKU: " + item.getSku() + ") added to supplier " + this.name);
+                AppLog.info("Product " + item.getName() + " (SKU: " + item.getSku() + ") added to supplier " + this.name);
             } else {
-                System.out.println("Product " + item.getName() + " (SKU: " + item.getSku() + ") is already listed for supplier " + this.name);
+                AppLog.info("Product " + item.getName() + " (SKU: " + item.getSku() + ") is already listed for supplier " + this.name);
             }
         } else {
-            System.out.println("Cannot add a null product to the supplier.");
+            AppLog.info("Cannot add a null product to the supplier.");
         }
     }
 
@@ -75,14 +75,14 @@ public class Supplier {
      */
     public boolean removeProduct(String sku) {
         if (sku == null || sku.isEmpty()) {
-            System.out.println("SKU cannot be null or empty for removal.");
+            AppLog.info("SKU cannot be null or empty for removal.");
             return false;
         }
         boolean removed = this.productsSupplied.removeIf(item -> item.getSku().equals(sku));
         if (removed) {
-            System.out.println("Product (SKU: " + sku + ") removed from supplier " + this.name);
+            AppLog.info("Product (SKU: " + sku + ") removed from supplier " + this.name);
         } else {
-            System.out.println("Product (SKU: " + sku + ") not found for supplier " + this.name);
+            AppLog.info("Product (SKU: " + sku + ") not found for supplier " + this.name);
         }
         return removed;
     }
@@ -117,44 +117,44 @@ public class Supplier {
         Item inkCartridge = new Item("SKU007", "Ink Cartridge", "Office Supplies", 200, 15.0, "SupplierB_ID_Placeholder", "Active");
 
         // 1. 创建 Supplier 对象
-        System.out.println("--- Creating Suppliers ---");
+        AppLog.info("--- Creating Suppliers ---");
         Supplier supplierA = new Supplier("SUP001", "FreshProduce Inc.", "contact@freshproduce.com");
         Supplier supplierB = new Supplier("SUP002", "OfficeNeeds Ltd.", "sales@officeneeds.com");
-        System.out.println("Supplier A created: " + supplierA.getName());
-        System.out.println("Supplier B created: " + supplierB.getName());
-        System.out.println();
+        AppLog.info("Supplier A created: " + supplierA.getName());
+        AppLog.info("Supplier B created: " + supplierB.getName());
+        AppLog.info("");
 
         // 2. 给供应商添加产品
-        System.out.println("--- Adding Products to Suppliers ---");
+        AppLog.info("--- Adding Products to Suppliers ---");
         supplierA.addProduct(apple); // Apple's supplier attribute in Item object might differ, this demonstrates association at Supplier level
         supplierA.addProduct(pear);
         supplierA.addProduct(apple); // Try adding duplicate
         supplierB.addProduct(inkCartridge);
         supplierB.addProduct(null); // Try adding null
-        System.out.println();
+        AppLog.info("");
 
         // 3. 获取供应商详情
-        System.out.println("--- Supplier A Details ---");
-        System.out.println(supplierA.getDetails());
-        System.out.println();
+        AppLog.info("--- Supplier A Details ---");
+        AppLog.info(supplierA.getDetails());
+        AppLog.info("");
 
-        System.out.println("--- Supplier B Details ---");
-        System.out.println(supplierB.getDetails());
-        System.out.println();
+        AppLog.info("--- Supplier B Details ---");
+        AppLog.info(supplierB.getDetails());
+        AppLog.info("");
 
         // 4. (新增) 从供应商移除产品
-        System.out.println("--- Removing Product from Supplier A ---");
+        AppLog.info("--- Removing Product from Supplier A ---");
         supplierA.removeProduct("SKU006"); // Remove Pear
         supplierA.removeProduct("SKU999"); // Try removing non-existent product
-        System.out.println("\n--- Supplier A Details After Removal ---");
-        System.out.println(supplierA.getDetails());
-        System.out.println();
+        AppLog.info("\n--- Supplier A Details After Removal ---");
+        AppLog.info(supplierA.getDetails());
+        AppLog.info("");
 
         // 5. 更新供应商信息 (使用 setters)
-        System.out.println("--- Updating Supplier B Contact Info ---");
+        AppLog.info("--- Updating Supplier B Contact Info ---");
         supplierB.setContactInfo("support@officeneeds.com");
-        System.out.println("New contact for Supplier B: " + supplierB.getContactInfo());
-        System.out.println("\n--- Supplier B Details After Update ---");
-        System.out.println(supplierB.getDetails());
+        AppLog.info("New contact for Supplier B: " + supplierB.getContactInfo());
+        AppLog.info("\n--- Supplier B Details After Update ---");
+        AppLog.info(supplierB.getDetails());
     }
 }
@@ -17,9 +17,23 @@ public class SupplierManager {
     }
 
     public void loadSuppliersFromFile(String filePath) {
+        StartupProfiler.Phase startupPhase = StartupProfiler.begin("suppliers");
+        long startNanos = System.nanoTime();
+        AppEvents.FileIoEvent event = new AppEvents.FileIoEvent("load", "suppliers");
+        event.begin();
+        try {
+            doLoadSuppliersFromFile(filePath);
+        } finally {
+            MetricsRegistry.histogram("file.load.suppliers").recordSince(startNanos);
+            event.finish(suppliers.size(), filePath);
+            startupPhase.end(suppliers.size());
+        }
+    }
+
+    private void doLoadSuppliersFromFile(String filePath) {
         File file = new File(filePath);
         if (!file.exists()) {
-            System.out.println("Suppliers file not found: " + filePath + ". Starting with an empty supplier list.");
+            AppLog.info("Suppliers file not found: " + filePath + ". Starting with an empty supplier list.");
             // Ensure data directory exists for potential save operations later
             File parentDir = file.getParentFile();
             if (parentDir != null && !parentDir.exists()) {
@@ -31,7 +45,7 @@ public class SupplierManager {
         try (BufferedReader br = new BufferedReader(new FileReader(file))) {
             String line = br.readLine();
             if (line == null || !line.trim().equalsIgnoreCase(CSV_HEADER)) {
-                System.err.println("Warning: Suppliers CSV file header mismatch or file is empty. Expected: '" + CSV_HEADER + "'. Got: '" + (line != null ? line.trim() : "null") + "'");
+                AppLog.warn("Warning: Suppliers CSV file header mismatch or file is empty. Expected: '" + CSV_HEADER + "'. Got: '" + (line != null ? line.trim() : "null") + "'");
                 return;
             }
 
@@ -53,22 +67,33 @@ public class SupplierManager {
 
                     this.suppliers.add(new Supplier(id, name, contact));
                 } else {
-                    System.err.println("Skipping malformed supplier line (not enough parts): " + line);
+                    AppLog.warn("Skipping malformed supplier line (not enough parts): " + line);
                 }
             }
-            System.out.println(this.suppliers.size() + " suppliers loaded successfully from " + filePath);
+            AppLog.info(this.suppliers.size() + " suppliers loaded successfully from " + filePath);
         } catch (IOException e) {
-            System.err.println("Error loading suppliers from file " + filePath + ": " + e.getMessage());
-            e.printStackTrace();
+            AppLog.error("Error loading suppliers from file " + filePath + ": " + e.getMessage(), e);
         }
     }
 
     public void saveSuppliersToFile(String filePath) {
+        long startNanos = System.nanoTime();
+        AppEvents.FileIoEvent event = new AppEvents.FileIoEvent("save", "suppliers");
+        event.begin();
+        try {
+            doSaveSuppliersToFile(filePath);
+        } finally {
+            MetricsRegistry.histogram("file.save.suppliers").recordSince(startNanos);
+            event.finish(suppliers.size(), filePath);
+        }
+    }
+
+    private void doSaveSuppliersToFile(String filePath) {
         File file = new File(filePath);
         File parentDir = file.getParentFile(); // Should be "data" directory
         if (parentDir != null && !parentDir.exists()) {
             if (!parentDir.mkdirs()) {
-                System.err.println("Could not create directory for suppliers file: " + parentDir.getPath());
+                AppLog.warn("Could not create directory for suppliers file: " + parentDir.getPath());
                 return;
             }
         }
@@ -82,10 +107,9 @@ public class SupplierManager {
                         escapeCsv(supplier.getContactInfo())
                 ));
             }
-            System.out.println(this.suppliers.size() + " suppliers saved successfully to " + filePath);
+            AppLog.info(this.suppliers.size() + " suppliers saved successfully to " + filePath);
         } catch (IOException e) {
-            System.err.println("Error saving suppliers to file " + filePath + ": " + e.getMessage());
-            e.printStackTrace();
+            AppLog.error("Error saving suppliers to file " + filePath + ": " + e.getMessage(), e);
         }
     }
 
@@ -115,20 +139,20 @@ public class SupplierManager {
 
     public void addSupplier(Supplier supplier) {
         if (supplier == null || supplier.getSupplierID() == null || supplier.getSupplierID().isEmpty()) {
-            System.out.println("Error: Supplier or Supplier ID cannot be null or empty.");
+            AppLog.warn("Error: Supplier or Supplier ID cannot be null or empty.");
             return;
         }
         if (this.suppliers.stream().anyMatch(s -> s.getSupplierID().equals(supplier.getSupplierID()))) {
-            System.out.println("Error: Supplier with ID " + supplier.getSupplierID() + " already exists.");
+            AppLog.warn("Error: Supplier with ID " + supplier.getSupplierID() + " already exists.");
         } else {
             this.suppliers.add(supplier);
-            System.out.println("Supplier " + supplier.getName() + " (ID: " + supplier.getSupplierID() + ") added.");
+            AppLog.info("Supplier " + supplier.getName() + " (ID: " + supplier.getSupplierID() + ") added.");
         }
     }
 
     public boolean removeSupplier(String supplierID) {
         if (supplierID == null || supplierID.isEmpty()) {
-            System.out.println("Error: Supplier ID cannot be null or empty for removal.");
+            AppLog.warn("Error: Supplier ID cannot be null or empty for removal.");
             return false;
         }
         return this.suppliers.removeIf(s -> s.getSupplierID().equals(supplierID));
@@ -145,28 +169,28 @@ public class SupplierManager {
     }
 
     public static void main(String[] args) {
-        System.out.println("Testing SupplierManager (data in " + DATA_DIRECTORY + ")...");
+        AppLog.info("Testing SupplierManager (data in " + DATA_DIRECTORY + ")...");
         SupplierManager sm = new SupplierManager();
         if (sm.getAllSuppliers().isEmpty()) {
-            System.out.println("No suppliers loaded. Adding sample suppliers.");
+            AppLog.info("No suppliers loaded. Adding sample suppliers.");
             sm.addSupplier(new Supplier("SUPPLIER_A", "Fresh Produce Co.", "orders@freshproduce.co"));
             sm.addSupplier(new Supplier("SUPPLIER_B", "Office Solutions Ltd.", "contact@officesolutions.com"));
             sm.addSupplier(new Supplier("SUPPLIER_C", "Gadget Galaxy, \"Best Gadgets\"", "support@gadgetgalaxy.net, sales@gadgetgalaxy.net"));
             sm.saveSuppliersToFile(DEFAULT_SUPPLIERS_FILE_PATH);
         }
 
-        System.out.println("\n--- Current Suppliers (" + sm.getAllSuppliers().size() + ") ---");
+        AppLog.info("\n--- Current Suppliers (" + sm.getAllSuppliers().size() + ") ---");
         for (Supplier s : sm.getAllSuppliers()) {
-            System.out.println(s.getDetails());
+            AppLog.info(s.getDetails());
         }
 
-        System.out.println("\n--- Loading suppliers again to test parsing of escaped CSV ---");
+        AppLog.info("\n--- Loading suppliers again to test parsing of escaped CSV ---");
         SupplierManager sm2 = new SupplierManager();
-        System.out.println("\n--- Current Suppliers after reload (" + sm2.getAllSuppliers().size() + ") ---");
+        AppLog.info("\n--- Current Suppliers after reload (" + sm2.getAllSuppliers().size() + ") ---");
         for (Supplier s : sm2.getAllSuppliers()) {
-            System.out.println("ID: " + s.getSupplierID() + ", Name: " + s.getName() + ", Contact: " + s.getContactInfo());
+            AppLog.info("ID: " + s.getSupplierID() + ", Name: " + s.getName() + ", Contact: " + s.getContactInfo());
         }
 
-        System.out.println("\nSupplierManager test finished.");
+        AppLog.info("\nSupplierManager test finished.");
     }
 }
\ No newline at end of file
@@ -0,0 +1,169 @@
+// Timestamps.java
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+
+/**
+ * Epoch-millisecond helpers for the dates of sales, purchase orders and returns. Everything here is
+ * static and thread-safe (no SimpleDateFormat is shared).
+ *
+ * The CSV files store ISO-8601 instants as written by DateTimeFormatter.ISO_INSTANT
+ * ("2025-03-14T09:30:15Z", or "...15.120Z" with milliseconds). {@link #formatIso(long)} writes exactly
+ * that and {@link #parseIso(String)} reads that fixed layout directly from the characters; anything
+ * else falls back to Instant.parse and then to the old Date.toString() layout.
+ */
+public final class Timestamps {
+
+    /** Returned by {@link #parseIso(String)} when the text is not a date. */
+    public static final long INVALID = Long.MIN_VALUE;
+
+    private static final long MILLIS_PER_DAY = 86_400_000L;
+    private static final DateTimeFormatter DISPLAY_FORMATTER =
+            DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss").withZone(ZoneId.systemDefault());
+
+    private Timestamps() {}
+
+    /** Calendar day (days since 1970-01-01) of the instant in the default time zone. */
+    public static long localEpochDay(long epochMillis) {
+        int offsetSeconds = ZoneId.systemDefault().getRules().getOffset(Instant.ofEpochMilli(epochMillis)).getTotalSeconds();
+        return Math.floorDiv(epochMillis + offsetSeconds * 1000L, MILLIS_PER_DAY);
+    }
+
+    /** "yyyy-MM-dd HH:mm:ss" in the default time zone, for receipts and tables. */
+    public static String formatDisplay(long epochMillis) {
+        return DISPLAY_FORMATTER.format(Instant.ofEpochMilli(epochMillis));
+    }
+
+    /** Same text as DateTimeFormatter.ISO_INSTANT for a millisecond instant. */
+    public static String formatIso(long epochMillis) {
+        long epochDay = Math.floorDiv(epochMillis, MILLIS_PER_DAY);
+        int millisOfDay = (int) Math.floorMod(epochMillis, MILLIS_PER_DAY);
+        long[] ymd = civilFromDays(epochDay);
+        if (ymd[0] < 0 || ymd[0] > 9999) {
+            return DateTimeFormatter.ISO_INSTANT.format(Instant.ofEpochMilli(epochMillis));
+        }
+        int millis = millisOfDay % 1000;
+        int secondOfDay = millisOfDay / 1000;
+        char[] text = new char[millis == 0 ? 20 : 24];
+        putDigits(text, 0, (int) ymd[0], 4);
+        text[4] = '-';
+        putDigits(text, 5, (int) ymd[1], 2);
+        text[7] = '-';
+        putDigits(text, 8, (int) ymd[2], 2);
+        text[10] = 'T';
+        putDigits(text, 11, secondOfDay / 3600, 2);
+        text[13] = ':';
+        putDigits(text, 14, secondOfDay / 60 % 60, 2);
+        text[16] = ':';
+        putDigits(text, 17, secondOfDay % 60, 2);
+        if (millis != 0) {
+            text[19] = '.';
+            putDigits(text, 20, millis, 3);
+        }
+        text[text.length - 1] = 'Z';
+        return new String(text);
+    }
+
+    /**
+     * Parses "yyyy-MM-ddTHH:mm:ss[.fraction]Z" without going through java.time; other layouts fall back
+     * to Instant.parse and the legacy Date.toString() format. Returns {@link #INVALID} if nothing matches.
+     */
+    public static long parseIso(String text) {
+        if (text == null) return INVALID;
+        long fast = parseFixedIso(text);
+        if (fast != INVALID) return fast;
+        try {
+            return Instant.parse(text).toEpochMilli();
+        } catch (RuntimeException e) {
+            AppLog.error("Error parsing ISO date string: " + text + " - " + e.getMessage() + ". Falling back.");
+        }
+        try {
+            SimpleDateFormat legacySdf = new SimpleDateFormat("EEE MMM dd HH:mm:ss zzz yyyy", Locale.ENGLISH);
+            return legacySdf.parse(text).getTime(); // Default Date.toString() format
+        } catch (ParseException e) {
+            AppLog.error("Error parsing legacy date string after ISO fail: " + text + " - " + e.getMessage());
+            return INVALID;
+        }
+    }
+
+    private static long parseFixedIso(String s) {
+        int length = s.length();
+        if (length < 20 || s.charAt(length - 1) != 'Z' || s.charAt(4) != '-' || s.charAt(7) != '-'
+                || s.charAt(10) != 'T' || s.charAt(13) != ':' || s.charAt(16) != ':') {
+            return INVALID;
+        }
+        int year = digits(s, 0, 4), month = digits(s, 5, 2), day = digits(s, 8, 2);
+        int hour = digits(s, 11, 2), minute = digits(s, 14, 2), second = digits(s, 17, 2);
+        if (year < 0 || month < 1 || month > 12 || day < 1 || day > daysInMonth(year, month)
+                || hour < 0 || hour > 23 || minute < 0 || minute > 59 || second < 0 || second > 59) {
+            return INVALID;
+        }
+        int millis = 0;
+        if (length > 20) {
+            // Fraction of a second: '.' then 1-9 digits; only the first three matter
+            if (s.charAt(19) != '.' || length > 30) return INVALID;
+            int fractionDigits = length - 21;
+            if (fractionDigits < 1) return INVALID;
+            for (int i = 0; i < fractionDigits; i++) {
+                int d = s.charAt(20 + i) - '0';
+                if (d < 0 || d > 9) return INVALID;
+                if (i < 3) millis = millis * 10 + d;
+            }
+            for (int i = fractionDigits; i < 3; i++) millis *= 10;
+        }
+        long epochDay = daysFromCivil(year, month, day);
+        return epochDay * MILLIS_PER_DAY + ((hour * 60L + minute) * 60L + second) * 1000L + millis;
+    }
+
+    private static int digits(String s, int offset, int count) {
+        int value = 0;
+        for (int i = offset; i < offset + count; i++) {
+            int d = s.charAt(i) - '0';
+            if (d < 0 || d > 9) return -1;
+            value = value * 10 + d;
+        }
+        return value;
+    }
+
+    private static int daysInMonth(int year, int month) {
+        switch (month) {
+            case 2: return ((year % 4 == 0 && year % 100 != 0) || year % 400 == 0) ? 29 : 28;
+            case 4: case 6: case 9: case 11: return 30;
+            default: return 31;
+        }
+    }
+
+    // Days since 1970-01-01 for a proleptic Gregorian date (H. Hinnant's days_from_civil)
+    static long daysFromCivil(long year, int month, int day) {
+        year -= month <= 2 ? 1 : 0;
+        long era = Math.floorDiv(year, 400);
+        long yearOfEra = year - era * 400;
+        long dayOfYear = (153L * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+        long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097 + dayOfEra - 719468;
+    }
+
+    // {year, month, day} for days since 1970-01-01 (inverse of daysFromCivil)
+    static long[] civilFromDays(long epochDay) {
+        long z = epochDay + 719468;
+        long era = Math.floorDiv(z, 146097);
+        long dayOfEra = z - era * 146097;
+        long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+        long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        long mp = (5 * dayOfYear + 2) / 153;
+        long day = dayOfYear - (153 * mp + 2) / 5 + 1;
+        long month = mp < 10 ? mp + 3 : mp - 9;
+        long year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+        return new long[]{year, month, day};
+    }
+
+    private static void putDigits(char[] target, int offset, int value, int width) {
+        for (int i = offset + width - 1; i >= offset; i--) {
+            target[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+    }
+}
@@ -11,14 +11,35 @@ public class UserManager {
     private static final String CSV_HEADER = "username,passwordHash,salt,role";
 
     public UserManager() {
+        this(true);
+    }
+
+    // 供 RemoteUserManager (客户端模式) 使用：由服务器验证用户，不读取本地文件
+    protected UserManager(boolean loadFromFile) {
         this.users = new ArrayList<>();
-        loadUsersFromFile();
+        if (loadFromFile) {
+            loadUsersFromFile();
+        }
     }
 
     private void loadUsersFromFile() {
+        StartupProfiler.Phase startupPhase = StartupProfiler.begin("users");
+        long startNanos = System.nanoTime();
+        AppEvents.FileIoEvent event = new AppEvents.FileIoEvent("load", "users");
+        event.begin();
+        try {
+            doLoadUsersFromFile();
+        } finally {
+            MetricsRegistry.histogram("file.load.users").recordSince(startNanos);
+            event.finish(users.size(), USERS_FILE_PATH);
+            startupPhase.end(users.size());
+        }
+    }
+
+    private void doLoadUsersFromFile() {
         File file = new File(USERS_FILE_PATH);
         if (!file.exists()) {
-            System.out.println("Users file not found: " + USERS_FILE_PATH + ". Attempting to create default admin.");
+            AppLog.info("Users file not found: " + USERS_FILE_PATH + ". Attempting to create default admin.");
             // Ensure data directory exists for potential save operations later
             File parentDir = file.getParentFile();
             if (parentDir != null && !parentDir.exists()) {
@@ -31,9 +52,9 @@ public class UserManager {
         try (BufferedReader br = new BufferedReader(new FileReader(file))) {
             String line = br.readLine();
             if (line == null || !line.trim().equalsIgnoreCase(CSV_HEADER)) {
-                System.err.println("Warning: Users CSV file header mismatch or file is empty. Expected: '" + CSV_HEADER + "'. Got: '" + (line != null ? line.trim() : "null") + "'");
+                AppLog.warn("Warning: Users CSV file header mismatch or file is empty. Expected: '" + CSV_HEADER + "'. Got: '" + (line != null ? line.trim() : "null") + "'");
                 if (this.users.isEmpty()) {
-                    System.out.println("Attempting to create default admin due to header issue or empty user list after file check.");
+                    AppLog.info("Attempting to create default admin due to header issue or empty user list after file check.");
                     createDefaultAdminUserIfNotExists(true);
                 }
                 return;
@@ -45,31 +66,43 @@ public class UserManager {
                 if (parts.length >= 4) {
                     users.add(new User(parts[0].trim(), parts[1].trim(), parts[2].trim(), parts[3].trim()));
                 } else {
-                    System.err.println("Skipping malformed user line (not enough parts): " + line);
+                    AppLog.warn("Skipping malformed user line (not enough parts): " + line);
                 }
             }
-            System.out.println(users.size() + " users loaded successfully from " + USERS_FILE_PATH);
+            AppLog.info(users.size() + " users loaded successfully from " + USERS_FILE_PATH);
 
             if (this.users.isEmpty()) {
-                System.out.println("No users found in file after loading. Attempting to create default admin.");
+                AppLog.info("No users found in file after loading. Attempting to create default admin.");
                 createDefaultAdminUserIfNotExists(true);
             }
 
         } catch (IOException e) {
-            System.err.println("Error loading users from file " + USERS_FILE_PATH + ": " + e.getMessage());
+            AppLog.error("Error loading users from file " + USERS_FILE_PATH + ": " + e.getMessage());
             if (this.users.isEmpty()) {
-                System.out.println("Attempting to create default admin due to IO error during load.");
+                AppLog.info("Attempting to create default admin due to IO error during load.");
                 createDefaultAdminUserIfNotExists(true);
             }
         }
     }
 
     public void saveUsersToFile() {
+        long startNanos = System.nanoTime();
+        AppEvents.FileIoEvent event = new AppEvents.FileIoEvent("save", "users");
+        event.begin();
+        try {
+            doSaveUsersToFile();
+        } finally {
+            MetricsRegistry.histogram("file.save.users").recordSince(startNanos);
+            event.finish(users.size(), USERS_FILE_PATH);
+        }
+    }
+
+    private void doSaveUsersToFile() {
         File file = new File(USERS_FILE_PATH);
         File parentDir = file.getParentFile(); // Should be "data" directory
         if (parentDir != null && !parentDir.exists()) {
             if (!parentDir.mkdirs()) {
-                System.err.println("Could not create directory for users file: " + parentDir.getPath());
+                AppLog.warn("Could not create directory for users file: " + parentDir.getPath());
                 return;
             }
         }
@@ -84,10 +117,9 @@ public class UserManager {
                         user.getRole()
                 ));
             }
-            System.out.println(users.size() + " users saved successfully to " + USERS_FILE_PATH);
+            AppLog.info(users.size() + " users saved successfully to " + USERS_FILE_PATH);
         } catch (IOException e) {
-            System.err.println("Error saving users to file " + USERS_FILE_PATH + ": " + e.getMessage());
-            e.printStackTrace();
+            AppLog.error("Error saving users to file " + USERS_FILE_PATH + ": " + e.getMessage(), e);
         }
     }
 
@@ -113,11 +145,11 @@ public class UserManager {
 
     public boolean addUser(String username, String password, String role) {
         if (username == null || username.trim().isEmpty() || password == null || password.isEmpty() || role == null || role.trim().isEmpty()) {
-            System.err.println("Error: Username, password, and role cannot be empty when adding a new user.");
+            AppLog.error("Error: Username, password, and role cannot be empty when adding a new user.");
             return false;
         }
         if (findUser(username).isPresent()) {
-            System.err.println("Error: User '" + username + "' already exists.");
+            AppLog.error("Error: User '" + username + "' already exists.");
             return false;
         }
         String salt = PasswordUtils.generateSalt();
@@ -125,62 +157,62 @@ public class UserManager {
         User newUser = new User(username, passwordHash, salt, role);
         boolean addedToList = this.users.add(newUser);
         if (addedToList) {
-            System.out.println("User '" + username + "' (Role: " + role + ") added to internal list.");
+            AppLog.info("User '" + username + "' (Role: " + role + ") added to internal list.");
         } else {
-            System.err.println("Failed to add user '" + username + "' to internal list.");
+            AppLog.warn("Failed to add user '" + username + "' to internal list.");
         }
         return addedToList;
     }
 
     public void createDefaultAdminUserIfNotExists(boolean saveToFileAfterCreation) {
         if (findUser("admin").isEmpty()) {
-            System.out.println("Default admin user 'admin' not found in memory. Attempting to create with password 'admin'.");
+            AppLog.info("Default admin user 'admin' not found in memory. Attempting to create with password 'admin'.");
             boolean addedSuccessfully = addUser("admin", "admin", "Admin");
 
             if (addedSuccessfully && saveToFileAfterCreation) {
-                System.out.println("Default admin user created locally, now saving all users to file.");
+                AppLog.info("Default admin user created locally, now saving all users to file.");
                 saveUsersToFile();
             } else if (!addedSuccessfully) {
-                System.err.println("Failed to create default admin user 'admin' locally (addUser returned false).");
+                AppLog.warn("Failed to create default admin user 'admin' locally (addUser returned false).");
             } else { // addedSuccessfully && !saveToFileAfterCreation
-                System.out.println("Default admin user 'admin' created locally but not saved to file immediately (saveToFileAfterCreation was false).");
+                AppLog.info("Default admin user 'admin' created locally but not saved to file immediately (saveToFileAfterCreation was false).");
             }
         } else {
-            System.out.println("Default admin user 'admin' already exists in memory.");
+            AppLog.info("Default admin user 'admin' already exists in memory.");
         }
     }
 
     public static void main(String[] args) {
-        System.out.println("Testing UserManager (data in " + DATA_DIRECTORY + ")...");
+        AppLog.info("Testing UserManager (data in " + DATA_DIRECTORY + ")...");
         UserManager userManager = new UserManager();
 
         if (userManager.findUser("admin").isEmpty()) {
-            System.out.println("Admin user still not found after UserManager construction, explicitly calling createDefaultAdminUserIfNotExists again.");
+            AppLog.info("Admin user still not found after UserManager construction, explicitly calling createDefaultAdminUserIfNotExists again.");
             userManager.createDefaultAdminUserIfNotExists(true);
         }
 
-        System.out.println("\n--- Testing Authentication ---");
+        AppLog.info("\n--- Testing Authentication ---");
         Optional<User> authUser = userManager.authenticateUser("admin", "admin");
         if (authUser.isPresent()) {
-            System.out.println("SUCCESS: Authentication for 'admin'/'admin' successful. Role: " + authUser.get().getRole());
+            AppLog.info("SUCCESS: Authentication for 'admin'/'admin' successful. Role: " + authUser.get().getRole());
         } else {
-            System.err.println("FAILURE: Authentication for 'admin'/'admin' failed.");
+            AppLog.warn("FAILURE: Authentication for 'admin'/'admin' failed.");
         }
 
         Optional<User> authFailUser = userManager.authenticateUser("admin", "wrongpassword");
         if (authFailUser.isEmpty()) {
-            System.out.println("SUCCESS: Authentication for 'admin'/'wrongpassword' failed as expected.");
+            AppLog.info("SUCCESS: Authentication for 'admin'/'wrongpassword' failed as expected.");
         } else {
-            System.err.println("FAILURE: Authentication for 'admin'/'wrongpassword' unexpectedly succeeded.");
+            AppLog.warn("FAILURE: Authentication for 'admin'/'wrongpassword' unexpectedly succeeded.");
         }
 
         Optional<User> noSuchUser = userManager.authenticateUser("nouser", "anypassword");
         if (noSuchUser.isEmpty()) {
-            System.out.println("SUCCESS: Authentication for 'nouser' failed as expected (user does not exist).");
+            AppLog.info("SUCCESS: Authentication for 'nouser' failed as expected (user does not exist).");
         } else {
-            System.err.println("FAILURE: Authentication for 'nouser' unexpectedly succeeded.");
+            AppLog.warn("FAILURE: Authentication for 'nouser' unexpectedly succeeded.");
         }
 
-        System.out.println("\nUserManager test finished.");
+        AppLog.info("\nUserManager test finished.");
     }
 }
@@ -2,7 +2,7 @@
 import java.util.stream.Collectors;
 import javax.swing.*;
 import javax.swing.table.DefaultTableModel;
-import javax.swing.table.TableRowSorter;
+import javax.swing.table.DefaultTableCellRenderer;
 import java.awt.*;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
@@ -21,6 +21,7 @@ public class ViewOrdersWindow extends JDialog {
 
     private JTable ordersTable;
     private DefaultTableModel ordersTableModel;
+    private IndexedRowSorter<DefaultTableModel> ordersSorter;
     private JTable orderItemsTable; // For details of a selected order
     private DefaultTableModel orderItemsTableModel;
     private JButton closeButton, viewDetailsButton, receiveItemsButton, cancelOrderButton; // Added cancelOrderButton
@@ -50,10 +51,19 @@ public class ViewOrdersWindow extends JDialog {
         String[] ordersColumns = {"Order ID", "Supplier ID", "Supplier Name", "Order Date", "Status", "Total Cost"};
         ordersTableModel = new DefaultTableModel(ordersColumns, 0) {
             @Override public boolean isCellEditable(int row, int col) { return false; }
+            // Total Cost is stored as a Double so it sorts by value; the renderer formats it
+            @Override public Class<?> getColumnClass(int col) { return col == 5 ? Double.class : Object.class; }
         };
         ordersTable = new JTable(ordersTableModel);
         ordersTable.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
-        ordersTable.setAutoCreateRowSorter(true); // Enable sorting
+        ordersTable.setDefaultRenderer(Double.class, new DefaultTableCellRenderer() {
+            { setHorizontalAlignment(RIGHT); }
+            @Override protected void setValue(Object value) {
+                setText(value instanceof Number ? CURRENCY_FORMAT.format(((Number) value).doubleValue()) : "");
+            }
+        });
+        ordersSorter = new IndexedRowSorter<>(ordersTableModel); // Enable sorting; sorted orders are cached per column
+        ordersTable.setRowSorter(ordersSorter);
 
         // Order Items Table (Detail)
         String[] itemColumns = {"SKU", "Name", "Ordered", "Received", "Unit Price", "Subtotal"};
@@ -160,6 +170,7 @@ public class ViewOrdersWindow extends JDialog {
     }
 
     private void loadOrdersData() {
+        ordersTable.setRowSorter(null); // Re-attached below, after all rows are added
         ordersTableModel.setRowCount(0); // Clear existing data
         orderItemsTableModel.setRowCount(0); // Clear details
         selectedOrder = null;
@@ -169,7 +180,7 @@ public class ViewOrdersWindow extends JDialog {
         List<Order> ordersToShow;
 
         if (filterStatus == null || "All".equalsIgnoreCase(filterStatus)) {
-            ordersToShow = orderManager.getAllOrders();
+            ordersToShow = orderManager.getAllOrdersView();
         } else {
             ordersToShow = orderManager.getOrdersByStatus(filterStatus);
         }
@@ -192,9 +203,11 @@ public class ViewOrdersWindow extends JDialog {
                     supplierName,
                     order.getOrderDateString(), // Use formatted date string
                     order.getStatus(),
-                    CURRENCY_FORMAT.format(order.getTotalCost())
+                    order.getTotalCost()
             });
         }
+        ordersSorter.allRowsChanged(); // Index the new rows once; the user's sort column is kept
+        ordersTable.setRowSorter(ordersSorter);
         if (ordersTable.getRowCount() > 0) {
             ordersTable.setRowSelectionInterval(0,0); // Select first row by default
         }
@@ -204,7 +217,7 @@ public class ViewOrdersWindow extends JDialog {
         orderItemsTableModel.setRowCount(0);
         if (order == null) return;
 
-        for (OrderItem oi : order.getItems()) {
+        for (OrderItem oi : order.getItemsView()) {
             orderItemsTableModel.addRow(new Object[]{
                     oi.getItemSKU(),
                     oi.getItemName(),
@@ -255,7 +268,7 @@ public class ViewOrdersWindow extends JDialog {
         gbc.anchor = GridBagConstraints.WEST;
         int gridY = 0;
 
-        List<OrderItem> itemsToReceive = selectedOrder.getItems().stream()
+        List<OrderItem> itemsToReceive = selectedOrder.getItemsView().stream()
                 .filter(oi -> oi.getReceivedQuantity() < oi.getOrderedQuantity())
                 .collect(Collectors.toList());
 
@@ -289,23 +302,23 @@ public class ViewOrdersWindow extends JDialog {
                 JOptionPane.OK_CANCEL_OPTION, JOptionPane.PLAIN_MESSAGE);
 
         if (result == JOptionPane.OK_OPTION) {
-            boolean anyItemReceivedThisSession = false;
+            List<ReceiptLine> receiptLines = new ArrayList<>();
             for (int i = 0; i < displayedItems.size(); i++) {
                 OrderItem oi = displayedItems.get(i);
                 int qtyToReceiveNow = (Integer) spinners.get(i).getValue();
                 if (qtyToReceiveNow > 0) {
-                    if (orderManager.receiveOrderItem(selectedOrder, oi, qtyToReceiveNow)) {
-                        anyItemReceivedThisSession = true;
-                    } else {
-                        // Error message already shown by receiveOrderItem or OrderItem
-                    }
+                    receiptLines.add(new ReceiptLine(selectedOrder.getOrderID(), oi.getItemSKU(), qtyToReceiveNow));
                 }
             }
-            if (anyItemReceivedThisSession) {
-                JOptionPane.showMessageDialog(this, "Item receipts processed. Inventory updated.", "Receipts Processed", JOptionPane.INFORMATION_MESSAGE);
-                ownerWindow.loadInventoryData(); // Crucial: Refresh main inventory table
+            if (!receiptLines.isEmpty()) {
+                // Applied as one document: all lines or none, one status re-evaluation for the order
+                if (orderManager.receiveOrderItems(receiptLines)) {
+                    JOptionPane.showMessageDialog(this, "Item receipts processed. Inventory updated.", "Receipts Processed", JOptionPane.INFORMATION_MESSAGE);
+                    ownerWindow.loadInventoryData(); // Crucial: Refresh main inventory table
+                } else {
+                    JOptionPane.showMessageDialog(this, "The receipt could not be applied. No quantities were changed.\nSee the log for details.", "Receiving Failed", JOptionPane.ERROR_MESSAGE);
+                }
             }
-            // Order status is updated within receiveOrderItem via order.updateOrderStatusBasedOnReceipts()
             loadOrdersData(); // Refresh this window's order list (shows updated status and item details)
             if(selectedOrder != null) loadOrderItems(selectedOrder); // Refresh details pane
         }
@@ -101,7 +101,7 @@ public class ViewSalesReturnsWindow extends JDialog {
 
     private void loadReturnsData() {
         returnsTableModel.setRowCount(0);
-        List<SalesReturn> allReturns = salesReturnManager.getAllSalesReturns();
+        List<SalesReturn> allReturns = salesReturnManager.getAllSalesReturnsView();
         for (SalesReturn sr : allReturns) {
             returnsTableModel.addRow(new Object[]{
                     sr.getReturnID(),
@@ -127,7 +127,7 @@ public class ViewSalesReturnsWindow extends JDialog {
         Optional<SalesReturn> srOpt = salesReturnManager.getSalesReturnById(returnId);
         if(srOpt.isPresent()){
             SalesReturn sr = srOpt.get();
-            for(SalesReturnItem sri : sr.getReturnedItems()){
+            for(SalesReturnItem sri : sr.getReturnedItemsView()){
                 returnItemsTableModel.addRow(new Object[]{
                         sri.getItemSKU(),
                         sri.getItemName(),
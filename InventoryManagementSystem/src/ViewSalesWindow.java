@@ -1,21 +1,27 @@
 // ViewSalesWindow.java
 import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
 import javax.swing.table.DefaultTableModel;
-import javax.swing.table.TableRowSorter;
+import javax.swing.table.DefaultTableCellRenderer;
 import java.awt.*;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.text.DecimalFormat;
 import java.text.DecimalFormatSymbols;
-import java.text.SimpleDateFormat; // For table date display
 import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
-import java.util.Date; // For Sale.getSaleDate()
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
-import java.util.Optional;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.BiPredicate;
 import javax.swing.RowSorter; // Added for SortKey
 import javax.swing.SortOrder; // Added for SortOrder
 
@@ -29,11 +35,22 @@ public class ViewSalesWindow extends JDialog {
     private JTextField saleIdSearchField, dateFromField, dateToField;
     private JButton searchButton, clearSearchButton, createReturnButton, viewSaleDetailsButton, closeButton;
     private JTable salesTable;
-    private DefaultTableModel salesTableModel;
+    private SalesTableModel salesTableModel;
+    private IndexedRowSorter<SalesTableModel> salesSorter;
+    private IncrementalSearch<Sale> saleSearch;
+    private static final int SEARCH_DEBOUNCE_MS = 250;
+    // Without a search, the sales history is paged in newest first as the user scrolls
+    private static final int PAGE_SIZE = 200;
+    private static final int PREFETCH_ROWS = 100; // Load the next page when this close to the last loaded row
+    private boolean pagingActive = false;
+    private SalesTimeIndex.Cursor nextPageCursor;
+    private boolean pageLoadScheduled = false;
+    private boolean dateFilterActive = false;
+    private List<Sale> archivedRangeSales = Collections.emptyList(); // Read-only sales from archived months, for a date search
+    private YearMonth archivedIdMonth; // Month named by the typed sale ID; its archived sales are in the search source
     private JTable saleItemsTable;
     private DefaultTableModel saleItemsTableModel;
 
-    private static final SimpleDateFormat TABLE_DATE_FORMAT = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
     private static final DateTimeFormatter INPUT_DATE_FORMATTER = DateTimeFormatter.ISO_LOCAL_DATE;
     private static final DecimalFormat CURRENCY_FORMAT = new DecimalFormat("$#,##0.00", new DecimalFormatSymbols(Locale.US));
 
@@ -68,13 +85,22 @@ public class ViewSalesWindow extends JDialog {
         viewSaleDetailsButton.setEnabled(false);
         closeButton = new JButton("Close");
 
-        String[] salesColumns = {"Sale ID", "Sale Date", "Total Amount", "Status"};
-        salesTableModel = new DefaultTableModel(salesColumns, 0) {
-            @Override public boolean isCellEditable(int row, int col) { return false; }
-        };
+        salesTableModel = new SalesTableModel(); // Rows are the Sale objects; dates and amounts sort by value
         salesTable = new JTable(salesTableModel);
         salesTable.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
-        salesTable.setAutoCreateRowSorter(true); // Enable user sorting
+        salesTable.getColumnModel().getColumn(SalesTableModel.SALE_DATE_COLUMN).setCellRenderer(new DefaultTableCellRenderer() {
+            @Override protected void setValue(Object value) {
+                setText(value instanceof Long ? Timestamps.formatDisplay((Long) value) : "");
+            }
+        });
+        salesTable.setDefaultRenderer(Double.class, new DefaultTableCellRenderer() {
+            { setHorizontalAlignment(RIGHT); }
+            @Override protected void setValue(Object value) {
+                setText(value instanceof Number ? CURRENCY_FORMAT.format(((Number) value).doubleValue()) : "");
+            }
+        });
+        salesSorter = new IndexedRowSorter<>(salesTableModel); // Enable user sorting; sorted orders are cached per column
+        salesTable.setRowSorter(salesSorter);
 
         String[] itemColumns = {"SKU", "Name", "Qty Sold", "Unit Price", "Subtotal"};
         saleItemsTableModel = new DefaultTableModel(itemColumns, 0) {
@@ -106,6 +132,7 @@ public class ViewSalesWindow extends JDialog {
 
         JScrollPane salesScrollPane = new JScrollPane(salesTable);
         salesScrollPane.setBorder(BorderFactory.createTitledBorder("Sales List"));
+        salesScrollPane.getViewport().addChangeListener(e -> prefetchIfNearEnd());
         JScrollPane itemsScrollPane = new JScrollPane(saleItemsTable);
         itemsScrollPane.setBorder(BorderFactory.createTitledBorder("Sale Item Details"));
         JSplitPane splitPane = new JSplitPane(JSplitPane.VERTICAL_SPLIT, salesScrollPane, itemsScrollPane);
@@ -122,22 +149,24 @@ public class ViewSalesWindow extends JDialog {
     private void attachEventHandlers() {
         closeButton.addActionListener(e -> dispose());
         searchButton.addActionListener(e -> performSearch());
+        // Sale ID search as you type; the date range from the last Search click still applies
+        saleSearch = new IncrementalSearch<>("sales", SEARCH_DEBOUNCE_MS,
+                this::searchSource,
+                saleMatcher(null), (query, results) -> showSearchResults(results));
+        saleIdSearchField.getDocument().addDocumentListener(new DocumentListener() {
+            @Override public void insertUpdate(DocumentEvent e) { saleIdTextChanged(); }
+            @Override public void removeUpdate(DocumentEvent e) { saleIdTextChanged(); }
+            @Override public void changedUpdate(DocumentEvent e) { saleIdTextChanged(); }
+        });
+        saleIdSearchField.addActionListener(e -> performSearch());
         clearSearchButton.addActionListener(e -> clearSearchFieldsAndReload());
 
         salesTable.getSelectionModel().addListSelectionListener(e -> {
             if (!e.getValueIsAdjusting() && salesTable.getSelectedRow() != -1) {
                 int modelRow = salesTable.convertRowIndexToModel(salesTable.getSelectedRow());
-                String saleId = (String) salesTableModel.getValueAt(modelRow, 0);
-                Optional<Sale> saleOpt = salesManager.getSaleById(saleId);
-                if (saleOpt.isPresent()) {
-                    selectedSale = saleOpt.get();
-                    loadSaleItemDetails(selectedSale);
-                    updateActionButtonsForSelectedSale();
-                } else {
-                    selectedSale = null;
-                    saleItemsTableModel.setRowCount(0);
-                    updateActionButtonsForSelectedSale();
-                }
+                selectedSale = salesTableModel.getSaleAt(modelRow); // The row is the Sale itself, no lookup by ID
+                loadSaleItemDetails(selectedSale);
+                updateActionButtonsForSelectedSale();
             } else if (salesTable.getSelectedRow() == -1) {
                 selectedSale = null;
                 saleItemsTableModel.setRowCount(0);
@@ -203,81 +232,150 @@ public class ViewSalesWindow extends JDialog {
         String saleIdQuery = saleIdSearchField.getText().trim();
         String dateFromString = dateFromField.getText().trim();
         String dateToString = dateToField.getText().trim();
-        List<Sale> salesResult;
+        LocalDate startDate = null;
+        LocalDate endDate = null;
 
-        if (!saleIdQuery.isEmpty()) {
-            Optional<Sale> saleOpt = salesManager.getSaleById(saleIdQuery);
-            salesResult = new ArrayList<>();
-            saleOpt.ifPresent(salesResult::add);
-        } else if (!dateFromString.isEmpty() && !dateToString.isEmpty()) {
+        if (!dateFromString.isEmpty() && !dateToString.isEmpty()) {
             try {
-                LocalDate startDate = LocalDate.parse(dateFromString, INPUT_DATE_FORMATTER);
-                LocalDate endDate = LocalDate.parse(dateToString, INPUT_DATE_FORMATTER);
+                startDate = LocalDate.parse(dateFromString, INPUT_DATE_FORMATTER);
+                endDate = LocalDate.parse(dateToString, INPUT_DATE_FORMATTER);
                 if (endDate.isBefore(startDate)) {
                     JOptionPane.showMessageDialog(this, "End date cannot be before start date.", "Date Range Error", JOptionPane.ERROR_MESSAGE);
                     return;
                 }
-                salesResult = salesManager.getCompletedSalesByDateRange(startDate, endDate);
             } catch (DateTimeParseException e) {
                 JOptionPane.showMessageDialog(this, "Invalid date format. Please use YYYY-MM-DD.", "Date Format Error", JOptionPane.ERROR_MESSAGE);
                 return;
             }
         } else if (!dateFromString.isEmpty() && dateToString.isEmpty()){
             try {
-                LocalDate startDate = LocalDate.parse(dateFromString, INPUT_DATE_FORMATTER);
-                salesResult = salesManager.getCompletedSalesByDateRange(startDate, LocalDate.now().plusDays(1)); // To include today fully
+                startDate = LocalDate.parse(dateFromString, INPUT_DATE_FORMATTER);
+                endDate = LocalDate.now().plusDays(1); // To include today fully
             } catch (DateTimeParseException e) {
                 JOptionPane.showMessageDialog(this, "Invalid date format for 'Date From'. Please use YYYY-MM-DD.", "Date Format Error", JOptionPane.ERROR_MESSAGE);
                 return;
             }
+        }
+        dateFilterActive = (startDate != null);
+        archivedRangeSales = dateFilterActive ? salesManager.getArchivedSales(startDate, endDate) : Collections.emptyList();
+        if (saleIdQuery.isEmpty() && !dateFilterActive) {
+            saleSearch.setMatcher(saleMatcher(null));
+            showSalesHistory();
+            return;
+        }
+        // No dates: all sales (any status). With dates: completed sales in the range, as getCompletedSalesByDateRange.
+        saleSearch.setMatcher(saleMatcher(startDate == null ? null : new long[]{
+                startDate.atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli(),
+                endDate.plusDays(1).atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli()}));
+        saleSearch.searchNow(saleIdQuery); // Matched on the search thread; populateSalesTable runs when done
+    }
+
+    // Sales in memory, copied on the EDT where the sales list is changed, plus the archived months of the date range
+    // and of the month in the typed sale ID (e.g. "SALE-202403..."), so older sales can be found by ID
+    private List<Sale> searchSource() {
+        List<Sale> source = new ArrayList<>(salesManager.getAllSalesView());
+        source.addAll(archivedRangeSales);
+        String idText = saleIdSearchField.getText().trim();
+        archivedIdMonth = SalesPartitionStore.monthFromId(idText);
+        List<Sale> archivedById = salesManager.getArchivedSalesForId(idText);
+        if (!archivedById.isEmpty()) {
+            Set<String> inRange = new HashSet<>();
+            for (Sale sale : archivedRangeSales) inRange.add(sale.getSaleID());
+            for (Sale sale : archivedById) {
+                if (!inRange.contains(sale.getSaleID())) source.add(sale);
+            }
+        }
+        return source;
+    }
+
+    // Sale ID contains the query; if range ({fromMillis, toMillisExclusive}) is given, only completed sales inside it
+    private static BiPredicate<Sale, String> saleMatcher(long[] range) {
+        return (sale, query) -> {
+            if (sale == null) return false;
+            if (range != null) {
+                if (!Sale.STATUS_COMPLETED.equals(sale.getStatus())) return false;
+                long millis = sale.getSaleDateMillis();
+                if (millis < range[0] || millis >= range[1]) return false;
+            }
+            return query.isEmpty() || (sale.getSaleID() != null && sale.getSaleID().toLowerCase().contains(query));
+        };
+    }
+
+    private void saleIdTextChanged() {
+        if (saleIdSearchField.getText().trim().isEmpty() && !dateFilterActive) {
+            showSalesHistory(); // Nothing to search for: back to the paged history
         } else {
-            salesResult = salesManager.getAllSales(); // Default: load all sales
-            // Consider filtering to only "Completed" by default for performance if list is large
-            // salesResult = salesManager.getAllSales().stream().filter(s -> Sale.STATUS_COMPLETED.equals(s.getStatus())).collect(Collectors.toList());
+            if (!Objects.equals(SalesPartitionStore.monthFromId(saleIdSearchField.getText().trim()), archivedIdMonth)) {
+                saleSearch.invalidate(); // The ID names another month: rescan with that month's archive instead of refining
+            }
+            saleSearch.queryChanged(saleIdSearchField.getText());
+        }
+    }
+
+    // First page of all sales, newest first; further pages (archived months after the ones in memory) are loaded by prefetchIfNearEnd
+    private void showSalesHistory() {
+        saleSearch.cancel();
+        SalesTimeIndex.Page page = salesManager.getSalesPage(null, PAGE_SIZE);
+        populateSalesTable(page.getSales());
+        nextPageCursor = page.getNext();
+        pagingActive = true;
+        prefetchIfNearEnd();
+    }
+
+    private void showSearchResults(List<Sale> results) {
+        pagingActive = false;
+        nextPageCursor = null;
+        populateSalesTable(results);
+    }
+
+    // Called when the sales list scrolls or resizes
+    private void prefetchIfNearEnd() {
+        if (!pagingActive || nextPageCursor == null || pageLoadScheduled) return;
+        Rectangle visible = salesTable.getVisibleRect();
+        int lastVisibleRow = salesTable.rowAtPoint(new Point(0, visible.y + visible.height - 1));
+        if (lastVisibleRow == -1) lastVisibleRow = salesTable.getRowCount() - 1; // Viewport extends past the last row
+        if (lastVisibleRow >= salesTable.getRowCount() - PREFETCH_ROWS) {
+            pageLoadScheduled = true;
+            SwingUtilities.invokeLater(this::loadNextPage); // Not while the viewport is notifying its listeners
         }
-        populateSalesTable(salesResult);
+    }
+
+    // A page is a binary search plus PAGE_SIZE rows in the time index, so it is read on the EDT;
+    // past the months in memory it reads one archived month at a time (kept in the archive's LRU cache)
+    private void loadNextPage() {
+        pageLoadScheduled = false;
+        if (!pagingActive || nextPageCursor == null) return;
+        SalesTimeIndex.Page page = salesManager.getSalesPage(nextPageCursor, PAGE_SIZE);
+        nextPageCursor = page.getNext();
+        salesTableModel.appendRows(page.getSales()); // Merged into the current sort order by the sorter
+        prefetchIfNearEnd();
+    }
+
+    @Override
+    public void dispose() {
+        if (saleSearch != null) saleSearch.dispose();
+        super.dispose();
     }
 
     private void populateSalesTable(List<Sale> sales) {
-        salesTableModel.setRowCount(0);
+        salesTableModel.setRows(sales); // One data-changed event; no row objects are built
         saleItemsTableModel.setRowCount(0);
         selectedSale = null;
         // updateActionButtonsForSelectedSale(); // Will be called by selection listener or if table is empty
 
-        if (sales != null) {
-            for (Sale sale : sales) {
-                salesTableModel.addRow(new Object[]{
-                        sale.getSaleID(),
-                        TABLE_DATE_FORMAT.format(sale.getSaleDate()), // Display formatted date string
-                        CURRENCY_FORMAT.format(sale.getTotalAmount()),
-                        sale.getStatus()
-                });
-            }
-        }
-
         // --- Apply default sort by Sale Date (column 1) DESCENDING ---
-        TableRowSorter<?> sorter = (TableRowSorter<?>) salesTable.getRowSorter();
-        // Ensure sorter exists
-        if (sorter == null && salesTableModel.getRowCount() > 0) {
-            sorter = new TableRowSorter<>(salesTableModel);
-            salesTable.setRowSorter(sorter);
-        }
-
-        if (sorter != null) {
-            List<RowSorter.SortKey> sortKeys = new ArrayList<>();
-            // Assuming "Sale Date" is the second column (index 1 in the model)
-            int saleDateColumnModelIndex = 1;
-            // Find column index by name to be more robust
-            for(int i=0; i < salesTableModel.getColumnCount(); i++){
-                if("Sale Date".equalsIgnoreCase(salesTableModel.getColumnName(i))){
-                    saleDateColumnModelIndex = i;
-                    break;
-                }
+        List<RowSorter.SortKey> sortKeys = new ArrayList<>();
+        // Assuming "Sale Date" is the second column (index 1 in the model)
+        int saleDateColumnModelIndex = 1;
+        // Find column index by name to be more robust
+        for(int i=0; i < salesTableModel.getColumnCount(); i++){
+            if("Sale Date".equalsIgnoreCase(salesTableModel.getColumnName(i))){
+                saleDateColumnModelIndex = i;
+                break;
             }
-            sortKeys.add(new RowSorter.SortKey(saleDateColumnModelIndex, SortOrder.DESCENDING));
-            sorter.setSortKeys(sortKeys);
-            // sorter.sort(); // Usually not needed as setSortKeys triggers it.
         }
+        sortKeys.add(new RowSorter.SortKey(saleDateColumnModelIndex, SortOrder.DESCENDING));
+        salesSorter.setSortKeys(sortKeys);
         // --- Default sort applied ---
 
         if (salesTable.getRowCount() > 0) {
@@ -290,7 +388,7 @@ public class ViewSalesWindow extends JDialog {
     private void loadSaleItemDetails(Sale sale) {
         saleItemsTableModel.setRowCount(0);
         if (sale == null) return;
-        for (Sale.SaleItem si : sale.getItemsSold()) {
+        for (Sale.SaleItem si : sale.getItemsSoldView()) {
             saleItemsTableModel.addRow(new Object[]{
                     si.getSku(),
                     si.getItemName(),